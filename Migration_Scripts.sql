@@ -0,0 +1,97 @@
+-- ==========================================================
+-- Schema changes applied on top of Lecture_Scripts.sql.
+-- Run them once, in order, against student_db.
+-- ==========================================================
+
+USE student_db;
+
+
+-- 1) INDEX: attendance_date
+-- "Everyone on a given day or week" filters on attendance_date alone.
+-- The UNIQUE (student_id, attendance_date) index cannot be used for that,
+-- because attendance_date is its second column, so MySQL would scan the whole table.
+-- With this index the query becomes an index range scan.
+-- InnoDB appends the primary key (id) to every secondary index,
+-- so ORDER BY attendance_date, id is also served by this index.
+CREATE INDEX idx_attendance_date ON attendance (attendance_date);
+
+-- Check the plan: "type" should be "range" and "key" should be idx_attendance_date.
+EXPLAIN SELECT * FROM attendance WHERE attendance_date BETWEEN '2024-01-01' AND '2024-01-07';
+
+
+-- 2) TABLES: change_outbox and change_feed_checkpoint
+-- Every save/update/delete in the DAOs also inserts one row here, in the same transaction,
+-- so a change is in the outbox if and only if it was committed (the "transactional outbox").
+-- Consumers (reporting, search, cache nodes) read the outbox in seq order with se.lexicon.feed.ChangeFeed
+-- instead of re-reading whole tables.
+-- The outbox only says which row changed; consumers read the row itself if they need its values
+-- (a DELETE has nothing left to read).
+CREATE TABLE IF NOT EXISTS change_outbox (
+    seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,          -- order of the changes, the consumers' high-water mark
+    table_name VARCHAR(64) NOT NULL,                         -- 'student' or 'attendance'
+    row_id INT NOT NULL,                                     -- id of the changed row
+    operation ENUM('INSERT', 'UPDATE', 'DELETE') NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+-- One row per consumer: the highest seq it has fully processed.
+-- After a crash the consumer starts again after last_seq, so a change can be delivered twice
+-- but never lost (at-least-once delivery).
+CREATE TABLE IF NOT EXISTS change_feed_checkpoint (
+    consumer_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    last_seq BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Read the next batch for a consumer: a range scan on the primary key.
+EXPLAIN SELECT seq, table_name, row_id, operation, created_at FROM change_outbox WHERE seq > 0 ORDER BY seq LIMIT 500;
+
+
+-- 3) PARTITIONING: attendance by term, plus the attendance_archive table
+-- attendance grows every school day. Range partitions on attendance_date keep every
+-- date-range query inside the partitions it needs ("partition pruning"), and an emptied
+-- old partition can be dropped instantly instead of being purged row by row.
+-- Closed terms are moved to compressed files by se.lexicon.archive.AttendanceArchive
+-- (run ArchiveApp nightly); AttendanceDao reads them again through ArchiveAwareAttendanceDao.
+--
+-- MySQL rules for partitioned tables:
+-- - Every unique key must contain the partitioning column, so the primary key becomes (id, attendance_date).
+--   id is still AUTO_INCREMENT and unique; findById(id) now probes every partition.
+--   UNIQUE (student_id, attendance_date) already contains it.
+-- - InnoDB partitioned tables cannot have foreign keys, so attendance -> student is no longer
+--   checked by the database. The DAOs check it instead (se.lexicon.dao.StudentReferences):
+--   attendance writes lock their students FOR SHARE and fail if one is missing, and deleting a
+--   student fails while attendance rows point to it. Bulk imports (BulkLoader) are not checked.
+--   (attendance_ibfk_1 is the name MySQL gave the unnamed FOREIGN KEY in Lecture_Scripts.sql.)
+ALTER TABLE attendance DROP FOREIGN KEY attendance_ibfk_1;
+ALTER TABLE attendance DROP PRIMARY KEY, ADD PRIMARY KEY (id, attendance_date);
+
+-- One partition per term (spring = January-July, autumn = August-December).
+-- Monthly partitions work the same way, see se.lexicon.archive.PartitionScheme.
+-- pmax catches everything newer; the archive job splits it before a new term starts.
+ALTER TABLE attendance PARTITION BY RANGE COLUMNS (attendance_date) (
+    PARTITION p2023_autumn VALUES LESS THAN ('2024-01-01'),
+    PARTITION p2024_spring VALUES LESS THAN ('2024-08-01'),
+    PARTITION p2024_autumn VALUES LESS THAN ('2025-01-01'),
+    PARTITION p2025_spring VALUES LESS THAN ('2025-08-01'),
+    PARTITION p2025_autumn VALUES LESS THAN ('2026-01-01'),
+    PARTITION p2026_spring VALUES LESS THAN ('2026-08-01'),
+    PARTITION p2026_autumn VALUES LESS THAN ('2027-01-01'),
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- Check pruning: "partitions" should list only p2024_spring.
+EXPLAIN SELECT * FROM attendance WHERE attendance_date BETWEEN '2024-01-01' AND '2024-01-31';
+
+-- One row per archived period. Periods are archived oldest first, so everything
+-- before MAX(until_date) is in an archive file (plus rows written after the export, which stay live).
+CREATE TABLE IF NOT EXISTS attendance_archive (
+    period_name VARCHAR(32) NOT NULL PRIMARY KEY,             -- e.g. '2024-spring' or '2024-03'
+    from_date DATE NOT NULL,                                  -- first day in the file
+    until_date DATE NOT NULL,                                 -- first day after the file
+    file_name VARCHAR(255) NOT NULL,                          -- gzip CSV in the archive directory
+    row_count INT NOT NULL,
+    max_id INT NOT NULL,                                      -- highest exported id; only live rows still equal to the file are deleted
+    status ENUM('DELETING', 'DONE') NOT NULL,                 -- DELETING: live rows are still being removed
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,165 @@
+package se.lexicon.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for {@link AttendanceDaoImpl} at different table sizes.
+ * <p>
+ * Writes go to a dedicated student on dates far after the seeded data,
+ * so they never collide with the (student_id, attendance_date) unique key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AttendanceDaoBenchmark {
+
+    private static final int STUDENTS = 1000;
+    private static final int BATCH_SIZE = 100;
+    private static final int WEEK = 7;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private EmbeddedDatabase database;
+    private Connection connection;
+    private AttendanceDao attendanceDao;
+    private AttendanceDao batchingAttendanceDao;
+    private Student writer;
+    private LocalDate nextWriteDate;
+    private int maxId;
+    private int[] studentIds;
+    private int days;
+    private final SplittableRandom random = new SplittableRandom(DataGenerator.DEFAULT_SEED);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        DataGenerator generator = new DataGenerator();
+        database = EmbeddedDatabase.create();
+        List<Student> students = database.seed(generator, STUDENTS, rows);
+
+        connection = database.getDataSource().getConnection();
+        attendanceDao = new AttendanceDaoImpl(connection);
+        batchingAttendanceDao = new AttendanceDaoImpl(connection, new BatchConfig(BATCH_SIZE, true));
+        writer = students.getFirst();
+        nextWriteDate = LocalDate.of(3000, 1, 1);
+        maxId = rows;
+        studentIds = students.stream().mapToInt(Student::getId).toArray();
+        days = Math.max(1, rows / STUDENTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Attendance save() {
+        return attendanceDao.save(new Attendance(writer, nextDate(), AttendanceStatus.PRESENT));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Attendance> saveAllBatched() {
+        List<Attendance> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new Attendance(writer, nextDate(), AttendanceStatus.ABSENT));
+        }
+        return batchingAttendanceDao.saveAll(batch);
+    }
+
+    @Benchmark
+    public Optional<Attendance> findById() {
+        return attendanceDao.findById(1 + random.nextInt(maxId));
+    }
+
+    /**
+     * One student's month: range scan on UNIQUE (student_id, attendance_date).
+     */
+    @Benchmark
+    public List<Attendance> findByStudent() {
+        LocalDate from = randomDay();
+        return attendanceDao.findByStudent(studentIds[random.nextInt(studentIds.length)], from, from.plusDays(30));
+    }
+
+    /**
+     * Everyone in one week: range scan on idx_attendance_date.
+     */
+    @Benchmark
+    public List<Attendance> findByDateRange() {
+        LocalDate from = randomDay();
+        return attendanceDao.findByDateRange(from, from.plusDays(WEEK - 1));
+    }
+
+    /**
+     * Baseline for findByDateRange: what callers did before, filtering a full scan in memory.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Attendance> findByDateRangeInMemory() {
+        LocalDate from = randomDay();
+        LocalDate to = from.plusDays(WEEK - 1);
+        try (Stream<Attendance> attendances = attendanceDao.streamAll()) {
+            return attendances
+                    .filter(a -> !a.getAttendanceDate().isBefore(from) && !a.getAttendanceDate().isAfter(to))
+                    .toList();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Attendance> findAll() {
+        return attendanceDao.findAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void streamAll(Blackhole blackhole) {
+        try (Stream<Attendance> attendances = attendanceDao.streamAll()) {
+            attendances.forEach(blackhole::consume);
+        }
+    }
+
+    private LocalDate randomDay() {
+        return EmbeddedDatabase.FIRST_DAY.plusDays(random.nextInt(days));
+    }
+
+    private LocalDate nextDate() {
+        LocalDate date = nextWriteDate;
+        nextWriteDate = nextWriteDate.plusDays(1);
+        return date;
+    }
+}
@@ -0,0 +1,74 @@
+package se.lexicon.benchmarks;
+
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Produces reproducible test data: the same seed always gives the same rows.
+ */
+public class DataGenerator {
+
+    public static final long DEFAULT_SEED = 42;
+
+    private static final String[] FIRST_NAMES = {
+            "Erik", "Anna", "Lars", "Maria", "Gustav", "Ingrid", "Olof", "Karin",
+            "Anders", "Maja", "Nils", "Astrid", "Per", "Linnea", "Johan", "Sara"
+    };
+    private static final String[] LAST_NAMES = {
+            "Andersson", "Johansson", "Karlsson", "Nilsson", "Eriksson", "Larsson",
+            "Olsson", "Persson", "Svensson", "Gustafsson", "Pettersson", "Jonsson"
+    };
+    private static final String[] CLASS_GROUPS = {"G1", "G2", "G3", "G4", "G5"};
+
+    // Share of attendance rows that are PRESENT
+    private static final double PRESENT_RATE = 0.85;
+
+    private final Random random;
+
+    public DataGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public DataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public List<Student> students(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            students.add(student());
+        }
+        return students;
+    }
+
+    public Student student() {
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        return new Student(name, CLASS_GROUPS[random.nextInt(CLASS_GROUPS.length)]);
+    }
+
+    /**
+     * Attendance for every student, one school day after another, until {@code rows}
+     * rows have been produced. Each (student, date) pair appears at most once.
+     */
+    public Stream<Attendance> attendance(List<Student> students, int rows, LocalDate firstDay) {
+        int perDay = students.size();
+        return IntStream.range(0, rows).mapToObj(i -> new Attendance(
+                students.get(i % perDay),
+                firstDay.plusDays(i / perDay),
+                status()
+        ));
+    }
+
+    public AttendanceStatus status() {
+        return random.nextDouble() < PRESENT_RATE ? AttendanceStatus.PRESENT : AttendanceStatus.ABSENT;
+    }
+}
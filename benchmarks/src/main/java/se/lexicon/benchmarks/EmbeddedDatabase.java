@@ -0,0 +1,170 @@
+package se.lexicon.benchmarks;
+
+import org.h2.jdbcx.JdbcDataSource;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.db.ConnectionPool;
+import se.lexicon.db.PoolConfig;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process, MySQL-compatible database (H2 in MySQL mode) for benchmarks.
+ * <p>
+ * The schema and the seed students come from {@code Lecture_Scripts.sql},
+ * followed by the schema changes in {@code Migration_Scripts.sql}.
+ * Everything else is added by {@link DataGenerator}, so every run sees the same data.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+    public static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+
+    private static final List<String> SCRIPTS = List.of("/Lecture_Scripts.sql", "/Migration_Scripts.sql");
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final ConnectionPool dataSource;
+
+    // Keeps the in-memory database alive between pooled connections
+    private final Connection keepAlive;
+
+    private EmbeddedDatabase(ConnectionPool dataSource, Connection keepAlive) {
+        this.dataSource = dataSource;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Creates a fresh, empty database with the lecture schema and seed students.
+     */
+    public static EmbeddedDatabase create() throws SQLException {
+        return create(new PoolConfig());
+    }
+
+    public static EmbeddedDatabase create(PoolConfig poolConfig) throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:student_db_" + COUNTER.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+        Connection keepAlive = h2.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            for (String script : SCRIPTS) {
+                for (String sql : schemaStatements(readScript(script))) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        return new EmbeddedDatabase(new ConnectionPool(h2, poolConfig), keepAlive);
+    }
+
+    /**
+     * Adds generated students until there are {@code studentCount}, then
+     * {@code attendanceRows} attendance rows spread over consecutive days.
+     *
+     * @return all students in the database, with their ids
+     */
+    public List<Student> seed(DataGenerator generator, int studentCount, int attendanceRows) throws SQLException {
+        return seed(dataSource, generator, studentCount, attendanceRows);
+    }
+
+    /**
+     * Same as {@link #seed(DataGenerator, int, int)}, for any student_db, e.g. a local MySQL server.
+     */
+    public static List<Student> seed(DataSource dataSource, DataGenerator generator,
+                                     int studentCount, int attendanceRows) throws SQLException {
+        BatchConfig batchConfig = new BatchConfig(1000, true);
+
+        try (Connection connection = dataSource.getConnection()) {
+            StudentDaoImpl studentDao = new StudentDaoImpl(connection, batchConfig);
+            List<Student> students = new ArrayList<>(studentDao.findAll());
+            if (students.size() < studentCount) {
+                students.addAll(studentDao.saveAll(generator.students(studentCount - students.size())));
+            }
+
+            AttendanceDaoImpl attendanceDao = new AttendanceDaoImpl(connection, batchConfig);
+            List<Attendance> chunk = new ArrayList<>(10_000);
+            generator.attendance(students, attendanceRows, FIRST_DAY).forEach(attendance -> {
+                chunk.add(attendance);
+                if (chunk.size() == 10_000) {
+                    attendanceDao.saveAll(chunk);
+                    chunk.clear();
+                }
+            });
+            attendanceDao.saveAll(chunk);
+            return students;
+        }
+    }
+
+    public ConnectionPool getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        dataSource.close();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        keepAlive.close();
+    }
+
+    /**
+     * Keeps the statements of a script that build the schema and insert the
+     * seed students. Example queries, updates and the sample attendance rows
+     * are skipped, and so is the MySQL-only partitioning of attendance
+     * (H2 has no partitions, and the foreign key it drops has another name there).
+     */
+    static List<String> schemaStatements(String script) {
+        StringBuilder withoutComments = new StringBuilder(script.length());
+        for (String line : script.split("\\R")) {
+            int comment = line.indexOf("--");
+            withoutComments.append(comment >= 0 ? line.substring(0, comment) : line).append('\n');
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String sql : withoutComments.toString().split(";")) {
+            String trimmed = sql.strip();
+            String upper = trimmed.toUpperCase(Locale.ROOT);
+            if (upper.startsWith("ALTER TABLE ATTENDANCE") && isPartitioning(upper)) {
+                continue;
+            }
+            if (upper.startsWith("CREATE TABLE")
+                    || upper.startsWith("CREATE INDEX")
+                    || upper.startsWith("ALTER TABLE")
+                    || upper.startsWith("INSERT INTO STUDENT ")) {
+                statements.add(trimmed);
+            }
+        }
+        return statements;
+    }
+
+    private static boolean isPartitioning(String upperSql) {
+        return upperSql.contains("PARTITION")
+                || upperSql.contains("DROP FOREIGN KEY")
+                || upperSql.contains("DROP PRIMARY KEY");
+    }
+
+    private static String readScript(String script) {
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(script)) {
+            if (in == null) {
+                throw new IllegalStateException(script + " not found on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package se.lexicon.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.FetchPlan;
+import se.lexicon.dao.PageRequest;
+import se.lexicon.model.Attendance;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link FetchPlan}s on a list view: one page of attendance,
+ * either using only ids and statuses or also reading each student's name.
+ * <p>
+ * No student cache is used, so every page loads its students again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchPlanBenchmark {
+
+    private static final int STUDENTS = 1000;
+    private static final int ROWS = 100_000;
+
+    @Param({"EAGER_JOIN", "LAZY", "BATCH"})
+    public FetchPlan fetchPlan;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private EmbeddedDatabase database;
+    private Connection connection;
+    private AttendanceDao attendanceDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = EmbeddedDatabase.create();
+        database.seed(new DataGenerator(), STUDENTS, ROWS);
+
+        connection = database.getDataSource().getConnection();
+        attendanceDao = new AttendanceDaoImpl(connection, new BatchConfig(), StudentCache.disabled(), fetchPlan);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public void pageIdsAndStatus(Blackhole blackhole) {
+        for (Attendance attendance : attendanceDao.findPage(PageRequest.first(pageSize)).items()) {
+            blackhole.consume(attendance.getStudent().getId());
+            blackhole.consume(attendance.getStatus());
+        }
+    }
+
+    @Benchmark
+    public void pageWithStudentNames(Blackhole blackhole) {
+        for (Attendance attendance : attendanceDao.findPage(PageRequest.first(pageSize)).items()) {
+            blackhole.consume(attendance.getStudent().getName());
+            blackhole.consume(attendance.getStatus());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package se.lexicon.benchmarks;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints the query plans of the attendance finder queries, to check that they
+ * use index range scans instead of full table scans.
+ * <p>
+ * Run with: java -cp benchmarks/target/benchmarks.jar se.lexicon.benchmarks.QueryPlanReport
+ */
+public class QueryPlanReport {
+
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("findByStudent", """
+                SELECT a.id, a.attendance_date, a.status,
+                       s.id AS student_id, s.name, s.class_group, s.create_date
+                FROM attendance a
+                JOIN student s ON a.student_id = s.id
+                WHERE a.student_id = 42 AND a.attendance_date BETWEEN '2020-01-01' AND '2020-01-31'
+                ORDER BY a.attendance_date
+                """);
+        QUERIES.put("findByDateRange", """
+                SELECT a.id, a.attendance_date, a.status,
+                       s.id AS student_id, s.name, s.class_group, s.create_date
+                FROM attendance a
+                JOIN student s ON a.student_id = s.id
+                WHERE a.attendance_date BETWEEN '2020-01-01' AND '2020-01-07'
+                ORDER BY a.attendance_date, a.id
+                """);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        try (EmbeddedDatabase database = EmbeddedDatabase.create()) {
+            database.seed(new DataGenerator(), 1000, 100_000);
+
+            try (
+                    Connection connection = database.getDataSource().getConnection();
+                    Statement statement = connection.createStatement()
+            ) {
+                for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+                    System.out.println("== " + query.getKey());
+                    try (ResultSet rs = statement.executeQuery("EXPLAIN " + query.getValue())) {
+                        while (rs.next()) {
+                            System.out.println(rs.getString(1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
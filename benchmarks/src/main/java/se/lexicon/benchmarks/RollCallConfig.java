@@ -0,0 +1,202 @@
+package se.lexicon.benchmarks;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link RollCallLoadTest}.
+ * <p>
+ * The defaults model a morning peak of a mid-sized school against an embedded database:
+ * 500 requests per second, mostly teachers looking at their class, and a group of
+ * students being marked by several devices at once.
+ */
+public class RollCallConfig {
+
+    private double arrivalRate = 500;
+    private boolean poissonArrivals = true;
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofSeconds(60);
+    private double readRatio = 0.8;
+    private int studentCount = 2000;
+    private int attendanceRows = 100_000;
+    private int hotStudents = 100;
+    private double hotWriteShare = 0.5;
+    private int maximumPoolSize = 20;
+    private Duration sloP99 = Duration.ofMillis(50);
+    private Duration sloP999 = Duration.ofMillis(200);
+    private long seed = DataGenerator.DEFAULT_SEED;
+
+    // Getters and Setters
+
+    /**
+     * Requests started per second, whether or not earlier ones have finished (open loop).
+     */
+    public double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    public void setArrivalRate(double arrivalRate) {
+        if (!(arrivalRate > 0)) {
+            throw new IllegalArgumentException("arrivalRate must be positive");
+        }
+        this.arrivalRate = arrivalRate;
+    }
+
+    /**
+     * Exponentially distributed gaps between requests (true) or a fixed gap of 1 / arrivalRate.
+     */
+    public boolean isPoissonArrivals() {
+        return poissonArrivals;
+    }
+
+    public void setPoissonArrivals(boolean poissonArrivals) {
+        this.poissonArrivals = poissonArrivals;
+    }
+
+    /**
+     * Load applied before measuring, so the JIT, the pool and the database caches are warm.
+     */
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(Duration warmup) {
+        if (warmup.isNegative()) {
+            throw new IllegalArgumentException("warmup must not be negative");
+        }
+        this.warmup = warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        this.duration = duration;
+    }
+
+    /**
+     * Share of requests that only read, between 0 and 1. The rest mark attendance.
+     */
+    public double getReadRatio() {
+        return readRatio;
+    }
+
+    public void setReadRatio(double readRatio) {
+        if (readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("readRatio must be between 0 and 1");
+        }
+        this.readRatio = readRatio;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    public void setStudentCount(int studentCount) {
+        if (studentCount < 1) {
+            throw new IllegalArgumentException("studentCount must be at least 1");
+        }
+        this.studentCount = studentCount;
+    }
+
+    /**
+     * Attendance history seeded before the run (only into an empty attendance table).
+     */
+    public int getAttendanceRows() {
+        return attendanceRows;
+    }
+
+    public void setAttendanceRows(int attendanceRows) {
+        if (attendanceRows < 0) {
+            throw new IllegalArgumentException("attendanceRows must not be negative");
+        }
+        this.attendanceRows = attendanceRows;
+    }
+
+    /**
+     * Students that {@code hotWriteShare} of all writes go to. Every write is for today,
+     * so writes to the same hot student wait for each other's lock on (student_id, attendance_date).
+     */
+    public int getHotStudents() {
+        return hotStudents;
+    }
+
+    public void setHotStudents(int hotStudents) {
+        if (hotStudents < 1) {
+            throw new IllegalArgumentException("hotStudents must be at least 1");
+        }
+        this.hotStudents = hotStudents;
+    }
+
+    public double getHotWriteShare() {
+        return hotWriteShare;
+    }
+
+    public void setHotWriteShare(double hotWriteShare) {
+        if (hotWriteShare < 0 || hotWriteShare > 1) {
+            throw new IllegalArgumentException("hotWriteShare must be between 0 and 1");
+        }
+        this.hotWriteShare = hotWriteShare;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (maximumPoolSize < 1) {
+            throw new IllegalArgumentException("maximumPoolSize must be at least 1");
+        }
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    /**
+     * Service level objective for the 99th percentile of all requests.
+     */
+    public Duration getSloP99() {
+        return sloP99;
+    }
+
+    public void setSloP99(Duration sloP99) {
+        this.sloP99 = sloP99;
+    }
+
+    public Duration getSloP999() {
+        return sloP999;
+    }
+
+    public void setSloP999(Duration sloP999) {
+        this.sloP999 = sloP999;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "RollCallConfig{" +
+                "arrivalRate=" + arrivalRate +
+                ", poissonArrivals=" + poissonArrivals +
+                ", warmup=" + warmup +
+                ", duration=" + duration +
+                ", readRatio=" + readRatio +
+                ", studentCount=" + studentCount +
+                ", attendanceRows=" + attendanceRows +
+                ", hotStudents=" + hotStudents +
+                ", hotWriteShare=" + hotWriteShare +
+                ", maximumPoolSize=" + maximumPoolSize +
+                ", sloP99=" + sloP99 +
+                ", sloP999=" + sloP999 +
+                ", seed=" + seed +
+                '}';
+    }
+}
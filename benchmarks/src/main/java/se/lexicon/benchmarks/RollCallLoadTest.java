@@ -0,0 +1,294 @@
+package se.lexicon.benchmarks;
+
+import com.mysql.cj.jdbc.MysqlDataSource;
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.db.ConnectionPool;
+import se.lexicon.db.PoolConfig;
+import se.lexicon.metrics.LatencyHistogram;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reproduces the morning roll call, when every classroom marks attendance in the same few
+ * minutes, and reports latency percentiles against a service level objective.
+ * <p>
+ * Demonstrates:
+ * - An open-loop load generator: requests are due at a fixed or Poisson arrival rate and each
+ *   one starts on its own virtual thread, whether or not earlier requests have finished.
+ *   A closed loop (N threads that each wait for their previous request) slows down together
+ *   with the database and hides exactly the queueing a real peak produces.
+ * - Correcting for coordinated omission: latency is measured from the moment a request was due,
+ *   not from when it got going, so time spent waiting behind a stalled generator or for a pooled
+ *   connection is counted. The service time (from the actual start) is shown next to it.
+ * - Contention on the (student_id, attendance_date) unique key: every write is an upsert for
+ *   today, and {@code hotWriteShare} of them go to the same {@code hotStudents} students,
+ *   like several teachers and card readers marking the same pupils
+ * <p>
+ * Run against the embedded database (the default) or a local MySQL server, e.g. in a container:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar se.lexicon.benchmarks.RollCallLoadTest rate=800 duration=120s reads=0.7
+ * java -cp benchmarks/target/benchmarks.jar se.lexicon.benchmarks.RollCallLoadTest \
+ *      url=jdbc:mysql://localhost:3306/student_db?useAffectedRows=true user=root password=root
+ * </pre>
+ * Other options: warmup, students, history, hot-students, hot-share, pool, arrivals=poisson|fixed,
+ * slo-p99, slo-p999 and seed (durations like 500ms, 30s or 2m). The exit code is 1 if the SLO is missed.
+ * History is only seeded into an empty attendance table; MySQL runs should use a scratch student_db.
+ */
+public class RollCallLoadTest {
+
+    // A request that starts later than this after it was due is reported as a late dispatch
+    private static final long LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int HISTORY_DAYS = 30;
+
+    private final DataSource dataSource;
+    private final RollCallConfig config;
+    private final List<Student> students;
+    private final LocalDate today = LocalDate.now();
+
+    private final Map<RollCallOperation, LatencyHistogram> latency = new EnumMap<>(RollCallOperation.class);
+    private final Map<RollCallOperation, LatencyHistogram> serviceTime = new EnumMap<>(RollCallOperation.class);
+    private final Map<RollCallOperation, LongAdder> errors = new EnumMap<>(RollCallOperation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicLong lastEnd = new AtomicLong();
+    private long lateDispatches;
+
+    public RollCallLoadTest(DataSource dataSource, RollCallConfig config, List<Student> students) {
+        if (students.isEmpty()) {
+            throw new IllegalArgumentException("No students to take the roll call for");
+        }
+        this.dataSource = dataSource;
+        this.config = config;
+        this.students = List.copyOf(students);
+        for (RollCallOperation operation : RollCallOperation.values()) {
+            latency.put(operation, new LatencyHistogram());
+            serviceTime.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        RollCallConfig config = new RollCallConfig();
+        String url = null;
+        String user = "root";
+        String password = "root";
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(0, equals)) {
+                case "rate" -> config.setArrivalRate(Double.parseDouble(value));
+                case "arrivals" -> config.setPoissonArrivals(switch (value) {
+                    case "poisson" -> true;
+                    case "fixed" -> false;
+                    default -> throw new IllegalArgumentException("Unknown arrivals: " + value + ", expected poisson or fixed");
+                });
+                case "duration" -> config.setDuration(parseDuration(value));
+                case "warmup" -> config.setWarmup(parseDuration(value));
+                case "reads" -> config.setReadRatio(Double.parseDouble(value));
+                case "students" -> config.setStudentCount(Integer.parseInt(value));
+                case "history" -> config.setAttendanceRows(Integer.parseInt(value));
+                case "hot-students" -> config.setHotStudents(Integer.parseInt(value));
+                case "hot-share" -> config.setHotWriteShare(Double.parseDouble(value));
+                case "pool" -> config.setMaximumPoolSize(Integer.parseInt(value));
+                case "slo-p99" -> config.setSloP99(parseDuration(value));
+                case "slo-p999" -> config.setSloP999(parseDuration(value));
+                case "seed" -> config.setSeed(Long.parseLong(value));
+                case "url" -> url = value;
+                case "user" -> user = value;
+                case "password" -> password = value;
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaximumPoolSize(config.getMaximumPoolSize());
+
+        RollCallReport report;
+        if (url == null) {
+            try (EmbeddedDatabase database = EmbeddedDatabase.create(poolConfig)) {
+                report = prepareAndRun(database.getDataSource(), config);
+            }
+        } else {
+            MysqlDataSource mysql = new MysqlDataSource();
+            mysql.setUrl(url);
+            mysql.setUser(user);
+            mysql.setPassword(password);
+            try (ConnectionPool pool = new ConnectionPool(mysql, poolConfig)) {
+                report = prepareAndRun(pool, config);
+            }
+        }
+        report.print(System.out);
+        System.exit(report.meetsSlo() ? 0 : 1);
+    }
+
+    /**
+     * Seeds the students (and the history, if attendance is empty), then runs the load.
+     */
+    public static RollCallReport prepareAndRun(DataSource dataSource, RollCallConfig config) throws SQLException {
+        int history = attendanceIsEmpty(dataSource) ? config.getAttendanceRows() : 0;
+        System.out.printf("Seeding %d students and %d attendance rows...%n", config.getStudentCount(), history);
+        List<Student> students = EmbeddedDatabase.seed(dataSource, new DataGenerator(config.getSeed()),
+                config.getStudentCount(), history);
+        return new RollCallLoadTest(dataSource, config, students).run();
+    }
+
+    /**
+     * Sends requests for warmup + duration, waits for the last ones and reports on those
+     * that were due in the measured window.
+     */
+    public RollCallReport run() {
+        SplittableRandom random = new SplittableRandom(config.getSeed());
+        DataGenerator statuses = new DataGenerator(config.getSeed());
+        int hotStudents = Math.min(config.getHotStudents(), students.size());
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / config.getArrivalRate();
+
+        long start = System.nanoTime();
+        long measureFrom = start + config.getWarmup().toNanos();
+        long end = measureFrom + config.getDuration().toNanos();
+
+        // The generator thread decides everything random, so runs with the same seed send the same requests
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            double due = start;
+            while (due < end) {
+                long dueNanos = (long) due;
+                parkUntil(dueNanos);
+                if (dueNanos >= measureFrom && System.nanoTime() - dueNanos > LATE_NANOS) {
+                    lateDispatches++;
+                }
+
+                RollCallOperation operation = nextOperation(random);
+                Student student = operation.isWrite() && random.nextDouble() < config.getHotWriteShare()
+                        ? students.get(random.nextInt(hotStudents))
+                        : students.get(random.nextInt(students.size()));
+                AttendanceStatus status = statuses.status();
+                boolean measured = dueNanos >= measureFrom;
+
+                executor.execute(() -> request(operation, student, status, dueNanos, measured));
+
+                due += config.isPoissonArrivals()
+                        ? -Math.log(1 - random.nextDouble()) * meanGapNanos
+                        : meanGapNanos;
+            }
+        }
+
+        LatencyHistogram total = new LatencyHistogram();
+        Map<RollCallOperation, LatencyHistogram.Snapshot> latencySnapshots = new EnumMap<>(RollCallOperation.class);
+        Map<RollCallOperation, LatencyHistogram.Snapshot> serviceSnapshots = new EnumMap<>(RollCallOperation.class);
+        Map<RollCallOperation, Long> errorCounts = new EnumMap<>(RollCallOperation.class);
+        for (RollCallOperation operation : RollCallOperation.values()) {
+            total.add(latency.get(operation));
+            latencySnapshots.put(operation, latency.get(operation).snapshot());
+            serviceSnapshots.put(operation, serviceTime.get(operation).snapshot());
+            errorCounts.put(operation, errors.get(operation).sum());
+        }
+        double seconds = Math.max(lastEnd.get(), end) - measureFrom;
+        double throughput = total.getCount() / (seconds / TimeUnit.SECONDS.toNanos(1));
+
+        return new RollCallReport(config, latencySnapshots, serviceSnapshots, total.snapshot(), errorCounts,
+                throughput, maxInFlight.get(), lateDispatches);
+    }
+
+    private void request(RollCallOperation operation, Student student, AttendanceStatus status,
+                         long dueNanos, boolean measured) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long started = System.nanoTime();
+        try {
+            execute(operation, student, status);
+        } catch (SQLException | RuntimeException e) {
+            // The DAOs already reported it; a failed request still took its time
+            if (measured) {
+                errors.get(operation).increment();
+            }
+        } finally {
+            long ended = System.nanoTime();
+            inFlight.decrementAndGet();
+            if (measured) {
+                latency.get(operation).record(ended - dueNanos);
+                serviceTime.get(operation).record(ended - started);
+                lastEnd.accumulateAndGet(ended, Math::max);
+            }
+        }
+    }
+
+    private void execute(RollCallOperation operation, Student student, AttendanceStatus status) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            StudentDao studentDao = new StudentDaoImpl(connection);
+            AttendanceDao attendanceDao = new AttendanceDaoImpl(connection);
+
+            switch (operation) {
+                case VIEW_CLASS -> {
+                    studentDao.findByClassGroup(student.getClassGroup());
+                    attendanceDao.findByClassGroupAndDate(student.getClassGroup(), today);
+                }
+                case VIEW_STUDENT -> {
+                    studentDao.findById(student.getId());
+                    attendanceDao.findByStudent(student.getId(), today.minusDays(HISTORY_DAYS), today);
+                }
+                case MARK_ATTENDANCE -> attendanceDao.upsert(new Attendance(student, today, status));
+            }
+        }
+    }
+
+    private RollCallOperation nextOperation(SplittableRandom random) {
+        if (random.nextDouble() >= config.getReadRatio()) {
+            return RollCallOperation.MARK_ATTENDANCE;
+        }
+        return random.nextBoolean() ? RollCallOperation.VIEW_CLASS : RollCallOperation.VIEW_STUDENT;
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static boolean attendanceIsEmpty(DataSource dataSource) throws SQLException {
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT 1 FROM attendance LIMIT 1")
+        ) {
+            return !rs.next();
+        }
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unknown duration: " + value + ", expected e.g. 500ms, 30s or 2m");
+        };
+    }
+}
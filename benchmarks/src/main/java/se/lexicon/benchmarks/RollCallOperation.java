@@ -0,0 +1,24 @@
+package se.lexicon.benchmarks;
+
+/**
+ * The requests of a roll call, as {@link RollCallLoadTest} sends them.
+ */
+public enum RollCallOperation {
+
+    // A teacher opens the class list with today's marks: findByClassGroup + findByClassGroupAndDate
+    VIEW_CLASS(false),
+    // A student's page: findById + findByStudent for the last 30 days
+    VIEW_STUDENT(false),
+    // A teacher or a card reader marks one student for today: upsert
+    MARK_ATTENDANCE(true);
+
+    private final boolean write;
+
+    RollCallOperation(boolean write) {
+        this.write = write;
+    }
+
+    public boolean isWrite() {
+        return write;
+    }
+}
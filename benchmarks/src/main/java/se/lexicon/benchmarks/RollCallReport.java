@@ -0,0 +1,67 @@
+package se.lexicon.benchmarks;
+
+import se.lexicon.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of one {@link RollCallLoadTest} run.
+ *
+ * @param latency         per operation, from the moment the request was due to its end (coordinated-omission corrected)
+ * @param serviceTime     per operation, from the moment it actually started to its end, for comparison
+ * @param total           latency of all operations together
+ * @param errors          failed requests per operation; they are included in the latencies
+ * @param throughput      completed requests per second in the measured window
+ * @param maxInFlight     most requests that were running or waiting for a connection at once
+ * @param lateDispatches  requests started more than 1 ms after they were due (the generator fell behind)
+ */
+public record RollCallReport(
+        RollCallConfig config,
+        Map<RollCallOperation, LatencyHistogram.Snapshot> latency,
+        Map<RollCallOperation, LatencyHistogram.Snapshot> serviceTime,
+        LatencyHistogram.Snapshot total,
+        Map<RollCallOperation, Long> errors,
+        double throughput,
+        int maxInFlight,
+        long lateDispatches
+) {
+
+    public boolean meetsSlo() {
+        return total.p99() <= config.getSloP99().toNanos() && total.p999() <= config.getSloP999().toNanos();
+    }
+
+    public void print(PrintStream out) {
+        out.printf("Roll call: %.0f req/s offered (%s arrivals), %.0f%% reads, %d hot students, %d s measured%n",
+                config.getArrivalRate(), config.isPoissonArrivals() ? "Poisson" : "fixed-rate",
+                config.getReadRatio() * 100, config.getHotStudents(), config.getDuration().toSeconds());
+        out.printf("%-16s %9s %7s %10s %10s %10s %10s %14s%n",
+                "operation", "count", "errors", "p50", "p99", "p99.9", "max", "service p99");
+        for (Map.Entry<RollCallOperation, LatencyHistogram.Snapshot> entry : latency.entrySet()) {
+            printRow(out, entry.getKey().name(), entry.getValue(), errors.get(entry.getKey()),
+                    serviceTime.get(entry.getKey()).p99());
+        }
+        long totalErrors = errors.values().stream().mapToLong(Long::longValue).sum();
+        printRow(out, "ALL", total, totalErrors, -1);
+        out.printf("Throughput: %.1f req/s, at most %d in flight, %d late dispatches%n",
+                throughput, maxInFlight, lateDispatches);
+        out.printf("SLO p99 <= %s and p99.9 <= %s: %s%n",
+                format(config.getSloP99().toNanos()), format(config.getSloP999().toNanos()),
+                meetsSlo() ? "PASS" : "FAIL");
+    }
+
+    private static void printRow(PrintStream out, String name, LatencyHistogram.Snapshot snapshot,
+                                 long errors, long serviceP99) {
+        out.printf("%-16s %9d %7d %10s %10s %10s %10s %14s%n", name, snapshot.count(), errors,
+                format(snapshot.p50()), format(snapshot.p99()), format(snapshot.p999()), format(snapshot.max()),
+                serviceP99 < 0 ? "" : format(serviceP99));
+    }
+
+    private static String format(long nanos) {
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(1)) {
+            return String.format("%.2fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.1fus", nanos / 1_000.0);
+    }
+}
@@ -0,0 +1,94 @@
+package se.lexicon.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link StudentDaoImpl} against the embedded database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StudentDaoBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1000"})
+    public int students;
+
+    @Param({"false", "true"})
+    public boolean multiRowValues;
+
+    private EmbeddedDatabase database;
+    private Connection connection;
+    private StudentDao studentDao;
+    private StudentDao batchingStudentDao;
+    private List<Student> batch;
+    private int[] ids;
+    private final SplittableRandom random = new SplittableRandom(DataGenerator.DEFAULT_SEED);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        DataGenerator generator = new DataGenerator();
+        database = EmbeddedDatabase.create();
+        ids = database.seed(generator, students, 0).stream().mapToInt(Student::getId).toArray();
+
+        connection = database.getDataSource().getConnection();
+        studentDao = new StudentDaoImpl(connection);
+        batchingStudentDao = new StudentDaoImpl(connection, new BatchConfig(BATCH_SIZE, multiRowValues));
+        batch = generator.students(BATCH_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Student save() {
+        return studentDao.save(new Student("Benchmark Student", "G1"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Student> saveAllBatched() {
+        return batchingStudentDao.saveAll(batch);
+    }
+
+    @Benchmark
+    public Optional<Student> findById() {
+        return studentDao.findById(ids[random.nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Student> findAll() {
+        return studentDao.findAll();
+    }
+}
@@ -0,0 +1,100 @@
+package se.lexicon.dao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.lexicon.benchmarks.DataGenerator;
+import se.lexicon.benchmarks.EmbeddedDatabase;
+import se.lexicon.model.Attendance;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures only the per-row cost of mapping attendance rows
+ * (column lookups, temporal conversion, enum decoding, Student construction),
+ * with columns resolved per row and once per ResultSet.
+ * Run with {@code -prof gc} to compare allocations per row.
+ * <p>
+ * The joined rows are read once into a scrollable ResultSet, so no query time is included.
+ * Lives in the dao package because the mapper is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttendanceMappingBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private EmbeddedDatabase database;
+    private Connection connection;
+    private PreparedStatement ps;
+    private ResultSet rs;
+    private AttendanceDaoImpl attendanceDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = EmbeddedDatabase.create();
+        database.seed(new DataGenerator(), 30, ROWS);
+
+        connection = database.getDataSource().getConnection();
+        attendanceDao = new AttendanceDaoImpl(connection);
+        ps = connection.prepareStatement("""
+                SELECT a.id, a.attendance_date, a.status,
+                       s.id AS student_id, s.name, s.class_group, s.create_date
+                FROM attendance a
+                JOIN student s ON a.student_id = s.id
+                """, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rs = ps.executeQuery();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        rs.close();
+        ps.close();
+        connection.close();
+        database.close();
+    }
+
+    /**
+     * Resolves the column labels on every row.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRowToAttendance(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        while (rs.next()) {
+            blackhole.consume(attendanceDao.mapRowToAttendance(rs));
+        }
+    }
+
+    /**
+     * Resolves the column labels once, as the DAO's list and stream methods do.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void attendanceMapper(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        RowMapper<Attendance> mapper = attendanceDao.attendanceMapper(rs);
+        while (rs.next()) {
+            blackhole.consume(mapper.mapRow(rs));
+        }
+    }
+}
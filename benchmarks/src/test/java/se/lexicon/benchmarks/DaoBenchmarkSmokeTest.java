@@ -0,0 +1,54 @@
+package se.lexicon.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every benchmark method once on a small table, without JMH.
+ */
+class DaoBenchmarkSmokeTest {
+
+    @Test
+    void studentBenchmarksRun() throws SQLException {
+        for (boolean multiRowValues : new boolean[]{false, true}) {
+            StudentDaoBenchmark benchmark = new StudentDaoBenchmark();
+            benchmark.students = 50;
+            benchmark.multiRowValues = multiRowValues;
+            benchmark.setUp();
+            try {
+                assertTrue(benchmark.save().getId() > 0);
+                assertEquals(100, benchmark.saveAllBatched().size());
+                assertTrue(benchmark.findById().isPresent());
+                assertEquals(151, benchmark.findAll().size());
+            } finally {
+                benchmark.tearDown();
+            }
+        }
+    }
+
+    @Test
+    void attendanceBenchmarksRun() throws SQLException {
+        AttendanceDaoBenchmark benchmark = new AttendanceDaoBenchmark();
+        benchmark.rows = 2000;
+        benchmark.setUp();
+        try {
+            assertTrue(benchmark.save().getId() > 0);
+            assertEquals(100, benchmark.saveAllBatched().size());
+            assertTrue(benchmark.findById().isPresent());
+            assertFalse(benchmark.findByDateRange().isEmpty());
+            assertEquals(benchmark.findByDateRange().size(), benchmark.findByDateRangeInMemory().size());
+            benchmark.findByStudent();
+            assertEquals(2101, benchmark.findAll().size());
+            benchmark.streamAll(new Blackhole(
+                    "Today's password is swordfish. I understand instantiating Blackholes directly is dangerous."));
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+}
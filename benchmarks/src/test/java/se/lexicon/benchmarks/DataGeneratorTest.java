@@ -0,0 +1,39 @@
+package se.lexicon.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.Student;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DataGeneratorTest {
+
+    @Test
+    void sameSeedGivesTheSameRows() {
+        assertEquals(names(new DataGenerator(7).students(50)), names(new DataGenerator(7).students(50)));
+        assertNotEquals(names(new DataGenerator(7).students(50)), names(new DataGenerator(8).students(50)));
+    }
+
+    @Test
+    void attendanceNeverRepeatsAStudentOnTheSameDay() {
+        DataGenerator generator = new DataGenerator();
+        List<Student> students = generator.students(3);
+        for (int i = 0; i < students.size(); i++) {
+            students.get(i).setId(i + 1);
+        }
+
+        List<Attendance> rows = generator.attendance(students, 10, EmbeddedDatabase.FIRST_DAY).toList();
+
+        assertEquals(10, rows.size());
+        assertEquals(10, rows.stream().map(a -> a.getStudent().getId() + "|" + a.getAttendanceDate()).distinct().count());
+        assertEquals(EmbeddedDatabase.FIRST_DAY.plusDays(3), rows.getLast().getAttendanceDate());
+    }
+
+    private static List<String> names(List<Student> students) {
+        return students.stream().map(student -> student.getName() + "/" + student.getClassGroup()).toList();
+    }
+}
@@ -0,0 +1,54 @@
+package se.lexicon.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedDatabaseTest {
+
+    @Test
+    void seedsGeneratedRowsOnTopOfTheLectureStudents() throws SQLException {
+        try (EmbeddedDatabase database = EmbeddedDatabase.create()) {
+            List<Student> students = database.seed(new DataGenerator(), 40, 200);
+
+            assertEquals(40, students.size());
+            assertTrue(students.stream().allMatch(student -> student.getId() > 0));
+            try (Connection connection = database.getDataSource().getConnection()) {
+                assertEquals(200, new AttendanceDaoImpl(connection).findAll().size());
+            }
+        }
+    }
+
+    @Test
+    void eachDatabaseStartsEmpty() throws SQLException {
+        int lectureStudents;
+        try (EmbeddedDatabase first = EmbeddedDatabase.create()) {
+            lectureStudents = first.seed(new DataGenerator(), 0, 0).size();
+            first.seed(new DataGenerator(), lectureStudents + 10, 0);
+        }
+        try (EmbeddedDatabase second = EmbeddedDatabase.create()) {
+            assertEquals(lectureStudents, second.seed(new DataGenerator(), 0, 0).size());
+        }
+    }
+
+    @Test
+    void skipsTheMySqlOnlyPartitioningStatements() {
+        List<String> statements = EmbeddedDatabase.schemaStatements("""
+                CREATE TABLE t (id INT); -- a comment; with a semicolon
+                ALTER TABLE attendance DROP FOREIGN KEY attendance_ibfk_1;
+                ALTER TABLE attendance PARTITION BY RANGE (id) (PARTITION p0 VALUES LESS THAN MAXVALUE);
+                ALTER TABLE attendance ADD COLUMN note VARCHAR(10);
+                SELECT * FROM t;
+                """);
+
+        assertEquals(List.of("CREATE TABLE t (id INT)", "ALTER TABLE attendance ADD COLUMN note VARCHAR(10)"),
+                statements);
+    }
+}
@@ -0,0 +1,193 @@
+package se.lexicon.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import se.lexicon.metrics.LatencyHistogram;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the roll call load generator for a second or so on the embedded database.
+ */
+class RollCallSmokeTest {
+
+    @Test
+    @Timeout(60)
+    void sendsTheOfferedLoadAndMarksOnlyTheHotStudents() throws SQLException {
+        RollCallConfig config = shortRun();
+        config.setReadRatio(0.5);
+        config.setHotStudents(3);
+        config.setHotWriteShare(1.0);
+
+        try (EmbeddedDatabase database = EmbeddedDatabase.create()) {
+            List<Student> students = database.seed(new DataGenerator(config.getSeed()), 20, 0);
+            RollCallReport report = new RollCallLoadTest(database.getDataSource(), config, students).run();
+
+            // Fixed-rate arrivals: 200 req/s for one second, whatever the database did
+            assertEquals(200, report.total().count(), 1);
+            assertEquals(Map.of(RollCallOperation.VIEW_CLASS, 0L, RollCallOperation.VIEW_STUDENT, 0L,
+                    RollCallOperation.MARK_ATTENDANCE, 0L), report.errors());
+            assertTrue(report.latency().get(RollCallOperation.MARK_ATTENDANCE).count() > 0);
+            assertTrue(report.throughput() > 0);
+            for (RollCallOperation operation : RollCallOperation.values()) {
+                LatencyHistogram.Snapshot latency = report.latency().get(operation);
+                LatencyHistogram.Snapshot service = report.serviceTime().get(operation);
+                assertEquals(latency.count(), service.count());
+                assertTrue(latency.max() >= service.max(), "latency includes the time before the request started");
+            }
+
+            // Every write is an upsert for today, so the hot students have one row each
+            Set<Integer> hot = Set.of(students.get(0).getId(), students.get(1).getId(), students.get(2).getId());
+            assertEquals(hot, markedToday(database.getDataSource()));
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void openLoopKeepsSendingWhileRequestsQueue() throws SQLException {
+        RollCallConfig config = shortRun();
+        config.setArrivalRate(100);
+        config.setDuration(Duration.ofMillis(500));
+
+        try (EmbeddedDatabase database = EmbeddedDatabase.create()) {
+            List<Student> students = database.seed(new DataGenerator(config.getSeed()), 10, 0);
+
+            // One connection per 20 ms: half the offered rate, so requests queue for a connection
+            RollCallReport report = new RollCallLoadTest(slowSingleConnection(database.getDataSource()),
+                    config, students).run();
+
+            assertEquals(50, report.total().count(), 1);
+            assertTrue(report.maxInFlight() > 5, "a closed loop would never have more than one in flight");
+            // The last requests waited behind about 25 others
+            assertTrue(report.total().max() > TimeUnit.MILLISECONDS.toNanos(200), report.total().toString());
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void reportChecksTheSloAndPrintsEveryOperation() throws SQLException {
+        RollCallConfig config = shortRun();
+        config.setDuration(Duration.ofMillis(200));
+        config.setStudentCount(10);
+        config.setAttendanceRows(50);
+        config.setSloP99(Duration.ofSeconds(10));
+        config.setSloP999(Duration.ofSeconds(10));
+
+        RollCallReport report;
+        try (EmbeddedDatabase database = EmbeddedDatabase.create()) {
+            report = RollCallLoadTest.prepareAndRun(database.getDataSource(), config);
+        }
+        assertTrue(report.meetsSlo());
+        String printed = print(report);
+        for (RollCallOperation operation : RollCallOperation.values()) {
+            assertTrue(printed.contains(operation.name()), printed);
+        }
+        assertTrue(printed.contains(": PASS"), printed);
+
+        RollCallConfig strict = shortRun();
+        strict.setSloP99(Duration.ofNanos(1));
+        RollCallReport missed = new RollCallReport(strict, report.latency(), report.serviceTime(), report.total(),
+                report.errors(), report.throughput(), report.maxInFlight(), report.lateDispatches());
+        assertFalse(missed.meetsSlo());
+        assertTrue(print(missed).contains(": FAIL"));
+    }
+
+    @Test
+    void rejectsAnEmptyClassAndBadSettings() {
+        RollCallConfig config = new RollCallConfig();
+
+        assertThrows(IllegalArgumentException.class, () -> new RollCallLoadTest(null, config, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> config.setArrivalRate(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setReadRatio(1.5));
+        assertThrows(IllegalArgumentException.class, () -> config.setHotWriteShare(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> config.setDuration(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> config.setWarmup(Duration.ofSeconds(-1)));
+    }
+
+    private static RollCallConfig shortRun() {
+        RollCallConfig config = new RollCallConfig();
+        config.setArrivalRate(200);
+        config.setPoissonArrivals(false);
+        config.setWarmup(Duration.ofMillis(100));
+        config.setDuration(Duration.ofSeconds(1));
+        config.setMaximumPoolSize(2);
+        config.setSeed(7);
+        return config;
+    }
+
+    private static Set<Integer> markedToday(DataSource dataSource) throws SQLException {
+        Set<Integer> studentIds = new HashSet<>();
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(
+                        "SELECT student_id, COUNT(*) FROM attendance WHERE attendance_date = ? GROUP BY student_id")
+        ) {
+            ps.setObject(1, LocalDate.now());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    assertEquals(1, rs.getInt(2));
+                    studentIds.add(rs.getInt(1));
+                }
+            }
+        }
+        return studentIds;
+    }
+
+    /**
+     * Hands out one connection per 20 ms, like a saturated database.
+     */
+    private static DataSource slowSingleConnection(DataSource delegate) {
+        // A lock rather than synchronized, which would pin the virtual threads to their carriers
+        ReentrantLock oneAtATime = new ReentrantLock();
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("getConnection")) {
+                        return invoke(method, delegate, args);
+                    }
+                    oneAtATime.lock();
+                    try {
+                        Thread.sleep(20);
+                        return invoke(method, delegate, args);
+                    } finally {
+                        oneAtATime.unlock();
+                    }
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String print(RollCallReport report) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true));
+        return out.toString();
+    }
+}
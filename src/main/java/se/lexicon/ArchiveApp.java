@@ -0,0 +1,54 @@
+package se.lexicon;
+
+import se.lexicon.archive.ArchiveConfig;
+import se.lexicon.archive.ArchiveResult;
+import se.lexicon.archive.AttendanceArchive;
+import se.lexicon.archive.PartitionScheme;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.db.DatabaseConnection;
+import se.lexicon.feed.ChangeOutbox;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Archive job for attendance, meant to run nightly (e.g. from cron).
+ * <p>
+ * Usage:
+ * <pre>
+ * ArchiveApp /var/lib/student_db/archive
+ * ArchiveApp /var/lib/student_db/archive monthly
+ * </pre>
+ * Moves closed periods (terms by default) to gzip files in the directory, deletes them from the
+ * live table in small chunks and keeps the partitions of attendance up to date.
+ */
+public class ArchiveApp {
+
+    void main(String[] args) {
+
+        if (args.length < 1 || args.length > 2) {
+            IO.println("Usage: ArchiveApp <archive directory> [term|monthly]");
+            return;
+        }
+
+        ArchiveConfig config = new ArchiveConfig();
+        if (args.length == 2) {
+            config.setScheme(switch (args[1]) {
+                case "term" -> PartitionScheme.TERM;
+                case "monthly" -> PartitionScheme.MONTHLY;
+                default -> throw new IllegalArgumentException("Unknown scheme: " + args[1] + ", expected term or monthly");
+            });
+        }
+
+        // The deletes go to the change outbox, so other nodes drop the rows from their caches
+        AttendanceArchive archive = new AttendanceArchive(DatabaseConnection.getMySQLDataSource(),
+                Path.of(args[0]), config, new ChangeOutbox(), QueryResultCache.disabled());
+        List<ArchiveResult> results = archive.archiveClosedPeriods(LocalDate.now());
+
+        if (results.isEmpty()) {
+            IO.println("Nothing to archive, live data starts at " + archive.getArchivedUntil());
+        }
+        results.forEach(IO::println);
+    }
+}
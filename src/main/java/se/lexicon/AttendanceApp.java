@@ -5,12 +5,11 @@ import se.lexicon.dao.AttendanceDaoImpl;
 import se.lexicon.dao.StudentDao;
 import se.lexicon.dao.StudentDaoImpl;
 import se.lexicon.db.DatabaseConnection;
+import se.lexicon.db.TransactionManager;
 import se.lexicon.model.Attendance;
 import se.lexicon.model.AttendanceStatus;
 import se.lexicon.model.Student;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.time.LocalDate;
 
 public class AttendanceApp {
@@ -33,15 +32,15 @@ public class AttendanceApp {
             e.printStackTrace();
         }*/
 
-        try {
-            Connection mySQLConnection = DatabaseConnection.getMySQLConnection();
+        TransactionManager transactionManager = DatabaseConnection.getTransactionManager();
 
-            //
-            try {
-                mySQLConnection.setAutoCommit(false);
+        // The DAOs use whatever connection the current transaction is running on
+        StudentDao studentDao = new StudentDaoImpl(transactionManager.getConnection());
+        AttendanceDao attendanceDao = new AttendanceDaoImpl(transactionManager.getConnection());
 
-                StudentDao studentDao = new StudentDaoImpl(mySQLConnection);
-                AttendanceDao attendanceDao = new AttendanceDaoImpl(mySQLConnection);
+        //
+        try {
+            transactionManager.inTransaction(() -> {
 
                 Student student2 = new Student("Transaction Student", "G1");
                 student2 = studentDao.save(student2);
@@ -49,17 +48,12 @@ public class AttendanceApp {
                 //
                 Attendance attendance = new Attendance(student2, LocalDate.now(), AttendanceStatus.PRESENT);
                 //student2.setId(10000); // ### simulate fk constraint violation to test rollback
-                attendanceDao.save(attendance);
+                return attendanceDao.save(attendance);
+            });
 
-                mySQLConnection.commit();
-
-            } catch (SQLException e) {
-                e.printStackTrace();
-                mySQLConnection.rollback();
-            }
-
-        } catch (SQLException e) {
-            IO.println("Error: Database connection failed!");
+        } catch (RuntimeException e) {
+            // Already rolled back, and the connection is back in the pool
+            IO.println("Error: Transaction rolled back!");
             e.printStackTrace();
         }
 
@@ -0,0 +1,44 @@
+package se.lexicon;
+
+import se.lexicon.bulk.BulkExporter;
+import se.lexicon.bulk.BulkLoader;
+import se.lexicon.bulk.BulkResult;
+import se.lexicon.bulk.BulkTable;
+import se.lexicon.db.DatabaseConnection;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+/**
+ * Command line tool for seeding and migrating student_db.
+ * <p>
+ * Usage:
+ * <pre>
+ * BulkDataApp import student students.csv
+ * BulkDataApp import attendance attendance.csv.gz
+ * BulkDataApp export attendance attendance.csv.gz
+ * </pre>
+ * Import students before their attendance (foreign key).
+ */
+public class BulkDataApp {
+
+    void main(String[] args) {
+
+        if (args.length != 3) {
+            IO.println("Usage: BulkDataApp <import|export> <student|attendance> <file.csv[.gz]>");
+            return;
+        }
+
+        BulkTable table = BulkTable.fromName(args[1]);
+        Path file = Path.of(args[2]);
+        DataSource dataSource = DatabaseConnection.getMySQLBulkDataSource();
+
+        BulkResult result = switch (args[0]) {
+            case "import" -> new BulkLoader(dataSource).importCsv(table, file);
+            case "export" -> new BulkExporter(dataSource).exportCsv(table, file);
+            default -> throw new IllegalArgumentException("Unknown command: " + args[0] + ", expected import or export");
+        };
+
+        IO.println(result);
+    }
+}
@@ -0,0 +1,513 @@
+package se.lexicon.analytics;
+
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.feed.ChangeEvent;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Student id sets over attendance, as {@link CompressedBitmap}s, for set questions like
+ * "absent on both Monday and Wednesday and in G2" or "everyone with no record today".
+ * <p>
+ * Demonstrates:
+ * - One bitmap of student ids per (date, status) and one per class group, so a question
+ *   becomes a few AND / OR / AND NOT operations instead of a join with GROUP BY
+ * - NOT as "all students AND NOT x", with a bitmap of every student id
+ * - Counting over a date range ({@link #withStatusAtLeast}) by walking the per-day bitmaps
+ * - Building with one streaming scan ({@link AttendanceDaoImpl#scanAfter}) and keeping the
+ *   index current through {@code se.lexicon.dao.IndexedAttendanceDao} and
+ *   {@code se.lexicon.dao.IndexedStudentDao}, or by following the change feed ({@link #apply})
+ * - Reloading while updates keep coming: updates made during a reload are replayed onto the
+ *   new bitmaps before they replace the old ones
+ * <p>
+ * Example:
+ * <pre>
+ * CompressedBitmap absentTwice = index.withStatus(monday, ABSENT)
+ *         .and(index.withStatus(wednesday, ABSENT))
+ *         .and(index.inClassGroup("G2"));
+ * </pre>
+ * Updates are applied when the DAO call returns. A write that is later rolled back
+ * (see {@code TransactionManager}) needs a {@link #reload()}. Writes that bypass the decorators
+ * (the archive job, other nodes) reach the index only if it follows the change feed:
+ * {@code feed.start(index::apply)}.
+ * <p>
+ * The index also keeps the (student, date) of every attendance id, 8 bytes per id, so a
+ * deletion known only by id (a feed event) can be applied.
+ * Queries return bitmaps of their own, which the caller may change.
+ * All date ranges are inclusive: from <= attendance_date <= to.
+ */
+public class AttendanceBitmapIndex {
+
+    private static final AttendanceStatus[] STATUSES = AttendanceStatus.values();
+
+    private final AttendanceDaoImpl attendanceDao;
+    private final StudentDao studentDao;
+    private final int fetchSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // One reload or feed batch at a time: they share the DAOs' connection
+    private final ReentrantLock loading = new ReentrantLock();
+
+    // Guarded by lock
+    private Bitmaps bitmaps = new Bitmaps();
+    // Updates made while a reload is running, replayed onto the reloaded bitmaps; null otherwise
+    private List<Consumer<Bitmaps>> duringReload;
+
+    public AttendanceBitmapIndex(AttendanceDaoImpl attendanceDao, StudentDao studentDao) {
+        this(attendanceDao, studentDao, AttendanceDaoImpl.DEFAULT_FETCH_SIZE);
+    }
+
+    public AttendanceBitmapIndex(AttendanceDaoImpl attendanceDao, StudentDao studentDao, int fetchSize) {
+        this.attendanceDao = attendanceDao;
+        this.studentDao = studentDao;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Creates an index and builds it from both tables.
+     */
+    public static AttendanceBitmapIndex load(AttendanceDaoImpl attendanceDao, StudentDao studentDao) {
+        AttendanceBitmapIndex index = new AttendanceBitmapIndex(attendanceDao, studentDao);
+        index.reload();
+        return index;
+    }
+
+    /**
+     * Builds the bitmaps again from both tables. Queries see the old index until it is done.
+     * Updates made meanwhile go to the old index and are replayed onto the new one, in order,
+     * before it replaces the old one; every update sets a final state, so replaying one the
+     * scan already saw is harmless.
+     *
+     * @return the number of attendance rows indexed
+     */
+    public int reload() {
+
+        loading.lock();
+        try {
+            write(() -> duringReload = new ArrayList<>());
+            Bitmaps loaded = new Bitmaps();
+
+            try (Stream<Student> students = studentDao.streamAll(fetchSize)) {
+                students.forEach(student -> loaded.studentSaved(student.getId(), student.getClassGroup()));
+            }
+            int[] rows = new int[1];
+            attendanceDao.scanAfter(0, fetchSize, (id, studentId, epochDay, status) -> {
+                loaded.attendanceSaved(id, studentId, epochDay, status);
+                rows[0]++;
+            });
+
+            write(() -> {
+                duringReload.forEach(update -> update.accept(loaded));
+                bitmaps = loaded;
+            });
+            return rows[0];
+
+        } finally {
+            write(() -> duringReload = null);
+            loading.unlock();
+        }
+    }
+
+    /**
+     * Change feed handler: reads every changed row again and indexes what it finds.
+     * A row that is gone is removed, so the operation itself does not matter and
+     * applying a change twice is harmless.
+     */
+    public void apply(List<ChangeEvent> events) {
+
+        Set<Integer> studentIds = new LinkedHashSet<>();
+        Set<Integer> attendanceIds = new LinkedHashSet<>();
+        for (ChangeEvent event : events) {
+            switch (event.tableName()) {
+                case "student" -> studentIds.add(event.rowId());
+                case "attendance" -> attendanceIds.add(event.rowId());
+                default -> {
+                    // Not indexed
+                }
+            }
+        }
+
+        Map<Integer, Optional<Student>> changedStudents = new HashMap<>();
+        Map<Integer, Optional<Attendance>> changedAttendance = new HashMap<>();
+        loading.lock();
+        try {
+            for (int id : studentIds) {
+                changedStudents.put(id, studentDao.findById(id));
+            }
+            for (int id : attendanceIds) {
+                changedAttendance.put(id, attendanceDao.findById(id));
+            }
+        } finally {
+            loading.unlock();
+        }
+
+        update(bitmaps -> {
+            changedStudents.forEach((id, student) -> {
+                if (student.isPresent()) {
+                    bitmaps.studentSaved(id, student.get().getClassGroup());
+                } else {
+                    bitmaps.studentRemoved(id);
+                }
+            });
+            changedAttendance.forEach((id, attendance) -> {
+                if (attendance.isPresent()) {
+                    Attendance row = attendance.get();
+                    bitmaps.attendanceSaved(id, row.getStudent().getId(),
+                            (int) row.getAttendanceDate().toEpochDay(), row.getStatus());
+                } else {
+                    bitmaps.attendanceRemoved(id);
+                }
+            });
+        });
+    }
+
+    /**
+     * Students with the status on the date.
+     */
+    public CompressedBitmap withStatus(LocalDate date, AttendanceStatus status) {
+        return read(bitmaps -> copyOrEmpty(bitmaps.statusOn((int) date.toEpochDay(), status)));
+    }
+
+    /**
+     * Students with the status on every one of the dates (AND). Empty for no dates.
+     */
+    public CompressedBitmap withStatusOnAll(AttendanceStatus status, Collection<LocalDate> dates) {
+        return read(bitmaps -> {
+            CompressedBitmap result = null;
+            for (LocalDate date : dates) {
+                CompressedBitmap day = bitmaps.statusOn((int) date.toEpochDay(), status);
+                if (day == null) {
+                    return new CompressedBitmap();
+                }
+                result = result == null ? day.copy() : result.and(day);
+            }
+            return result == null ? new CompressedBitmap() : result;
+        });
+    }
+
+    /**
+     * Students with the status on at least one day in the range (OR).
+     */
+    public CompressedBitmap withStatusOnAny(AttendanceStatus status, LocalDate from, LocalDate to) {
+        return read(bitmaps -> {
+            CompressedBitmap result = new CompressedBitmap();
+            for (CompressedBitmap[] byStatus : bitmaps.range(from, to).values()) {
+                if (byStatus[status.ordinal()] != null) {
+                    result = result.or(byStatus[status.ordinal()]);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Students with the status on at least {@code times} days in the range,
+     * e.g. "more than three absences this month" is {@code withStatusAtLeast(ABSENT, first, last, 4)}.
+     * Every student has a status at least 0 times, so {@code times <= 0} returns all students.
+     */
+    public CompressedBitmap withStatusAtLeast(AttendanceStatus status, LocalDate from, LocalDate to, int times) {
+        if (times <= 0) {
+            return allStudents();
+        }
+        if (times == 1) {
+            return withStatusOnAny(status, from, to);
+        }
+        return read(bitmaps -> {
+            Collection<CompressedBitmap[]> inRange = bitmaps.range(from, to).values();
+            int maxId = -1;
+            for (CompressedBitmap[] byStatus : inRange) {
+                if (byStatus[status.ordinal()] != null) {
+                    maxId = Math.max(maxId, byStatus[status.ordinal()].last());
+                }
+            }
+            // Counters indexed by student id, which suits AUTO_INCREMENT ids
+            int[] counts = new int[maxId + 1];
+            CompressedBitmap result = new CompressedBitmap();
+            for (CompressedBitmap[] byStatus : inRange) {
+                if (byStatus[status.ordinal()] != null) {
+                    byStatus[status.ordinal()].forEach(studentId -> {
+                        if (++counts[studentId] == times) {
+                            result.add(studentId);
+                        }
+                    });
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Number of students with the status on the date, without copying the bitmap.
+     */
+    public int count(LocalDate date, AttendanceStatus status) {
+        return read(bitmaps -> {
+            CompressedBitmap day = bitmaps.statusOn((int) date.toEpochDay(), status);
+            return day == null ? 0 : day.cardinality();
+        });
+    }
+
+    /**
+     * Students with no attendance row at all on the date.
+     */
+    public CompressedBitmap unrecorded(LocalDate date) {
+        return read(bitmaps -> {
+            CompressedBitmap result = bitmaps.allStudents.copy();
+            CompressedBitmap[] byStatus = bitmaps.days.get((int) date.toEpochDay());
+            if (byStatus != null) {
+                for (CompressedBitmap recorded : byStatus) {
+                    if (recorded != null) {
+                        result = result.andNot(recorded);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    public CompressedBitmap inClassGroup(String classGroup) {
+        return read(bitmaps -> copyOrEmpty(bitmaps.classGroups.get(classGroup)));
+    }
+
+    public CompressedBitmap allStudents() {
+        return read(bitmaps -> bitmaps.allStudents.copy());
+    }
+
+    /**
+     * Every student not in the bitmap.
+     */
+    public CompressedBitmap not(CompressedBitmap students) {
+        return read(bitmaps -> bitmaps.allStudents.andNot(students));
+    }
+
+    public Set<String> getClassGroups() {
+        return read(bitmaps -> new TreeSet<>(bitmaps.classGroups.keySet()));
+    }
+
+    /**
+     * Approximate memory used by all bitmaps and the id table, in bytes.
+     */
+    public long sizeInBytes() {
+        return read(Bitmaps::sizeInBytes);
+    }
+
+    // Incremental updates, called by the indexed DAOs after a write succeeded
+
+    /**
+     * The student now has exactly this status on the date (insert, update or upsert).
+     *
+     * @param id the attendance id, or 0 if the caller does not know it (e.g. after upsertAll)
+     */
+    public void attendanceSaved(int id, int studentId, LocalDate date, AttendanceStatus status) {
+        int epochDay = (int) date.toEpochDay();
+        update(bitmaps -> bitmaps.attendanceSaved(id, studentId, epochDay, status));
+    }
+
+    /**
+     * The student no longer has a row on the date.
+     *
+     * @param id the attendance id, or 0 if unknown
+     */
+    public void attendanceRemoved(int id, int studentId, LocalDate date) {
+        int epochDay = (int) date.toEpochDay();
+        update(bitmaps -> bitmaps.attendanceRemoved(id, studentId, epochDay));
+    }
+
+    /**
+     * The student was inserted, or may have moved to another class group.
+     */
+    public void studentSaved(int studentId, String classGroup) {
+        update(bitmaps -> bitmaps.studentSaved(studentId, classGroup));
+    }
+
+    public void studentRemoved(int studentId) {
+        update(bitmaps -> bitmaps.studentRemoved(studentId));
+    }
+
+    private static CompressedBitmap copyOrEmpty(CompressedBitmap bitmap) {
+        return bitmap == null ? new CompressedBitmap() : bitmap.copy();
+    }
+
+    private <T> T read(Function<Bitmaps, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(bitmaps);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the update now, and again to the new bitmaps if a reload is running.
+     */
+    private void update(Consumer<Bitmaps> update) {
+        write(() -> {
+            update.accept(bitmaps);
+            if (duringReload != null) {
+                duringReload.add(update);
+            }
+        });
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One complete set of bitmaps. Not thread-safe; the index guards it with its lock.
+     */
+    private static final class Bitmaps {
+
+        // Epoch day -> one bitmap per status, indexed by ordinal (null while the status has no rows)
+        private final NavigableMap<Integer, CompressedBitmap[]> days = new TreeMap<>();
+        private final Map<String, CompressedBitmap> classGroups = new HashMap<>();
+        private final CompressedBitmap allStudents = new CompressedBitmap();
+        // Attendance id -> studentId << 32 | epochDay, 0 for no row. Indexed by id like AUTO_INCREMENT hands them out
+        private long[] rowsById = new long[1024];
+
+        CompressedBitmap statusOn(int epochDay, AttendanceStatus status) {
+            CompressedBitmap[] byStatus = days.get(epochDay);
+            return byStatus == null ? null : byStatus[status.ordinal()];
+        }
+
+        NavigableMap<Integer, CompressedBitmap[]> range(LocalDate from, LocalDate to) {
+            return days.subMap((int) from.toEpochDay(), true, (int) to.toEpochDay(), true);
+        }
+
+        void attendanceSaved(int id, int studentId, int epochDay, AttendanceStatus status) {
+            if (id > 0) {
+                long row = pack(studentId, epochDay);
+                long old = rowOf(id);
+                // The row moved to another date (or student): clear the old place
+                if (old != 0 && old != row) {
+                    removeFromDay(epochDayOf(old), studentIdOf(old));
+                }
+                setRow(id, row);
+            }
+            removeFromDay(epochDay, studentId);
+            CompressedBitmap[] byStatus = days.computeIfAbsent(epochDay, day -> new CompressedBitmap[STATUSES.length]);
+            if (byStatus[status.ordinal()] == null) {
+                byStatus[status.ordinal()] = new CompressedBitmap();
+            }
+            byStatus[status.ordinal()].add(studentId);
+        }
+
+        void attendanceRemoved(int id, int studentId, int epochDay) {
+            if (id > 0) {
+                setRow(id, 0);
+            }
+            removeFromDay(epochDay, studentId);
+        }
+
+        /**
+         * Removes a row known only by id. Rows indexed without their id (see attendanceSaved) are not found.
+         */
+        void attendanceRemoved(int id) {
+            long old = rowOf(id);
+            if (old != 0) {
+                setRow(id, 0);
+                removeFromDay(epochDayOf(old), studentIdOf(old));
+            }
+        }
+
+        void studentSaved(int studentId, String classGroup) {
+            removeFromGroups(studentId);
+            allStudents.add(studentId);
+            classGroups.computeIfAbsent(classGroup, group -> new CompressedBitmap()).add(studentId);
+        }
+
+        void studentRemoved(int studentId) {
+            removeFromGroups(studentId);
+            allStudents.remove(studentId);
+        }
+
+        long sizeInBytes() {
+            long bytes = allStudents.sizeInBytes() + 8L * rowsById.length;
+            for (CompressedBitmap group : classGroups.values()) {
+                bytes += group.sizeInBytes();
+            }
+            for (CompressedBitmap[] byStatus : days.values()) {
+                for (CompressedBitmap day : byStatus) {
+                    bytes += day == null ? 0 : day.sizeInBytes();
+                }
+            }
+            return bytes;
+        }
+
+        private void removeFromDay(int epochDay, int studentId) {
+            CompressedBitmap[] byStatus = days.get(epochDay);
+            if (byStatus == null) {
+                return;
+            }
+            boolean empty = true;
+            for (CompressedBitmap day : byStatus) {
+                if (day != null) {
+                    day.remove(studentId);
+                    empty &= day.isEmpty();
+                }
+            }
+            if (empty) {
+                days.remove(epochDay);
+            }
+        }
+
+        private void removeFromGroups(int studentId) {
+            classGroups.values().removeIf(group -> {
+                group.remove(studentId);
+                return group.isEmpty();
+            });
+        }
+
+        private long rowOf(int id) {
+            return id < rowsById.length ? rowsById[id] : 0;
+        }
+
+        private void setRow(int id, long row) {
+            if (id >= rowsById.length) {
+                if (row == 0) {
+                    return;
+                }
+                rowsById = Arrays.copyOf(rowsById, Math.max(id + 1, rowsById.length * 2));
+            }
+            rowsById[id] = row;
+        }
+
+        // Student ids are positive, so a packed row is never 0
+        private static long pack(int studentId, int epochDay) {
+            return (long) studentId << 32 | (epochDay & 0xFFFF_FFFFL);
+        }
+
+        private static int studentIdOf(long row) {
+            return (int) (row >>> 32);
+        }
+
+        private static int epochDayOf(long row) {
+            return (int) row;
+        }
+    }
+}
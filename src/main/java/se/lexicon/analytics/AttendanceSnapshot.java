@@ -0,0 +1,343 @@
+package se.lexicon.analytics;
+
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.AttendanceRowHandler;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.DailyAttendanceStats;
+import se.lexicon.model.StudentAttendanceStats;
+import se.lexicon.model.StudentStreak;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * An in-memory, column-oriented copy of the attendance table for dashboards.
+ * <p>
+ * Demonstrates:
+ * - Storing rows as primitive columns: int student ids, int epoch days
+ *   and a BitSet with one bit per row (set = PRESENT) instead of Attendance objects
+ * - Loading with one streaming scan ({@link AttendanceDaoImpl#scanAfter}) and
+ *   refreshing incrementally by the highest id seen so far (the high-water mark)
+ * - Aggregating with parallel streams over row indexes into per-thread counter arrays
+ * - Lock-free reads: every refresh publishes a new immutable {@link Columns} view,
+ *   so queries never see a half-applied refresh
+ * <p>
+ * Only new rows are picked up by {@link #refresh()}. Rows that were updated
+ * (e.g. by an upsert) or deleted since the last load need a {@link #reload()}.
+ * <p>
+ * Per-student and per-day counters are arrays indexed by id (or day) minus the smallest
+ * one, which suits AUTO_INCREMENT student ids and a few years of dates.
+ * All date ranges are inclusive: from <= attendance_date <= to.
+ */
+public class AttendanceSnapshot {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * One consistent view of the columns. Rows [0, size) are never changed after publishing;
+     * a refresh may append to the same arrays beyond {@code size}, which this view never reads.
+     */
+    private record Columns(
+            int[] studentIds,
+            int[] epochDays,
+            BitSet present,
+            int size,
+            int highWaterMark,
+            int minStudentId,
+            int maxStudentId,
+            int minDay,
+            int maxDay
+    ) {
+        static final Columns EMPTY = new Columns(new int[0], new int[0], new BitSet(),
+                0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    private final AttendanceDaoImpl attendanceDao;
+    private final int fetchSize;
+    private volatile Columns columns = Columns.EMPTY;
+
+    public AttendanceSnapshot(AttendanceDaoImpl attendanceDao) {
+        this(attendanceDao, AttendanceDaoImpl.DEFAULT_FETCH_SIZE);
+    }
+
+    public AttendanceSnapshot(AttendanceDaoImpl attendanceDao, int fetchSize) {
+        this.attendanceDao = attendanceDao;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Creates a snapshot and loads all rows.
+     */
+    public static AttendanceSnapshot load(AttendanceDaoImpl attendanceDao) {
+        AttendanceSnapshot snapshot = new AttendanceSnapshot(attendanceDao);
+        snapshot.refresh();
+        return snapshot;
+    }
+
+    /**
+     * Appends rows with an id above the high-water mark.
+     *
+     * @return the number of new rows
+     */
+    public synchronized int refresh() {
+        Columns current = columns;
+        Appender appender = new Appender(current);
+        attendanceDao.scanAfter(current.highWaterMark(), fetchSize, appender);
+        columns = appender.build();
+        return columns.size() - current.size();
+    }
+
+    /**
+     * Drops all rows and loads the table again, picking up updates and deletes.
+     */
+    public synchronized void reload() {
+        Appender appender = new Appender(Columns.EMPTY);
+        attendanceDao.scanAfter(0, fetchSize, appender);
+        columns = appender.build();
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * The highest attendance id loaded so far.
+     */
+    public int getHighWaterMark() {
+        return columns.highWaterMark();
+    }
+
+    /**
+     * One entry per student with rows in the range, ordered by student id.
+     */
+    public List<StudentAttendanceStats> countByStudent(LocalDate from, LocalDate to) {
+        Columns c = columns;
+        if (c.size() == 0) {
+            return List.of();
+        }
+
+        int base = c.minStudentId();
+        int range = c.maxStudentId() - base + 1;
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+
+        // counts[0] = present, counts[1] = absent, indexed by studentId - base
+        int[][] counts = IntStream.range(0, c.size()).parallel().collect(
+                () -> new int[2][range],
+                (acc, row) -> {
+                    int day = c.epochDays()[row];
+                    if (day >= fromDay && day <= toDay) {
+                        acc[c.present().get(row) ? 0 : 1][c.studentIds()[row] - base]++;
+                    }
+                },
+                AttendanceSnapshot::addCounts
+        );
+
+        List<StudentAttendanceStats> stats = new ArrayList<>();
+        for (int slot = 0; slot < range; slot++) {
+            if (counts[0][slot] + counts[1][slot] > 0) {
+                stats.add(new StudentAttendanceStats(base + slot, counts[0][slot], counts[1][slot]));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Counts for one student. A student without rows gets 0 present and 0 absent.
+     */
+    public StudentAttendanceStats countForStudent(int studentId, LocalDate from, LocalDate to) {
+        Columns c = columns;
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+
+        int[] counts = IntStream.range(0, c.size()).parallel()
+                .filter(row -> c.studentIds()[row] == studentId)
+                .filter(row -> c.epochDays()[row] >= fromDay && c.epochDays()[row] <= toDay)
+                .collect(
+                        () -> new int[2],
+                        (acc, row) -> acc[c.present().get(row) ? 0 : 1]++,
+                        (a, b) -> {
+                            a[0] += b[0];
+                            a[1] += b[1];
+                        }
+                );
+
+        return new StudentAttendanceStats(studentId, counts[0], counts[1]);
+    }
+
+    /**
+     * One entry per day with rows in the range, ordered by date.
+     */
+    public List<DailyAttendanceStats> countByDate(LocalDate from, LocalDate to) {
+        Columns c = columns;
+        int fromDay = (int) Math.max(from.toEpochDay(), c.minDay());
+        int toDay = (int) Math.min(to.toEpochDay(), c.maxDay());
+        if (c.size() == 0 || fromDay > toDay) {
+            return List.of();
+        }
+
+        int range = toDay - fromDay + 1;
+
+        int[][] counts = IntStream.range(0, c.size()).parallel().collect(
+                () -> new int[2][range],
+                (acc, row) -> {
+                    int day = c.epochDays()[row];
+                    if (day >= fromDay && day <= toDay) {
+                        acc[c.present().get(row) ? 0 : 1][day - fromDay]++;
+                    }
+                },
+                AttendanceSnapshot::addCounts
+        );
+
+        List<DailyAttendanceStats> stats = new ArrayList<>();
+        for (int slot = 0; slot < range; slot++) {
+            if (counts[0][slot] + counts[1][slot] > 0) {
+                stats.add(new DailyAttendanceStats(LocalDate.ofEpochDay(fromDay + slot), counts[0][slot], counts[1][slot]));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Longest and current PRESENT streak of every student, ordered by student id.
+     */
+    public List<StudentStreak> streaks() {
+        Columns c = columns;
+        if (c.size() == 0) {
+            return List.of();
+        }
+
+        int base = c.minStudentId();
+        int range = c.maxStudentId() - base + 1;
+
+        // Counting sort of the rows by student: rows of student (base + s) end up in
+        // keys[start[s]] .. keys[start[s + 1] - 1]
+        int[] start = new int[range + 1];
+        for (int row = 0; row < c.size(); row++) {
+            start[c.studentIds()[row] - base + 1]++;
+        }
+        for (int s = 0; s < range; s++) {
+            start[s + 1] += start[s];
+        }
+
+        // Key = day * 2 + present bit, so sorting a student's keys sorts the rows by date
+        int[] keys = new int[c.size()];
+        int[] next = Arrays.copyOf(start, range);
+        for (int row = 0; row < c.size(); row++) {
+            keys[next[c.studentIds()[row] - base]++] = c.epochDays()[row] * 2 + (c.present().get(row) ? 1 : 0);
+        }
+
+        StudentStreak[] streaks = new StudentStreak[range];
+        IntStream.range(0, range).parallel()
+                .filter(s -> start[s + 1] > start[s])
+                .forEach(s -> streaks[s] = streak(base + s, keys, start[s], start[s + 1]));
+
+        List<StudentStreak> result = new ArrayList<>();
+        for (StudentStreak streak : streaks) {
+            if (streak != null) {
+                result.add(streak);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Streaks of one student, or empty if the student has no rows.
+     */
+    public Optional<StudentStreak> streakForStudent(int studentId) {
+        Columns c = columns;
+        int[] keys = IntStream.range(0, c.size()).parallel()
+                .filter(row -> c.studentIds()[row] == studentId)
+                .map(row -> c.epochDays()[row] * 2 + (c.present().get(row) ? 1 : 0))
+                .toArray();
+
+        if (keys.length == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(streak(studentId, keys, 0, keys.length));
+    }
+
+    private static StudentStreak streak(int studentId, int[] keys, int from, int to) {
+        Arrays.sort(keys, from, to);
+        int longest = 0;
+        int current = 0;
+        for (int i = from; i < to; i++) {
+            if ((keys[i] & 1) == 1) {
+                current++;
+                longest = Math.max(longest, current);
+            } else {
+                current = 0;
+            }
+        }
+        return new StudentStreak(studentId, longest, current);
+    }
+
+    private static void addCounts(int[][] into, int[][] from) {
+        for (int i = 0; i < into.length; i++) {
+            for (int j = 0; j < into[i].length; j++) {
+                into[i][j] += from[i][j];
+            }
+        }
+    }
+
+    /**
+     * Collects scanned rows on top of an existing view and builds the next one.
+     */
+    private static final class Appender implements AttendanceRowHandler {
+
+        private int[] studentIds;
+        private int[] epochDays;
+        private final BitSet present;
+        private int size;
+        private int highWaterMark;
+        private int minStudentId;
+        private int maxStudentId;
+        private int minDay;
+        private int maxDay;
+
+        Appender(Columns base) {
+            // Arrays are shared with the old view (it only reads up to its own size),
+            // the BitSet is copied because growing it replaces its internal array
+            this.studentIds = base.studentIds();
+            this.epochDays = base.epochDays();
+            this.present = (BitSet) base.present().clone();
+            this.size = base.size();
+            this.highWaterMark = base.highWaterMark();
+            this.minStudentId = base.minStudentId();
+            this.maxStudentId = base.maxStudentId();
+            this.minDay = base.minDay();
+            this.maxDay = base.maxDay();
+        }
+
+        @Override
+        public void onRow(int id, int studentId, int epochDay, AttendanceStatus status) {
+            if (size == studentIds.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, studentIds.length + (studentIds.length >> 1));
+                studentIds = Arrays.copyOf(studentIds, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+            }
+            studentIds[size] = studentId;
+            epochDays[size] = epochDay;
+            if (status == AttendanceStatus.PRESENT) {
+                present.set(size);
+            }
+            size++;
+
+            highWaterMark = Math.max(highWaterMark, id);
+            minStudentId = Math.min(minStudentId, studentId);
+            maxStudentId = Math.max(maxStudentId, studentId);
+            minDay = Math.min(minDay, epochDay);
+            maxDay = Math.max(maxDay, epochDay);
+        }
+
+        Columns build() {
+            return new Columns(studentIds, epochDays, present, size, highWaterMark,
+                    minStudentId, maxStudentId, minDay, maxDay);
+        }
+    }
+}
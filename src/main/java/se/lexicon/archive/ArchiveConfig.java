@@ -0,0 +1,107 @@
+package se.lexicon.archive;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link AttendanceArchive}.
+ */
+public class ArchiveConfig {
+
+    private PartitionScheme scheme = PartitionScheme.TERM;
+    private int retainedClosedPeriods = 1;
+    private int deleteChunkSize = 1_000;
+    private Duration deletePause = Duration.ofMillis(50);
+    private Duration manifestRefresh = Duration.ofSeconds(10);
+    private int cachedPeriods = 4;
+
+    // Getters and Setters
+
+    public PartitionScheme getScheme() {
+        return scheme;
+    }
+
+    public void setScheme(PartitionScheme scheme) {
+        this.scheme = scheme;
+    }
+
+    /**
+     * Closed periods that stay in the live table, e.g. 1 keeps last term live for corrections.
+     * The current period is never archived.
+     */
+    public int getRetainedClosedPeriods() {
+        return retainedClosedPeriods;
+    }
+
+    public void setRetainedClosedPeriods(int retainedClosedPeriods) {
+        if (retainedClosedPeriods < 0) {
+            throw new IllegalArgumentException("retainedClosedPeriods must not be negative");
+        }
+        this.retainedClosedPeriods = retainedClosedPeriods;
+    }
+
+    /**
+     * Rows removed per delete batch. Each chunk is its own short transaction, so row locks
+     * are held briefly and replicas apply small events.
+     */
+    public int getDeleteChunkSize() {
+        return deleteChunkSize;
+    }
+
+    public void setDeleteChunkSize(int deleteChunkSize) {
+        if (deleteChunkSize < 1) {
+            throw new IllegalArgumentException("deleteChunkSize must be at least 1");
+        }
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    /**
+     * Pause between delete chunks, to leave room for the school day's writes.
+     */
+    public Duration getDeletePause() {
+        return deletePause;
+    }
+
+    public void setDeletePause(Duration deletePause) {
+        this.deletePause = deletePause;
+    }
+
+    /**
+     * How long readers may use the list of archived periods before reading it again.
+     * The archive job waits this long between recording a period and deleting its live rows,
+     * so every reader knows about the file before the rows disappear.
+     */
+    public Duration getManifestRefresh() {
+        return manifestRefresh;
+    }
+
+    public void setManifestRefresh(Duration manifestRefresh) {
+        this.manifestRefresh = manifestRefresh;
+    }
+
+    /**
+     * Archived periods kept decoded in memory for reads (about 13 bytes per row).
+     */
+    public int getCachedPeriods() {
+        return cachedPeriods;
+    }
+
+    public void setCachedPeriods(int cachedPeriods) {
+        if (cachedPeriods < 0) {
+            throw new IllegalArgumentException("cachedPeriods must not be negative");
+        }
+        this.cachedPeriods = cachedPeriods;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "ArchiveConfig{" +
+                "scheme=" + scheme +
+                ", retainedClosedPeriods=" + retainedClosedPeriods +
+                ", deleteChunkSize=" + deleteChunkSize +
+                ", deletePause=" + deletePause +
+                ", manifestRefresh=" + manifestRefresh +
+                ", cachedPeriods=" + cachedPeriods +
+                '}';
+    }
+}
@@ -0,0 +1,10 @@
+package se.lexicon.archive;
+
+/**
+ * One row of attendance_archive: an archived period and its file.
+ *
+ * @param maxId    highest exported id
+ * @param complete false while the live rows of the period are still being deleted
+ */
+public record ArchiveEntry(ArchivePeriod period, String fileName, long rows, int maxId, boolean complete) {
+}
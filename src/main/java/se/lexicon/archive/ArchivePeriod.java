@@ -0,0 +1,37 @@
+package se.lexicon.archive;
+
+import java.time.LocalDate;
+
+/**
+ * A half-open date range [from, until) that is archived and partitioned as one unit.
+ *
+ * @param name  e.g. "2024-spring" or "2024-03", also used for the partition and file names
+ * @param from  first day of the period
+ * @param until first day after the period
+ */
+public record ArchivePeriod(String name, LocalDate from, LocalDate until) {
+
+    public ArchivePeriod {
+        if (!from.isBefore(until)) {
+            throw new IllegalArgumentException("Period " + name + " must start before it ends");
+        }
+    }
+
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(from) && date.isBefore(until);
+    }
+
+    /**
+     * True if the period has at least one day in [from, to] (both inclusive).
+     */
+    public boolean overlaps(LocalDate from, LocalDate to) {
+        return from.isBefore(until) && !to.isBefore(this.from);
+    }
+
+    /**
+     * MySQL partition name, e.g. p2024_spring.
+     */
+    public String partitionName() {
+        return "p" + name.replace('-', '_');
+    }
+}
@@ -0,0 +1,18 @@
+package se.lexicon.archive;
+
+import java.time.Duration;
+
+/**
+ * Outcome of archiving one period.
+ *
+ * @param rows    rows written to the archive file (0 when an interrupted run was only finished)
+ * @param deleted live rows removed after the file was recorded
+ */
+public record ArchiveResult(ArchivePeriod period, long rows, long deleted, Duration elapsed) {
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d rows archived, %,d live rows deleted in %.2f s",
+                period.name(), rows, deleted, elapsed.toNanos() / 1e9);
+    }
+}
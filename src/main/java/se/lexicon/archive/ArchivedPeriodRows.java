@@ -0,0 +1,119 @@
+package se.lexicon.archive;
+
+import se.lexicon.bulk.BulkTable;
+import se.lexicon.bulk.CsvReader;
+import se.lexicon.model.AttendanceStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The rows of one archive file, decoded into parallel arrays sorted by date and id.
+ * <p>
+ * About 13 bytes per row instead of a few hundred for Attendance objects,
+ * and a date range is found with two binary searches.
+ */
+final class ArchivedPeriodRows {
+
+    private static final AttendanceStatus[] STATUSES = AttendanceStatus.values();
+
+    private final int[] ids;
+    private final int[] studentIds;
+    private final int[] epochDays;
+    private final byte[] statuses;
+    private final int size;
+
+    private ArchivedPeriodRows(int[] ids, int[] studentIds, int[] epochDays, byte[] statuses, int size) {
+        this.ids = ids;
+        this.studentIds = studentIds;
+        this.epochDays = epochDays;
+        this.statuses = statuses;
+        this.size = size;
+    }
+
+    /**
+     * Reads a file written by {@link AttendanceArchive}: the attendance CSV layout of the bulk
+     * tools, gzip compressed, ordered by date and id.
+     */
+    static ArchivedPeriodRows load(Path file, int expectedRows) throws IOException {
+
+        int capacity = Math.max(expectedRows, 16);
+        int[] ids = new int[capacity];
+        int[] studentIds = new int[capacity];
+        int[] epochDays = new int[capacity];
+        byte[] statuses = new byte[capacity];
+        int size = 0;
+
+        try (
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(file), 64 * 1024), StandardCharsets.UTF_8), 64 * 1024)
+        ) {
+            List<String> columns = BulkTable.ATTENDANCE.getColumns();
+            String header = in.readLine();
+            if (!String.join(",", columns).equals(header)) {
+                throw new IOException("Not an attendance archive: " + file);
+            }
+
+            CsvReader csv = new CsvReader(in, columns.size());
+            while (csv.hasNext()) {
+                String[] fields = csv.next();
+                if (size == ids.length) {
+                    int grown = size * 2;
+                    ids = Arrays.copyOf(ids, grown);
+                    studentIds = Arrays.copyOf(studentIds, grown);
+                    epochDays = Arrays.copyOf(epochDays, grown);
+                    statuses = Arrays.copyOf(statuses, grown);
+                }
+                ids[size] = Integer.parseInt(fields[0]);
+                studentIds[size] = Integer.parseInt(fields[1]);
+                epochDays[size] = (int) LocalDate.parse(fields[2]).toEpochDay();
+                statuses[size] = (byte) AttendanceStatus.fromLabel(fields[3]).ordinal();
+                size++;
+            }
+        }
+        return new ArchivedPeriodRows(ids, studentIds, epochDays, statuses, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the rows dated from..to (inclusive) whose student matches, in date and id order.
+     */
+    void collect(LocalDate from, LocalDate to, IntPredicate students, List<ArchivedRow> into) {
+        int end = firstIndexAfter((int) to.toEpochDay());
+        for (int i = firstIndexAfter((int) from.toEpochDay() - 1); i < end; i++) {
+            if (students.test(studentIds[i])) {
+                into.add(new ArchivedRow(ids[i], studentIds[i],
+                        LocalDate.ofEpochDay(epochDays[i]), STATUSES[statuses[i]]));
+            }
+        }
+    }
+
+    /**
+     * Index of the first row dated after the given day.
+     */
+    private int firstIndexAfter(int epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,11 @@
+package se.lexicon.archive;
+
+import se.lexicon.model.AttendanceStatus;
+
+import java.time.LocalDate;
+
+/**
+ * One attendance row read back from an archive file. Only the student id is stored.
+ */
+public record ArchivedRow(int id, int studentId, LocalDate attendanceDate, AttendanceStatus status) {
+}
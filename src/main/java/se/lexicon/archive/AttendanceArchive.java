@@ -0,0 +1,468 @@
+package se.lexicon.archive;
+
+import se.lexicon.bulk.BulkExporter;
+import se.lexicon.bulk.BulkTable;
+import se.lexicon.bulk.CsvWriter;
+import se.lexicon.cache.LruCache;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.feed.ChangeOperation;
+import se.lexicon.feed.ChangeOutbox;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves closed terms (or months) of attendance out of the live table into compressed files,
+ * and reads them back.
+ * <p>
+ * Demonstrates:
+ * - Cold-data archival: one gzip CSV per period in the attendance layout of the bulk tools,
+ *   so {@code BulkDataApp import attendance <file>} restores a period
+ * - Lock-friendly purging: small batches of deletes in their own transactions,
+ *   with a pause between them, instead of one huge DELETE
+ * - A manifest table (attendance_archive) that tells every reader which dates are archived
+ * - A resumable job: a period is recorded before its rows are deleted, and a run that stopped
+ *   halfway finishes the deletes next time
+ * <p>
+ * Order of work for one period: export the rows to a temporary file, rename it, record it in
+ * attendance_archive, wait {@code manifestRefresh} so readers see it, then delete the exported
+ * rows. The export does not lock the period, so a row is deleted only if every column still
+ * matches the file: rows inserted or changed after the export stay in the live table, where
+ * {@code ArchiveAwareAttendanceDao} still finds them (the live row wins over the archived one).
+ * Each delete batch records its rows in the change outbox in the same transaction and
+ * invalidates the query cache, like a DAO delete.
+ * <p>
+ * Archived periods are read-only: change a row by importing the file again first.
+ */
+public class AttendanceArchive {
+
+    // MySQL's smallest DATE, the start of the search when nothing is archived yet
+    private static final LocalDate BEGINNING = LocalDate.of(1000, 1, 1);
+
+    private record Manifest(List<ArchiveEntry> entries, long loadedAt) {
+    }
+
+    private record Export(long rows, int maxId) {
+    }
+
+    private final DataSource dataSource;
+    private final Path directory;
+    private final ArchiveConfig config;
+    private final ChangeOutbox outbox;
+    private final QueryResultCache queryCache;
+    private final AttendancePartitions partitions;
+    private final LruCache<String, ArchivedPeriodRows> decoded;
+
+    private volatile Manifest manifest;
+
+    public AttendanceArchive(DataSource dataSource, Path directory) {
+        this(dataSource, directory, new ArchiveConfig());
+    }
+
+    public AttendanceArchive(DataSource dataSource, Path directory, ArchiveConfig config) {
+        this(dataSource, directory, config, ChangeOutbox.disabled(), QueryResultCache.disabled());
+    }
+
+    /**
+     * @param outbox     records the deleted live rows, so change feed consumers drop them
+     * @param queryCache the cache the DAOs use, so cached results stop showing the deleted rows
+     */
+    public AttendanceArchive(DataSource dataSource, Path directory, ArchiveConfig config,
+                             ChangeOutbox outbox, QueryResultCache queryCache) {
+        this.dataSource = dataSource;
+        this.directory = directory;
+        this.config = config;
+        this.outbox = outbox;
+        this.queryCache = queryCache;
+        this.partitions = new AttendancePartitions(dataSource);
+        this.decoded = new LruCache<>(config.getCachedPeriods(), null);
+    }
+
+    /**
+     * The archive job: archives every closed period older than the retained ones, oldest first,
+     * then adds the partition for the next period and drops the emptied partitions.
+     * Safe to run again after a failure.
+     *
+     * @param today the current date, which decides which periods are closed
+     */
+    public List<ArchiveResult> archiveClosedPeriods(LocalDate today) {
+
+        List<ArchiveResult> results = new ArrayList<>();
+        PartitionScheme scheme = config.getScheme();
+
+        // Finish a run that stopped while deleting
+        for (ArchiveEntry entry : loadManifest().entries()) {
+            if (!entry.complete()) {
+                results.add(finish(entry, 0, System.nanoTime()));
+            }
+        }
+
+        ArchivePeriod retained = scheme.periodOf(today);
+        for (int i = 0; i < config.getRetainedClosedPeriods(); i++) {
+            retained = scheme.previous(retained);
+        }
+        LocalDate cutoff = retained.from();
+
+        while (true) {
+            LocalDate archivedUntil = getArchivedUntil();
+            LocalDate oldest = oldestLiveDate(archivedUntil == null ? BEGINNING : archivedUntil);
+            if (oldest == null) {
+                break;
+            }
+            ArchivePeriod period = scheme.periodOf(oldest);
+            if (period.until().isAfter(cutoff)) {
+                break;
+            }
+            // Only when the scheme changed: do not archive dates that are already in a file
+            if (archivedUntil != null && period.from().isBefore(archivedUntil)) {
+                period = new ArchivePeriod(period.name(), archivedUntil, period.until());
+            }
+            results.add(archive(period));
+        }
+
+        partitions.addPartitionsThrough(scheme, scheme.next(scheme.periodOf(today)).from());
+        LocalDate archivedUntil = getArchivedUntil();
+        if (archivedUntil != null) {
+            partitions.dropEmptyBefore(archivedUntil);
+        }
+        return results;
+    }
+
+    /**
+     * The archived periods, oldest first.
+     */
+    public List<ArchiveEntry> getEntries() {
+        return currentManifest().entries();
+    }
+
+    /**
+     * The first date that is not archived, or null if nothing is archived.
+     * Every date before it is in an archive file.
+     */
+    public LocalDate getArchivedUntil() {
+        List<ArchiveEntry> entries = getEntries();
+        return entries.isEmpty() ? null : entries.getLast().period().until();
+    }
+
+    /**
+     * The archived rows dated from..to (inclusive), ordered by date and id.
+     */
+    public List<ArchivedRow> read(LocalDate from, LocalDate to) {
+        return read(from, to, studentId -> true);
+    }
+
+    /**
+     * The archived rows dated from..to (inclusive) of the matching students, ordered by date and id.
+     */
+    public List<ArchivedRow> read(LocalDate from, LocalDate to, IntPredicate students) {
+
+        List<ArchivedRow> rows = new ArrayList<>();
+        for (ArchiveEntry entry : getEntries()) {
+            if (entry.period().overlaps(from, to)) {
+                rowsOf(entry).collect(from, to, students, rows);
+            }
+        }
+        return rows;
+    }
+
+    private ArchivedPeriodRows rowsOf(ArchiveEntry entry) {
+
+        ArchivedPeriodRows rows = decoded.get(entry.fileName());
+        if (rows != null) {
+            return rows;
+        }
+
+        Path file = directory.resolve(entry.fileName());
+        try {
+            rows = ArchivedPeriodRows.load(file, Math.toIntExact(entry.rows()));
+        } catch (IOException e) {
+            System.err.println("❌ Error reading attendance archive " + file + ": " + e.getMessage());
+            throw new RuntimeException("Error reading attendance archive " + file, e);
+        }
+        decoded.put(entry.fileName(), rows);
+        return rows;
+    }
+
+    private ArchiveResult archive(ArchivePeriod period) {
+
+        long start = System.nanoTime();
+        String fileName = "attendance-" + period.name() + ".csv.gz";
+        Path file = directory.resolve(fileName);
+        Path temporary = directory.resolve(fileName + ".tmp");
+
+        Export export;
+        try {
+            Files.createDirectories(directory);
+            export = export(period, temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException | IOException e) {
+            deleteQuietly(temporary);
+            System.err.println("❌ Error archiving attendance " + period.name() + ": " + e.getMessage());
+            throw new RuntimeException("Error archiving attendance " + period.name(), e);
+        }
+
+        ArchiveEntry entry = new ArchiveEntry(period, fileName, export.rows(), export.maxId(), false);
+        record(entry);
+
+        // Readers on other nodes may still use a manifest without this period
+        pause(config.getManifestRefresh());
+        return finish(entry, export.rows(), start);
+    }
+
+    private Export export(ArchivePeriod period, Path file) throws SQLException, IOException {
+
+        String sql = """
+                SELECT id, student_id, attendance_date, status
+                FROM attendance
+                WHERE attendance_date >= ? AND attendance_date < ?
+                ORDER BY attendance_date, id
+                """;
+
+        long rows = 0;
+        int maxId = 0;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(
+                        sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024), StandardCharsets.UTF_8), 64 * 1024)
+        ) {
+            ps.setDate(1, Date.valueOf(period.from()));
+            ps.setDate(2, Date.valueOf(period.until()));
+            ps.setFetchSize(BulkExporter.DEFAULT_FETCH_SIZE);
+
+            CsvWriter csv = new CsvWriter(out);
+            csv.writeRecord(BulkTable.ATTENDANCE.getColumns().toArray(String[]::new));
+
+            String[] fields = new String[4];
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    fields[0] = Integer.toString(id);
+                    fields[1] = Integer.toString(rs.getInt(2));
+                    fields[2] = rs.getObject(3, LocalDate.class).toString();
+                    fields[3] = rs.getString(4);
+                    csv.writeRecord(fields);
+                    rows++;
+                    maxId = Math.max(maxId, id);
+                }
+            }
+        }
+        return new Export(rows, maxId);
+    }
+
+    /**
+     * Deletes the exported live rows of the entry and marks it complete.
+     */
+    private ArchiveResult finish(ArchiveEntry entry, long rows, long start) {
+
+        long deleted = deleteExported(entry);
+        markComplete(entry);
+        return new ArchiveResult(entry.period(), rows, deleted, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private long deleteExported(ArchiveEntry entry) {
+
+        // A row changed or re-inserted after the export no longer matches and stays live
+        String sql = """
+                DELETE FROM attendance
+                WHERE id = ? AND student_id = ? AND attendance_date = ? AND status = ?
+                """;
+
+        // The file is what was exported, also when a stopped run is resumed
+        List<ArchivedRow> exported = new ArrayList<>();
+        rowsOf(entry).collect(entry.period().from(), entry.period().until().minusDays(1), studentId -> true, exported);
+
+        long deleted = 0;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            connection.setAutoCommit(true);
+            for (int from = 0; from < exported.size(); from += config.getDeleteChunkSize()) {
+                if (from > 0) {
+                    pause(config.getDeletePause());
+                }
+                List<ArchivedRow> chunk = exported.subList(from, Math.min(from + config.getDeleteChunkSize(), exported.size()));
+                deleted += outbox.inTransaction(connection, () -> deleteChunk(connection, ps, chunk));
+                queryCache.tablesChanged(connection, "attendance");
+            }
+            return deleted;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error deleting archived attendance " + entry.period().name() + ": " + e.getMessage());
+            throw new RuntimeException("Error deleting archived attendance " + entry.period().name(), e);
+        }
+    }
+
+    /**
+     * Deletes the rows that still match, and records them in the outbox in the same transaction.
+     *
+     * @return the number of rows deleted
+     */
+    private int deleteChunk(Connection connection, PreparedStatement ps, List<ArchivedRow> chunk) throws SQLException {
+
+        for (ArchivedRow row : chunk) {
+            ps.setInt(1, row.id());
+            ps.setInt(2, row.studentId());
+            ps.setDate(3, Date.valueOf(row.attendanceDate()));
+            ps.setString(4, row.status().getLabel());
+            ps.addBatch();
+        }
+        int[] counts = ps.executeBatch();
+
+        List<Integer> deletedIds = new ArrayList<>(chunk.size());
+        for (int i = 0; i < counts.length; i++) {
+            // A driver that cannot tell reports SUCCESS_NO_INFO; an extra outbox row only costs a re-read
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                deletedIds.add(chunk.get(i).id());
+            }
+        }
+        outbox.recordAll(connection, "attendance", ChangeOperation.DELETE, deletedIds);
+        return deletedIds.size();
+    }
+
+    private void record(ArchiveEntry entry) {
+
+        String sql = """
+                INSERT INTO attendance_archive
+                    (period_name, from_date, until_date, file_name, row_count, max_id, status)
+                VALUES (?, ?, ?, ?, ?, ?, 'DELETING')
+                """;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, entry.period().name());
+            ps.setDate(2, Date.valueOf(entry.period().from()));
+            ps.setDate(3, Date.valueOf(entry.period().until()));
+            ps.setString(4, entry.fileName());
+            ps.setLong(5, entry.rows());
+            ps.setInt(6, entry.maxId());
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error recording attendance archive " + entry.period().name() + ": " + e.getMessage());
+            throw new RuntimeException("Error recording attendance archive " + entry.period().name(), e);
+        }
+        manifest = null;
+    }
+
+    private void markComplete(ArchiveEntry entry) {
+
+        String sql = "UPDATE attendance_archive SET status = 'DONE' WHERE period_name = ?";
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, entry.period().name());
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error recording attendance archive " + entry.period().name() + ": " + e.getMessage());
+            throw new RuntimeException("Error recording attendance archive " + entry.period().name(), e);
+        }
+        manifest = null;
+    }
+
+    private LocalDate oldestLiveDate(LocalDate notBefore) {
+
+        // Served by idx_attendance_date; rows left in archived periods are skipped
+        String sql = "SELECT MIN(attendance_date) FROM attendance WHERE attendance_date >= ?";
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setDate(1, Date.valueOf(notBefore));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getObject(1, LocalDate.class) : null;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error finding oldest attendance: " + e.getMessage());
+            throw new RuntimeException("Error finding oldest attendance", e);
+        }
+    }
+
+    private Manifest currentManifest() {
+        Manifest current = manifest;
+        if (current == null || System.nanoTime() - current.loadedAt() > config.getManifestRefresh().toNanos()) {
+            current = loadManifest();
+        }
+        return current;
+    }
+
+    private Manifest loadManifest() {
+
+        String sql = """
+                SELECT period_name, from_date, until_date, file_name, row_count, max_id, status
+                FROM attendance_archive
+                ORDER BY from_date
+                """;
+
+        List<ArchiveEntry> entries = new ArrayList<>();
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()
+        ) {
+            while (rs.next()) {
+                ArchivePeriod period = new ArchivePeriod(rs.getString(1),
+                        rs.getObject(2, LocalDate.class), rs.getObject(3, LocalDate.class));
+                entries.add(new ArchiveEntry(period, rs.getString(4), rs.getLong(5), rs.getInt(6),
+                        "DONE".equals(rs.getString(7))));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading attendance archive list: " + e.getMessage());
+            throw new RuntimeException("Error reading attendance archive list", e);
+        }
+
+        Manifest loaded = new Manifest(List.copyOf(entries), System.nanoTime());
+        manifest = loaded;
+        return loaded;
+    }
+
+    private static void pause(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            // The manifest says where to resume
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attendance archiving interrupted", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Keep the original error
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package se.lexicon.archive;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the RANGE COLUMNS (attendance_date) partitions of attendance in step with a
+ * {@link PartitionScheme} (see Migration_Scripts.sql).
+ * <p>
+ * Demonstrates:
+ * - Reading the partition layout from information_schema.PARTITIONS
+ * - Adding partitions ahead of time by splitting the catch-all pmax partition while it is
+ *   still empty, which is a metadata-only change
+ * - Dropping old partitions once they are empty, which releases their space at once
+ * <p>
+ * Every method does nothing when attendance is not partitioned.
+ */
+public class AttendancePartitions {
+
+    private static final String MAX_PARTITION = "pmax";
+
+    /**
+     * One partition: rows dated before {@code lessThan}, or every later date when lessThan is null (pmax).
+     */
+    public record Partition(String name, LocalDate lessThan) {
+    }
+
+    private final DataSource dataSource;
+
+    public AttendancePartitions(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * The partitions of attendance in order, empty if the table is not partitioned.
+     */
+    public List<Partition> list() {
+        try (Connection connection = dataSource.getConnection()) {
+            return list(connection);
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading attendance partitions: " + e.getMessage());
+            throw new RuntimeException("Error reading attendance partitions", e);
+        }
+    }
+
+    /**
+     * Splits pmax so that every period up to and including the one containing {@code date}
+     * has its own partition.
+     *
+     * @return the number of partitions added
+     */
+    public int addPartitionsThrough(PartitionScheme scheme, LocalDate date) {
+
+        try (Connection connection = dataSource.getConnection()) {
+            List<Partition> partitions = list(connection);
+            if (partitions.size() < 2 || !MAX_PARTITION.equals(partitions.getLast().name())) {
+                return 0;
+            }
+
+            LocalDate bound = partitions.get(partitions.size() - 2).lessThan();
+            List<String> added = new ArrayList<>();
+            while (!bound.isAfter(date)) {
+                ArchivePeriod period = scheme.periodOf(bound);
+                added.add("PARTITION " + period.partitionName() + " VALUES LESS THAN ('" + period.until() + "')");
+                bound = period.until();
+            }
+            if (added.isEmpty()) {
+                return 0;
+            }
+
+            added.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE attendance REORGANIZE PARTITION " + MAX_PARTITION
+                        + " INTO (" + String.join(", ", added) + ")");
+            }
+            return added.size() - 1;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error adding attendance partitions: " + e.getMessage());
+            throw new RuntimeException("Error adding attendance partitions", e);
+        }
+    }
+
+    /**
+     * Drops the partitions that only hold dates before {@code date} and are empty.
+     * pmax is never dropped, so the table stays partitioned.
+     *
+     * @return the names of the dropped partitions
+     */
+    public List<String> dropEmptyBefore(LocalDate date) {
+
+        try (Connection connection = dataSource.getConnection()) {
+            List<String> dropped = new ArrayList<>();
+            List<Partition> partitions = list(connection);
+
+            // Stop at the first partition that is still needed, so the remaining ranges stay contiguous
+            for (int i = 0; i < partitions.size() - 1; i++) {
+                Partition partition = partitions.get(i);
+                if (partition.lessThan() == null || partition.lessThan().isAfter(date) || !isEmpty(connection, partition)) {
+                    break;
+                }
+                dropped.add(partition.name());
+            }
+            if (dropped.isEmpty()) {
+                return dropped;
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE attendance DROP PARTITION " + String.join(", ", dropped));
+            }
+            return dropped;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error dropping attendance partitions: " + e.getMessage());
+            throw new RuntimeException("Error dropping attendance partitions", e);
+        }
+    }
+
+    private static List<Partition> list(Connection connection) throws SQLException {
+
+        String sql = """
+                SELECT PARTITION_NAME, PARTITION_DESCRIPTION
+                FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'attendance' AND PARTITION_NAME IS NOT NULL
+                ORDER BY PARTITION_ORDINAL_POSITION
+                """;
+
+        List<Partition> partitions = new ArrayList<>();
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()
+        ) {
+            while (rs.next()) {
+                // RANGE COLUMNS bounds are quoted literals, e.g. '2024-08-01', or MAXVALUE
+                String description = rs.getString(2);
+                LocalDate lessThan = "MAXVALUE".equals(description)
+                        ? null
+                        : LocalDate.parse(description.replace("'", ""));
+                partitions.add(new Partition(rs.getString(1), lessThan));
+            }
+        }
+        return partitions;
+    }
+
+    // TABLE_ROWS is only an estimate, so look for a row
+    private static boolean isEmpty(Connection connection, Partition partition) throws SQLException {
+        try (
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT 1 FROM attendance PARTITION (" + partition.name() + ") LIMIT 1")
+        ) {
+            return !rs.next();
+        }
+    }
+}
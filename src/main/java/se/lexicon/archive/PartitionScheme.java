@@ -0,0 +1,52 @@
+package se.lexicon.archive;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * How attendance dates are cut into periods, for both the table partitions and the archive files.
+ */
+public enum PartitionScheme {
+
+    /**
+     * One period per calendar month, e.g. "2024-03".
+     */
+    MONTHLY {
+        @Override
+        public ArchivePeriod periodOf(LocalDate date) {
+            YearMonth month = YearMonth.from(date);
+            return new ArchivePeriod(month.toString(), month.atDay(1), month.plusMonths(1).atDay(1));
+        }
+    },
+
+    /**
+     * Two terms per year: spring is January to July, autumn is August to December, e.g. "2024-autumn".
+     */
+    TERM {
+        @Override
+        public ArchivePeriod periodOf(LocalDate date) {
+            int year = date.getYear();
+            if (date.getMonthValue() < AUTUMN_START_MONTH) {
+                return new ArchivePeriod(year + "-spring",
+                        LocalDate.of(year, 1, 1), LocalDate.of(year, AUTUMN_START_MONTH, 1));
+            }
+            return new ArchivePeriod(year + "-autumn",
+                    LocalDate.of(year, AUTUMN_START_MONTH, 1), LocalDate.of(year + 1, 1, 1));
+        }
+    };
+
+    private static final int AUTUMN_START_MONTH = 8;
+
+    /**
+     * The period that contains the date.
+     */
+    public abstract ArchivePeriod periodOf(LocalDate date);
+
+    public ArchivePeriod next(ArchivePeriod period) {
+        return periodOf(period.until());
+    }
+
+    public ArchivePeriod previous(ArchivePeriod period) {
+        return periodOf(period.from().minusDays(1));
+    }
+}
@@ -0,0 +1,240 @@
+package se.lexicon.bulk;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.ChunkedTransaction;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports CSV files (see {@link BulkTable} for the layout) into student or attendance.
+ * <p>
+ * Demonstrates:
+ * - {@code LOAD DATA LOCAL INFILE} fed from an InputStream instead of a file name,
+ *   so the server parses and inserts the rows in one statement
+ * - Falling back to chunked multi-row {@code INSERT IGNORE} statements when LOAD DATA LOCAL is not available
+ *   (disabled on the client or server, or a database other than MySQL)
+ * - Streaming plain or gzip-compressed input with constant memory
+ * - Reporting throughput (see {@link BulkResult})
+ * <p>
+ * LOAD DATA LOCAL needs {@code local_infile=ON} on the server and {@code allowLoadLocalInfile=true}
+ * on the connection, see {@link se.lexicon.db.DatabaseConnection#getMySQLBulkDataSource()}.
+ * <p>
+ * Rows whose key already exists are skipped by both paths (LOCAL implies IGNORE).
+ * LOAD DATA loads the whole file in one transaction; the fallback commits every
+ * {@link BatchConfig#getChunkSize()} rows.
+ * <p>
+ * Imports bypass the DAOs. The partitioned attendance table has no foreign key, and unlike the
+ * DAOs an import does not check student_id, so import students before their attendance.
+ * Cached query results for the table are dropped when an import
+ * ends (also a failed one, whose earlier chunks stay committed), but the rows are not
+ * recorded in the change outbox, so change feed consumers do not see them.
+ */
+public class BulkLoader {
+
+    // Client and server error codes meaning "LOAD DATA LOCAL is switched off":
+    // ER_NOT_ALLOWED_COMMAND, ER_CLIENT_LOCAL_FILES_DISABLED, CR_LOAD_DATA_LOCAL_INFILE_REJECTED
+    private static final List<Integer> LOAD_DATA_DISABLED = List.of(1148, 3948, 2068);
+
+    // MySQL allows at most 65535 placeholders in one prepared statement
+    private static final int MAX_PLACEHOLDERS = 65_535;
+
+    private final DataSource dataSource;
+    private final BatchConfig batchConfig;
+    private final QueryResultCache queryCache;
+
+    public BulkLoader(DataSource dataSource) {
+        this(dataSource, new BatchConfig(5_000, false));
+    }
+
+    public BulkLoader(DataSource dataSource, BatchConfig batchConfig) {
+        this(dataSource, batchConfig, QueryResultCache.disabled());
+    }
+
+    /**
+     * @param queryCache the cache the DAOs use, so results cached before the import are dropped
+     */
+    public BulkLoader(DataSource dataSource, BatchConfig batchConfig, QueryResultCache queryCache) {
+        this.dataSource = dataSource;
+        this.batchConfig = batchConfig;
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * Imports a CSV file, gzip-compressed if its name ends with ".gz".
+     */
+    public BulkResult importCsv(BulkTable table, Path file) {
+
+        long start = System.nanoTime();
+
+        try (Connection connection = dataSource.getConnection()) {
+
+            OptionalLong loaded = loadData(connection, table, file);
+            if (loaded.isPresent()) {
+                return new BulkResult(table, BulkResult.Method.LOAD_DATA, loaded.getAsLong(), since(start));
+            }
+
+            long inserted = batchInsert(connection, table, file);
+            return new BulkResult(table, BulkResult.Method.BATCH_INSERT, inserted, since(start));
+
+        } catch (SQLException | IOException | UncheckedIOException e) {
+            System.err.println("❌ Error importing " + file + " into " + table.getTableName() + ": " + e.getMessage());
+            throw new RuntimeException("Error importing " + file + " into " + table.getTableName(), e);
+        } finally {
+            queryCache.invalidateTables(List.of(table.getTableName()));
+        }
+    }
+
+    /**
+     * Sends the file with LOAD DATA LOCAL INFILE.
+     *
+     * @return rows inserted, or empty if LOAD DATA LOCAL cannot be used on this connection
+     */
+    private OptionalLong loadData(Connection connection, BulkTable table, Path file) throws SQLException, IOException {
+
+        try (Statement statement = connection.createStatement()) {
+
+            if (!statement.isWrapperFor(JdbcStatement.class)) {
+                return OptionalLong.empty();
+            }
+
+            try (InputStream in = open(file)) {
+                String lineTerminator = readHeader(in, table);
+
+                // The driver sends this stream when the server asks for the "file"
+                statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(in);
+                return OptionalLong.of(statement.executeLargeUpdate(loadDataSql(table, lineTerminator)));
+
+            } catch (SQLException e) {
+                if (!isLoadDataDisabled(e)) {
+                    throw e;
+                }
+                System.err.println("LOAD DATA LOCAL is not available, importing with batch inserts: " + e.getMessage());
+                return OptionalLong.empty();
+            }
+        }
+    }
+
+    /**
+     * Reads the file again from the start and inserts it in chunks, one multi-row INSERT IGNORE per chunk.
+     * <p>
+     * A JDBC batch cannot count the inserted rows: rewriteBatchedStatements reports
+     * SUCCESS_NO_INFO for every row, including the duplicates INSERT IGNORE dropped.
+     * The update count of one multi-row statement is exact.
+     *
+     * @return rows inserted (duplicates not counted)
+     */
+    private long batchInsert(Connection connection, BulkTable table, Path file) throws SQLException, IOException {
+
+        int chunkSize = Math.min(batchConfig.getChunkSize(), MAX_PLACEHOLDERS / table.getColumns().size());
+        long[] inserted = new long[1];
+
+        try (
+                InputStream in = open(file);
+                PreparedStatement fullChunk = connection.prepareStatement(table.getInsertSql(chunkSize))
+        ) {
+            readHeader(in, table);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Iterable<String[]> records = () -> new CsvReader(reader, table.getColumns().size());
+
+            ChunkedTransaction.forEachChunk(connection, records, chunkSize, (conn, chunk) -> {
+                if (chunk.size() == chunkSize) {
+                    inserted[0] += insertChunk(fullChunk, table, chunk);
+                } else {
+                    // Only the last chunk is shorter
+                    try (PreparedStatement lastChunk = conn.prepareStatement(table.getInsertSql(chunk.size()))) {
+                        inserted[0] += insertChunk(lastChunk, table, chunk);
+                    }
+                }
+            });
+        }
+        return inserted[0];
+    }
+
+    private static long insertChunk(PreparedStatement ps, BulkTable table, List<String[]> chunk) throws SQLException {
+        int index = 1;
+        for (String[] fields : chunk) {
+            table.bind(ps, index, fields);
+            index += table.getColumns().size();
+        }
+        return ps.executeLargeUpdate();
+    }
+
+    private static String loadDataSql(BulkTable table, String lineTerminator) {
+        return """
+                LOAD DATA LOCAL INFILE 'bulk-import.csv'
+                INTO TABLE %s
+                CHARACTER SET utf8mb4
+                FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '"' ESCAPED BY ''
+                LINES TERMINATED BY '%s'
+                %s""".formatted(table.getTableName(), lineTerminator, table.getLoadDataColumns());
+    }
+
+    /**
+     * Reads the header line byte by byte (so nothing after it is buffered away) and
+     * checks it against the table's columns.
+     *
+     * @return the line terminator used by the file, as a MySQL string literal escape
+     */
+    private static String readHeader(InputStream in, BulkTable table) throws IOException {
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+
+        String header = line.toString(StandardCharsets.UTF_8);
+        boolean crlf = header.endsWith("\r");
+        if (crlf) {
+            header = header.substring(0, header.length() - 1);
+        }
+        // A UTF-8 byte order mark, as written by some spreadsheet programs
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+
+        String expected = String.join(",", table.getColumns());
+        if (!header.replace(" ", "").equalsIgnoreCase(expected)) {
+            throw new IOException("Expected CSV header \"" + expected + "\" but found \"" + header + "\"");
+        }
+        return crlf ? "\\r\\n" : "\\n";
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return new BufferedInputStream(in, 64 * 1024);
+    }
+
+    private static boolean isLoadDataDisabled(SQLException e) {
+        String message = e.getMessage();
+        return LOAD_DATA_DISABLED.contains(e.getErrorCode())
+                || (message != null && message.contains("allowLoadLocalInfile"));
+    }
+
+    private static Duration since(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,31 @@
+package se.lexicon.bulk;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one bulk import or export.
+ *
+ * @param rows rows written to the table (import) or to the file (export)
+ */
+public record BulkResult(BulkTable table, Method method, long rows, Duration elapsed) {
+
+    /**
+     * How the rows were moved.
+     */
+    public enum Method {
+        LOAD_DATA,
+        BATCH_INSERT,
+        EXPORT
+    }
+
+    public double rowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: %,d rows in %.2f s (%,.0f rows/s)",
+                table.getTableName(), method, rows, elapsed.toNanos() / 1e9, rowsPerSecond());
+    }
+}
@@ -0,0 +1,182 @@
+package se.lexicon.bulk;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * The tables the bulk tools can import and export, and how their CSV columns map to SQL.
+ * <p>
+ * The CSV layout is the same for import and export: a header line with the column names
+ * below, then one line per row. An empty id means "let AUTO_INCREMENT pick one",
+ * an empty create_date means "now".
+ */
+public enum BulkTable {
+
+    STUDENT(
+            "student",
+            List.of("id", "name", "class_group", "create_date"),
+            """
+                    (@id, name, class_group, @create_date)
+                    SET id = NULLIF(@id, ''),
+                        create_date = COALESCE(NULLIF(@create_date, ''), CURRENT_TIMESTAMP)
+                    """,
+            "INSERT IGNORE INTO student (id, name, class_group, create_date) VALUES ",
+            "(?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))",
+            """
+                    SELECT id, name, class_group, create_date
+                    FROM student
+                    ORDER BY id
+                    """
+    ) {
+        @Override
+        void bind(PreparedStatement ps, int firstIndex, String[] fields) throws SQLException {
+            bindId(ps, firstIndex, fields[0]);
+            ps.setString(firstIndex + 1, fields[1]);
+            ps.setString(firstIndex + 2, fields[2]);
+            if (isEmpty(fields[3])) {
+                ps.setNull(firstIndex + 3, Types.TIMESTAMP);
+            } else {
+                ps.setObject(firstIndex + 3, LocalDateTime.parse(fields[3], DATE_TIME));
+            }
+        }
+
+        @Override
+        void read(ResultSet rs, String[] fields) throws SQLException {
+            LocalDateTime createDate = rs.getObject(4, LocalDateTime.class);
+            fields[0] = Integer.toString(rs.getInt(1));
+            fields[1] = rs.getString(2);
+            fields[2] = rs.getString(3);
+            fields[3] = createDate == null ? null : DATE_TIME.format(createDate);
+        }
+    },
+
+    ATTENDANCE(
+            "attendance",
+            List.of("id", "student_id", "attendance_date", "status"),
+            """
+                    (@id, student_id, attendance_date, status)
+                    SET id = NULLIF(@id, '')
+                    """,
+            "INSERT IGNORE INTO attendance (id, student_id, attendance_date, status) VALUES ",
+            "(?, ?, ?, ?)",
+            """
+                    SELECT id, student_id, attendance_date, status
+                    FROM attendance
+                    ORDER BY id
+                    """
+    ) {
+        @Override
+        void bind(PreparedStatement ps, int firstIndex, String[] fields) throws SQLException {
+            bindId(ps, firstIndex, fields[0]);
+            ps.setInt(firstIndex + 1, Integer.parseInt(fields[1]));
+            ps.setObject(firstIndex + 2, LocalDate.parse(fields[2]));
+            ps.setString(firstIndex + 3, fields[3]);
+        }
+
+        @Override
+        void read(ResultSet rs, String[] fields) throws SQLException {
+            fields[0] = Integer.toString(rs.getInt(1));
+            fields[1] = Integer.toString(rs.getInt(2));
+            fields[2] = rs.getObject(3, LocalDate.class).toString();
+            fields[3] = rs.getString(4);
+        }
+    };
+
+    // Same text MySQL uses for DATETIME/TIMESTAMP literals, so LOAD DATA can read it as-is
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String tableName;
+    private final List<String> columns;
+    private final String loadDataColumns;
+    private final String insertPrefix;
+    private final String rowPlaceholders;
+    private final String selectSql;
+
+    BulkTable(String tableName, List<String> columns, String loadDataColumns,
+              String insertPrefix, String rowPlaceholders, String selectSql) {
+        this.tableName = tableName;
+        this.columns = columns;
+        this.loadDataColumns = loadDataColumns;
+        this.insertPrefix = insertPrefix;
+        this.rowPlaceholders = rowPlaceholders;
+        this.selectSql = selectSql;
+    }
+
+    /**
+     * Binds one CSV record to one row of {@link #getInsertSql(int)}, starting at the given parameter index.
+     */
+    abstract void bind(PreparedStatement ps, int firstIndex, String[] fields) throws SQLException;
+
+    /**
+     * Copies the current row of {@link #getSelectSql()} into {@code fields}, as CSV text.
+     */
+    abstract void read(ResultSet rs, String[] fields) throws SQLException;
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * CSV columns, in file order.
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Column list and SET clause of the LOAD DATA statement.
+     */
+    String getLoadDataColumns() {
+        return loadDataColumns;
+    }
+
+    /**
+     * Fallback for LOAD DATA: one INSERT with {@code rows} rows in its VALUES list.
+     * Like LOAD DATA LOCAL it skips rows with a duplicate key.
+     */
+    String getInsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(insertPrefix.length() + rows * (rowPlaceholders.length() + 2));
+        sql.append(insertPrefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+
+    String getSelectSql() {
+        return selectSql;
+    }
+
+    /**
+     * Looks up a table by its SQL name, e.g. "student".
+     */
+    public static BulkTable fromName(String name) {
+        for (BulkTable table : values()) {
+            if (table.tableName.equalsIgnoreCase(name)) {
+                return table;
+            }
+        }
+        throw new IllegalArgumentException("Unknown table: " + name + ", expected student or attendance");
+    }
+
+    private static void bindId(PreparedStatement ps, int index, String id) throws SQLException {
+        if (isEmpty(id)) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, Integer.parseInt(id));
+        }
+    }
+
+    private static boolean isEmpty(String field) {
+        return field == null || field.isEmpty();
+    }
+}
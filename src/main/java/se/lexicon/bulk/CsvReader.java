@@ -0,0 +1,126 @@
+package se.lexicon.bulk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads RFC 4180 CSV one record at a time, so files of any size use constant memory.
+ * <p>
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ * Both '\n' and "\r\n" end a record. Every record must have {@code columnCount} fields.
+ */
+public final class CsvReader implements Iterator<String[]> {
+
+    private final Reader in;
+    private final int columnCount;
+    private final StringBuilder field = new StringBuilder();
+    private String[] next;
+    private long line = 1;
+
+    /**
+     * @param in a buffered reader, positioned after the header line
+     */
+    public CsvReader(Reader in, int columnCount) {
+        this.in = in;
+        this.columnCount = columnCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e.getMessage(), e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String[] record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    private String[] readRecord() throws IOException {
+
+        int c = in.read();
+        // Skip blank lines, e.g. a trailing newline at the end of the file
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                line++;
+            }
+            c = in.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        String[] record = new String[columnCount];
+        int count = 0;
+        long startLine = line;
+
+        while (true) {
+            field.setLength(0);
+
+            if (c == '"') {
+                // Quoted field: read up to the closing quote, "" is one quote
+                while (true) {
+                    c = in.read();
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + startLine);
+                    }
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            break;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = in.read();
+                }
+            }
+
+            if (count == columnCount) {
+                throw new IOException("Line " + startLine + " has more than " + columnCount + " fields");
+            }
+            record[count++] = field.toString();
+
+            if (c == ',') {
+                c = in.read();
+                continue;
+            }
+            if (c == '\r') {
+                c = in.read();
+            }
+            if (c == '\n') {
+                line++;
+            } else if (c != -1) {
+                throw new IOException("Unexpected character '" + (char) c + "' after quoted field on line " + line);
+            }
+            break;
+        }
+
+        if (count != columnCount) {
+            throw new IOException("Line " + startLine + " has " + count + " fields, expected " + columnCount);
+        }
+        return record;
+    }
+}
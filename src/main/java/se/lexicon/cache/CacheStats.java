@@ -0,0 +1,18 @@
+package se.lexicon.cache;
+
+/**
+ * Counters of a cache since it was created.
+ *
+ * @param hits        lookups that found a valid entry
+ * @param misses      lookups that found nothing (or an expired entry)
+ * @param evictions   entries removed because the cache was full
+ * @param expirations entries removed because their TTL had passed
+ * @param size        current number of entries
+ */
+public record CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,176 @@
+package se.lexicon.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A size-bounded, thread-safe LRU cache with an optional time-to-live.
+ * <p>
+ * Demonstrates:
+ * - LRU eviction using an access-ordered LinkedHashMap
+ * - Lazy expiry: entries older than the TTL are dropped when they are read
+ * - Hit, miss, eviction and expiration counters
+ * - A generation number that every invalidation increments, so a value loaded while an
+ *   invalidation happened can be dropped instead of stored ({@link #putIfNotInvalidatedSince})
+ * <p>
+ * A maximum size of 0 disables caching: nothing is stored and lookups return null
+ * without taking the lock.
+ */
+public class LruCache<K, V> {
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    // Guarded by lock
+    private long generation;
+
+    /**
+     * @param maximumSize maximum number of entries, 0 disables the cache
+     * @param ttl         how long an entry stays valid, or null for no expiry
+     */
+    public LruCache(int maximumSize, Duration ttl) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value, or null if it is missing or expired.
+     */
+    public V get(K key) {
+        if (maximumSize == 0) {
+            return null;
+        }
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.isExpired()) {
+                entries.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        if (maximumSize == 0) {
+            return;
+        }
+        long expiresAt = ttlNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The current generation. Read it before loading a value and pass it to
+     * {@link #putIfNotInvalidatedSince}.
+     */
+    public long generation() {
+        if (maximumSize == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value unless something was invalidated after {@code generation} was read,
+     * because then the value may have been loaded before that change and be stale.
+     */
+    public void putIfNotInvalidatedSince(K key, V value, long generation) {
+        if (maximumSize == 0) {
+            return;
+        }
+        long expiresAt = ttlNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+        lock.lock();
+        try {
+            if (this.generation == generation) {
+                entries.put(key, new Entry<>(value, expiresAt));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        if (maximumSize == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            generation++;
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+
+        boolean isExpired() {
+            return expiresAt != Long.MAX_VALUE && System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
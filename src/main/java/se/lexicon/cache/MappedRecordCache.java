@@ -0,0 +1,460 @@
+package se.lexicon.cache;
+
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.feed.ChangeEvent;
+import se.lexicon.feed.ChangeFeed;
+import se.lexicon.feed.ChangeFeedConfig;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A local copy of the student and attendance tables in memory-mapped files, so a restarted
+ * node reads its state from disk and only fetches what changed while it was down.
+ * <p>
+ * Demonstrates:
+ * - Off-heap storage: records live in mapped {@link MemorySegment}s, not on the Java heap,
+ *   and survive a restart in the page cache or on disk
+ * - A fixed-width binary layout: the record with id n is at offset n * slotSize
+ * - Validating the files against a database high-water mark: the files store the change feed
+ *   seq they are consistent with, and only the changes after it are fetched on startup
+ * - Registering as a change feed consumer, so the outbox keeps every change the files still need
+ * <p>
+ * Requires the change outbox (see {@link ChangeFeed}); every DAO that writes must record into it.
+ * Rows are loaded through the DAOs: {@code streamAll()} for a full reload, {@code findById()}
+ * for each changed row. Each node needs its own directory and consumer name.
+ * <p>
+ * Example:
+ * <pre>
+ * MappedRecordCache cache = new MappedRecordCache(dataSource, Path.of("/var/cache/student_db"), "node-1",
+ *         StudentDaoImpl::new, AttendanceDaoImpl::new);
+ * IO.println(cache.warmUp());
+ * cache.startFollowing();
+ * List&lt;Attendance&gt; all = cache.findAllAttendance();
+ * </pre>
+ */
+public class MappedRecordCache implements AutoCloseable {
+
+    // Student slot: flags, id, create_date (seconds + nanos), then name and class_group as
+    // length-prefixed UTF-8, wide enough for VARCHAR(100) and VARCHAR(50) of 4-byte characters
+    private static final int STUDENT_SLOT = 624;
+    private static final long S_FLAGS = 0;
+    private static final long S_ID = 4;
+    private static final long S_CREATED_SECONDS = 8;
+    private static final long S_CREATED_NANOS = 16;
+    private static final long S_NAME = 20;
+    private static final int NAME_BYTES = 400;
+    private static final long S_CLASS_GROUP = 422;
+    private static final int CLASS_GROUP_BYTES = 200;
+
+    // Attendance slot: flags, status, id, student id, date as epoch day
+    private static final int ATTENDANCE_SLOT = 16;
+    private static final long A_FLAGS = 0;
+    private static final long A_STATUS = 1;
+    private static final long A_ID = 4;
+    private static final long A_STUDENT_ID = 8;
+    private static final long A_DATE = 12;
+
+    private static final byte PRESENT = 1;
+    private static final byte HAS_CREATE_DATE = 2;
+
+    private static final AttendanceStatus[] STATUSES = AttendanceStatus.values();
+
+    private final DataSource dataSource;
+    private final Path directory;
+    private final Function<Connection, StudentDao> studentDaos;
+    private final Function<Connection, AttendanceDao> attendanceDaos;
+    private final ChangeFeed feed;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MappedSlotFile students;
+    private MappedSlotFile attendance;
+
+    public MappedRecordCache(DataSource dataSource, Path directory, String consumerName,
+                             Function<Connection, StudentDao> studentDaos,
+                             Function<Connection, AttendanceDao> attendanceDaos) {
+        this(dataSource, directory, consumerName, studentDaos, attendanceDaos, new ChangeFeedConfig());
+    }
+
+    public MappedRecordCache(DataSource dataSource, Path directory, String consumerName,
+                             Function<Connection, StudentDao> studentDaos,
+                             Function<Connection, AttendanceDao> attendanceDaos,
+                             ChangeFeedConfig feedConfig) {
+        this.dataSource = dataSource;
+        this.directory = directory;
+        this.studentDaos = studentDaos;
+        this.attendanceDaos = attendanceDaos;
+        this.feed = new ChangeFeed(dataSource, consumerName, feedConfig);
+    }
+
+    /**
+     * Opens the files and brings them up to date: only the changes since the last run if the
+     * files are valid, otherwise a full reload of both tables. Call once at startup.
+     */
+    public WarmUpResult warmUp() {
+
+        long start = System.nanoTime();
+        long rowsLoaded = 0;
+        boolean valid;
+
+        lock.writeLock().lock();
+        try {
+            if (students == null) {
+                Files.createDirectories(directory);
+                students = MappedSlotFile.open(directory.resolve("students.slots"), STUDENT_SLOT);
+                attendance = MappedSlotFile.open(directory.resolve("attendance.slots"), ATTENDANCE_SLOT);
+            }
+
+            // The checkpoint may be older than the files (replaying is harmless), never newer:
+            // the outbox may already have purged changes the files are missing
+            valid = students.isValid() && attendance.isValid()
+                    && students.seq() == attendance.seq()
+                    && feed.hasCheckpoint() && feed.getPosition() <= students.seq();
+            if (!valid) {
+                rowsLoaded = reload();
+            }
+
+        } catch (IOException | SQLException e) {
+            System.err.println("❌ Error warming up the record cache: " + e.getMessage());
+            throw new RuntimeException("Error warming up the record cache", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long changes = catchUp();
+        return new WarmUpResult(!valid, rowsLoaded, changes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies every change that is ready now.
+     *
+     * @return the number of change events applied
+     */
+    public long catchUp() {
+        long changes = 0;
+        int applied;
+        while ((applied = feed.pollOnce(this::apply)) > 0) {
+            changes += applied;
+        }
+        return changes;
+    }
+
+    /**
+     * Keeps the files up to date in the background until {@link #close()},
+     * so the next restart has little to catch up on.
+     */
+    public void startFollowing() {
+        feed.start(this::apply);
+    }
+
+    public Optional<Student> findStudent(int id) {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            MemorySegment slot = students.slot(id);
+            return isPresent(slot) ? Optional.of(readStudent(slot)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every student, ordered by id.
+     */
+    public List<Student> findAllStudents() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(readStudents().values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The attendance record with its student, which has only its id if the student is gone.
+     */
+    public Optional<Attendance> findAttendance(int id) {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            MemorySegment slot = attendance.slot(id);
+            if (!isPresent(slot)) {
+                return Optional.empty();
+            }
+            int studentId = slot.get(ValueLayout.JAVA_INT, A_STUDENT_ID);
+            MemorySegment studentSlot = students.slot(studentId);
+            Student student = isPresent(studentSlot)
+                    ? readStudent(studentSlot)
+                    : new Student(studentId, null, null, null);
+            return Optional.of(readAttendance(slot, student));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every attendance record, ordered by id. Records of the same student share one Student.
+     */
+    public List<Attendance> findAllAttendance() {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Student> byId = readStudents();
+            List<Attendance> attendances = new ArrayList<>();
+            for (int id = 1; id <= attendance.maxId(); id++) {
+                MemorySegment slot = attendance.slot(id);
+                if (isPresent(slot)) {
+                    int studentId = slot.get(ValueLayout.JAVA_INT, A_STUDENT_ID);
+                    Student student = byId.computeIfAbsent(studentId, missing -> new Student(missing, null, null, null));
+                    attendances.add(readAttendance(slot, student));
+                }
+            }
+            return attendances;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The change feed seq the files are consistent with.
+     */
+    public long getSeq() {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            return students.seq();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        feed.close();
+        lock.writeLock().lock();
+        try {
+            if (students != null) {
+                students.close();
+                attendance.close();
+                students = null;
+                attendance = null;
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error closing the record cache: " + e.getMessage());
+            throw new RuntimeException("Error closing the record cache", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads both tables through the DAOs into empty files. Caller holds the write lock.
+     */
+    private long reload() throws IOException, SQLException {
+
+        // Taken first: every change after it is replayed, whether the reload saw it or not
+        long seq = feed.safeHighWaterMark();
+        long rows = 0;
+
+        students.reset();
+        attendance.reset();
+
+        try (
+                Connection connection = dataSource.getConnection();
+                Stream<Student> all = studentDaos.apply(connection).streamAll()
+        ) {
+            for (Student student : (Iterable<Student>) all::iterator) {
+                writeStudent(students.slotForWrite(student.getId()), student);
+                rows++;
+            }
+        }
+
+        try (
+                Connection connection = dataSource.getConnection();
+                Stream<Attendance> all = attendanceDaos.apply(connection).streamAll()
+        ) {
+            for (Attendance record : (Iterable<Attendance>) all::iterator) {
+                writeAttendance(attendance.slotForWrite(record.getId()), record);
+                rows++;
+            }
+        }
+
+        students.commit(seq);
+        attendance.commit(seq);
+        feed.seek(seq);
+        return rows;
+    }
+
+    /**
+     * Change handler: reloads every changed row through the DAOs. A row that is gone is removed,
+     * so the operation itself does not matter and applying a change twice is harmless.
+     */
+    private void apply(List<ChangeEvent> events) throws SQLException, IOException {
+
+        Set<Integer> studentIds = new LinkedHashSet<>();
+        Set<Integer> attendanceIds = new LinkedHashSet<>();
+        for (ChangeEvent event : events) {
+            switch (event.tableName()) {
+                case "student" -> studentIds.add(event.rowId());
+                case "attendance" -> attendanceIds.add(event.rowId());
+                default -> {
+                    // Not cached
+                }
+            }
+        }
+
+        Map<Integer, Optional<Student>> changedStudents = new HashMap<>();
+        Map<Integer, Optional<Attendance>> changedAttendance = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            StudentDao studentDao = studentDaos.apply(connection);
+            for (int id : studentIds) {
+                changedStudents.put(id, studentDao.findById(id));
+            }
+            AttendanceDao attendanceDao = attendanceDaos.apply(connection);
+            for (int id : attendanceIds) {
+                changedAttendance.put(id, attendanceDao.findById(id));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            for (Map.Entry<Integer, Optional<Student>> change : changedStudents.entrySet()) {
+                MemorySegment slot = students.slotForWrite(change.getKey());
+                slot.fill((byte) 0);
+                change.getValue().ifPresent(student -> writeStudent(slot, student));
+            }
+            for (Map.Entry<Integer, Optional<Attendance>> change : changedAttendance.entrySet()) {
+                MemorySegment slot = attendance.slotForWrite(change.getKey());
+                slot.fill((byte) 0);
+                change.getValue().ifPresent(record -> writeAttendance(slot, record));
+            }
+
+            // Before the handler returns, because the feed saves its checkpoint right after
+            long seq = events.getLast().seq();
+            students.commit(seq);
+            attendance.commit(seq);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (students == null) {
+            throw new IllegalStateException("Record cache is not open, call warmUp() first");
+        }
+    }
+
+    private Map<Integer, Student> readStudents() {
+        checkOpen();
+        Map<Integer, Student> byId = new LinkedHashMap<>();
+        for (int id = 1; id <= students.maxId(); id++) {
+            MemorySegment slot = students.slot(id);
+            if (isPresent(slot)) {
+                byId.put(id, readStudent(slot));
+            }
+        }
+        return byId;
+    }
+
+    private static boolean isPresent(MemorySegment slot) {
+        return slot != null && (slot.get(ValueLayout.JAVA_BYTE, 0) & PRESENT) != 0;
+    }
+
+    private static void writeStudent(MemorySegment slot, Student student) {
+        byte flags = PRESENT;
+        LocalDateTime createDate = student.getCreateDate();
+        if (createDate != null) {
+            flags |= HAS_CREATE_DATE;
+            slot.set(ValueLayout.JAVA_LONG, S_CREATED_SECONDS, createDate.toEpochSecond(ZoneOffset.UTC));
+            slot.set(ValueLayout.JAVA_INT, S_CREATED_NANOS, createDate.getNano());
+        }
+        slot.set(ValueLayout.JAVA_INT, S_ID, student.getId());
+        writeString(slot, S_NAME, NAME_BYTES, student.getName());
+        writeString(slot, S_CLASS_GROUP, CLASS_GROUP_BYTES, student.getClassGroup());
+        // Last, so a half-written slot is never seen as present
+        slot.set(ValueLayout.JAVA_BYTE, S_FLAGS, flags);
+    }
+
+    private static Student readStudent(MemorySegment slot) {
+        byte flags = slot.get(ValueLayout.JAVA_BYTE, S_FLAGS);
+        LocalDateTime createDate = (flags & HAS_CREATE_DATE) == 0
+                ? null
+                : LocalDateTime.ofEpochSecond(slot.get(ValueLayout.JAVA_LONG, S_CREATED_SECONDS),
+                        slot.get(ValueLayout.JAVA_INT, S_CREATED_NANOS), ZoneOffset.UTC);
+        return new Student(
+                slot.get(ValueLayout.JAVA_INT, S_ID),
+                readString(slot, S_NAME),
+                readString(slot, S_CLASS_GROUP),
+                createDate
+        );
+    }
+
+    private static void writeAttendance(MemorySegment slot, Attendance record) {
+        slot.set(ValueLayout.JAVA_BYTE, A_STATUS, (byte) record.getStatus().ordinal());
+        slot.set(ValueLayout.JAVA_INT, A_ID, record.getId());
+        slot.set(ValueLayout.JAVA_INT, A_STUDENT_ID, record.getStudent().getId());
+        slot.set(ValueLayout.JAVA_INT, A_DATE, (int) record.getAttendanceDate().toEpochDay());
+        slot.set(ValueLayout.JAVA_BYTE, A_FLAGS, PRESENT);
+    }
+
+    private static Attendance readAttendance(MemorySegment slot, Student student) {
+        return new Attendance(
+                slot.get(ValueLayout.JAVA_INT, A_ID),
+                student,
+                LocalDate.ofEpochDay(slot.get(ValueLayout.JAVA_INT, A_DATE)),
+                STATUSES[slot.get(ValueLayout.JAVA_BYTE, A_STATUS)]
+        );
+    }
+
+    // Length (-1 for null) as a short, then the UTF-8 bytes
+    private static void writeString(MemorySegment slot, long offset, int maxBytes, String value) {
+        if (value == null) {
+            slot.set(ValueLayout.JAVA_SHORT, offset, (short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException("Value does not fit the cache layout (" + bytes.length
+                    + " > " + maxBytes + " bytes): " + value);
+        }
+        slot.set(ValueLayout.JAVA_SHORT, offset, (short) bytes.length);
+        MemorySegment.copy(bytes, 0, slot, ValueLayout.JAVA_BYTE, offset + 2, bytes.length);
+    }
+
+    private static String readString(MemorySegment slot, long offset) {
+        short length = slot.get(ValueLayout.JAVA_SHORT, offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(slot, ValueLayout.JAVA_BYTE, offset + 2, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,173 @@
+package se.lexicon.cache;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped file of fixed-width slots, one per id: slot n starts at
+ * {@code HEADER_BYTES + n * slotSize}, so a record is found without any index.
+ * <p>
+ * The header holds the change feed seq the slots are consistent with, and a dirty flag that is
+ * set (and forced to disk) before the first write after a commit. A file that is still dirty when
+ * it is opened was not committed, e.g. after a crash in the middle of a reload.
+ * <p>
+ * Not thread-safe; {@link MappedRecordCache} guards it with a read-write lock.
+ */
+final class MappedSlotFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x534C4F54; // "SLOT"
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 64;
+
+    private static final long MAGIC_AT = 0;
+    private static final long VERSION_AT = 4;
+    private static final long SLOT_SIZE_AT = 8;
+    private static final long DIRTY_AT = 12;
+    private static final long SEQ_AT = 16;
+    private static final long MAX_ID_AT = 24;
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private final int slotSize;
+
+    private Arena arena;
+    private MemorySegment segment;
+    private long capacity;
+
+    private MappedSlotFile(FileChannel channel, int slotSize) {
+        this.channel = channel;
+        this.slotSize = slotSize;
+    }
+
+    static MappedSlotFile open(Path file, int slotSize) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedSlotFile slots = new MappedSlotFile(channel, slotSize);
+        try {
+            long existing = Math.max(0, (channel.size() - HEADER_BYTES) / slotSize);
+            slots.map(Math.max(existing, MIN_CAPACITY));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return slots;
+    }
+
+    /**
+     * True if the file was written with this layout and committed.
+     */
+    boolean isValid() {
+        return segment.get(ValueLayout.JAVA_INT, MAGIC_AT) == MAGIC
+                && segment.get(ValueLayout.JAVA_INT, VERSION_AT) == VERSION
+                && segment.get(ValueLayout.JAVA_INT, SLOT_SIZE_AT) == slotSize
+                && segment.get(ValueLayout.JAVA_INT, DIRTY_AT) == 0;
+    }
+
+    /**
+     * Empties the file before a full reload. The file stays dirty until the next commit.
+     */
+    void reset() throws IOException {
+        unmap();
+        channel.truncate(0);
+        map(MIN_CAPACITY);
+        segment.set(ValueLayout.JAVA_INT, MAGIC_AT, MAGIC);
+        segment.set(ValueLayout.JAVA_INT, VERSION_AT, VERSION);
+        segment.set(ValueLayout.JAVA_INT, SLOT_SIZE_AT, slotSize);
+        markDirty();
+    }
+
+    /**
+     * The change feed seq of the last commit.
+     */
+    long seq() {
+        return segment.get(ValueLayout.JAVA_LONG, SEQ_AT);
+    }
+
+    /**
+     * Highest id ever written; slots above it are empty.
+     */
+    int maxId() {
+        return segment.get(ValueLayout.JAVA_INT, MAX_ID_AT);
+    }
+
+    /**
+     * The slot of the id for reading, or null if it was never written.
+     */
+    MemorySegment slot(int id) {
+        if (id < 0 || id > maxId()) {
+            return null;
+        }
+        return segment.asSlice(HEADER_BYTES + (long) id * slotSize, slotSize);
+    }
+
+    /**
+     * The slot of the id for writing. Grows the file when needed.
+     */
+    MemorySegment slotForWrite(int id) throws IOException {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id: " + id);
+        }
+        if (id >= capacity) {
+            map(Math.max(capacity * 2, id + 1L));
+        }
+        markDirty();
+        if (id > maxId()) {
+            segment.set(ValueLayout.JAVA_INT, MAX_ID_AT, id);
+        }
+        return segment.asSlice(HEADER_BYTES + (long) id * slotSize, slotSize);
+    }
+
+    /**
+     * Forces the slots to disk, then records the seq and clears the dirty flag.
+     */
+    void commit(long seq) {
+        segment.force();
+        segment.set(ValueLayout.JAVA_LONG, SEQ_AT, seq);
+        segment.set(ValueLayout.JAVA_INT, DIRTY_AT, 0);
+        segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        unmap();
+        channel.close();
+    }
+
+    private void markDirty() {
+        if (segment.get(ValueLayout.JAVA_INT, DIRTY_AT) == 0) {
+            segment.set(ValueLayout.JAVA_INT, DIRTY_AT, 1);
+            // Must reach the disk before any slot does
+            segment.force();
+        }
+    }
+
+    // Maps header + capacity slots; FileChannel.map extends the file as needed
+    private void map(long slots) throws IOException {
+        Arena mapped = Arena.ofShared();
+        MemorySegment grown;
+        try {
+            grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + slots * slotSize, mapped);
+        } catch (IOException e) {
+            mapped.close();
+            throw e;
+        }
+        unmap();
+        arena = mapped;
+        segment = grown;
+        capacity = slots;
+    }
+
+    private void unmap() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+            segment = null;
+        }
+    }
+}
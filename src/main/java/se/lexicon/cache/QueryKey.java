@@ -0,0 +1,27 @@
+package se.lexicon.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Identifies one cached query result: the query, its parameters and the tables it reads.
+ * <p>
+ * The tables decide which results a write invalidates, so list every table the SQL reads,
+ * including joined ones.
+ *
+ * @param query  a name for the query, e.g. "student.findByClassGroup"
+ * @param params the parameter values; not null, and they must implement equals and hashCode
+ * @param tables the tables the result depends on
+ */
+public record QueryKey(String query, List<Object> params, Set<String> tables) {
+
+    public QueryKey {
+        params = List.copyOf(params);
+        tables = Set.copyOf(tables);
+    }
+
+    public static QueryKey of(Set<String> tables, String query, Object... params) {
+        return new QueryKey(query, Arrays.asList(params), tables);
+    }
+}
@@ -0,0 +1,400 @@
+package se.lexicon.cache;
+
+import se.lexicon.db.TransactionListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caches query results and drops them when a table they read from changes.
+ * <p>
+ * Demonstrates:
+ * - Keys made of query + parameters, each knowing the tables it depends on ({@link QueryKey})
+ * - Precise invalidation: a write to "attendance" drops only results that read attendance
+ * - A memory bound: every result has an estimated size in bytes, and the least recently
+ *   used results are evicted when the total goes over {@code maximumWeight}
+ * - Single-flight loading: when many threads miss on the same key at once, one runs the
+ *   query and the others wait for its result instead of all hitting the database.
+ *   A thread only waits for a load that started after the last change to the key's tables,
+ *   so it never gets rows from before a write it has already seen
+ * - A generation number per table, so a result loaded while its table was being changed
+ *   is returned to its caller but never stored
+ * <p>
+ * DAOs report their writes with {@link #tablesChanged}. A write inside a transaction is not
+ * visible to other connections until commit, so until then the writing thread bypasses the
+ * cache for the changed tables (it must not cache its own uncommitted rows) and the tables
+ * are invalidated again when the transaction ends. Register the cache with
+ * {@link se.lexicon.db.TransactionManager#addTransactionListener} for that; with manual
+ * transactions call {@link #afterCommit()} or {@link #afterRollback()} yourself.
+ * <p>
+ * Only writes that report themselves are seen. Give the same cache to every writer:
+ * the DAOs, {@link se.lexicon.bulk.BulkLoader} and {@link se.lexicon.archive.AttendanceArchive}. Rows written by other
+ * programs or by hand in the database stay stale until {@code ttl} or {@link #invalidateAll()}.
+ * <p>
+ * Cached objects are shared between callers, so treat them as read-only, or hand out
+ * copies as {@link se.lexicon.dao.CachingStudentDao} and {@link se.lexicon.dao.CachingAttendanceDao} do.
+ * A maximum weight of 0 disables caching.
+ */
+public class QueryResultCache implements TransactionListener {
+
+    private final long maximumWeight;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock
+    private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<QueryKey>> keysByTable = new HashMap<>();
+    private final Map<String, Long> generations = new HashMap<>();
+    private long weight;
+
+    private final Map<QueryKey, Load> loading = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<String>> uncommittedTables = ThreadLocal.withInitial(HashSet::new);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder sharedLoads = new LongAdder();
+
+    /**
+     * @param maximumWeight estimated bytes all cached results may take together, 0 disables the cache
+     * @param ttl           how long a result stays valid, or null to keep it until invalidated or evicted
+     */
+    public QueryResultCache(long maximumWeight, Duration ttl) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative");
+        }
+        this.maximumWeight = maximumWeight;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+    }
+
+    /**
+     * A cache that never stores anything. Used when no cache is configured.
+     */
+    public static QueryResultCache disabled() {
+        return new QueryResultCache(0, null);
+    }
+
+    /**
+     * Returns the cached result, or runs the loader once (for all threads asking at the same time)
+     * and caches what it returns.
+     *
+     * @param weigher estimates the size of a result in bytes
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(QueryKey key, Supplier<T> loader, ToLongFunction<? super T> weigher) {
+
+        if (maximumWeight == 0 || readsUncommitted(key)) {
+            return loader.get();
+        }
+
+        Entry cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached.value();
+        }
+        misses.increment();
+
+        // A load that started before the last change to the tables may return rows from
+        // before a write this thread has seen: replace it instead of waiting for it
+        Map<String, Long> before = generationsOf(key);
+        Load mine = new Load(new CompletableFuture<>(), before);
+        Load running = loading.compute(key,
+                (k, current) -> current != null && current.startedSince(before) ? current : mine);
+        if (running != mine) {
+            sharedLoads.increment();
+            return (T) await(running.result());
+        }
+
+        try {
+            // Another thread may have stored the result between the lookup and compute
+            Entry stored = lookup(key);
+            if (stored != null) {
+                mine.result().complete(stored.value());
+                return (T) stored.value();
+            }
+
+            T value = loader.get();
+            store(key, value, weigher.applyAsLong(value), before);
+            mine.result().complete(value);
+            return value;
+
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    /**
+     * Drops every result that depends on one of the tables. Called by the DAOs after a write.
+     * If the connection is inside a transaction, the tables are invalidated again when it ends.
+     */
+    public void tablesChanged(Connection connection, String... tables) {
+        if (maximumWeight == 0) {
+            return;
+        }
+        invalidateTables(List.of(tables));
+        if (inTransaction(connection)) {
+            uncommittedTables.get().addAll(List.of(tables));
+        }
+    }
+
+    /**
+     * Drops every result that depends on one of the tables.
+     */
+    public void invalidateTables(Collection<String> tables) {
+        lock.lock();
+        try {
+            for (String table : tables) {
+                generations.merge(table, 1L, Long::sum);
+                Set<QueryKey> keys = keysByTable.remove(table);
+                if (keys == null) {
+                    continue;
+                }
+                for (QueryKey key : keys) {
+                    if (removeEntry(key)) {
+                        invalidations.increment();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            for (String table : keysByTable.keySet()) {
+                generations.merge(table, 1L, Long::sum);
+            }
+            generations.replaceAll((table, generation) -> generation + 1);
+            invalidations.add(entries.size());
+            entries.clear();
+            keysByTable.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void afterCommit() {
+        transactionEnded();
+    }
+
+    /**
+     * Rolled-back writes are gone, but the writing thread may have read them, so the
+     * tables are invalidated as after a commit.
+     */
+    @Override
+    public void afterRollback() {
+        transactionEnded();
+    }
+
+    public CacheStats getStats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimated bytes of all cached results.
+     */
+    public long getWeight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Results dropped because a table they depend on changed.
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Misses that waited for another thread's load of the same key instead of querying.
+     */
+    public long getSharedLoadCount() {
+        return sharedLoads.sum();
+    }
+
+    private Entry lookup(QueryKey key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                removeEntry(key);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Long> generationsOf(QueryKey key) {
+        lock.lock();
+        try {
+            Map<String, Long> snapshot = new HashMap<>();
+            for (String table : key.tables()) {
+                snapshot.put(table, generations.getOrDefault(table, 0L));
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(QueryKey key, Object value, long valueWeight, Map<String, Long> generationsBefore) {
+
+        if (valueWeight > maximumWeight) {
+            return;
+        }
+
+        long expiresAt = ttlNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+
+        lock.lock();
+        try {
+            // A table changed while the query ran: the result may be stale
+            if (!generationsBefore.equals(generationsOf(key))) {
+                return;
+            }
+
+            removeEntry(key);
+            entries.put(key, new Entry(value, valueWeight, expiresAt));
+            weight += valueWeight;
+            for (String table : key.tables()) {
+                keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            }
+
+            // Evict least recently used results until the total fits again
+            Iterator<Map.Entry<QueryKey, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maximumWeight && eldest.hasNext()) {
+                Map.Entry<QueryKey, Entry> next = eldest.next();
+                eldest.remove();
+                weight -= next.getValue().weight();
+                unindex(next.getKey());
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private boolean removeEntry(QueryKey key) {
+        Entry removed = entries.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        weight -= removed.weight();
+        unindex(key);
+        return true;
+    }
+
+    private void unindex(QueryKey key) {
+        for (String table : key.tables()) {
+            Set<QueryKey> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+    }
+
+    private boolean readsUncommitted(QueryKey key) {
+        Set<String> uncommitted = uncommittedTables.get();
+        if (uncommitted.isEmpty()) {
+            return false;
+        }
+        for (String table : key.tables()) {
+            if (uncommitted.contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void transactionEnded() {
+        Set<String> uncommitted = uncommittedTables.get();
+        if (!uncommitted.isEmpty()) {
+            invalidateTables(uncommitted);
+            uncommitted.clear();
+        }
+    }
+
+    private static boolean inTransaction(Connection connection) {
+        try {
+            return !connection.getAutoCommit();
+        } catch (SQLException e) {
+            // Cannot tell: assume a transaction, which only costs some cache misses
+            return true;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A running load and the table generations it started at.
+     */
+    private record Load(CompletableFuture<Object> result, Map<String, Long> generations) {
+
+        boolean startedSince(Map<String, Long> other) {
+            for (Map.Entry<String, Long> table : other.entrySet()) {
+                if (generations.get(table.getKey()) < table.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Entry(Object value, long weight, long expiresAt) {
+
+        boolean isExpired() {
+            return expiresAt != Long.MAX_VALUE && System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package se.lexicon.cache;
+
+import se.lexicon.db.TransactionListener;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Shared cache of {@link Student} objects keyed by id.
+ * <p>
+ * One instance is meant to be shared by the student and attendance DAOs.
+ * The cache keeps copies of its own: {@link #put} stores a copy and {@link #get} returns one,
+ * so a caller changing its Student never changes what other callers see.
+ * <p>
+ * DAOs load with {@link #generation()} / {@link #putIfNotInvalidatedSince}, so a row read
+ * before a concurrent update is not stored after that update invalidated the id.
+ * An update inside a transaction is invalidated again when the transaction ends, because
+ * other connections can read (and cache) the old row until the commit. Register the cache with
+ * {@link se.lexicon.db.TransactionManager#addTransactionListener} for that; with manual
+ * transactions call {@link #afterCommit()} or {@link #afterRollback()} yourself.
+ * <p>
+ * The ids waiting for the end of a transaction belong to the connection that wrote them.
+ * If nobody reports the end, they are dropped (and invalidated) as soon as the same thread
+ * writes on another connection or on the same connection outside a transaction, so a missing
+ * listener costs one extra invalidation instead of a set that grows forever.
+ */
+public class StudentCache extends LruCache<Integer, Student> implements TransactionListener {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final ThreadLocal<UncommittedIds> uncommittedIds = new ThreadLocal<>();
+
+    public StudentCache() {
+        this(DEFAULT_MAXIMUM_SIZE, null);
+    }
+
+    public StudentCache(int maximumSize, Duration ttl) {
+        super(maximumSize, ttl);
+    }
+
+    /**
+     * A cache that never stores anything. Used when no cache is configured.
+     */
+    public static StudentCache disabled() {
+        return new StudentCache(0, null);
+    }
+
+    /**
+     * Returns a copy of the cached student, or null.
+     */
+    @Override
+    public Student get(Integer id) {
+        Student cached = super.get(id);
+        return cached == null ? null : copy(cached);
+    }
+
+    @Override
+    public void put(Integer id, Student student) {
+        super.put(id, copy(student));
+    }
+
+    @Override
+    public void putIfNotInvalidatedSince(Integer id, Student student, long generation) {
+        super.putIfNotInvalidatedSince(id, copy(student), generation);
+    }
+
+    /**
+     * Drops the student after a write on the connection. If the connection is inside a
+     * transaction, the id is dropped again when it ends.
+     */
+    public void invalidate(Connection connection, int id) {
+        invalidate(id);
+
+        UncommittedIds pending = uncommittedIds.get();
+        boolean inTransaction = inTransaction(connection);
+        if (pending != null && (pending.connection() != connection || !inTransaction)) {
+            // The transaction that wrote these ids has ended without anyone telling us
+            transactionEnded();
+            pending = null;
+        }
+        if (inTransaction) {
+            if (pending == null) {
+                pending = new UncommittedIds(connection, new HashSet<>());
+                uncommittedIds.set(pending);
+            }
+            pending.ids().add(id);
+        }
+    }
+
+    @Override
+    public void afterCommit() {
+        transactionEnded();
+    }
+
+    @Override
+    public void afterRollback() {
+        transactionEnded();
+    }
+
+    private void transactionEnded() {
+        UncommittedIds pending = uncommittedIds.get();
+        if (pending != null) {
+            uncommittedIds.remove();
+            pending.ids().forEach(this::invalidate);
+        }
+    }
+
+    /**
+     * Students written on this connection in its current transaction.
+     */
+    private record UncommittedIds(Connection connection, Set<Integer> ids) {
+    }
+
+    private static Student copy(Student student) {
+        return new Student(student.getId(), student.getName(), student.getClassGroup(), student.getCreateDate());
+    }
+
+    private static boolean inTransaction(Connection connection) {
+        try {
+            return !connection.getAutoCommit();
+        } catch (SQLException e) {
+            // Cannot tell: assume a transaction, which only costs one more invalidation
+            return true;
+        }
+    }
+}
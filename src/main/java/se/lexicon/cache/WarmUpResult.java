@@ -0,0 +1,19 @@
+package se.lexicon.cache;
+
+import java.time.Duration;
+
+/**
+ * What {@link MappedRecordCache#warmUp()} had to do.
+ *
+ * @param fullReload true if the files were missing, unfinished or too old and both tables were read again
+ * @param rowsLoaded rows read by the full reload, 0 without one
+ * @param changes    change feed events applied after the files (or the reload) were current
+ */
+public record WarmUpResult(boolean fullReload, long rowsLoaded, long changes, Duration elapsed) {
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d rows loaded, %,d changes applied in %.2f s",
+                fullReload ? "full reload" : "warm start", rowsLoaded, changes, elapsed.toNanos() / 1e9);
+    }
+}
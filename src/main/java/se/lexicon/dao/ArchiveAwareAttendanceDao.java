@@ -0,0 +1,190 @@
+package se.lexicon.dao;
+
+import se.lexicon.archive.ArchivedRow;
+import se.lexicon.archive.AttendanceArchive;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that answers date-range reads from the live table and the attendance archive together.
+ * <p>
+ * When a query's range starts before {@link AttendanceArchive#getArchivedUntil()}, the archived
+ * rows in range are merged with the live ones by student and date (the live row wins: it is the
+ * newer copy while the archive job is still deleting, or was changed or re-inserted after the export). Ranges after the archived periods go straight to the delegate.
+ * Students of archived rows are loaded with one {@code WHERE id IN (...)} query on the connection;
+ * a student deleted since then keeps only its id.
+ * <p>
+ * findAll, streams, pages and findById see live rows only. Writes are passed through;
+ * archived periods are read-only (see {@link AttendanceArchive}).
+ */
+public class ArchiveAwareAttendanceDao implements AttendanceDao {
+
+    // attendance is UNIQUE (student_id, attendance_date), in the archive too
+    private record Key(int studentId, LocalDate date) {
+        static Key of(Attendance attendance) {
+            return new Key(attendance.getStudent().getId(), attendance.getAttendanceDate());
+        }
+    }
+
+    private static final Comparator<Attendance> BY_DATE_AND_ID =
+            Comparator.comparing(Attendance::getAttendanceDate).thenComparingInt(Attendance::getId);
+
+    private final Connection connection;
+    private final AttendanceDao delegate;
+    private final AttendanceArchive archive;
+
+    public ArchiveAwareAttendanceDao(Connection connection, AttendanceDao delegate, AttendanceArchive archive) {
+        this.connection = connection;
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public Attendance save(Attendance attendance) {
+        return delegate.save(attendance);
+    }
+
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+        return delegate.saveAll(attendances);
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        return delegate.upsert(attendance);
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+        return delegate.upsertAll(attendances);
+    }
+
+    @Override
+    public List<Attendance> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public Optional<Attendance> findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+        List<Attendance> live = delegate.findByStudent(studentId, from, to);
+        if (!reachesArchive(from)) {
+            return live;
+        }
+        return mergeArchived(archive.read(from, to, id -> id == studentId), live, BY_DATE_AND_ID);
+    }
+
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+        List<Attendance> live = delegate.findByDateRange(from, to);
+        if (!reachesArchive(from)) {
+            return live;
+        }
+        return mergeArchived(archive.read(from, to), live, BY_DATE_AND_ID);
+    }
+
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+        List<Attendance> live = delegate.findByClassGroupAndDate(classGroup, date);
+        if (!reachesArchive(date)) {
+            return live;
+        }
+
+        // The archive has no class groups: keep the rows whose student is in the group today, like the live query
+        List<Attendance> archived = toAttendances(archive.read(date, date));
+        archived.removeIf(attendance -> !classGroup.equals(attendance.getStudent().getClassGroup()));
+        return merge(archived, live, Comparator.comparingInt(attendance -> attendance.getStudent().getId()));
+    }
+
+    @Override
+    public void update(Attendance attendance) {
+        delegate.update(attendance);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return delegate.delete(id);
+    }
+
+    private boolean reachesArchive(LocalDate from) {
+        LocalDate archivedUntil = archive.getArchivedUntil();
+        return archivedUntil != null && from.isBefore(archivedUntil);
+    }
+
+    private List<Attendance> mergeArchived(List<ArchivedRow> archived, List<Attendance> live, Comparator<Attendance> order) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        return merge(toAttendances(archived), live, order);
+    }
+
+    private static List<Attendance> merge(List<Attendance> archived, List<Attendance> live,
+                                          Comparator<Attendance> order) {
+        Map<Key, Attendance> byKey = new LinkedHashMap<>();
+        for (Attendance attendance : archived) {
+            byKey.put(Key.of(attendance), attendance);
+        }
+        for (Attendance attendance : live) {
+            byKey.put(Key.of(attendance), attendance);
+        }
+        List<Attendance> merged = new ArrayList<>(byKey.values());
+        merged.sort(order);
+        return merged;
+    }
+
+    private List<Attendance> toAttendances(List<ArchivedRow> rows) {
+
+        Set<Integer> studentIds = new LinkedHashSet<>();
+        for (ArchivedRow row : rows) {
+            studentIds.add(row.studentId());
+        }
+
+        Map<Integer, Student> students;
+        try {
+            students = StudentBatchLoader.load(connection, studentIds);
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading students of archived attendance: " + e.getMessage());
+            throw new RuntimeException("Error loading students of archived attendance", e);
+        }
+
+        List<Attendance> attendances = new ArrayList<>(rows.size());
+        for (ArchivedRow row : rows) {
+            Student student = students.computeIfAbsent(row.studentId(), id -> new Student(id, null, null, null));
+            attendances.add(new Attendance(row.id(), student, row.attendanceDate(), row.status()));
+        }
+        return attendances;
+    }
+}
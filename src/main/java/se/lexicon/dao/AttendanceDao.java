@@ -2,13 +2,25 @@ package se.lexicon.dao;
 
 import se.lexicon.model.Attendance;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AttendanceDao {
     Attendance save(Attendance attendance); // Create or Update
+    List<Attendance> saveAll(Collection<Attendance> attendances); // Bulk create
+    UpsertResult upsert(Attendance attendance); // Insert, or update the status for the same student and date
+    List<UpsertResult> upsertAll(Collection<Attendance> attendances); // Bulk upsert, one result per row in order
     List<Attendance> findAll(); // Read all
+    Stream<Attendance> streamAll(); // Read all, lazily (close the stream!)
+    Stream<Attendance> streamAll(int fetchSize); // Read all, fetching fetchSize rows per round trip
+    Page<Attendance> findPage(PageRequest request); // Read one page, ordered by date and id
     Optional<Attendance> findById(int id); // Read by ID
+    List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to); // One student's history, by date
+    List<Attendance> findByDateRange(LocalDate from, LocalDate to); // Everyone in a date range, by date and id
+    List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date); // One group on one day, by student id
     void update(Attendance attendance);
     boolean delete(int id);
 }
@@ -1,34 +1,131 @@
 package se.lexicon.dao;
 
 
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.feed.ChangeOperation;
+import se.lexicon.feed.ChangeOutbox;
 import se.lexicon.model.Attendance;
 import se.lexicon.model.AttendanceStatus;
 import se.lexicon.model.Student;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * JDBC implementation of AttendanceDao.
  *
  * Demonstrates:
  * - Using DataSource for connection management
- * - JOIN queries
+ * - JOIN queries, or loading students lazily or in batches (see {@link FetchPlan})
  * - Enum mapping
  * - Proper resource handling
+ * - Checking student_id in the write's transaction, since attendance has no foreign key
+ *   (see {@link StudentReferences})
  */
 public class AttendanceDaoImpl implements AttendanceDao {
 
+    private static final BatchInsert<Attendance> BATCH_INSERT = new BatchInsert<>(
+            "attendance",
+            List.of("student_id", "attendance_date", "status"),
+            (ps, i, attendance) -> {
+                ps.setInt(i, attendance.getStudent().getId());
+                ps.setDate(i + 1, Date.valueOf(attendance.getAttendanceDate()));
+                ps.setString(i + 2, attendance.getStatus().getLabel());
+            },
+            Attendance::setId
+    );
+
+    // Relies on UNIQUE (student_id, attendance_date).
+    // id = LAST_INSERT_ID(id) reports the existing id on update. It also stops
+    // rewriteBatchedStatements from folding the batch into one multi-row INSERT (Connector/J
+    // does not rewrite an ON DUPLICATE KEY UPDATE clause containing LAST_INSERT_ID), which
+    // would lose the per-row inserted/updated counts. A batch of more than 3 rows is sent as one
+    // multi-statement packet instead: still one round trip, with one update count per row.
+    private static final String UPSERT_SQL = """
+            INSERT INTO attendance (student_id, attendance_date, status)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE status = VALUES(status), id = LAST_INSERT_ID(id)
+            """;
+
+    // An upsert does not report the id of every row, so the outbox row looks it up by the natural key
+    private static final String OUTBOX_UPSERT_SQL = """
+            INSERT INTO change_outbox (table_name, row_id, operation)
+            SELECT 'attendance', id, ?
+            FROM attendance
+            WHERE student_id = ? AND attendance_date = ?
+            """;
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final Connection connection;
+    private final BatchConfig batchConfig;
+    private final StudentCache studentCache;
+    private final FetchPlan fetchPlan;
+    private final QueryResultCache queryCache;
+    private final ChangeOutbox outbox;
 
     /**
      * Connection is injected.
      * The DAO does not manage connection creation.
      */
     public AttendanceDaoImpl(Connection connection) {
+        this(connection, new BatchConfig());
+    }
+
+    public AttendanceDaoImpl(Connection connection, BatchConfig batchConfig) {
+        this(connection, batchConfig, StudentCache.disabled());
+    }
+
+    /**
+     * Rows for the same student share one Student object taken from the cache.
+     */
+    public AttendanceDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache) {
+        this(connection, batchConfig, studentCache, FetchPlan.EAGER_JOIN);
+    }
+
+    /**
+     * The fetch plan decides how the Student of each row is loaded, see {@link FetchPlan}.
+     */
+    public AttendanceDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache,
+                             FetchPlan fetchPlan) {
+        this(connection, batchConfig, studentCache, fetchPlan, QueryResultCache.disabled());
+    }
+
+    /**
+     * Every write tells the query cache that the attendance table changed, see {@link CachingAttendanceDao}.
+     */
+    public AttendanceDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache,
+                             FetchPlan fetchPlan, QueryResultCache queryCache) {
+        this(connection, batchConfig, studentCache, fetchPlan, queryCache, ChangeOutbox.disabled());
+    }
+
+    /**
+     * Every write also records the change in the outbox, in the same transaction
+     * (see {@link se.lexicon.feed.ChangeFeed}).
+     */
+    public AttendanceDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache,
+                             FetchPlan fetchPlan, QueryResultCache queryCache, ChangeOutbox outbox) {
         this.connection = connection;
+        this.batchConfig = batchConfig;
+        this.studentCache = studentCache;
+        this.fetchPlan = fetchPlan;
+        this.queryCache = queryCache;
+        this.outbox = outbox;
     }
 
     /**
@@ -43,21 +140,29 @@ public class AttendanceDaoImpl implements AttendanceDao {
             VALUES (?, ?, ?)
             """;
 
-        try (
-                PreparedStatement ps =
-                        connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
-        ) {
-            ps.setInt(1, attendance.getStudent().getId());
-            ps.setDate(2, Date.valueOf(attendance.getAttendanceDate()));
-            ps.setString(3, attendance.getStatus().name());
-
-            ps.executeUpdate();
-
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) {
-                    attendance.setId(keys.getInt(1));
+        try {
+            StudentReferences.inTransaction(connection, () -> {
+                StudentReferences.requireStudents(connection, List.of(attendance.getStudent().getId()));
+                try (
+                        PreparedStatement ps =
+                                connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                ) {
+                    ps.setInt(1, attendance.getStudent().getId());
+                    ps.setDate(2, Date.valueOf(attendance.getAttendanceDate()));
+                    ps.setString(3, attendance.getStatus().getLabel());
+
+                    ps.executeUpdate();
+
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            attendance.setId(keys.getInt(1));
+                        }
+                    }
+                    outbox.record(connection, "attendance", ChangeOperation.INSERT, attendance.getId());
                 }
-            }
+                return attendance;
+            });
+            queryCache.tablesChanged(connection, "attendance");
 
         } catch (SQLException e) {
             System.err.println("❌ Error saving attendance: " + e.getMessage());
@@ -67,6 +172,154 @@ public class AttendanceDaoImpl implements AttendanceDao {
         return attendance;
     }
 
+    /**
+     * Saves many attendance records using JDBC batching.
+     * Rows are sent and committed in chunks (see {@link BatchConfig})
+     * and the generated IDs are set on each object.
+     */
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+
+        try {
+            BATCH_INSERT.execute(connection, attendances, batchConfig,
+                    (conn, chunk) -> StudentReferences.requireStudents(conn, studentIds(chunk)),
+                    (conn, chunk) -> outbox.recordAll(conn, "attendance", ChangeOperation.INSERT,
+                            chunk.stream().map(Attendance::getId).toList()));
+        } catch (SQLException e) {
+            System.err.println("❌ Error saving attendance batch: " + e.getMessage());
+            throw new RuntimeException("Error saving attendance batch", e);
+        } finally {
+            // Earlier chunks stay committed when a later one fails
+            queryCache.tablesChanged(connection, "attendance");
+        }
+
+        return new ArrayList<>(attendances);
+    }
+
+    /**
+     * Inserts the record, or updates the status of the existing record
+     * for the same student and date, in one round trip.
+     * The ID is set on the object when the driver reports it (MySQL does in both cases).
+     */
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+
+        try {
+            UpsertResult result = StudentReferences.inTransaction(connection, () -> {
+                StudentReferences.requireStudents(connection, List.of(attendance.getStudent().getId()));
+                try (
+                        PreparedStatement ps =
+                                connection.prepareStatement(UPSERT_SQL, Statement.RETURN_GENERATED_KEYS)
+                ) {
+                    bindUpsert(ps, attendance);
+                    UpsertResult upserted = UpsertResult.fromUpdateCount(ps.executeUpdate());
+
+                    // LAST_INSERT_ID(id) makes the existing row's id the "generated" key on update
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next() && keys.getInt(1) > 0) {
+                            attendance.setId(keys.getInt(1));
+                        }
+                    }
+                    recordUpserts(connection, List.of(attendance), List.of(upserted));
+                    return upserted;
+                }
+            });
+            queryCache.tablesChanged(connection, "attendance");
+            return result;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error upserting attendance: " + e.getMessage());
+            throw new RuntimeException("Error upserting attendance", e);
+        }
+    }
+
+    /**
+     * Upserts many attendance records using JDBC batching.
+     * Rows are sent and committed in chunks (see {@link BatchConfig}). With rewriteBatchedStatements
+     * a chunk of more than 3 rows goes to MySQL as one multi-statement packet (one round trip, as long
+     * as it fits in max_allowed_packet); smaller chunks take one round trip per row.
+     * IDs are not set on the objects, an upsert does not always create a row.
+     *
+     * @return one result per record, in the order of the collection
+     */
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+
+        List<UpsertResult> results = new ArrayList<>(attendances.size());
+
+        try {
+            ChunkedTransaction.forEachChunk(connection, attendances, batchConfig.getChunkSize(), (conn, chunk) -> {
+                StudentReferences.requireStudents(conn, studentIds(chunk));
+                try (
+                        PreparedStatement ps = conn.prepareStatement(UPSERT_SQL)
+                ) {
+                    for (Attendance attendance : chunk) {
+                        bindUpsert(ps, attendance);
+                        ps.addBatch();
+                    }
+                    List<UpsertResult> chunkResults = new ArrayList<>(chunk.size());
+                    for (int count : ps.executeBatch()) {
+                        chunkResults.add(UpsertResult.fromUpdateCount(count));
+                    }
+                    recordUpserts(conn, chunk, chunkResults);
+                    results.addAll(chunkResults);
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ Error upserting attendance batch: " + e.getMessage());
+            throw new RuntimeException("Error upserting attendance batch", e);
+        } finally {
+            // Earlier chunks stay committed when a later one fails
+            queryCache.tablesChanged(connection, "attendance");
+        }
+
+        return results;
+    }
+
+    private static List<Integer> studentIds(List<Attendance> attendances) {
+        return attendances.stream().map(attendance -> attendance.getStudent().getId()).toList();
+    }
+
+    private static void bindUpsert(PreparedStatement ps, Attendance attendance) throws SQLException {
+        ps.setInt(1, attendance.getStudent().getId());
+        ps.setDate(2, Date.valueOf(attendance.getAttendanceDate()));
+        ps.setString(3, attendance.getStatus().getLabel());
+    }
+
+    /**
+     * Records the upserted rows that actually changed, in the caller's transaction.
+     */
+    private void recordUpserts(Connection conn, List<Attendance> attendances, List<UpsertResult> results)
+            throws SQLException {
+
+        if (!outbox.isEnabled()) {
+            return;
+        }
+
+        try (
+                PreparedStatement ps = conn.prepareStatement(OUTBOX_UPSERT_SQL)
+        ) {
+            boolean any = false;
+            for (int i = 0; i < attendances.size(); i++) {
+                UpsertResult result = results.get(i);
+                if (result == UpsertResult.UNCHANGED) {
+                    continue;
+                }
+                Attendance attendance = attendances.get(i);
+                ChangeOperation operation =
+                        result == UpsertResult.INSERTED ? ChangeOperation.INSERT : ChangeOperation.UPDATE;
+                ps.setString(1, operation.name());
+                ps.setInt(2, attendance.getStudent().getId());
+                ps.setDate(3, Date.valueOf(attendance.getAttendanceDate()));
+                ps.addBatch();
+                any = true;
+            }
+            if (any) {
+                ps.executeBatch();
+            }
+        }
+    }
+
     /**
      * Retrieves all attendance records with student information.
      */
@@ -75,20 +328,17 @@ public class AttendanceDaoImpl implements AttendanceDao {
 
         List<Attendance> attendances = new ArrayList<>();
 
-        String sql = """
-            SELECT a.id, a.attendance_date, a.status,
-                   s.id AS student_id, s.name, s.class_group, s.create_date
-            FROM attendance a
-            JOIN student s ON a.student_id = s.id
-            """;
+        String sql = selectAttendance();
 
         try (
                 PreparedStatement ps = connection.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()
         ) {
+            RowMapper<Attendance> mapper = attendanceMapper(rs);
             while (rs.next()) {
-                attendances.add(mapRowToAttendance(rs));
+                attendances.add(mapper.mapRow(rs));
             }
+            loadStudents(attendances);
 
         } catch (SQLException e) {
             System.err.println("❌ Error retrieving attendance records: " + e.getMessage());
@@ -98,17 +348,141 @@ public class AttendanceDaoImpl implements AttendanceDao {
         return attendances;
     }
 
+    /**
+     * Streams all attendance records without loading them into memory at once.
+     * The caller must close the stream, e.g. with try-with-resources.
+     */
+    @Override
+    public Stream<Attendance> streamAll() {
+        return streamAll(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams all attendance records using a forward-only cursor
+     * that fetches {@code fetchSize} rows per round trip.
+     */
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+
+        String sql = selectAttendance();
+
+        try {
+            Stream<Attendance> rows = ResultSetStream.of(connection, sql, fetchSize, this::attendanceMapper);
+            return fetchPlan == FetchPlan.BATCH ? loadStudentsInChunks(rows, fetchSize) : rows;
+        } catch (SQLException e) {
+            System.err.println("❌ Error streaming attendance records: " + e.getMessage());
+            throw new RuntimeException("Error streaming attendance records", e);
+        }
+    }
+
+    /**
+     * Reads every attendance row with an id above {@code afterId}, in id order,
+     * and hands its raw columns to the handler.
+     * No JOIN and no objects per row, so it is the cheapest way to load all rows
+     * into another structure (see {@code AttendanceSnapshot}).
+     *
+     * @return the highest id read, or {@code afterId} if there were no newer rows
+     */
+    public int scanAfter(int afterId, int fetchSize, AttendanceRowHandler handler) {
+
+        String sql = """
+            SELECT id, student_id, attendance_date, status
+            FROM attendance
+            WHERE id > ?
+            ORDER BY id
+            """;
+
+        int highestId = afterId;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        ) {
+            ps.setFetchSize(fetchSize);
+            ps.setInt(1, afterId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    highestId = rs.getInt(1);
+                    handler.onRow(
+                            highestId,
+                            rs.getInt(2),
+                            (int) rs.getObject(3, LocalDate.class).toEpochDay(),
+                            AttendanceStatus.fromLabel(rs.getString(4))
+                    );
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error scanning attendance records: " + e.getMessage());
+            throw new RuntimeException("Error scanning attendance records", e);
+        }
+
+        return highestId;
+    }
+
+    /**
+     * Retrieves one page of attendance records ordered by (attendance_date, id).
+     * Uses keyset pagination, so deep pages are as fast as the first one.
+     */
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+
+        String firstPageSql = selectAttendance() + """
+            ORDER BY a.attendance_date, a.id
+            LIMIT ?
+            """;
+
+        String nextPageSql = selectAttendance() + """
+            WHERE a.attendance_date > ?
+               OR (a.attendance_date = ? AND a.id > ?)
+            ORDER BY a.attendance_date, a.id
+            LIMIT ?
+            """;
+
+        List<Attendance> attendances = new ArrayList<>(request.size() + 1);
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(request.isFirstPage() ? firstPageSql : nextPageSql)
+        ) {
+            if (request.isFirstPage()) {
+                ps.setInt(1, request.size() + 1);
+            } else {
+                KeysetCursor.DateAndId after = KeysetCursor.decodeDateAndId(request.cursor());
+                ps.setDate(1, Date.valueOf(after.date()));
+                ps.setDate(2, Date.valueOf(after.date()));
+                ps.setInt(3, after.id());
+                ps.setInt(4, request.size() + 1); // one extra row tells us if there is a next page
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Attendance> mapper = attendanceMapper(rs);
+                while (rs.next()) {
+                    attendances.add(mapper.mapRow(rs));
+                }
+            }
+            loadStudents(attendances);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error retrieving attendance page: " + e.getMessage());
+            throw new RuntimeException("Error retrieving attendance page", e);
+        }
+
+        if (attendances.size() <= request.size()) {
+            return new Page<>(attendances, null);
+        }
+
+        attendances.removeLast();
+        Attendance last = attendances.getLast();
+        return new Page<>(attendances, KeysetCursor.encodeDateAndId(last.getAttendanceDate(), last.getId()));
+    }
+
     /**
      * Retrieves an attendance record by ID.
      */
     @Override
     public Optional<Attendance> findById(int id) {
 
-        String sql = """
-            SELECT a.id, a.attendance_date, a.status,
-                   s.id AS student_id, s.name, s.class_group, s.create_date
-            FROM attendance a
-            JOIN student s ON a.student_id = s.id
+        String sql = selectAttendance() + """
             WHERE a.id = ?
             """;
 
@@ -117,11 +491,16 @@ public class AttendanceDaoImpl implements AttendanceDao {
         ) {
             ps.setInt(1, id);
 
+            Attendance attendance = null;
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapRowToAttendance(rs));
+                    attendance = mapRowToAttendance(rs);
                 }
             }
+            if (attendance != null) {
+                loadStudents(List.of(attendance));
+                return Optional.of(attendance);
+            }
 
         } catch (SQLException e) {
             System.err.println("❌ Error retrieving attendance: " + e.getMessage());
@@ -131,6 +510,116 @@ public class AttendanceDaoImpl implements AttendanceDao {
         return Optional.empty();
     }
 
+    /**
+     * Retrieves one student's attendance between two dates (inclusive), ordered by date.
+     * Served by the UNIQUE (student_id, attendance_date) index as a range scan.
+     */
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+
+        List<Attendance> attendances = new ArrayList<>();
+
+        String sql = selectAttendance() + """
+            WHERE a.student_id = ? AND a.attendance_date BETWEEN ? AND ?
+            ORDER BY a.attendance_date
+            """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setInt(1, studentId);
+            ps.setDate(2, Date.valueOf(from));
+            ps.setDate(3, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Attendance> mapper = attendanceMapper(rs);
+                while (rs.next()) {
+                    attendances.add(mapper.mapRow(rs));
+                }
+            }
+            loadStudents(attendances);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error retrieving attendance for student: " + e.getMessage());
+            throw new RuntimeException("Error retrieving attendance for student", e);
+        }
+
+        return attendances;
+    }
+
+    /**
+     * Retrieves all attendance between two dates (inclusive), ordered by date and id.
+     * Served by the idx_attendance_date index (see Migration_Scripts.sql) as a range scan.
+     */
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+
+        List<Attendance> attendances = new ArrayList<>();
+
+        String sql = selectAttendance() + """
+            WHERE a.attendance_date BETWEEN ? AND ?
+            ORDER BY a.attendance_date, a.id
+            """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Attendance> mapper = attendanceMapper(rs);
+                while (rs.next()) {
+                    attendances.add(mapper.mapRow(rs));
+                }
+            }
+            loadStudents(attendances);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error retrieving attendance for date range: " + e.getMessage());
+            throw new RuntimeException("Error retrieving attendance for date range", e);
+        }
+
+        return attendances;
+    }
+
+    /**
+     * Retrieves the attendance of one class group on one day, ordered by student id.
+     * The group is matched with a subquery, so it works with every fetch plan.
+     */
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+
+        List<Attendance> attendances = new ArrayList<>();
+
+        String sql = selectAttendance() + """
+            WHERE a.attendance_date = ?
+              AND a.student_id IN (SELECT id FROM student WHERE class_group = ?)
+            ORDER BY a.student_id
+            """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setDate(1, Date.valueOf(date));
+            ps.setString(2, classGroup);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Attendance> mapper = attendanceMapper(rs);
+                while (rs.next()) {
+                    attendances.add(mapper.mapRow(rs));
+                }
+            }
+            loadStudents(attendances);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error retrieving attendance for class group: " + e.getMessage());
+            throw new RuntimeException("Error retrieving attendance for class group", e);
+        }
+
+        return attendances;
+    }
+
     /**
      * Updates an existing attendance record.
      */
@@ -143,15 +632,24 @@ public class AttendanceDaoImpl implements AttendanceDao {
             WHERE id = ?
             """;
 
-        try (
-                PreparedStatement ps = connection.prepareStatement(sql)
-        ) {
-            ps.setInt(1, attendance.getStudent().getId());
-            ps.setDate(2, Date.valueOf(attendance.getAttendanceDate()));
-            ps.setString(3, attendance.getStatus().name());
-            ps.setInt(4, attendance.getId());
-
-            ps.executeUpdate();
+        try {
+            StudentReferences.inTransaction(connection, () -> {
+                StudentReferences.requireStudents(connection, List.of(attendance.getStudent().getId()));
+                try (
+                        PreparedStatement ps = connection.prepareStatement(sql)
+                ) {
+                    ps.setInt(1, attendance.getStudent().getId());
+                    ps.setDate(2, Date.valueOf(attendance.getAttendanceDate()));
+                    ps.setString(3, attendance.getStatus().getLabel());
+                    ps.setInt(4, attendance.getId());
+
+                    if (ps.executeUpdate() > 0) {
+                        outbox.record(connection, "attendance", ChangeOperation.UPDATE, attendance.getId());
+                    }
+                }
+                return null;
+            });
+            queryCache.tablesChanged(connection, "attendance");
 
         } catch (SQLException e) {
             System.err.println("❌ Error updating attendance: " + e.getMessage());
@@ -167,11 +665,21 @@ public class AttendanceDaoImpl implements AttendanceDao {
 
         String sql = "DELETE FROM attendance WHERE id = ?";
 
-        try (
-                PreparedStatement ps = connection.prepareStatement(sql)
-        ) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean deleted = outbox.inTransaction(connection, () -> {
+                try (
+                        PreparedStatement ps = connection.prepareStatement(sql)
+                ) {
+                    ps.setInt(1, id);
+                    if (ps.executeUpdate() == 0) {
+                        return false;
+                    }
+                    outbox.record(connection, "attendance", ChangeOperation.DELETE, id);
+                    return true;
+                }
+            });
+            queryCache.tablesChanged(connection, "attendance");
+            return deleted;
 
         } catch (SQLException e) {
             System.err.println("❌ Error deleting attendance: " + e.getMessage());
@@ -180,24 +688,188 @@ public class AttendanceDaoImpl implements AttendanceDao {
 
     }
 
+    /**
+     * SELECT and FROM part of every attendance query.
+     * Only EAGER_JOIN reads the student columns; the other plans load students separately.
+     */
+    private String selectAttendance() {
+        if (fetchPlan == FetchPlan.EAGER_JOIN) {
+            return """
+                SELECT a.id, a.attendance_date, a.status,
+                       s.id AS student_id, s.name, s.class_group, s.create_date
+                FROM attendance a
+                JOIN student s ON a.student_id = s.id
+                """;
+        }
+        return """
+            SELECT a.id, a.attendance_date, a.status, a.student_id
+            FROM attendance a
+            """;
+    }
+
     /**
      * Maps a ResultSet row to an Attendance object.
-     * Keeps mapping logic in one place.
-     */
-    private Attendance mapRowToAttendance(ResultSet rs) throws SQLException {
-
-        Student student = new Student(
-                rs.getInt("student_id"),
-                rs.getString("name"),
-                rs.getString("class_group"),
-                rs.getTimestamp("create_date").toLocalDateTime()
-        );
-
-        return new Attendance(
-                rs.getInt("id"),
-                student,
-                rs.getDate("attendance_date").toLocalDate(),
-                AttendanceStatus.valueOf(rs.getString("status"))
-        );
+     * Keeps mapping logic in one place; columns are looked up once per ResultSet.
+     * Rows for the same student in one ResultSet share one Student object, which is a copy
+     * of the cached Student when the cache has it.
+     * <p>
+     * On a cache miss EAGER_JOIN maps the joined student columns, while LAZY and BATCH
+     * use a {@link LazyStudent} that knows only the id.
+     */
+    RowMapper<Attendance> attendanceMapper(ResultSet rs) throws SQLException {
+
+        int id = rs.findColumn("id");
+        int attendanceDate = rs.findColumn("attendance_date");
+        int status = rs.findColumn("status");
+        int studentIdColumn = rs.findColumn("student_id");
+
+        if (fetchPlan != FetchPlan.EAGER_JOIN) {
+            // One student (cached copy or proxy) per ResultSet, so each student is loaded at most once
+            Map<Integer, Student> students = new HashMap<>();
+            return row -> {
+                Student student = students.computeIfAbsent(row.getInt(studentIdColumn), key -> {
+                    Student cached = studentCache.get(key);
+                    return cached != null ? cached : new LazyStudent(key, this::loadStudent);
+                });
+                return new Attendance(
+                        row.getInt(id),
+                        student,
+                        row.getObject(attendanceDate, LocalDate.class),
+                        AttendanceStatus.fromLabel(row.getString(status))
+                );
+            };
+        }
+
+        int name = rs.findColumn("name");
+        int classGroup = rs.findColumn("class_group");
+        int createDate = rs.findColumn("create_date");
+
+        // A cached student is reused; the joined columns are only mapped on a cache miss.
+        // They are not put in the cache: this query may have read them before a concurrent
+        // update invalidated the student. Rows of the same student share one Student either way.
+        Map<Integer, Student> students = new HashMap<>();
+        return row -> {
+            int studentId = row.getInt(studentIdColumn);
+            Student student = students.get(studentId);
+            if (student == null) {
+                student = studentCache.get(studentId);
+                if (student == null) {
+                    student = new Student(
+                            studentId,
+                            row.getString(name),
+                            row.getString(classGroup),
+                            row.getObject(createDate, LocalDateTime.class)
+                    );
+                }
+                students.put(studentId, student);
+            }
+
+            return new Attendance(
+                    row.getInt(id),
+                    student,
+                    row.getObject(attendanceDate, LocalDate.class),
+                    AttendanceStatus.fromLabel(row.getString(status))
+            );
+        };
+    }
+
+    /**
+     * Loads one student for a {@link LazyStudent} on first access.
+     * Runs on this DAO's connection, so it must still be open at that point.
+     */
+    private Student loadStudent(int studentId) {
+        Student cached = studentCache.get(studentId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = studentCache.generation();
+        try {
+            Student student = StudentBatchLoader.load(connection, List.of(studentId)).get(studentId);
+            if (student == null) {
+                throw new IllegalStateException("Student " + studentId + " no longer exists");
+            }
+            studentCache.putIfNotInvalidatedSince(studentId, student, generation);
+            return student;
+        } catch (SQLException e) {
+            System.err.println("❌ Error loading student: " + e.getMessage());
+            throw new RuntimeException("Error loading student", e);
+        }
+    }
+
+    /**
+     * BATCH plan: replaces the lazy students of these rows with students loaded by
+     * one {@code WHERE id IN (...)} query per distinct set of ids. Does nothing for other plans.
+     */
+    private void loadStudents(List<Attendance> attendances) throws SQLException {
+        if (fetchPlan != FetchPlan.BATCH || attendances.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Attendance attendance : attendances) {
+            if (attendance.getStudent() instanceof LazyStudent lazy && !lazy.isLoaded()) {
+                missing.add(lazy.getId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        long generation = studentCache.generation();
+        Map<Integer, Student> loaded = StudentBatchLoader.load(connection, missing);
+        for (Student student : loaded.values()) {
+            studentCache.putIfNotInvalidatedSince(student.getId(), student, generation);
+        }
+        for (Attendance attendance : attendances) {
+            if (attendance.getStudent() instanceof LazyStudent lazy) {
+                Student student = loaded.get(lazy.getId());
+                if (student != null) {
+                    attendance.setStudent(student);
+                }
+            }
+        }
+    }
+
+    /**
+     * BATCH plan for streams: loads the students of every {@code chunkSize} rows together.
+     * The extra query runs while the stream's cursor is still open, which works with
+     * cursor-based fetching (MySQL {@code useCursorFetch=true}).
+     */
+    private Stream<Attendance> loadStudentsInChunks(Stream<Attendance> rows, int chunkSize) {
+        Iterator<Attendance> source = rows.iterator();
+        Iterator<List<Attendance>> chunks = new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public List<Attendance> next() {
+                List<Attendance> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && source.hasNext()) {
+                    chunk.add(source.next());
+                }
+                try {
+                    loadStudents(chunk);
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error loading students for streamed rows", e);
+                }
+                return chunk;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(rows::close);
+    }
+
+    /**
+     * Maps a single row, resolving the columns for just this call.
+     * Loops should create one {@link #attendanceMapper} per ResultSet instead.
+     * Package-private so the mapping cost can be benchmarked on its own.
+     */
+    Attendance mapRowToAttendance(ResultSet rs) throws SQLException {
+        return attendanceMapper(rs).mapRow(rs);
     }
 }
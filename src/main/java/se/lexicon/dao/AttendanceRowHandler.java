@@ -0,0 +1,12 @@
+package se.lexicon.dao;
+
+import se.lexicon.model.AttendanceStatus;
+
+/**
+ * Receives the raw columns of one attendance row, see {@link AttendanceDaoImpl#scanAfter}.
+ * No Attendance or Student objects are created for it.
+ */
+@FunctionalInterface
+public interface AttendanceRowHandler {
+    void onRow(int id, int studentId, int epochDay, AttendanceStatus status);
+}
@@ -0,0 +1,21 @@
+package se.lexicon.dao;
+
+import se.lexicon.model.DailyAttendanceStats;
+import se.lexicon.model.GroupAttendanceStats;
+import se.lexicon.model.StudentAttendanceStats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Attendance aggregates computed by the database.
+ * All date ranges are inclusive: from <= attendance_date <= to.
+ */
+public interface AttendanceStatisticsDao {
+
+    List<StudentAttendanceStats> countByStudent(LocalDate from, LocalDate to); // One row per student
+    StudentAttendanceStats countForStudent(int studentId, LocalDate from, LocalDate to); // One student
+    List<GroupAttendanceStats> countByClassGroup(LocalDate from, LocalDate to); // One row per class group
+    List<DailyAttendanceStats> countByDate(LocalDate from, LocalDate to); // One row per day
+    List<DailyAttendanceStats> countByDate(String classGroup, LocalDate from, LocalDate to); // One row per day for a group
+}
@@ -0,0 +1,203 @@
+package se.lexicon.dao;
+
+import se.lexicon.model.DailyAttendanceStats;
+import se.lexicon.model.GroupAttendanceStats;
+import se.lexicon.model.StudentAttendanceStats;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC implementation of AttendanceStatisticsDao.
+ * <p>
+ * Demonstrates:
+ * - Aggregation with GROUP BY and conditional SUM(CASE ...) in SQL
+ * - Sending only the small aggregated result over the wire instead of every attendance row
+ */
+public class AttendanceStatisticsDaoImpl implements AttendanceStatisticsDao {
+
+    // Counts both statuses in one pass over the rows
+    private static final String COUNTS = """
+            SUM(CASE WHEN a.status = 'Present' THEN 1 ELSE 0 END) AS present,
+            SUM(CASE WHEN a.status = 'Absent' THEN 1 ELSE 0 END) AS absent
+            """;
+
+    private final Connection connection;
+
+    /**
+     * Connection is injected.
+     * The DAO does not manage connection creation.
+     */
+    public AttendanceStatisticsDaoImpl(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Present/absent counts per student, ordered by student id.
+     */
+    @Override
+    public List<StudentAttendanceStats> countByStudent(LocalDate from, LocalDate to) {
+
+        String sql = "SELECT a.student_id, " + COUNTS + """
+                FROM attendance a
+                WHERE a.attendance_date BETWEEN ? AND ?
+                GROUP BY a.student_id
+                ORDER BY a.student_id
+                """;
+
+        List<StudentAttendanceStats> stats = new ArrayList<>();
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    stats.add(new StudentAttendanceStats(rs.getInt(1), rs.getInt(2), rs.getInt(3)));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error counting attendance per student: " + e.getMessage());
+            throw new RuntimeException("Error counting attendance per student", e);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Present/absent counts for one student (zero counts if there are no rows).
+     */
+    @Override
+    public StudentAttendanceStats countForStudent(int studentId, LocalDate from, LocalDate to) {
+
+        String sql = "SELECT " + COUNTS + """
+                FROM attendance a
+                WHERE a.student_id = ? AND a.attendance_date BETWEEN ? AND ?
+                """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setInt(1, studentId);
+            ps.setDate(2, Date.valueOf(from));
+            ps.setDate(3, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next(); // an aggregate without GROUP BY always returns one row
+                return new StudentAttendanceStats(studentId, rs.getInt(1), rs.getInt(2));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error counting attendance for student: " + e.getMessage());
+            throw new RuntimeException("Error counting attendance for student", e);
+        }
+    }
+
+    /**
+     * Present/absent counts per class group, ordered by group.
+     */
+    @Override
+    public List<GroupAttendanceStats> countByClassGroup(LocalDate from, LocalDate to) {
+
+        String sql = "SELECT s.class_group, " + COUNTS + """
+                FROM attendance a
+                JOIN student s ON a.student_id = s.id
+                WHERE a.attendance_date BETWEEN ? AND ?
+                GROUP BY s.class_group
+                ORDER BY s.class_group
+                """;
+
+        List<GroupAttendanceStats> stats = new ArrayList<>();
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    stats.add(new GroupAttendanceStats(rs.getString(1), rs.getInt(2), rs.getInt(3)));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error counting attendance per class group: " + e.getMessage());
+            throw new RuntimeException("Error counting attendance per class group", e);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Present/absent counts per day, ordered by date.
+     */
+    @Override
+    public List<DailyAttendanceStats> countByDate(LocalDate from, LocalDate to) {
+
+        String sql = "SELECT a.attendance_date, " + COUNTS + """
+                FROM attendance a
+                WHERE a.attendance_date BETWEEN ? AND ?
+                GROUP BY a.attendance_date
+                ORDER BY a.attendance_date
+                """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            return readDailyStats(ps);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error counting attendance per day: " + e.getMessage());
+            throw new RuntimeException("Error counting attendance per day", e);
+        }
+    }
+
+    /**
+     * Present/absent counts per day for one class group, ordered by date.
+     */
+    @Override
+    public List<DailyAttendanceStats> countByDate(String classGroup, LocalDate from, LocalDate to) {
+
+        String sql = "SELECT a.attendance_date, " + COUNTS + """
+                FROM attendance a
+                JOIN student s ON a.student_id = s.id
+                WHERE s.class_group = ? AND a.attendance_date BETWEEN ? AND ?
+                GROUP BY a.attendance_date
+                ORDER BY a.attendance_date
+                """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, classGroup);
+            ps.setDate(2, Date.valueOf(from));
+            ps.setDate(3, Date.valueOf(to));
+            return readDailyStats(ps);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error counting attendance per day for group: " + e.getMessage());
+            throw new RuntimeException("Error counting attendance per day for group", e);
+        }
+    }
+
+    private List<DailyAttendanceStats> readDailyStats(PreparedStatement ps) throws SQLException {
+
+        List<DailyAttendanceStats> stats = new ArrayList<>();
+
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                stats.add(new DailyAttendanceStats(rs.getDate(1).toLocalDate(), rs.getInt(2), rs.getInt(3)));
+            }
+        }
+
+        return stats;
+    }
+}
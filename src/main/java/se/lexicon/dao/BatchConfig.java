@@ -0,0 +1,59 @@
+package se.lexicon.dao;
+
+/**
+ * Settings for the {@code saveAll} bulk-insert methods.
+ */
+public class BatchConfig {
+
+    private int chunkSize = 500;
+    private boolean multiRowValues = false;
+
+    public BatchConfig() {
+    }
+
+    public BatchConfig(int chunkSize, boolean multiRowValues) {
+        this.chunkSize = requireValidChunkSize(chunkSize);
+        this.multiRowValues = multiRowValues;
+    }
+
+    // Getters and Setters
+
+    /**
+     * Number of rows sent and committed together.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = requireValidChunkSize(chunkSize);
+    }
+
+    /**
+     * true  = one INSERT ... VALUES (...), (...), ... statement per chunk
+     * false = JDBC addBatch/executeBatch per chunk
+     */
+    public boolean isMultiRowValues() {
+        return multiRowValues;
+    }
+
+    public void setMultiRowValues(boolean multiRowValues) {
+        this.multiRowValues = multiRowValues;
+    }
+
+    private static int requireValidChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        return chunkSize;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "BatchConfig{" +
+                "chunkSize=" + chunkSize +
+                ", multiRowValues=" + multiRowValues +
+                '}';
+    }
+}
@@ -0,0 +1,146 @@
+package se.lexicon.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Shared bulk-insert logic used by the DAO {@code saveAll} methods.
+ * <p>
+ * Rows are split into chunks. Each chunk is sent in one round trip, either as a
+ * JDBC batch or as a single multi-row {@code VALUES} statement, and committed as
+ * one transaction (see {@link ChunkedTransaction}). Generated keys are assigned
+ * back to the objects in order.
+ */
+class BatchInsert<T> {
+
+    // MySQL allows at most 65535 placeholders in one prepared statement
+    private static final int MAX_PLACEHOLDERS = 65_535;
+
+    /**
+     * Binds one object's values starting at the given parameter index.
+     */
+    interface RowBinder<T> {
+        void bind(PreparedStatement ps, int firstIndex, T row) throws SQLException;
+    }
+
+    private final String insertPrefix;
+    private final String rowPlaceholders;
+    private final int columnCount;
+    private final RowBinder<T> binder;
+    private final ObjIntConsumer<T> idSetter;
+
+    /**
+     * @param table    table name, e.g. "attendance"
+     * @param columns  inserted columns in bind order
+     * @param binder   binds one row's values
+     * @param idSetter stores the generated id on the object
+     */
+    BatchInsert(String table, List<String> columns, RowBinder<T> binder, ObjIntConsumer<T> idSetter) {
+        this.insertPrefix = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        this.rowPlaceholders = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        this.columnCount = columns.size();
+        this.binder = binder;
+        this.idSetter = idSetter;
+    }
+
+    void execute(Connection connection, Collection<T> rows, BatchConfig config) throws SQLException {
+        execute(connection, rows, config, (conn, chunk) -> {
+        });
+    }
+
+    /**
+     * @param afterChunk runs after each chunk is inserted (ids set), in the chunk's transaction
+     */
+    void execute(Connection connection, Collection<T> rows, BatchConfig config,
+                 ChunkedTransaction.ChunkWriter<T> afterChunk) throws SQLException {
+        execute(connection, rows, config, (conn, chunk) -> {
+        }, afterChunk);
+    }
+
+    /**
+     * @param beforeChunk runs before each chunk is inserted, in the chunk's transaction
+     * @param afterChunk  runs after each chunk is inserted (ids set), in the chunk's transaction
+     */
+    void execute(Connection connection, Collection<T> rows, BatchConfig config,
+                 ChunkedTransaction.ChunkWriter<T> beforeChunk,
+                 ChunkedTransaction.ChunkWriter<T> afterChunk) throws SQLException {
+
+        int chunkSize = config.isMultiRowValues()
+                ? Math.min(config.getChunkSize(), MAX_PLACEHOLDERS / columnCount)
+                : config.getChunkSize();
+
+        boolean multiRowValues = config.isMultiRowValues();
+        ChunkedTransaction.forEachChunk(connection, rows, chunkSize,
+                (conn, chunk) -> {
+                    beforeChunk.write(conn, chunk);
+                    insertChunk(conn, chunk, multiRowValues);
+                    afterChunk.write(conn, chunk);
+                });
+    }
+
+    private void insertChunk(Connection connection, List<T> chunk, boolean multiRowValues) throws SQLException {
+        if (multiRowValues) {
+            insertMultiRow(connection, chunk);
+        } else {
+            insertBatch(connection, chunk);
+        }
+    }
+
+    private void insertBatch(Connection connection, List<T> chunk) throws SQLException {
+
+        String sql = insertPrefix + rowPlaceholders;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+        ) {
+            for (T row : chunk) {
+                binder.bind(ps, 1, row);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            assignKeys(ps, chunk);
+        }
+    }
+
+    private void insertMultiRow(Connection connection, List<T> chunk) throws SQLException {
+
+        StringBuilder sql = new StringBuilder(insertPrefix.length() + chunk.size() * (rowPlaceholders.length() + 2));
+        sql.append(insertPrefix);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholders);
+        }
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)
+        ) {
+            int index = 1;
+            for (T row : chunk) {
+                binder.bind(ps, index, row);
+                index += columnCount;
+            }
+            ps.executeUpdate();
+            assignKeys(ps, chunk);
+        }
+    }
+
+    private void assignKeys(PreparedStatement ps, List<T> chunk) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            for (T row : chunk) {
+                if (!keys.next()) {
+                    throw new SQLException("Expected " + chunk.size() + " generated keys but got fewer");
+                }
+                idSetter.accept(row, keys.getInt(1));
+            }
+        }
+    }
+}
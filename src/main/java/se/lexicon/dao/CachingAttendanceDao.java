@@ -0,0 +1,148 @@
+package se.lexicon.dao;
+
+import se.lexicon.cache.QueryKey;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that answers repeated attendance reads from a {@link QueryResultCache}.
+ * <p>
+ * Results carry student names and class groups, so they depend on the attendance and the
+ * student table and are invalidated by writes to either. Writes are passed through; the
+ * delegate must be an {@link AttendanceDaoImpl} built with the same cache, because the DAO
+ * that runs the write is the one that invalidates. Streams are never cached.
+ * <p>
+ * Use the EAGER_JOIN or BATCH fetch plan: LAZY students would load from the
+ * connection of whoever cached the row.
+ * The cache keeps one shared copy of every result; each call returns copies of its records
+ * and students, so a caller changing them does not change what other callers get.
+ * Records of the same student share one Student copy. Returned lists are unmodifiable.
+ */
+public class CachingAttendanceDao implements AttendanceDao {
+
+    private static final Set<String> TABLES = Set.of("attendance", "student");
+
+    // Rough heap size of one Attendance (LocalDate, status) plus a Student of its own
+    static final long ATTENDANCE_BYTES = 100 + CachingStudentDao.STUDENT_BYTES;
+
+    private final AttendanceDao delegate;
+    private final QueryResultCache cache;
+
+    public CachingAttendanceDao(AttendanceDao delegate, QueryResultCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Attendance save(Attendance attendance) {
+        return delegate.save(attendance);
+    }
+
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+        return delegate.saveAll(attendances);
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        return delegate.upsert(attendance);
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+        return delegate.upsertAll(attendances);
+    }
+
+    @Override
+    public List<Attendance> findAll() {
+        return copies(cache.get(QueryKey.of(TABLES, "attendance.findAll"),
+                () -> List.copyOf(delegate.findAll()), CachingAttendanceDao::weigh));
+    }
+
+    @Override
+    public Stream<Attendance> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+        Page<Attendance> page = cache.get(QueryKey.of(TABLES, "attendance.findPage", request),
+                () -> {
+                    Page<Attendance> loaded = delegate.findPage(request);
+                    return new Page<>(List.copyOf(loaded.items()), loaded.nextCursor());
+                },
+                cached -> weigh(cached.items()));
+        return new Page<>(copies(page.items()), page.nextCursor());
+    }
+
+    @Override
+    public Optional<Attendance> findById(int id) {
+        return cache.get(QueryKey.of(TABLES, "attendance.findById", id),
+                () -> delegate.findById(id), found -> ATTENDANCE_BYTES)
+                .map(attendance -> copy(attendance, new HashMap<>()));
+    }
+
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+        return copies(cache.get(QueryKey.of(TABLES, "attendance.findByStudent", studentId, from, to),
+                () -> List.copyOf(delegate.findByStudent(studentId, from, to)), CachingAttendanceDao::weigh));
+    }
+
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+        return copies(cache.get(QueryKey.of(TABLES, "attendance.findByDateRange", from, to),
+                () -> List.copyOf(delegate.findByDateRange(from, to)), CachingAttendanceDao::weigh));
+    }
+
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+        return copies(cache.get(QueryKey.of(TABLES, "attendance.findByClassGroupAndDate", classGroup, date),
+                () -> List.copyOf(delegate.findByClassGroupAndDate(classGroup, date)), CachingAttendanceDao::weigh));
+    }
+
+    @Override
+    public void update(Attendance attendance) {
+        delegate.update(attendance);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return delegate.delete(id);
+    }
+
+    private static List<Attendance> copies(List<Attendance> attendances) {
+        Map<Integer, Student> students = new HashMap<>();
+        List<Attendance> copies = new ArrayList<>(attendances.size());
+        for (Attendance attendance : attendances) {
+            copies.add(copy(attendance, students));
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    private static Attendance copy(Attendance attendance, Map<Integer, Student> students) {
+        Student student = students.computeIfAbsent(attendance.getStudent().getId(),
+                id -> CachingStudentDao.copy(attendance.getStudent()));
+        return new Attendance(attendance.getId(), student, attendance.getAttendanceDate(), attendance.getStatus());
+    }
+
+    private static long weigh(List<Attendance> attendances) {
+        return 64 + attendances.size() * ATTENDANCE_BYTES;
+    }
+}
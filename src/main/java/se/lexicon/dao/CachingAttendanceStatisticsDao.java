@@ -0,0 +1,70 @@
+package se.lexicon.dao;
+
+import se.lexicon.cache.QueryKey;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.model.DailyAttendanceStats;
+import se.lexicon.model.GroupAttendanceStats;
+import se.lexicon.model.StudentAttendanceStats;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decorator that answers repeated statistics queries from a {@link QueryResultCache}.
+ * <p>
+ * The aggregates scan many attendance rows, so they gain the most from caching.
+ * They depend on the attendance table and, through the class group join, on the student table.
+ * Use the same cache as the DAOs that write: their writes invalidate these results.
+ * <p>
+ * The results are records, but the lists are shared, so they are stored unmodifiable.
+ */
+public class CachingAttendanceStatisticsDao implements AttendanceStatisticsDao {
+
+    private static final Set<String> TABLES = Set.of("attendance", "student");
+
+    // Rough heap size of one stats record plus its reference in the list
+    private static final long STATS_BYTES = 48;
+
+    private final AttendanceStatisticsDao delegate;
+    private final QueryResultCache cache;
+
+    public CachingAttendanceStatisticsDao(AttendanceStatisticsDao delegate, QueryResultCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public List<StudentAttendanceStats> countByStudent(LocalDate from, LocalDate to) {
+        return cache.get(QueryKey.of(TABLES, "statistics.countByStudent", from, to),
+                () -> List.copyOf(delegate.countByStudent(from, to)), CachingAttendanceStatisticsDao::weigh);
+    }
+
+    @Override
+    public StudentAttendanceStats countForStudent(int studentId, LocalDate from, LocalDate to) {
+        return cache.get(QueryKey.of(TABLES, "statistics.countForStudent", studentId, from, to),
+                () -> delegate.countForStudent(studentId, from, to), stats -> STATS_BYTES);
+    }
+
+    @Override
+    public List<GroupAttendanceStats> countByClassGroup(LocalDate from, LocalDate to) {
+        return cache.get(QueryKey.of(TABLES, "statistics.countByClassGroup", from, to),
+                () -> List.copyOf(delegate.countByClassGroup(from, to)), CachingAttendanceStatisticsDao::weigh);
+    }
+
+    @Override
+    public List<DailyAttendanceStats> countByDate(LocalDate from, LocalDate to) {
+        return cache.get(QueryKey.of(TABLES, "statistics.countByDate", from, to),
+                () -> List.copyOf(delegate.countByDate(from, to)), CachingAttendanceStatisticsDao::weigh);
+    }
+
+    @Override
+    public List<DailyAttendanceStats> countByDate(String classGroup, LocalDate from, LocalDate to) {
+        return cache.get(QueryKey.of(TABLES, "statistics.countByDateForGroup", classGroup, from, to),
+                () -> List.copyOf(delegate.countByDate(classGroup, from, to)), CachingAttendanceStatisticsDao::weigh);
+    }
+
+    private static long weigh(List<?> stats) {
+        return 64 + stats.size() * STATS_BYTES;
+    }
+}
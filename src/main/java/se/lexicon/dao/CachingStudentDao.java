@@ -0,0 +1,109 @@
+package se.lexicon.dao;
+
+import se.lexicon.cache.QueryKey;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.model.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that answers repeated student reads from a {@link QueryResultCache}.
+ * <p>
+ * Results depend on the student table only. Writes are passed through; the delegate
+ * must be a {@link StudentDaoImpl} built with the same cache (or write through a DAO that is),
+ * because the DAO that runs the write is the one that invalidates.
+ * Streams are never cached.
+ * <p>
+ * The cache keeps one shared copy of every result; each call returns copies of its students,
+ * so a caller changing them does not change what other callers get. Returned lists are unmodifiable.
+ */
+public class CachingStudentDao implements StudentDao {
+
+    private static final Set<String> TABLES = Set.of("student");
+
+    // Rough heap size of one Student with short strings, plus its reference in the list
+    static final long STUDENT_BYTES = 200;
+
+    private final StudentDao delegate;
+    private final QueryResultCache cache;
+
+    public CachingStudentDao(StudentDao delegate, QueryResultCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Student save(Student student) {
+        return delegate.save(student);
+    }
+
+    @Override
+    public List<Student> saveAll(Collection<Student> students) {
+        return delegate.saveAll(students);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return copies(cache.get(QueryKey.of(TABLES, "student.findAll"),
+                () -> List.copyOf(delegate.findAll()), CachingStudentDao::weigh));
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Student> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Page<Student> findPage(PageRequest request) {
+        Page<Student> page = cache.get(QueryKey.of(TABLES, "student.findPage", request),
+                () -> {
+                    Page<Student> loaded = delegate.findPage(request);
+                    return new Page<>(List.copyOf(loaded.items()), loaded.nextCursor());
+                },
+                cached -> weigh(cached.items()));
+        return new Page<>(copies(page.items()), page.nextCursor());
+    }
+
+    @Override
+    public Optional<Student> findById(int id) {
+        return cache.get(QueryKey.of(TABLES, "student.findById", id),
+                () -> delegate.findById(id), found -> STUDENT_BYTES).map(CachingStudentDao::copy);
+    }
+
+    @Override
+    public List<Student> findByClassGroup(String classGroup) {
+        return copies(cache.get(QueryKey.of(TABLES, "student.findByClassGroup", classGroup),
+                () -> List.copyOf(delegate.findByClassGroup(classGroup)), CachingStudentDao::weigh));
+    }
+
+    @Override
+    public void update(Student student) {
+        delegate.update(student);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return delegate.delete(id);
+    }
+
+    static Student copy(Student student) {
+        return new Student(student.getId(), student.getName(), student.getClassGroup(), student.getCreateDate());
+    }
+
+    private static List<Student> copies(List<Student> students) {
+        return students.stream().map(CachingStudentDao::copy).toList();
+    }
+
+    private static long weigh(List<Student> students) {
+        return 64 + students.size() * STUDENT_BYTES;
+    }
+}
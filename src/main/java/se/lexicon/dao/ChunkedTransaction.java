@@ -0,0 +1,73 @@
+package se.lexicon.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits a bulk write into chunks and commits each chunk as one transaction.
+ * <p>
+ * If the connection is already inside a transaction (auto-commit off), the chunks
+ * become part of that transaction and committing is left to the caller.
+ * Otherwise earlier chunks stay committed when a later one fails, and the failing
+ * chunk is rolled back.
+ * <p>
+ * Rows are pulled from the Iterable one chunk at a time, so a lazily read source
+ * (e.g. a CSV file) is written with constant memory.
+ */
+public final class ChunkedTransaction {
+
+    /**
+     * Writes one chunk. The list is reused between calls, so do not keep it.
+     */
+    public interface ChunkWriter<T> {
+        void write(Connection connection, List<T> chunk) throws SQLException;
+    }
+
+    private ChunkedTransaction() {
+    }
+
+    public static <T> void forEachChunk(Connection connection, Iterable<T> rows, int chunkSize,
+                                        ChunkWriter<T> writer) throws SQLException {
+
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) {
+            connection.setAutoCommit(false);
+        }
+
+        try {
+            List<T> chunk = new ArrayList<>(rows instanceof Collection<T> collection
+                    ? Math.min(chunkSize, collection.size())
+                    : chunkSize);
+            for (T row : rows) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    writer.write(connection, chunk);
+                    if (ownTransaction) {
+                        connection.commit();
+                    }
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writer.write(connection, chunk);
+                if (ownTransaction) {
+                    connection.commit();
+                }
+            }
+
+        } catch (SQLException | RuntimeException e) {
+            // Roll back before the finally block: setAutoCommit(true) would commit the partial chunk
+            if (ownTransaction) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
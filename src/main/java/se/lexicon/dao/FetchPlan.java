@@ -0,0 +1,13 @@
+package se.lexicon.dao;
+
+/**
+ * How AttendanceDaoImpl loads the Student of each attendance row.
+ */
+public enum FetchPlan {
+    // JOIN student in every query, student columns are repeated on every row (the default)
+    EAGER_JOIN,
+    // Query attendance only; a student is loaded by id the first time one of its fields is read
+    LAZY,
+    // Query attendance only, then load all students of the result in one WHERE id IN (...) query
+    BATCH
+}
@@ -0,0 +1,124 @@
+package se.lexicon.dao;
+
+import se.lexicon.analytics.AttendanceBitmapIndex;
+import se.lexicon.model.Attendance;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that keeps an {@link AttendanceBitmapIndex} current with the attendance writes
+ * that go through it. Reads are passed through.
+ * <p>
+ * update and delete read the old row first (one extra findById), because the index must
+ * drop the student from the old date before adding it to the new one.
+ * The index is changed after the delegate returned, so a failed write leaves it untouched.
+ */
+public class IndexedAttendanceDao implements AttendanceDao {
+
+    private final AttendanceDao delegate;
+    private final AttendanceBitmapIndex index;
+
+    public IndexedAttendanceDao(AttendanceDao delegate, AttendanceBitmapIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public Attendance save(Attendance attendance) {
+        Attendance saved = delegate.save(attendance);
+        indexSaved(saved);
+        return saved;
+    }
+
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+        List<Attendance> saved = delegate.saveAll(attendances);
+        saved.forEach(this::indexSaved);
+        return saved;
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        UpsertResult result = delegate.upsert(attendance);
+        indexSaved(attendance);
+        return result;
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+        List<UpsertResult> results = delegate.upsertAll(attendances);
+        attendances.forEach(this::indexSaved);
+        return results;
+    }
+
+    @Override
+    public List<Attendance> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public Optional<Attendance> findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+        return delegate.findByStudent(studentId, from, to);
+    }
+
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+        return delegate.findByDateRange(from, to);
+    }
+
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+        return delegate.findByClassGroupAndDate(classGroup, date);
+    }
+
+    @Override
+    public void update(Attendance attendance) {
+        Optional<Attendance> old = delegate.findById(attendance.getId());
+        delegate.update(attendance);
+        old.ifPresent(this::indexRemoved);
+        indexSaved(attendance);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        Optional<Attendance> old = delegate.findById(id);
+        boolean deleted = delegate.delete(id);
+        if (deleted) {
+            old.ifPresent(this::indexRemoved);
+        }
+        return deleted;
+    }
+
+    private void indexSaved(Attendance attendance) {
+        index.attendanceSaved(attendance.getId(), attendance.getStudent().getId(),
+                attendance.getAttendanceDate(), attendance.getStatus());
+    }
+
+    private void indexRemoved(Attendance attendance) {
+        index.attendanceRemoved(attendance.getId(), attendance.getStudent().getId(), attendance.getAttendanceDate());
+    }
+}
@@ -0,0 +1,86 @@
+package se.lexicon.dao;
+
+import se.lexicon.analytics.AttendanceBitmapIndex;
+import se.lexicon.model.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that keeps the class group and student bitmaps of an {@link AttendanceBitmapIndex}
+ * current with the student writes that go through it. Reads are passed through.
+ * <p>
+ * Deleting a student needs its attendance deleted first (foreign key), through an
+ * {@link IndexedAttendanceDao} so the per-day bitmaps follow.
+ */
+public class IndexedStudentDao implements StudentDao {
+
+    private final StudentDao delegate;
+    private final AttendanceBitmapIndex index;
+
+    public IndexedStudentDao(StudentDao delegate, AttendanceBitmapIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public Student save(Student student) {
+        Student saved = delegate.save(student);
+        index.studentSaved(saved.getId(), saved.getClassGroup());
+        return saved;
+    }
+
+    @Override
+    public List<Student> saveAll(Collection<Student> students) {
+        List<Student> saved = delegate.saveAll(students);
+        saved.forEach(student -> index.studentSaved(student.getId(), student.getClassGroup()));
+        return saved;
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Student> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Page<Student> findPage(PageRequest request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public Optional<Student> findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Student> findByClassGroup(String classGroup) {
+        return delegate.findByClassGroup(classGroup);
+    }
+
+    @Override
+    public void update(Student student) {
+        delegate.update(student);
+        index.studentSaved(student.getId(), student.getClassGroup());
+    }
+
+    @Override
+    public boolean delete(int id) {
+        boolean deleted = delegate.delete(id);
+        if (deleted) {
+            index.studentRemoved(id);
+        }
+        return deleted;
+    }
+}
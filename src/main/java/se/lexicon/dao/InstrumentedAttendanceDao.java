@@ -0,0 +1,124 @@
+package se.lexicon.dao;
+
+import se.lexicon.metrics.MetricsRegistry;
+import se.lexicon.model.Attendance;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that records latency, row counts and errors for every AttendanceDao call.
+ * <p>
+ * Metrics are named {@code dao.attendance.<operation>.<metric>}, see {@link OperationMetrics}.
+ */
+public class InstrumentedAttendanceDao implements AttendanceDao {
+
+    private final AttendanceDao delegate;
+    private final OperationMetrics save;
+    private final OperationMetrics saveAll;
+    private final OperationMetrics upsert;
+    private final OperationMetrics upsertAll;
+    private final OperationMetrics findAll;
+    private final OperationMetrics streamAll;
+    private final OperationMetrics findPage;
+    private final OperationMetrics findById;
+    private final OperationMetrics findByStudent;
+    private final OperationMetrics findByDateRange;
+    private final OperationMetrics findByClassGroupAndDate;
+    private final OperationMetrics update;
+    private final OperationMetrics delete;
+
+    public InstrumentedAttendanceDao(AttendanceDao delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = new OperationMetrics(registry, "dao.attendance.save");
+        this.saveAll = new OperationMetrics(registry, "dao.attendance.saveAll");
+        this.upsert = new OperationMetrics(registry, "dao.attendance.upsert");
+        this.upsertAll = new OperationMetrics(registry, "dao.attendance.upsertAll");
+        this.findAll = new OperationMetrics(registry, "dao.attendance.findAll");
+        this.streamAll = new OperationMetrics(registry, "dao.attendance.streamAll");
+        this.findPage = new OperationMetrics(registry, "dao.attendance.findPage");
+        this.findById = new OperationMetrics(registry, "dao.attendance.findById");
+        this.findByStudent = new OperationMetrics(registry, "dao.attendance.findByStudent");
+        this.findByDateRange = new OperationMetrics(registry, "dao.attendance.findByDateRange");
+        this.findByClassGroupAndDate = new OperationMetrics(registry, "dao.attendance.findByClassGroupAndDate");
+        this.update = new OperationMetrics(registry, "dao.attendance.update");
+        this.delete = new OperationMetrics(registry, "dao.attendance.delete");
+    }
+
+    @Override
+    public Attendance save(Attendance attendance) {
+        return save.write(() -> delegate.save(attendance), saved -> 1);
+    }
+
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+        return saveAll.write(() -> delegate.saveAll(attendances), List::size);
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        return upsert.write(() -> delegate.upsert(attendance), result -> result == UpsertResult.UNCHANGED ? 0 : 1);
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+        return upsertAll.write(() -> delegate.upsertAll(attendances),
+                results -> (int) results.stream().filter(result -> result != UpsertResult.UNCHANGED).count());
+    }
+
+    @Override
+    public List<Attendance> findAll() {
+        return findAll.read(delegate::findAll, List::size);
+    }
+
+    @Override
+    public Stream<Attendance> streamAll() {
+        return streamAll.stream(delegate::streamAll);
+    }
+
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+        return streamAll.stream(() -> delegate.streamAll(fetchSize));
+    }
+
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+        return findPage.read(() -> delegate.findPage(request), page -> page.items().size());
+    }
+
+    @Override
+    public Optional<Attendance> findById(int id) {
+        return findById.read(() -> delegate.findById(id), found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+        return findByStudent.read(() -> delegate.findByStudent(studentId, from, to), List::size);
+    }
+
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+        return findByDateRange.read(() -> delegate.findByDateRange(from, to), List::size);
+    }
+
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+        return findByClassGroupAndDate.read(() -> delegate.findByClassGroupAndDate(classGroup, date), List::size);
+    }
+
+    @Override
+    public void update(Attendance attendance) {
+        update.write(() -> {
+            delegate.update(attendance);
+            return null;
+        }, ignored -> 1);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return delete.write(() -> delegate.delete(id), deleted -> deleted ? 1 : 0);
+    }
+}
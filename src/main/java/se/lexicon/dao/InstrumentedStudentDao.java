@@ -0,0 +1,94 @@
+package se.lexicon.dao;
+
+import se.lexicon.metrics.MetricsRegistry;
+import se.lexicon.model.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that records latency, row counts and errors for every StudentDao call.
+ * <p>
+ * Metrics are named {@code dao.student.<operation>.<metric>}, see {@link OperationMetrics}.
+ */
+public class InstrumentedStudentDao implements StudentDao {
+
+    private final StudentDao delegate;
+    private final OperationMetrics save;
+    private final OperationMetrics saveAll;
+    private final OperationMetrics findAll;
+    private final OperationMetrics streamAll;
+    private final OperationMetrics findPage;
+    private final OperationMetrics findById;
+    private final OperationMetrics findByClassGroup;
+    private final OperationMetrics update;
+    private final OperationMetrics delete;
+
+    public InstrumentedStudentDao(StudentDao delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = new OperationMetrics(registry, "dao.student.save");
+        this.saveAll = new OperationMetrics(registry, "dao.student.saveAll");
+        this.findAll = new OperationMetrics(registry, "dao.student.findAll");
+        this.streamAll = new OperationMetrics(registry, "dao.student.streamAll");
+        this.findPage = new OperationMetrics(registry, "dao.student.findPage");
+        this.findById = new OperationMetrics(registry, "dao.student.findById");
+        this.findByClassGroup = new OperationMetrics(registry, "dao.student.findByClassGroup");
+        this.update = new OperationMetrics(registry, "dao.student.update");
+        this.delete = new OperationMetrics(registry, "dao.student.delete");
+    }
+
+    @Override
+    public Student save(Student student) {
+        return save.write(() -> delegate.save(student), saved -> 1);
+    }
+
+    @Override
+    public List<Student> saveAll(Collection<Student> students) {
+        return saveAll.write(() -> delegate.saveAll(students), List::size);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return findAll.read(delegate::findAll, List::size);
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return streamAll.stream(delegate::streamAll);
+    }
+
+    @Override
+    public Stream<Student> streamAll(int fetchSize) {
+        return streamAll.stream(() -> delegate.streamAll(fetchSize));
+    }
+
+    @Override
+    public Page<Student> findPage(PageRequest request) {
+        return findPage.read(() -> delegate.findPage(request), page -> page.items().size());
+    }
+
+    @Override
+    public Optional<Student> findById(int id) {
+        return findById.read(() -> delegate.findById(id), found -> found.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Student> findByClassGroup(String classGroup) {
+        return findByClassGroup.read(() -> delegate.findByClassGroup(classGroup), List::size);
+    }
+
+    @Override
+    public void update(Student student) {
+        update.write(() -> {
+            delegate.update(student);
+            return null;
+        }, ignored -> 1);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return delete.write(() -> delegate.delete(id), deleted -> deleted ? 1 : 0);
+    }
+}
@@ -0,0 +1,75 @@
+package se.lexicon.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used for keyset pagination.
+ * <p>
+ * A token holds the sort key of the last row on a page, so the next page can
+ * continue with {@code WHERE key > last} instead of skipping rows with OFFSET.
+ */
+final class KeysetCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private KeysetCursor() {
+    }
+
+    static String encodeId(int id) {
+        return encode(Integer.toString(id));
+    }
+
+    static int decodeId(String token) {
+        try {
+            return Integer.parseInt(decode(token));
+        } catch (NumberFormatException e) {
+            throw invalid(token, e);
+        }
+    }
+
+    static String encodeDateAndId(LocalDate date, int id) {
+        return encode(date + "|" + id);
+    }
+
+    /**
+     * Returns the date and id stored in the token.
+     */
+    static DateAndId decodeDateAndId(String token) {
+        String value = decode(token);
+        int separator = value.indexOf('|');
+        if (separator < 0) {
+            throw invalid(token, null);
+        }
+        try {
+            return new DateAndId(
+                    LocalDate.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1))
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalid(token, e);
+        }
+    }
+
+    record DateAndId(LocalDate date, int id) {
+    }
+
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String token) {
+        try {
+            return new String(DECODER.decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid(token, e);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String token, Exception cause) {
+        return new IllegalArgumentException("Invalid page cursor: " + token, cause);
+    }
+}
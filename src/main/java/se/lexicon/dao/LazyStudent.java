@@ -0,0 +1,86 @@
+package se.lexicon.dao;
+
+import se.lexicon.model.Student;
+
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+/**
+ * A Student that only knows its id until another field is read.
+ * <p>
+ * The first call to a getter (other than {@code getId()}), a setter or {@code toString()}
+ * loads the student once and copies its fields into this object.
+ * Used by the LAZY and BATCH fetch plans (see {@link FetchPlan}).
+ */
+final class LazyStudent extends Student {
+
+    private final IntFunction<Student> loader;
+    private volatile boolean loaded;
+
+    LazyStudent(int id, IntFunction<Student> loader) {
+        super(id, null, null, null);
+        this.loader = loader;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                Student student = loader.apply(getId());
+                super.setName(student.getName());
+                super.setClassGroup(student.getClassGroup());
+                super.setCreateDate(student.getCreateDate());
+                loaded = true;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        load();
+        return super.getName();
+    }
+
+    @Override
+    public void setName(String name) {
+        load();
+        super.setName(name);
+    }
+
+    @Override
+    public String getClassGroup() {
+        load();
+        return super.getClassGroup();
+    }
+
+    @Override
+    public void setClassGroup(String classGroup) {
+        load();
+        super.setClassGroup(classGroup);
+    }
+
+    @Override
+    public LocalDateTime getCreateDate() {
+        load();
+        return super.getCreateDate();
+    }
+
+    @Override
+    public void setCreateDate(LocalDateTime createDate) {
+        load();
+        super.setCreateDate(createDate);
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        load();
+        return super.toString();
+    }
+}
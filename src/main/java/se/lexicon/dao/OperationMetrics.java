@@ -0,0 +1,60 @@
+package se.lexicon.dao;
+
+import se.lexicon.metrics.MetricsRegistry;
+
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Metric names and recording logic for one DAO operation, e.g. "dao.student.findById".
+ * <p>
+ * Records {@code <prefix>.latency}, {@code <prefix>.rows.read} or
+ * {@code <prefix>.rows.written}, and {@code <prefix>.errors}.
+ * Names are built once, so recording a call does not allocate strings.
+ */
+final class OperationMetrics {
+
+    private final MetricsRegistry registry;
+    private final String latency;
+    private final String rowsRead;
+    private final String rowsWritten;
+    private final String errors;
+
+    OperationMetrics(MetricsRegistry registry, String prefix) {
+        this.registry = registry;
+        this.latency = prefix + ".latency";
+        this.rowsRead = prefix + ".rows.read";
+        this.rowsWritten = prefix + ".rows.written";
+        this.errors = prefix + ".errors";
+    }
+
+    <T> T read(Supplier<T> call, ToIntFunction<T> rows) {
+        return record(call, rows, rowsRead);
+    }
+
+    <T> T write(Supplier<T> call, ToIntFunction<T> rows) {
+        return record(call, rows, rowsWritten);
+    }
+
+    /**
+     * Times opening the stream and counts rows as they are consumed.
+     */
+    <T> Stream<T> stream(Supplier<Stream<T>> call) {
+        return record(call, stream -> 0, rowsRead).peek(row -> registry.increment(rowsRead, 1));
+    }
+
+    private <T> T record(Supplier<T> call, ToIntFunction<T> rows, String rowCounter) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            registry.increment(rowCounter, rows.applyAsInt(result));
+            return result;
+        } catch (RuntimeException e) {
+            registry.increment(errors, 1);
+            throw e;
+        } finally {
+            registry.recordLatency(latency, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package se.lexicon.dao;
+
+import java.util.List;
+
+/**
+ * One page of results.
+ *
+ * @param items      the items on this page, in key order
+ * @param nextCursor token for the next page, or null if this is the last page
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Request for the page after this one, with the same page size.
+     */
+    public PageRequest nextRequest(int size) {
+        if (!hasNext()) {
+            throw new IllegalStateException("This is the last page");
+        }
+        return new PageRequest(size, nextCursor);
+    }
+}
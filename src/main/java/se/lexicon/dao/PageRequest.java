@@ -0,0 +1,26 @@
+package se.lexicon.dao;
+
+/**
+ * Asks a DAO for one page of results.
+ *
+ * @param size   maximum number of items on the page
+ * @param cursor token from {@link Page#nextCursor()} of the previous page, or null for the first page
+ */
+public record PageRequest(int size, String cursor) {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public PageRequest {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public static PageRequest first(int size) {
+        return new PageRequest(size, null);
+    }
+
+    public boolean isFirstPage() {
+        return cursor == null;
+    }
+}
@@ -0,0 +1,67 @@
+package se.lexicon.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a forward-only, read-only query into a lazy {@link Stream}.
+ * <p>
+ * Rows are fetched from the server {@code fetchSize} at a time while the stream is
+ * consumed, so memory use stays constant no matter how big the table is.
+ * The PreparedStatement and ResultSet stay open until the stream is closed,
+ * so always use the stream in a try-with-resources block.
+ */
+final class ResultSetStream {
+
+    private ResultSetStream() {
+    }
+
+    static <T> Stream<T> of(Connection connection, String sql, int fetchSize, RowMapperFactory<T> mapperFactory) throws SQLException {
+
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ResultSet rs;
+        RowMapper<T> mapper;
+        try {
+            ps.setFetchSize(fetchSize);
+            rs = ps.executeQuery();
+            mapper = mapperFactory.forResultSet(rs);
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.mapRow(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error reading streamed row", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false).onClose(() -> close(rs, ps));
+    }
+
+    private static void close(ResultSet rs, PreparedStatement ps) {
+        try (ps; rs) {
+            // closes both, ResultSet first
+        } catch (SQLException e) {
+            System.err.println("❌ Error closing streamed result: " + e.getMessage());
+        }
+    }
+}
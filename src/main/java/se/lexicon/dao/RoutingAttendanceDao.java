@@ -0,0 +1,184 @@
+package se.lexicon.dao;
+
+import se.lexicon.db.RoutingSession;
+import se.lexicon.model.Attendance;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that sends attendance reads to a replica and writes to the primary.
+ * <p>
+ * Demonstrates:
+ * - One pooled connection per call, borrowed from the {@link RoutingSession} and closed afterwards
+ * - Read-your-writes: after a write, the session's reads stay on the primary for a while
+ * - A {@code daoFactory} that builds the real DAO on each connection (with its caches and outbox)
+ * - A separate {@code replicaDaoFactory} for reads that may lag, so old replica rows never fill
+ *   the shared caches that primary readers rely on
+ * <p>
+ * Each call runs on its own connection, so do not use this DAO inside a transaction:
+ * build the DAO on {@code TransactionManager.getConnection()} for that.
+ * <p>
+ * Use the EAGER_JOIN or BATCH fetch plan: a LAZY student would load on a connection that has
+ * already gone back to the pool. Reads that return such students fail with an IllegalStateException.
+ */
+public class RoutingAttendanceDao implements AttendanceDao {
+
+    private final RoutingSession session;
+    private final Function<Connection, AttendanceDao> daoFactory;
+    private final Function<Connection, AttendanceDao> replicaDaoFactory;
+
+    /**
+     * @param daoFactory        builds the DAO for writes and for reads on the primary
+     * @param replicaDaoFactory builds the DAO for reads that may go to a replica; build it without
+     *                          the shared StudentCache and QueryResultCache, e.g. {@code AttendanceDaoImpl::new}
+     */
+    public RoutingAttendanceDao(RoutingSession session, Function<Connection, AttendanceDao> daoFactory,
+                             Function<Connection, AttendanceDao> replicaDaoFactory) {
+        this.session = session;
+        this.daoFactory = daoFactory;
+        this.replicaDaoFactory = replicaDaoFactory;
+    }
+
+    @Override
+    public Attendance save(Attendance attendance) {
+        return write(dao -> dao.save(attendance));
+    }
+
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+        return write(dao -> dao.saveAll(attendances));
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        return write(dao -> dao.upsert(attendance));
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+        return write(dao -> dao.upsertAll(attendances));
+    }
+
+    @Override
+    public List<Attendance> findAll() {
+        return read(AttendanceDao::findAll);
+    }
+
+    @Override
+    public Stream<Attendance> streamAll() {
+        return stream(AttendanceDao::streamAll);
+    }
+
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+        return stream(dao -> dao.streamAll(fetchSize));
+    }
+
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+        return read(dao -> dao.findPage(request));
+    }
+
+    @Override
+    public Optional<Attendance> findById(int id) {
+        return read(dao -> dao.findById(id));
+    }
+
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+        return read(dao -> dao.findByStudent(studentId, from, to));
+    }
+
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+        return read(dao -> dao.findByDateRange(from, to));
+    }
+
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+        return read(dao -> dao.findByClassGroupAndDate(classGroup, date));
+    }
+
+    @Override
+    public void update(Attendance attendance) {
+        write(dao -> {
+            dao.update(attendance);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return write(dao -> dao.delete(id));
+    }
+
+    private <T> T read(Function<AttendanceDao, T> operation) {
+        try (RoutingSession.ReadConnection read = session.borrowForRead()) {
+            T result = operation.apply(daoFor(read));
+            rejectLazyStudents(result);
+            return result;
+        } catch (SQLException e) {
+            System.err.println("❌ Error borrowing read connection: " + e.getMessage());
+            throw new RuntimeException("Error borrowing read connection", e);
+        }
+    }
+
+    private <T> T write(Function<AttendanceDao, T> operation) {
+        try (Connection connection = session.getWriteConnection()) {
+            return operation.apply(daoFactory.apply(connection));
+        } catch (SQLException e) {
+            System.err.println("❌ Error borrowing write connection: " + e.getMessage());
+            throw new RuntimeException("Error borrowing write connection", e);
+        } finally {
+            session.writeFinished();
+        }
+    }
+
+    // The connection stays borrowed until the stream is closed
+    private Stream<Attendance> stream(Function<AttendanceDao, Stream<Attendance>> operation) {
+        Connection connection = null;
+        try {
+            RoutingSession.ReadConnection read = session.borrowForRead();
+            connection = read.connection();
+            Connection borrowed = connection;
+            return operation.apply(daoFor(read))
+                    .peek(RoutingAttendanceDao::rejectLazyStudent)
+                    .onClose(() -> RoutingStudentDao.close(borrowed));
+        } catch (SQLException e) {
+            System.err.println("❌ Error borrowing read connection: " + e.getMessage());
+            throw new RuntimeException("Error borrowing read connection", e);
+        } catch (RuntimeException e) {
+            RoutingStudentDao.close(connection);
+            throw e;
+        }
+    }
+
+    private AttendanceDao daoFor(RoutingSession.ReadConnection read) {
+        return (read.mayLag() ? replicaDaoFactory : daoFactory).apply(read.connection());
+    }
+
+    private static void rejectLazyStudents(Object result) {
+        switch (result) {
+            case Collection<?> rows -> rows.forEach(RoutingAttendanceDao::rejectLazyStudent);
+            case Optional<?> row -> row.ifPresent(RoutingAttendanceDao::rejectLazyStudent);
+            case Page<?> page -> page.items().forEach(RoutingAttendanceDao::rejectLazyStudent);
+            case null, default -> {
+            }
+        }
+    }
+
+    private static void rejectLazyStudent(Object row) {
+        if (row instanceof Attendance attendance
+                && attendance.getStudent() instanceof LazyStudent lazy && !lazy.isLoaded()) {
+            throw new IllegalStateException(
+                    "RoutingAttendanceDao does not support FetchPlan.LAZY: the student would load on a returned connection");
+        }
+    }
+}
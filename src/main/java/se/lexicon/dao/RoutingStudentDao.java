@@ -0,0 +1,149 @@
+package se.lexicon.dao;
+
+import se.lexicon.db.RoutingSession;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that sends student reads to a replica and writes to the primary.
+ * <p>
+ * Demonstrates:
+ * - One pooled connection per call, borrowed from the {@link RoutingSession} and closed afterwards
+ * - Read-your-writes: after a write, the session's reads stay on the primary for a while
+ * - A {@code daoFactory} that builds the real DAO on each connection (with its caches and outbox)
+ * - A separate {@code replicaDaoFactory} for reads that may lag, so old replica rows never fill
+ *   the shared caches that primary readers rely on
+ * <p>
+ * Each call runs on its own connection, so do not use this DAO inside a transaction:
+ * build the DAO on {@code TransactionManager.getConnection()} for that.
+ */
+public class RoutingStudentDao implements StudentDao {
+
+    private final RoutingSession session;
+    private final Function<Connection, StudentDao> daoFactory;
+    private final Function<Connection, StudentDao> replicaDaoFactory;
+
+    /**
+     * @param daoFactory        builds the DAO for writes and for reads on the primary
+     * @param replicaDaoFactory builds the DAO for reads that may go to a replica; build it without
+     *                          the shared StudentCache and QueryResultCache, e.g. {@code StudentDaoImpl::new}
+     */
+    public RoutingStudentDao(RoutingSession session, Function<Connection, StudentDao> daoFactory,
+                             Function<Connection, StudentDao> replicaDaoFactory) {
+        this.session = session;
+        this.daoFactory = daoFactory;
+        this.replicaDaoFactory = replicaDaoFactory;
+    }
+
+    @Override
+    public Student save(Student student) {
+        return write(dao -> dao.save(student));
+    }
+
+    @Override
+    public List<Student> saveAll(Collection<Student> students) {
+        return write(dao -> dao.saveAll(students));
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return read(StudentDao::findAll);
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        return stream(StudentDao::streamAll);
+    }
+
+    @Override
+    public Stream<Student> streamAll(int fetchSize) {
+        return stream(dao -> dao.streamAll(fetchSize));
+    }
+
+    @Override
+    public Page<Student> findPage(PageRequest request) {
+        return read(dao -> dao.findPage(request));
+    }
+
+    @Override
+    public Optional<Student> findById(int id) {
+        return read(dao -> dao.findById(id));
+    }
+
+    @Override
+    public List<Student> findByClassGroup(String classGroup) {
+        return read(dao -> dao.findByClassGroup(classGroup));
+    }
+
+    @Override
+    public void update(Student student) {
+        write(dao -> {
+            dao.update(student);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return write(dao -> dao.delete(id));
+    }
+
+    private <T> T read(Function<StudentDao, T> operation) {
+        try (RoutingSession.ReadConnection read = session.borrowForRead()) {
+            return operation.apply(daoFor(read));
+        } catch (SQLException e) {
+            System.err.println("❌ Error borrowing read connection: " + e.getMessage());
+            throw new RuntimeException("Error borrowing read connection", e);
+        }
+    }
+
+    private <T> T write(Function<StudentDao, T> operation) {
+        try (Connection connection = session.getWriteConnection()) {
+            return operation.apply(daoFactory.apply(connection));
+        } catch (SQLException e) {
+            System.err.println("❌ Error borrowing write connection: " + e.getMessage());
+            throw new RuntimeException("Error borrowing write connection", e);
+        } finally {
+            session.writeFinished();
+        }
+    }
+
+    // The connection stays borrowed until the stream is closed
+    private Stream<Student> stream(Function<StudentDao, Stream<Student>> operation) {
+        Connection connection = null;
+        try {
+            RoutingSession.ReadConnection read = session.borrowForRead();
+            connection = read.connection();
+            Connection borrowed = connection;
+            return operation.apply(daoFor(read)).onClose(() -> close(borrowed));
+        } catch (SQLException e) {
+            System.err.println("❌ Error borrowing read connection: " + e.getMessage());
+            throw new RuntimeException("Error borrowing read connection", e);
+        } catch (RuntimeException e) {
+            close(connection);
+            throw e;
+        }
+    }
+
+    private StudentDao daoFor(RoutingSession.ReadConnection read) {
+        return (read.mayLag() ? replicaDaoFactory : daoFactory).apply(read.connection());
+    }
+
+    static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("❌ Error returning connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package se.lexicon.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+    T mapRow(ResultSet rs) throws SQLException;
+}
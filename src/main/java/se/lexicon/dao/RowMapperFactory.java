@@ -0,0 +1,16 @@
+package se.lexicon.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Creates a {@link RowMapper} for one ResultSet.
+ * <p>
+ * Column labels are resolved to indexes once, when the mapper is created,
+ * so mapping a row is only index-based getters. Create the mapper after
+ * {@code executeQuery()} and reuse it for every row of that ResultSet.
+ */
+@FunctionalInterface
+interface RowMapperFactory<T> {
+    RowMapper<T> forResultSet(ResultSet rs) throws SQLException;
+}
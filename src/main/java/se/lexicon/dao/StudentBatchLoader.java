@@ -0,0 +1,76 @@
+package se.lexicon.dao;
+
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads many students by id with {@code SELECT * FROM student WHERE id IN (...)}.
+ * <p>
+ * The number of placeholders is rounded up to a power of two (the last id is repeated),
+ * so only a handful of distinct statements reach the prepared statement caches.
+ */
+final class StudentBatchLoader {
+
+    // Largest IN list sent in one query
+    static final int MAX_IDS_PER_QUERY = 1024;
+
+    private StudentBatchLoader() {
+    }
+
+    /**
+     * @return the students that exist, keyed by id
+     */
+    static Map<Integer, Student> load(Connection connection, Collection<Integer> ids) throws SQLException {
+
+        Map<Integer, Student> students = new HashMap<>();
+        List<Integer> chunk = new ArrayList<>(Math.min(ids.size(), MAX_IDS_PER_QUERY));
+        for (Integer id : ids) {
+            chunk.add(id);
+            if (chunk.size() == MAX_IDS_PER_QUERY) {
+                loadChunk(connection, chunk, students);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loadChunk(connection, chunk, students);
+        }
+        return students;
+    }
+
+    private static void loadChunk(Connection connection, List<Integer> ids, Map<Integer, Student> into) throws SQLException {
+
+        int placeholders = Integer.highestOneBit(ids.size());
+        if (placeholders < ids.size()) {
+            placeholders <<= 1;
+        }
+
+        String sql = "SELECT * FROM student WHERE id IN ("
+                + String.join(", ", Collections.nCopies(placeholders, "?")) + ")";
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            for (int i = 0; i < placeholders; i++) {
+                ps.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Student> mapper = StudentDaoImpl.STUDENT_MAPPER.forResultSet(rs);
+                while (rs.next()) {
+                    Student student = mapper.mapRow(rs);
+                    into.put(student.getId(), student);
+                }
+            }
+        }
+    }
+}
@@ -2,14 +2,21 @@ package se.lexicon.dao;
 
 import se.lexicon.model.Student;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StudentDao {
 
     Student save(Student student); // Create or Update
+    List<Student> saveAll(Collection<Student> students); // Bulk create
     List<Student> findAll(); // Read all
+    Stream<Student> streamAll(); // Read all, lazily (close the stream!)
+    Stream<Student> streamAll(int fetchSize); // Read all, fetching fetchSize rows per round trip
+    Page<Student> findPage(PageRequest request); // Read one page, ordered by id
     Optional<Student> findById(int id); // Read by ID
+    List<Student> findByClassGroup(String classGroup); // Everyone in a class group, by id
     void update(Student student); // Update existing
     boolean delete(int id); // Delete
 }
@@ -1,12 +1,19 @@
 package se.lexicon.dao;
 
 
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.feed.ChangeOperation;
+import se.lexicon.feed.ChangeOutbox;
 import se.lexicon.model.Student;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * JDBC implementation of StudentDao.
@@ -18,14 +25,81 @@ import java.util.Optional;
  */
 public class StudentDaoImpl implements StudentDao {
 
+    private static final BatchInsert<Student> BATCH_INSERT = new BatchInsert<>(
+            "student",
+            List.of("name", "class_group"),
+            (ps, i, student) -> {
+                ps.setString(i, student.getName());
+                ps.setString(i + 1, student.getClassGroup());
+            },
+            Student::setId
+    );
+
+    /**
+     * Maps a ResultSet row to a Student object.
+     * Keeps mapping logic in one place; columns are looked up once per ResultSet.
+     * Package-private so AttendanceDaoImpl can load students the same way.
+     */
+    static final RowMapperFactory<Student> STUDENT_MAPPER = rs -> {
+        int id = rs.findColumn("id");
+        int name = rs.findColumn("name");
+        int classGroup = rs.findColumn("class_group");
+        int createDate = rs.findColumn("create_date");
+
+        return row -> new Student(
+                row.getInt(id),
+                row.getString(name),
+                row.getString(classGroup),
+                row.getObject(createDate, LocalDateTime.class)
+        );
+    };
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final Connection connection;
+    private final BatchConfig batchConfig;
+    private final StudentCache studentCache;
+    private final QueryResultCache queryCache;
+    private final ChangeOutbox outbox;
 
     /**
      * Connection is injected from outside.
      * The DAO does NOT know how connections are created.
      */
     public StudentDaoImpl(Connection connection) {
+        this(connection, new BatchConfig());
+    }
+
+    public StudentDaoImpl(Connection connection, BatchConfig batchConfig) {
+        this(connection, batchConfig, StudentCache.disabled());
+    }
+
+    /**
+     * The cache is shared with AttendanceDaoImpl and kept up to date by update/delete.
+     */
+    public StudentDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache) {
+        this(connection, batchConfig, studentCache, QueryResultCache.disabled());
+    }
+
+    /**
+     * Every write tells the query cache that the student table changed, see {@link CachingStudentDao}.
+     */
+    public StudentDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache,
+                          QueryResultCache queryCache) {
+        this(connection, batchConfig, studentCache, queryCache, ChangeOutbox.disabled());
+    }
+
+    /**
+     * Every write also records the change in the outbox, in the same transaction
+     * (see {@link se.lexicon.feed.ChangeFeed}).
+     */
+    public StudentDaoImpl(Connection connection, BatchConfig batchConfig, StudentCache studentCache,
+                          QueryResultCache queryCache, ChangeOutbox outbox) {
         this.connection = connection;
+        this.batchConfig = batchConfig;
+        this.studentCache = studentCache;
+        this.queryCache = queryCache;
+        this.outbox = outbox;
     }
 
     /**
@@ -37,20 +111,27 @@ public class StudentDaoImpl implements StudentDao {
 
         String sql = "INSERT INTO student (name, class_group) VALUES (?, ?)";
 
-        try (
-                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
-        ) {
-            ps.setString(1, student.getName());
-            ps.setString(2, student.getClassGroup());
-
-            ps.executeUpdate();
-
-            // Read auto-generated ID
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) {
-                    student.setId(keys.getInt(1));
+        try {
+            outbox.inTransaction(connection, () -> {
+                try (
+                        PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                ) {
+                    ps.setString(1, student.getName());
+                    ps.setString(2, student.getClassGroup());
+
+                    ps.executeUpdate();
+
+                    // Read auto-generated ID
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            student.setId(keys.getInt(1));
+                        }
+                    }
+                    outbox.record(connection, "student", ChangeOperation.INSERT, student.getId());
                 }
-            }
+                return student;
+            });
+            queryCache.tablesChanged(connection, "student");
 
         } catch (SQLException e) {
             System.err.println("❌ Error saving student: " + e.getMessage());
@@ -60,6 +141,28 @@ public class StudentDaoImpl implements StudentDao {
         return student;
     }
 
+    /**
+     * Saves many students using JDBC batching.
+     * Rows are sent and committed in chunks (see {@link BatchConfig})
+     * and the generated IDs are set on each object.
+     */
+    @Override
+    public List<Student> saveAll(Collection<Student> students) {
+
+        try {
+            BATCH_INSERT.execute(connection, students, batchConfig, (conn, chunk) ->
+                    outbox.recordAll(conn, "student", ChangeOperation.INSERT, chunk.stream().map(Student::getId).toList()));
+        } catch (SQLException e) {
+            System.err.println("❌ Error saving student batch: " + e.getMessage());
+            throw new RuntimeException("Error saving student batch", e);
+        } finally {
+            // Earlier chunks stay committed when a later one fails
+            queryCache.tablesChanged(connection, "student");
+        }
+
+        return new ArrayList<>(students);
+    }
+
     /**
      * Retrieves all students from the database.
      */
@@ -73,14 +176,9 @@ public class StudentDaoImpl implements StudentDao {
                 PreparedStatement ps = connection.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()
         ) {
+            RowMapper<Student> mapper = STUDENT_MAPPER.forResultSet(rs);
             while (rs.next()) {
-                students.add(new Student(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("class_group"),
-                        rs.getTimestamp("create_date").toLocalDateTime()
-                ));
-
+                students.add(mapper.mapRow(rs));
             }
 
         } catch (SQLException e) {
@@ -91,12 +189,112 @@ public class StudentDaoImpl implements StudentDao {
         return students;
     }
 
+    /**
+     * Streams all students without loading them into memory at once.
+     * The caller must close the stream, e.g. with try-with-resources.
+     */
+    @Override
+    public Stream<Student> streamAll() {
+        return streamAll(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams all students using a forward-only cursor
+     * that fetches {@code fetchSize} rows per round trip.
+     */
+    @Override
+    public Stream<Student> streamAll(int fetchSize) {
+
+        String sql = "SELECT * FROM student";
+
+        try {
+            return ResultSetStream.of(connection, sql, fetchSize, STUDENT_MAPPER);
+        } catch (SQLException e) {
+            System.err.println("❌ Error streaming students: " + e.getMessage());
+            throw new RuntimeException("Error streaming students", e);
+        }
+    }
+
+    /**
+     * Retrieves one page of students ordered by id.
+     * Uses keyset pagination (WHERE id > last id) so deep pages are as fast as the first one.
+     */
+    @Override
+    public Page<Student> findPage(PageRequest request) {
+
+        String sql = "SELECT * FROM student WHERE id > ? ORDER BY id LIMIT ?";
+
+        int afterId = request.isFirstPage() ? 0 : KeysetCursor.decodeId(request.cursor());
+        List<Student> students = new ArrayList<>(request.size() + 1);
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, request.size() + 1); // one extra row tells us if there is a next page
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Student> mapper = STUDENT_MAPPER.forResultSet(rs);
+                while (rs.next()) {
+                    students.add(mapper.mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error retrieving student page: " + e.getMessage());
+            throw new RuntimeException("Error retrieving student page", e);
+        }
+
+        if (students.size() <= request.size()) {
+            return new Page<>(students, null);
+        }
+
+        students.removeLast();
+        return new Page<>(students, KeysetCursor.encodeId(students.getLast().getId()));
+    }
+
+    /**
+     * Retrieves all students in a class group, ordered by id.
+     */
+    @Override
+    public List<Student> findByClassGroup(String classGroup) {
+
+        List<Student> students = new ArrayList<>();
+        String sql = "SELECT * FROM student WHERE class_group = ? ORDER BY id";
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, classGroup);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Student> mapper = STUDENT_MAPPER.forResultSet(rs);
+                while (rs.next()) {
+                    students.add(mapper.mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error retrieving students by class group: " + e.getMessage());
+            throw new RuntimeException("Error retrieving students by class group", e);
+        }
+
+        return students;
+    }
+
     /**
      * Retrieves a student by ID.
+     * Answers from the student cache when possible.
      */
     @Override
     public Optional<Student> findById(int id) {
 
+        Student cached = studentCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = studentCache.generation();
+
         String sql = "SELECT * FROM student WHERE id = ?";
 
         try (
@@ -106,7 +304,9 @@ public class StudentDaoImpl implements StudentDao {
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapRowToStudent(rs));
+                    Student student = STUDENT_MAPPER.forResultSet(rs).mapRow(rs);
+                    studentCache.putIfNotInvalidatedSince(id, student, generation);
+                    return Optional.of(student);
                 }
             }
 
@@ -126,14 +326,23 @@ public class StudentDaoImpl implements StudentDao {
 
         String sql = "UPDATE student SET name = ?, class_group = ? WHERE id = ?";
 
-        try (
-                PreparedStatement ps = connection.prepareStatement(sql)
-        ) {
-            ps.setString(1, student.getName());
-            ps.setString(2, student.getClassGroup());
-            ps.setInt(3, student.getId());
-
-            ps.executeUpdate();
+        try {
+            outbox.inTransaction(connection, () -> {
+                try (
+                        PreparedStatement ps = connection.prepareStatement(sql)
+                ) {
+                    ps.setString(1, student.getName());
+                    ps.setString(2, student.getClassGroup());
+                    ps.setInt(3, student.getId());
+
+                    if (ps.executeUpdate() > 0) {
+                        outbox.record(connection, "student", ChangeOperation.UPDATE, student.getId());
+                    }
+                }
+                return null;
+            });
+            studentCache.invalidate(connection, student.getId());
+            queryCache.tablesChanged(connection, "student");
 
         } catch (SQLException e) {
             System.err.println("❌ Error updating student: " + e.getMessage());
@@ -143,17 +352,34 @@ public class StudentDaoImpl implements StudentDao {
 
     /**
      * Deletes a student by ID.
+     * Fails while attendance records point to the student, as the old foreign key did
+     * (see {@link StudentReferences}).
      */
     @Override
     public boolean delete(int id) {
 
         String sql = "DELETE FROM student WHERE id = ?";
 
-        try (
-                PreparedStatement ps = connection.prepareStatement(sql)
-        ) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean deleted = StudentReferences.inTransaction(connection, () -> {
+                // Stands in for the foreign key from attendance: refuse while rows point here
+                if (!StudentReferences.lockUnreferencedStudent(connection, id)) {
+                    return false;
+                }
+                try (
+                        PreparedStatement ps = connection.prepareStatement(sql)
+                ) {
+                    ps.setInt(1, id);
+                    if (ps.executeUpdate() == 0) {
+                        return false;
+                    }
+                    outbox.record(connection, "student", ChangeOperation.DELETE, id);
+                    return true;
+                }
+            });
+            studentCache.invalidate(connection, id);
+            queryCache.tablesChanged(connection, "student");
+            return deleted;
 
         } catch (SQLException e) {
             System.err.println("❌ Error deleting student: " + e.getMessage());
@@ -161,18 +387,4 @@ public class StudentDaoImpl implements StudentDao {
         }
 
     }
-
-    /**
-     * Maps a ResultSet row to a Student object.
-     * Keeps mapping logic in one place.
-     */
-    private Student mapRowToStudent(ResultSet rs) throws SQLException {
-
-        return new Student(
-                rs.getInt("id"),
-                rs.getString("name"),
-                rs.getString("class_group"),
-                rs.getTimestamp("create_date").toLocalDateTime()
-        );
-    }
 }
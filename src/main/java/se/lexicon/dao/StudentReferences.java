@@ -0,0 +1,152 @@
+package se.lexicon.dao;
+
+import se.lexicon.feed.ChangeOutbox;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks attendance.student_id in the application. The partitioned attendance table
+ * cannot have a foreign key to student (see Migration_Scripts.sql), so the DAOs do it.
+ * <p>
+ * Demonstrates:
+ * - Locking reads instead of a constraint: writing attendance locks its students in share mode,
+ *   deleting a student locks it exclusively, so the two wait for each other instead of racing
+ * - The same errors MySQL reports for a foreign key (SQLState 23000, codes 1452 and 1451),
+ *   so callers handle a missing student the same way as before
+ * <p>
+ * The locks only last until commit, so every check must run in the transaction of its write
+ * (see {@link #inTransaction}).
+ */
+final class StudentReferences {
+
+    // ER_NO_REFERENCED_ROW_2 and ER_ROW_IS_REFERENCED_2, what the foreign key used to report
+    static final int NO_REFERENCED_ROW = 1452;
+    static final int ROW_IS_REFERENCED = 1451;
+
+    private StudentReferences() {
+    }
+
+    /**
+     * Runs the work in a transaction: the caller's, or one of its own when the connection
+     * is in autocommit mode. Unlike {@link ChangeOutbox#inTransaction} this does not depend
+     * on the outbox being enabled.
+     */
+    static <T> T inTransaction(Connection connection, ChangeOutbox.OutboxWork<T> work) throws SQLException {
+
+        if (!connection.getAutoCommit()) {
+            return work.run();
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            T result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Locks the students in share mode until the transaction ends, so they cannot be deleted
+     * before the attendance rows that point to them are committed.
+     *
+     * @throws SQLIntegrityConstraintViolationException if one of them does not exist
+     */
+    static void requireStudents(Connection connection, Collection<Integer> studentIds) throws SQLException {
+
+        // Sorted, so two transactions lock the same students in the same order
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(studentIds));
+        Set<Integer> found = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += StudentBatchLoader.MAX_IDS_PER_QUERY) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + StudentBatchLoader.MAX_IDS_PER_QUERY, ids.size()));
+            lockChunk(connection, chunk, found);
+        }
+
+        for (Integer id : ids) {
+            if (!found.contains(id)) {
+                throw new SQLIntegrityConstraintViolationException(
+                        "Cannot add or update a child row: student " + id + " does not exist",
+                        "23000", NO_REFERENCED_ROW);
+            }
+        }
+    }
+
+    /**
+     * Locks the student exclusively, then makes sure no attendance row points to it.
+     * New attendance for the student waits for the lock, so the check stays true until commit.
+     *
+     * @return false if the student does not exist
+     * @throws SQLIntegrityConstraintViolationException if the student has attendance records
+     */
+    static boolean lockUnreferencedStudent(Connection connection, int studentId) throws SQLException {
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT id FROM student WHERE id = ? FOR UPDATE")) {
+            ps.setInt(1, studentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+            }
+        }
+
+        // A locking read sees rows committed after this transaction started
+        String sql = "SELECT id FROM attendance WHERE student_id = ? LIMIT 1 " + lockMode(connection);
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, studentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    throw new SQLIntegrityConstraintViolationException(
+                            "Cannot delete or update a parent row: student " + studentId + " has attendance records",
+                            "23000", ROW_IS_REFERENCED);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void lockChunk(Connection connection, List<Integer> ids, Set<Integer> found) throws SQLException {
+
+        // Rounded up to a power of two like StudentBatchLoader, so few distinct statements are prepared
+        int placeholders = Integer.highestOneBit(ids.size());
+        if (placeholders < ids.size()) {
+            placeholders <<= 1;
+        }
+
+        String sql = "SELECT id FROM student WHERE id IN ("
+                + String.join(", ", Collections.nCopies(placeholders, "?")) + ") " + lockMode(connection);
+
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < placeholders; i++) {
+                ps.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    found.add(rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * FOR SHARE on MySQL, so writers of different attendance rows for the same student do not
+     * block each other. Databases without it (e.g. H2 in the tests) use the stricter FOR UPDATE.
+     */
+    private static String lockMode(Connection connection) throws SQLException {
+        return "MySQL".equals(connection.getMetaData().getDatabaseProductName()) ? "FOR SHARE" : "FOR UPDATE";
+    }
+}
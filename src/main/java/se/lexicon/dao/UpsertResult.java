@@ -0,0 +1,27 @@
+package se.lexicon.dao;
+
+/**
+ * What an upsert did to one row.
+ * <p>
+ * Decoded from the affected-rows count MySQL reports for
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE}: 1 = inserted, 2 = updated,
+ * 0 = the existing row already had the same values.
+ * The connection must use {@code useAffectedRows=true}, otherwise MySQL
+ * reports 1 for unchanged rows as well (see {@code DatabaseConnection}).
+ */
+public enum UpsertResult {
+    INSERTED,
+    UPDATED,
+    UNCHANGED,
+    // The driver did not report a per-row count (Statement.SUCCESS_NO_INFO)
+    UNKNOWN;
+
+    public static UpsertResult fromUpdateCount(int count) {
+        return switch (count) {
+            case 1 -> INSERTED;
+            case 2 -> UPDATED;
+            case 0 -> UNCHANGED;
+            default -> UNKNOWN;
+        };
+    }
+}
@@ -0,0 +1,543 @@
+package se.lexicon.dao;
+
+import se.lexicon.db.TransactionManager;
+import se.lexicon.model.Attendance;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that buffers attendance writes and stores them later as batched upserts.
+ * <p>
+ * Demonstrates:
+ * - Write-behind: {@code save}/{@code upsert} return as soon as the row is buffered
+ * - Coalescing: a newer write for the same (student, date) replaces the buffered one,
+ *   so only the last status is sent
+ * - Flushing every {@code flushInterval} or as soon as {@code flushRows} rows are waiting,
+ *   on a background thread with its own pooled connection
+ * - Backpressure: a bounded buffer (a semaphore with one permit per buffered row)
+ *   makes writers wait when the database cannot keep up
+ * - A shutdown hook and {@link #close()} that flush what is left
+ * - Failure handling: a batch that fails with a transient error (deadlock, lock wait timeout,
+ *   lost connection) goes back into the buffer for the next flush. Any other error is
+ *   narrowed down by splitting the batch in halves; the rows that still fail on their own
+ *   go to the dead-letter handler and the rest is written
+ * <p>
+ * Create it with {@link #start}, which also starts the background flusher.
+ * <p>
+ * Buffered writes are upserts, so {@code save} never fails on a duplicate key and does not
+ * set the id, and {@code upsert} returns {@link UpsertResult#UNKNOWN}.
+ * Writes still in the buffer are lost if the JVM crashes.
+ * <p>
+ * Updates and deletes flush the buffer first so they apply in order.
+ * Reads flush only the buffered rows they could return (same student, date or id),
+ * unless {@link WriteBehindConfig#setFlushBeforeReads} is off. A read whose rows are
+ * not buffered goes straight to the delegate and never waits for a flush.
+ * The delegate serves reads, updates and deletes on the caller's thread.
+ * <p>
+ * Flushes are serialized, so two writes for the same key are committed in order.
+ */
+public class WriteBehindAttendanceDao implements AttendanceDao, AutoCloseable {
+
+    private record Key(int studentId, LocalDate date) {
+        static Key of(Attendance attendance) {
+            return new Key(attendance.getStudent().getId(), attendance.getAttendanceDate());
+        }
+    }
+
+    /**
+     * A buffered write that was dropped because it failed on its own with a non-transient error.
+     */
+    public record FailedWrite(Attendance attendance, RuntimeException error) {
+    }
+
+    private final AttendanceDao delegate;
+    private final DataSource dataSource;
+    private final Function<Connection, AttendanceDao> daoFactory;
+    private final WriteBehindConfig config;
+    private final Consumer<FailedWrite> deadLetters;
+
+    private final Map<Key, Attendance> pending = new ConcurrentHashMap<>();
+    // Rows taken out of pending by the running flush and not committed yet
+    private final Map<Key, Attendance> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Semaphore capacity;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private Thread shutdownHook;
+    private volatile boolean closed;
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    private WriteBehindAttendanceDao(AttendanceDao delegate, DataSource dataSource,
+                                     Function<Connection, AttendanceDao> daoFactory, WriteBehindConfig config,
+                                     Consumer<FailedWrite> deadLetters) {
+        this.delegate = delegate;
+        this.dataSource = dataSource;
+        this.daoFactory = daoFactory;
+        this.config = config;
+        this.deadLetters = deadLetters;
+        this.capacity = new Semaphore(config.getCapacity());
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("attendance-write-behind").factory()
+        );
+    }
+
+    /**
+     * Creates the DAO and starts its background flusher. Dropped writes are only logged.
+     *
+     * @see #start(AttendanceDao, DataSource, Function, WriteBehindConfig, Consumer)
+     */
+    public static WriteBehindAttendanceDao start(AttendanceDao delegate, DataSource dataSource,
+                                                 Function<Connection, AttendanceDao> daoFactory,
+                                                 WriteBehindConfig config) {
+        return start(delegate, dataSource, daoFactory, config, failed -> { });
+    }
+
+    /**
+     * Creates the DAO and starts its background flusher.
+     *
+     * @param delegate    serves reads, updates and deletes
+     * @param dataSource  flushes borrow a connection from here
+     * @param daoFactory  creates the DAO that runs {@code upsertAll} on a flush connection.
+     *                    Build it with the same outbox and query cache as the delegate,
+     *                    otherwise flushed rows never reach the change feed or invalidate cached reads.
+     * @param deadLetters called on the flushing thread for every write that is dropped
+     */
+    public static WriteBehindAttendanceDao start(AttendanceDao delegate, DataSource dataSource,
+                                                 Function<Connection, AttendanceDao> daoFactory,
+                                                 WriteBehindConfig config, Consumer<FailedWrite> deadLetters) {
+        WriteBehindAttendanceDao dao =
+                new WriteBehindAttendanceDao(delegate, dataSource, daoFactory, config, deadLetters);
+        dao.startFlusher();
+        return dao;
+    }
+
+    private void startFlusher() {
+        long interval = config.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushInBackground, interval, interval, TimeUnit.MILLISECONDS);
+
+        if (config.isShutdownHook()) {
+            shutdownHook = Thread.ofPlatform().unstarted(this::flushOnShutdown);
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Buffers the record. The row is written by a later flush.
+     */
+    @Override
+    public Attendance save(Attendance attendance) {
+        enqueue(attendance);
+        return attendance;
+    }
+
+    @Override
+    public List<Attendance> saveAll(Collection<Attendance> attendances) {
+        for (Attendance attendance : attendances) {
+            enqueue(attendance);
+        }
+        return new ArrayList<>(attendances);
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance attendance) {
+        enqueue(attendance);
+        return UpsertResult.UNKNOWN;
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(Collection<Attendance> attendances) {
+        for (Attendance attendance : attendances) {
+            enqueue(attendance);
+        }
+        return new ArrayList<>(Collections.nCopies(attendances.size(), UpsertResult.UNKNOWN));
+    }
+
+    @Override
+    public List<Attendance> findAll() {
+        flushBeforeRead(key -> true);
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll() {
+        flushBeforeRead(key -> true);
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Attendance> streamAll(int fetchSize) {
+        flushBeforeRead(key -> true);
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Page<Attendance> findPage(PageRequest request) {
+        flushBeforeRead(key -> true);
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public Optional<Attendance> findById(int id) {
+        Optional<Attendance> found = delegate.findById(id);
+        // A buffered row has no id until it is written, so only a stored row can match:
+        // if its (student, date) has a newer status waiting, write that and read again
+        if (found.isPresent() && config.isFlushBeforeReads()) {
+            Key key = Key.of(found.get());
+            if (flushBeforeRead(key::equals)) {
+                return delegate.findById(id);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Attendance> findByStudent(int studentId, LocalDate from, LocalDate to) {
+        flushBeforeRead(key -> key.studentId() == studentId && inRange(key.date(), from, to));
+        return delegate.findByStudent(studentId, from, to);
+    }
+
+    @Override
+    public List<Attendance> findByDateRange(LocalDate from, LocalDate to) {
+        flushBeforeRead(key -> inRange(key.date(), from, to));
+        return delegate.findByDateRange(from, to);
+    }
+
+    @Override
+    public List<Attendance> findByClassGroupAndDate(String classGroup, LocalDate date) {
+        // The key has no class group: flush every student's row for that date
+        flushBeforeRead(key -> key.date().equals(date));
+        return delegate.findByClassGroupAndDate(classGroup, date);
+    }
+
+    @Override
+    public void update(Attendance attendance) {
+        flush();
+        delegate.update(attendance);
+    }
+
+    @Override
+    public boolean delete(int id) {
+        flush();
+        return delegate.delete(id);
+    }
+
+    /**
+     * Writes everything buffered so far and waits until it is committed.
+     */
+    public void flush() {
+        flush(key -> true);
+    }
+
+    /**
+     * Writes the buffered rows whose key matches and waits until they are committed.
+     * Only one flush runs at a time, so an older write for a key never lands after a newer one.
+     * Throws after a transient failure, once the rows are back in the buffer; rows dropped
+     * for other errors are reported to the dead-letter handler instead.
+     */
+    private void flush(Predicate<Key> keys) {
+
+        // pending before inFlight, see below. A running flush must be waited for, even with
+        // nothing new buffered, so that callers see its rows committed.
+        if (pending.isEmpty() && inFlight.isEmpty()) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            // Move entries to inFlight one by one; a write for the same key that arrives meanwhile
+            // stays in the buffer and goes out with the next flush. The row is in inFlight before it
+            // leaves pending, so a reader checking pending and then inFlight always finds it.
+            List<Attendance> batch = new ArrayList<>();
+            for (Key key : pending.keySet()) {
+                if (!keys.test(key)) {
+                    continue;
+                }
+                pending.computeIfPresent(key, (k, attendance) -> {
+                    inFlight.put(k, attendance);
+                    batch.add(attendance);
+                    return null;
+                });
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<FailedWrite> dropped = new ArrayList<>();
+            try (Connection connection = dataSource.getConnection()) {
+                write(daoFactory.apply(connection), batch, dropped);
+            } catch (SQLException | RuntimeException e) {
+                // No connection, or a transient error: nothing is dropped for it, the rows are retried
+                failedFlushes.increment();
+                List<Attendance> retry = new ArrayList<>(batch);
+                dropped.forEach(failed -> retry.remove(failed.attendance()));
+                requeue(retry);
+                deadLetter(dropped);
+                System.err.println("❌ Error flushing buffered attendance: " + e.getMessage());
+                throw new RuntimeException("Error flushing buffered attendance", e);
+            } finally {
+                inFlight.clear();
+            }
+
+            flushes.increment();
+            written.add(batch.size() - dropped.size());
+            capacity.release(batch.size() - dropped.size());
+            deadLetter(dropped);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Rows waiting to be written.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes that replaced a buffered write for the same student and date.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getBufferedCount() {
+        return buffered.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+
+    /**
+     * Writes dropped because they failed with a non-transient error.
+     */
+    public long getDeadLetterCount() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * Stops the background flusher and writes what is left.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(config.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down, the hook is running or has run
+            }
+        }
+        flush();
+    }
+
+    private void enqueue(Attendance attendance) {
+        if (closed) {
+            throw new IllegalStateException("Write-behind DAO is closed");
+        }
+
+        acquireSlot();
+        if (pending.put(Key.of(attendance), attendance) != null) {
+            // Replaced a buffered row for the same key, which already holds a slot
+            capacity.release();
+            coalesced.increment();
+        }
+        buffered.increment();
+
+        if (pending.size() >= config.getFlushRows()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Backpressure: waits for room in the buffer, asking for a flush while waiting.
+     */
+    private void acquireSlot() {
+        if (capacity.tryAcquire()) {
+            return;
+        }
+        requestFlush();
+        try {
+            if (!capacity.tryAcquire(config.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new RuntimeException("Write-behind buffer is full (" + config.getCapacity() + " rows), "
+                        + "gave up after " + config.getOfferTimeout().toMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for room in the write-behind buffer", e);
+        }
+    }
+
+    /**
+     * Upserts the rows. A non-transient error splits them in halves and tries each half,
+     * down to single rows, which are added to {@code dropped}. Transient errors are thrown,
+     * because the same rows will succeed later.
+     * Rows written before a failure are written again by the next attempt, which is harmless
+     * for upserts.
+     */
+    private static void write(AttendanceDao dao, List<Attendance> rows, List<FailedWrite> dropped) {
+        try {
+            dao.upsertAll(rows);
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            if (rows.size() == 1) {
+                dropped.add(new FailedWrite(rows.getFirst(), e));
+                return;
+            }
+            int half = rows.size() / 2;
+            write(dao, rows.subList(0, half), dropped);
+            write(dao, rows.subList(half, rows.size()), dropped);
+        }
+    }
+
+    /**
+     * Deadlocks and lock wait timeouts (see {@link TransactionManager#isRetryable}),
+     * other {@link SQLTransientException}s, and lost connections (SQLState class 08).
+     */
+    static boolean isTransient(Throwable e) {
+        if (TransactionManager.isRetryable(e)) {
+            return true;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException sqlException
+                    && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Frees the slots of dropped writes and hands them to the dead-letter handler.
+     */
+    private void deadLetter(List<FailedWrite> dropped) {
+        if (dropped.isEmpty()) {
+            return;
+        }
+        capacity.release(dropped.size());
+        deadLettered.add(dropped.size());
+        for (FailedWrite failed : dropped) {
+            System.err.println("❌ Dropped buffered attendance for student " + failed.attendance().getStudent().getId()
+                    + " on " + failed.attendance().getAttendanceDate() + ": " + failed.error().getMessage());
+            try {
+                deadLetters.accept(failed);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error in dead-letter handler: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Puts a failed batch back. Newer writes for the same key win; their slot is already taken,
+     * so the old row's slot is given back.
+     */
+    private void requeue(List<Attendance> batch) {
+        for (Attendance attendance : batch) {
+            if (pending.putIfAbsent(Key.of(attendance), attendance) != null) {
+                capacity.release();
+            }
+        }
+    }
+
+    private void requestFlush() {
+        if (!closed && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushInBackground);
+        }
+    }
+
+    private void flushInBackground() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Already reported and requeued; the next interval tries again
+        }
+    }
+
+    /**
+     * Flushes the buffered rows a read could return, waiting for a running flush that is
+     * writing any of them. Reads that match nothing buffered return at once.
+     *
+     * @return true if matching rows were buffered or being written
+     */
+    private boolean flushBeforeRead(Predicate<Key> keys) {
+        if (!config.isFlushBeforeReads()) {
+            return false;
+        }
+        // pending before inFlight: see flush(Predicate)
+        boolean matches = pending.keySet().stream().anyMatch(keys)
+                || inFlight.keySet().stream().anyMatch(keys);
+        if (!matches) {
+            return false;
+        }
+        // Waits for the running flush (which may hold our rows), then writes what is still buffered
+        flush(keys);
+        return true;
+    }
+
+    private static boolean inRange(LocalDate date, LocalDate from, LocalDate to) {
+        return !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    private void flushOnShutdown() {
+        closed = true;
+        flusher.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error flushing attendance on shutdown, " + pending.size() + " rows not written");
+        }
+    }
+}
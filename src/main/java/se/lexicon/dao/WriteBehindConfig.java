@@ -0,0 +1,105 @@
+package se.lexicon.dao;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link WriteBehindAttendanceDao}.
+ */
+public class WriteBehindConfig {
+
+    private int capacity = 10_000;
+    private int flushRows = 500;
+    private Duration flushInterval = Duration.ofMillis(100);
+    private Duration offerTimeout = Duration.ofSeconds(5);
+    private boolean flushBeforeReads = true;
+    private boolean shutdownHook = true;
+
+    // Getters and Setters
+
+    /**
+     * Maximum number of distinct (student, date) rows waiting to be written.
+     * Writers block when the buffer is full (backpressure).
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * A flush starts as soon as this many rows are waiting, without waiting for the interval.
+     */
+    public int getFlushRows() {
+        return flushRows;
+    }
+
+    public void setFlushRows(int flushRows) {
+        if (flushRows < 1) {
+            throw new IllegalArgumentException("flushRows must be at least 1");
+        }
+        this.flushRows = flushRows;
+    }
+
+    /**
+     * Longest time a write waits in the buffer.
+     */
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * How long a writer waits for room in a full buffer before getting an exception.
+     */
+    public Duration getOfferTimeout() {
+        return offerTimeout;
+    }
+
+    public void setOfferTimeout(Duration offerTimeout) {
+        this.offerTimeout = offerTimeout;
+    }
+
+    /**
+     * true = reads flush the pending writes they could return first, so they see them.
+     * Updates and deletes always flush everything first.
+     */
+    public boolean isFlushBeforeReads() {
+        return flushBeforeReads;
+    }
+
+    public void setFlushBeforeReads(boolean flushBeforeReads) {
+        this.flushBeforeReads = flushBeforeReads;
+    }
+
+    /**
+     * true = pending writes are flushed when the JVM shuts down normally.
+     */
+    public boolean isShutdownHook() {
+        return shutdownHook;
+    }
+
+    public void setShutdownHook(boolean shutdownHook) {
+        this.shutdownHook = shutdownHook;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "WriteBehindConfig{" +
+                "capacity=" + capacity +
+                ", flushRows=" + flushRows +
+                ", flushInterval=" + flushInterval +
+                ", offerTimeout=" + offerTimeout +
+                ", flushBeforeReads=" + flushBeforeReads +
+                ", shutdownHook=" + shutdownHook +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package se.lexicon.dao.async;
+
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.Page;
+import se.lexicon.dao.PageRequest;
+import se.lexicon.dao.UpsertResult;
+import se.lexicon.model.Attendance;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over {@link AttendanceDao}.
+ * <p>
+ * Every call runs on a virtual thread with its own pooled connection
+ * and a fresh DAO created by {@code daoFactory}.
+ * Operations without a dedicated method can be run with {@link #submit(Function)}.
+ */
+public class AsyncAttendanceDao {
+
+    private final AsyncDaoExecutor executor;
+    private final Function<Connection, AttendanceDao> daoFactory;
+
+    public AsyncAttendanceDao(AsyncDaoExecutor executor) {
+        this(executor, AttendanceDaoImpl::new);
+    }
+
+    public AsyncAttendanceDao(AsyncDaoExecutor executor, Function<Connection, AttendanceDao> daoFactory) {
+        this.executor = executor;
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Runs any DAO operation asynchronously.
+     */
+    public <T> CompletableFuture<T> submit(Function<AttendanceDao, T> operation) {
+        return executor.submit(connection -> operation.apply(daoFactory.apply(connection)));
+    }
+
+    /**
+     * Runs a DAO operation on the current thread, e.g. inside a {@link FanOut} task.
+     */
+    public <T> T call(Function<AttendanceDao, T> operation) {
+        return executor.call(connection -> operation.apply(daoFactory.apply(connection)));
+    }
+
+    public CompletableFuture<Attendance> save(Attendance attendance) {
+        return submit(dao -> dao.save(attendance));
+    }
+
+    public CompletableFuture<List<Attendance>> saveAll(Collection<Attendance> attendances) {
+        return submit(dao -> dao.saveAll(attendances));
+    }
+
+    public CompletableFuture<UpsertResult> upsert(Attendance attendance) {
+        return submit(dao -> dao.upsert(attendance));
+    }
+
+    public CompletableFuture<List<UpsertResult>> upsertAll(Collection<Attendance> attendances) {
+        return submit(dao -> dao.upsertAll(attendances));
+    }
+
+    public CompletableFuture<List<Attendance>> findAll() {
+        return submit(AttendanceDao::findAll);
+    }
+
+    public CompletableFuture<Page<Attendance>> findPage(PageRequest request) {
+        return submit(dao -> dao.findPage(request));
+    }
+
+    public CompletableFuture<Optional<Attendance>> findById(int id) {
+        return submit(dao -> dao.findById(id));
+    }
+
+    public CompletableFuture<Void> update(Attendance attendance) {
+        return submit(dao -> {
+            dao.update(attendance);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> delete(int id) {
+        return submit(dao -> dao.delete(id));
+    }
+}
@@ -0,0 +1,104 @@
+package se.lexicon.dao.async;
+
+import se.lexicon.db.ConnectionPool;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs DAO work on virtual threads.
+ * <p>
+ * Demonstrates:
+ * - One virtual thread per call, so request handlers never block a platform thread on JDBC I/O
+ * - A semaphore that caps in-flight calls, normally at the connection pool size,
+ *   so extra calls queue here instead of timing out inside the pool
+ * - One connection per call: borrowed before the work runs and closed afterwards
+ */
+public class AsyncDaoExecutor implements AutoCloseable {
+
+    /**
+     * Work that needs a connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionCallback<T> {
+        T doInConnection(Connection connection) throws SQLException;
+    }
+
+    private final DataSource dataSource;
+    private final int maxConcurrency;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncDaoExecutor(DataSource dataSource, int maxConcurrency) {
+        this.dataSource = dataSource;
+        this.maxConcurrency = maxConcurrency;
+        this.inFlight = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Caps concurrency at the pool's maximum size.
+     */
+    public static AsyncDaoExecutor forPool(ConnectionPool pool) {
+        return new AsyncDaoExecutor(pool, pool.getConfig().getMaximumPoolSize());
+    }
+
+    /**
+     * Runs the work on a new virtual thread.
+     */
+    public <T> CompletableFuture<T> submit(ConnectionCallback<T> work) {
+        return CompletableFuture.supplyAsync(() -> call(work), executor);
+    }
+
+    /**
+     * Runs the work on the current thread, still respecting the concurrency cap.
+     * Useful inside {@link FanOut} tasks, which already run on virtual threads.
+     */
+    public <T> T call(ConnectionCallback<T> work) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a free DAO slot", e);
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            return work.doInConnection(connection);
+        } catch (SQLException e) {
+            System.err.println("❌ Error in async DAO call: " + e.getMessage());
+            throw new RuntimeException("Error in async DAO call", e);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Number of calls currently holding a slot.
+     */
+    public int getInFlight() {
+        return getMaxConcurrency() - inFlight.availablePermits();
+    }
+
+    /**
+     * Number of calls waiting for a slot.
+     */
+    public int getQueued() {
+        return inFlight.getQueueLength();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Stops accepting work and waits for running calls to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
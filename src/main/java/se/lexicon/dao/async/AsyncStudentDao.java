@@ -0,0 +1,81 @@
+package se.lexicon.dao.async;
+
+import se.lexicon.dao.StudentDao;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.dao.Page;
+import se.lexicon.dao.PageRequest;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over {@link StudentDao}.
+ * <p>
+ * Every call runs on a virtual thread with its own pooled connection
+ * and a fresh DAO created by {@code daoFactory}.
+ * Operations without a dedicated method can be run with {@link #submit(Function)}.
+ */
+public class AsyncStudentDao {
+
+    private final AsyncDaoExecutor executor;
+    private final Function<Connection, StudentDao> daoFactory;
+
+    public AsyncStudentDao(AsyncDaoExecutor executor) {
+        this(executor, StudentDaoImpl::new);
+    }
+
+    public AsyncStudentDao(AsyncDaoExecutor executor, Function<Connection, StudentDao> daoFactory) {
+        this.executor = executor;
+        this.daoFactory = daoFactory;
+    }
+
+    /**
+     * Runs any DAO operation asynchronously.
+     */
+    public <T> CompletableFuture<T> submit(Function<StudentDao, T> operation) {
+        return executor.submit(connection -> operation.apply(daoFactory.apply(connection)));
+    }
+
+    /**
+     * Runs a DAO operation on the current thread, e.g. inside a {@link FanOut} task.
+     */
+    public <T> T call(Function<StudentDao, T> operation) {
+        return executor.call(connection -> operation.apply(daoFactory.apply(connection)));
+    }
+
+    public CompletableFuture<Student> save(Student student) {
+        return submit(dao -> dao.save(student));
+    }
+
+    public CompletableFuture<List<Student>> saveAll(Collection<Student> students) {
+        return submit(dao -> dao.saveAll(students));
+    }
+
+    public CompletableFuture<List<Student>> findAll() {
+        return submit(StudentDao::findAll);
+    }
+
+    public CompletableFuture<Page<Student>> findPage(PageRequest request) {
+        return submit(dao -> dao.findPage(request));
+    }
+
+    public CompletableFuture<Optional<Student>> findById(int id) {
+        return submit(dao -> dao.findById(id));
+    }
+
+    public CompletableFuture<Void> update(Student student) {
+        return submit(dao -> {
+            dao.update(student);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> delete(int id) {
+        return submit(dao -> dao.delete(id));
+    }
+}
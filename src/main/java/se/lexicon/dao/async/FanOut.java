@@ -0,0 +1,87 @@
+package se.lexicon.dao.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Structured fan-out for independent reads.
+ * <p>
+ * All tasks run in parallel on virtual threads that belong to one scope:
+ * the method returns only after every task has finished, and as soon as one task
+ * fails the others are cancelled and the failure is rethrown.
+ * <p>
+ * Example, loading a student and a page of attendance at the same time:
+ * <pre>{@code
+ * StudentOverview overview = FanOut.both(
+ *         () -> students.call(dao -> dao.findById(id)),
+ *         () -> attendance.call(dao -> dao.findPage(PageRequest.first(20))),
+ *         StudentOverview::new
+ * );
+ * }</pre>
+ * This is built on an ExecutorService instead of StructuredTaskScope,
+ * which is still a preview API.
+ */
+public final class FanOut {
+
+    private FanOut() {
+    }
+
+    /**
+     * Runs two tasks in parallel and combines their results.
+     */
+    @SuppressWarnings("unchecked")
+    public static <A, B, R> R both(Callable<A> first, Callable<B> second, BiFunction<A, B, R> combiner) {
+        List<Object> results = all(List.of(first::call, second::call));
+        return combiner.apply((A) results.get(0), (B) results.get(1));
+    }
+
+    /**
+     * Runs all tasks in parallel and returns their results in task order.
+     */
+    public static <T> List<T> all(List<Callable<T>> tasks) {
+
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(scope);
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(completion.submit(task));
+            }
+
+            try {
+                for (int i = 0; i < tasks.size(); i++) {
+                    completion.take().get();
+                }
+            } catch (ExecutionException e) {
+                cancelAll(futures);
+                throw e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                cancelAll(futures);
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for fan-out tasks");
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.resultNow());
+            }
+            return results;
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
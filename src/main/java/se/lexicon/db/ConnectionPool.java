@@ -0,0 +1,420 @@
+package se.lexicon.db;
+
+import se.lexicon.metrics.LatencyHistogram;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A small, bounded JDBC connection pool.
+ * <p>
+ * Demonstrates:
+ * - Fair borrowing: callers are served in arrival order and wait at most {@code borrowTimeout}
+ * - Validation on borrow using {@link Connection#isValid(int)}
+ * - Idle eviction and max-lifetime recycling by a background housekeeper
+ * - Returning connections to the pool when the caller calls {@code close()}, reset to
+ *   auto-commit, read-write and the original isolation level
+ * - A per-connection prepared statement cache (see {@link StatementCache})
+ * <p>
+ * The pool wraps any {@link DataSource}, so it works with MySQL as well as with an
+ * embedded MySQL-compatible database (e.g. H2 in MySQL mode) for tests.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private final DataSource dataSource;
+    private final PoolConfig config;
+
+    // One permit per connection that may be handed out; fair = FIFO for waiters
+    private final Semaphore permits;
+
+    // Most recently returned connection first, so hot connections stay hot
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(DataSource dataSource) {
+        this(dataSource, new PoolConfig());
+    }
+
+    public ConnectionPool(DataSource dataSource, PoolConfig config) {
+        this.dataSource = dataSource;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaximumPoolSize(), true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("connection-pool-housekeeper").factory()
+        );
+        long interval = config.getHousekeepingInterval().toMillis();
+        housekeeper.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool.
+     * Closing the returned connection gives it back to the pool.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(config.getBorrowTimeout());
+    }
+
+    /**
+     * Borrows a connection, waiting at most {@code timeout} instead of the configured borrow timeout.
+     * Used by health checks, which should not queue behind real work.
+     */
+    Connection getConnection(Duration timeout) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        waitTimes.recordSince(start);
+
+        if (!acquired) {
+            timeoutCount.increment();
+            throw new SQLTransientConnectionException(
+                    "Timed out after " + timeout.toMillis() + "ms waiting for a connection"
+                            + " (active=" + active.get() + ", max=" + config.getMaximumPoolSize() + ")"
+            );
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            active.incrementAndGet();
+            borrowCount.increment();
+            return pooled.borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections always use the configured credentials");
+    }
+
+    /**
+     * Returns a snapshot of the pool's current state.
+     */
+    public PoolStats getStats() {
+        int activeNow = active.get();
+        int idleNow = idle.size();
+        return new PoolStats(
+                activeNow,
+                idleNow,
+                activeNow + idleNow,
+                permits.getQueueLength(),
+                config.getMaximumPoolSize(),
+                borrowCount.sum(),
+                timeoutCount.sum(),
+                waitTimes.snapshot(),
+                statementCounters.hits.sum(),
+                statementCounters.misses.sum(),
+                statementCounters.evictions.sum()
+        );
+    }
+
+    /**
+     * Connections in use plus callers waiting for one. Cheaper than {@link #getStats()},
+     * so it can be called on every borrow, e.g. for least-loaded balancing.
+     */
+    public int getLoad() {
+        return active.get() + permits.getQueueLength();
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeper.
+     * Connections still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (pooled.isExpired() || !pooled.isValid()) {
+                pooled.closePhysical();
+                continue;
+            }
+            return pooled;
+        }
+        Connection physical = dataSource.getConnection();
+        try {
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            physical.close();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || pooled.isExpired() || !pooled.reset()) {
+                pooled.closePhysical();
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdleConnections() {
+        long idleTimeout = config.getIdleTimeout().toNanos();
+        long now = System.nanoTime();
+
+        for (PooledConnection pooled : idle) {
+            boolean tooIdle = now - pooled.lastReturnedAt > idleTimeout;
+            if ((tooIdle || pooled.isExpired()) && idle.remove(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+    }
+
+    // DataSource plumbing
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    /**
+     * One physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private final int defaultIsolation;
+        private final long createdAt = System.nanoTime();
+        private volatile long lastReturnedAt = createdAt;
+        // Set when a borrower changes the isolation level, so reset() only restores it when needed
+        private volatile boolean isolationChanged;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultIsolation = physical.getTransactionIsolation();
+            this.statementCache = config.getStatementCacheSize() > 0
+                    ? new StatementCache(config.getStatementCacheSize(), statementCounters)
+                    : null;
+        }
+
+        Connection borrow() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new BorrowedConnection(this)
+            );
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - createdAt > config.getMaxLifetime().toNanos();
+        }
+
+        boolean isValid() {
+            try {
+                int seconds = (int) Math.max(1, config.getValidationTimeout().toSeconds());
+                return physical.isValid(seconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Puts the connection back into a clean state before someone else gets it.
+         */
+        boolean reset() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                if (isolationChanged) {
+                    physical.setTransactionIsolation(defaultIsolation);
+                    isolationChanged = false;
+                }
+                physical.clearWarnings();
+                lastReturnedAt = System.nanoTime();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            if (statementCache != null) {
+                statementCache.clear();
+            }
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("❌ Error closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The handle given to callers. {@code close()} returns the connection to the pool,
+     * every other call goes to the physical connection.
+     */
+    private final class BorrowedConnection implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        BorrowedConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || pooled.physical.isClosed();
+                }
+                case "setTransactionIsolation" -> {
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    pooled.isolationChanged = true;
+                }
+                case "prepareStatement" -> {
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    StatementCache.Key key = cacheKey(args);
+                    if (key != null && pooled.statementCache != null) {
+                        return pooled.statementCache.prepare(key, (Connection) proxy, pooled.physical);
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + pooled.physical + (closed ? ", returned" : "") + "]";
+                }
+                default -> {
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                }
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Only the common prepareStatement overloads are cached:
+         * (sql), (sql, autoGeneratedKeys) and (sql, resultSetType, resultSetConcurrency).
+         */
+        private StatementCache.Key cacheKey(Object[] args) {
+            String sql = (String) args[0];
+            if (args.length == 1) {
+                return new StatementCache.Key(sql, Statement.NO_GENERATED_KEYS, 0);
+            }
+            if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                return new StatementCache.Key(sql, autoGeneratedKeys, 0);
+            }
+            if (args.length == 3 && args[1] instanceof Integer type && args[2] instanceof Integer concurrency) {
+                return new StatementCache.Key(sql, type, concurrency);
+            }
+            return null;
+        }
+    }
+}
@@ -4,46 +4,116 @@ import com.mysql.cj.jdbc.MysqlDataSource;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DatabaseConnection {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/student_db";
+    private static final String URL = "jdbc:mysql://localhost:3306/student_db"
+            + "?rewriteBatchedStatements=true"
+            + "&useCursorFetch=true"
+            // Report 0 instead of 1 for unchanged rows, so upserts can tell inserted/updated/unchanged apart
+            + "&useAffectedRows=true"
+            // Server-side prepared statements, cached per connection by the pool (StatementCache),
+            // so the driver's own cachePrepStmts stays off
+            + "&useServerPrepStmts=true";
+    // Read replicas of student_db, e.g. "jdbc:mysql://replica-1:3306/student_db".
+    // Reads fall back to the primary while this is empty.
+    private static final List<String> REPLICA_URLS = List.of();
     private static final String USER = "root";
     private static final String PASSWORD = "root";
 
-    // Option 1
-    private static Connection connection;
-
-    // Option 2
-    private static DataSource dataSource;
+    private static ConnectionPool connectionPool;
+    private static RoutingDataSource routingDataSource;
+    private static TransactionManager transactionManager;
 
     // Option 1
+    // Borrows a connection from the pool.
+    // The caller must close it (try-with-resources) to give it back.
     public static Connection getMySQLConnection() throws SQLException {
-        if (connection == null) {
-            //connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            connection = getMySQLDataSource().getConnection();
-        }
-        // throw custom exception as needed
-        return connection;
+        //connection = DriverManager.getConnection(URL, USER, PASSWORD);
+        return getMySQLDataSource().getConnection();
     }
 
     // Option 2
+    // A pooled DataSource that can safely be shared between threads.
     public static DataSource getMySQLDataSource() {
-        if (dataSource == null){
-            MysqlDataSource mysqlDataSource = new MysqlDataSource();
-            mysqlDataSource.setUrl(URL);
-            mysqlDataSource.setUser(USER);
-            mysqlDataSource.setPassword(PASSWORD);
-            dataSource = mysqlDataSource;
+        return getMySQLConnectionPool();
+    }
+
+    public static synchronized ConnectionPool getMySQLConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(mySQLDataSource(URL), new PoolConfig());
         }
-        return dataSource;
+        return connectionPool;
     }
 
+    // Option 3
+    // Borrows a connection for reads from a replica (or the primary if there is none).
+    // Replicas may lag behind, so do not use it to read something you just wrote.
+    public static Connection getMySQLReadConnection() throws SQLException {
+        return getRoutingDataSource().getReadConnection();
+    }
 
+    public static synchronized RoutingDataSource getRoutingDataSource() {
+        if (routingDataSource == null) {
+            List<ConnectionPool> replicas = new ArrayList<>();
+            for (String replicaUrl : REPLICA_URLS) {
+                replicas.add(new ConnectionPool(mySQLDataSource(replicaUrl), new PoolConfig()));
+            }
+            routingDataSource = new RoutingDataSource(getMySQLConnectionPool(), replicas, new RoutingConfig());
+        }
+        return routingDataSource;
+    }
 
+    /**
+     * Uses the given primary and replicas instead of the configured MySQL servers,
+     * e.g. several embedded databases in tests. Call before anything else in this class.
+     */
+    public static synchronized void configure(RoutingDataSource dataSource) {
+        if (routingDataSource != null || transactionManager != null) {
+            throw new IllegalStateException("DatabaseConnection is already in use");
+        }
+        routingDataSource = dataSource;
+        connectionPool = dataSource.getPrimary();
+    }
 
+    // Option 4
+    // Runs work in transactions on pooled connections, read-only transactions on a replica.
+    // DAOs built with getTransactionManager().getConnection() join the current transaction.
+    public static synchronized TransactionManager getTransactionManager() {
+        if (transactionManager == null) {
+            transactionManager = new TransactionManager(getRoutingDataSource());
+        }
+        return transactionManager;
+    }
 
+    // Option 5
+    // Unpooled connections for the bulk import/export tools (se.lexicon.bulk).
+    // allowLoadLocalInfile lets LOAD DATA LOCAL INFILE send a client-side stream. It also lets the
+    // server ask for any client file, so it is only switched on here and never for the pool.
+    public static DataSource getMySQLBulkDataSource() {
+        MysqlDataSource mysqlDataSource = mySQLDataSource(URL);
+        try {
+            mysqlDataSource.setAllowLoadLocalInfile(true);
+        } catch (SQLException e) {
+            System.err.println("❌ Error configuring bulk data source: " + e.getMessage());
+            throw new RuntimeException("Error configuring bulk data source", e);
+        }
+        return mysqlDataSource;
+    }
+
+    public static PoolStats getPoolStats() {
+        return getMySQLConnectionPool().getStats();
+    }
+
+    private static MysqlDataSource mySQLDataSource(String url) {
+        MysqlDataSource mysqlDataSource = new MysqlDataSource();
+        mysqlDataSource.setUrl(url);
+        mysqlDataSource.setUser(USER);
+        mysqlDataSource.setPassword(PASSWORD);
+        return mysqlDataSource;
+    }
 
 }
@@ -0,0 +1,111 @@
+package se.lexicon.db;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link ConnectionPool}.
+ * <p>
+ * The defaults are suitable for a small service talking to a local MySQL server.
+ */
+public class PoolConfig {
+
+    private int maximumPoolSize = 10;
+    private Duration borrowTimeout = Duration.ofSeconds(30);
+    private Duration validationTimeout = Duration.ofSeconds(5);
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Duration maxLifetime = Duration.ofMinutes(30);
+    private Duration housekeepingInterval = Duration.ofSeconds(30);
+    private int statementCacheSize = 100;
+
+    // Getters and Setters
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (maximumPoolSize < 1) {
+            throw new IllegalArgumentException("maximumPoolSize must be at least 1");
+        }
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    /**
+     * How long a caller waits for a free connection before getting an SQLException.
+     */
+    public Duration getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(Duration borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    /**
+     * Maximum time spent in {@code Connection.isValid} when validating on borrow.
+     */
+    public Duration getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(Duration validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Idle connections older than this are closed by the housekeeper.
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Physical connections are recycled once they reach this age.
+     */
+    public Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(Duration maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public Duration getHousekeepingInterval() {
+        return housekeepingInterval;
+    }
+
+    public void setHousekeepingInterval(Duration housekeepingInterval) {
+        this.housekeepingInterval = housekeepingInterval;
+    }
+
+    /**
+     * Prepared statements cached per connection, 0 disables the cache.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must not be negative");
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "PoolConfig{" +
+                "maximumPoolSize=" + maximumPoolSize +
+                ", borrowTimeout=" + borrowTimeout +
+                ", validationTimeout=" + validationTimeout +
+                ", idleTimeout=" + idleTimeout +
+                ", maxLifetime=" + maxLifetime +
+                ", housekeepingInterval=" + housekeepingInterval +
+                ", statementCacheSize=" + statementCacheSize +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package se.lexicon.db;
+
+import se.lexicon.metrics.LatencyHistogram;
+
+/**
+ * Point-in-time statistics of a {@link ConnectionPool}.
+ *
+ * @param active             connections currently borrowed
+ * @param idle               open connections waiting in the pool
+ * @param total              active + idle
+ * @param waiters            callers currently blocked waiting for a connection
+ * @param maximumPoolSize    configured upper bound of connections
+ * @param borrowCount        successful borrows since start
+ * @param timeoutCount       borrows that gave up after the borrow timeout
+ * @param waitTime           distribution of time spent waiting for a connection
+ * @param statementHits      prepareStatement calls answered from the statement cache
+ * @param statementMisses    prepareStatement calls that had to prepare a new statement
+ * @param statementEvictions statements closed because a connection's cache was full
+ */
+public record PoolStats(
+        int active,
+        int idle,
+        int total,
+        int waiters,
+        int maximumPoolSize,
+        long borrowCount,
+        long timeoutCount,
+        LatencyHistogram.Snapshot waitTime,
+        long statementHits,
+        long statementMisses,
+        long statementEvictions
+) {
+
+    public double statementHitRate() {
+        long lookups = statementHits + statementMisses;
+        return lookups == 0 ? 0 : (double) statementHits / lookups;
+    }
+}
@@ -0,0 +1,19 @@
+package se.lexicon.db;
+
+/**
+ * Point-in-time state of one replica behind a {@link RoutingDataSource}.
+ *
+ * @param index     position in the replica list
+ * @param available false while the replica is ejected
+ * @param load      borrowed connections plus waiters
+ * @param reads     connections handed out for reads since start
+ * @param ejections times the replica was taken out of rotation
+ */
+public record ReplicaStatus(
+        int index,
+        boolean available,
+        int load,
+        long reads,
+        long ejections
+) {
+}
@@ -0,0 +1,91 @@
+package se.lexicon.db;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link RoutingDataSource}.
+ */
+public class RoutingConfig {
+
+    /**
+     * How a read picks one of the available replicas.
+     */
+    public enum LoadBalancing {
+        // Each read goes to the next replica in turn
+        ROUND_ROBIN,
+        // Each read goes to the replica with the fewest borrowed connections and waiters
+        LEAST_LOADED
+    }
+
+    private LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    private Duration ejectionTime = Duration.ofSeconds(30);
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    // Getters and Setters
+    public LoadBalancing getLoadBalancing() {
+        return loadBalancing;
+    }
+
+    public void setLoadBalancing(LoadBalancing loadBalancing) {
+        this.loadBalancing = loadBalancing;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * Maximum time a health check waits for a connection and for {@code Connection.isValid}.
+     */
+    public Duration getHealthCheckTimeout() {
+        return healthCheckTimeout;
+    }
+
+    public void setHealthCheckTimeout(Duration healthCheckTimeout) {
+        this.healthCheckTimeout = healthCheckTimeout;
+    }
+
+    /**
+     * How long a failed replica gets no reads before it is tried again.
+     */
+    public Duration getEjectionTime() {
+        return ejectionTime;
+    }
+
+    public void setEjectionTime(Duration ejectionTime) {
+        this.ejectionTime = ejectionTime;
+    }
+
+    /**
+     * How long a {@link RoutingSession} keeps reading from the primary after its last write.
+     * Should be longer than the replication lag you expect; zero turns stickiness off.
+     */
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        if (readYourWritesWindow.isNegative()) {
+            throw new IllegalArgumentException("readYourWritesWindow must not be negative");
+        }
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "RoutingConfig{" +
+                "loadBalancing=" + loadBalancing +
+                ", healthCheckInterval=" + healthCheckInterval +
+                ", healthCheckTimeout=" + healthCheckTimeout +
+                ", ejectionTime=" + ejectionTime +
+                ", readYourWritesWindow=" + readYourWritesWindow +
+                '}';
+    }
+}
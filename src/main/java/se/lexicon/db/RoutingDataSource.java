@@ -0,0 +1,284 @@
+package se.lexicon.db;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Sends writes to a primary database and spreads reads over replicas.
+ * <p>
+ * Demonstrates:
+ * - {@link #getConnection()} always borrows from the primary, {@link #getReadConnection()} from a replica
+ * - Round-robin or least-loaded replica selection (see {@link RoutingConfig.LoadBalancing})
+ * - Background health checks that eject a failing replica for {@code ejectionTime}
+ * - Falling back to the primary when no replica is available
+ * - Per-session stickiness to the primary after a write (see {@link #newSession()})
+ * <p>
+ * Replicas lag behind the primary. Work that must see its own writes
+ * (read-your-writes) has to read from the primary: use a {@link RoutingSession}
+ * (the routing DAOs do), {@link #getConnection()}, a read-write transaction,
+ * or {@link TransactionOptions#setReadYourWrites}.
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas;
+    private final RoutingConfig config;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+
+    public RoutingDataSource(ConnectionPool primary, List<ConnectionPool> replicas) {
+        this(primary, replicas, new RoutingConfig());
+    }
+
+    public RoutingDataSource(ConnectionPool primary, List<ConnectionPool> replicas, RoutingConfig config) {
+        this.primary = primary;
+        this.config = config;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica(i, replicas.get(i)));
+        }
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("replica-health-check").factory()
+        );
+        if (!replicas.isEmpty()) {
+            long interval = config.getHealthCheckInterval().toMillis();
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Borrows a connection from the primary. Use it for writes and for reads that must see them.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    /**
+     * Borrows a connection from a replica, or from the primary if no replica is available.
+     * A replica that fails to hand out a connection is ejected and the next one is tried.
+     */
+    public Connection getReadConnection() throws SQLException {
+
+        for (int tries = 0; tries < replicas.size(); tries++) {
+            Replica replica = pickReplica();
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (SQLTransientConnectionException e) {
+                // Pool is busy, not broken: try another replica without ejecting this one
+            } catch (SQLException e) {
+                System.err.println("❌ Error connecting to replica " + replica.index + ": " + e.getMessage());
+                replica.eject();
+            }
+        }
+
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Starts a session, e.g. one per logged-in user or per request, whose reads
+     * go to the primary for {@code readYourWritesWindow} after each of its writes.
+     */
+    public RoutingSession newSession() {
+        return new RoutingSession(this, config.getReadYourWritesWindow());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Routed connections always use the configured credentials");
+    }
+
+    public ConnectionPool getPrimary() {
+        return primary;
+    }
+
+    public List<ReplicaStatus> getReplicaStatus() {
+        List<ReplicaStatus> status = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            status.add(new ReplicaStatus(
+                    replica.index,
+                    replica.isAvailable(),
+                    replica.pool.getLoad(),
+                    replica.reads.sum(),
+                    replica.ejections.sum()
+            ));
+        }
+        return status;
+    }
+
+    /**
+     * Reads that went to the primary because no replica was available.
+     */
+    public long getPrimaryFallbackCount() {
+        return primaryFallbacks.sum();
+    }
+
+    /**
+     * Stops the health checks and closes the primary and all replica pools.
+     */
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+        primary.close();
+    }
+
+    private Replica pickReplica() {
+        return switch (config.getLoadBalancing()) {
+            case ROUND_ROBIN -> pickRoundRobin();
+            case LEAST_LOADED -> pickLeastLoaded();
+        };
+    }
+
+    private Replica pickRoundRobin() {
+        int size = replicas.size();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), size));
+            if (replica.isAvailable()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica pickLeastLoaded() {
+        Replica best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        // Start at a rotating offset so equally loaded replicas share the reads
+        int size = replicas.size();
+        int offset = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((offset + i) % size);
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            int load = replica.pool.getLoad();
+            if (load < bestLoad) {
+                best = replica;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Ejects replicas that cannot hand out a valid connection.
+     * Ejected replicas are checked as well: one that keeps failing stays out,
+     * one that recovered gets reads again once its ejection time is over.
+     */
+    private void checkReplicas() {
+        int timeoutSeconds = (int) Math.max(1, config.getHealthCheckTimeout().toSeconds());
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection(config.getHealthCheckTimeout())) {
+                if (!connection.isValid(timeoutSeconds)) {
+                    replica.eject();
+                }
+            } catch (SQLTransientConnectionException e) {
+                // All connections busy: the replica is alive, just loaded
+            } catch (SQLException e) {
+                // Only report the first failure, not every check while the replica stays down
+                if (replica.eject()) {
+                    System.err.println("❌ Error checking replica " + replica.index + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // DataSource plumbing, delegated to the primary
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * One replica pool plus its ejection state.
+     */
+    private final class Replica {
+
+        private final int index;
+        private final ConnectionPool pool;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder ejections = new LongAdder();
+        private volatile long ejectedUntil;
+
+        Replica(int index, ConnectionPool pool) {
+            this.index = index;
+            this.pool = pool;
+        }
+
+        boolean isAvailable() {
+            return ejectedUntil == 0 || System.nanoTime() - ejectedUntil >= 0;
+        }
+
+        /**
+         * Takes the replica out of rotation, or keeps it out longer if it already is.
+         *
+         * @return true if the replica was available until now
+         */
+        boolean eject() {
+            boolean wasAvailable = isAvailable();
+            if (wasAvailable) {
+                ejections.increment();
+            }
+            ejectedUntil = System.nanoTime() + config.getEjectionTime().toNanos();
+            return wasAvailable;
+        }
+    }
+}
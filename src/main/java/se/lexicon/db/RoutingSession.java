@@ -0,0 +1,84 @@
+package se.lexicon.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes routing for one user or request, created by {@link RoutingDataSource#newSession()}.
+ * <p>
+ * Reads go to a replica until the session writes. After that they go to the primary
+ * until {@code readYourWritesWindow} has passed since the last write, by which time the
+ * replicas should have caught up. Other sessions keep reading from the replicas.
+ * <p>
+ * A session can be shared by threads, but is not meant to live longer than the user's session.
+ */
+public class RoutingSession {
+
+    private final RoutingDataSource dataSource;
+    private final long windowNanos;
+
+    // System.nanoTime() until which reads stick to the primary; 0 = never wrote
+    private volatile long stickyUntil;
+    private volatile boolean wrote;
+
+    RoutingSession(RoutingDataSource dataSource, Duration readYourWritesWindow) {
+        this.dataSource = dataSource;
+        this.windowNanos = readYourWritesWindow.toNanos();
+    }
+
+    /**
+     * A connection borrowed for a read. {@code mayLag} is true when it was meant to come from
+     * a replica, so what it reads may be older than the primary (and must not be cached).
+     */
+    public record ReadConnection(Connection connection, boolean mayLag) implements AutoCloseable {
+
+        @Override
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    /**
+     * Borrows a connection for a read: from the primary while the session is sticky, else from a replica.
+     */
+    public Connection getReadConnection() throws SQLException {
+        return borrowForRead().connection();
+    }
+
+    /**
+     * Same as {@link #getReadConnection()}, but also tells whether the reads may lag.
+     * Decided once, so the answer cannot change between the check and the borrow.
+     */
+    public ReadConnection borrowForRead() throws SQLException {
+        if (isSticky()) {
+            return new ReadConnection(dataSource.getConnection(), false);
+        }
+        return new ReadConnection(dataSource.getReadConnection(), true);
+    }
+
+    /**
+     * Borrows a primary connection for a write and makes the session sticky.
+     * Call {@link #writeFinished()} when the write is done (committed or not).
+     */
+    public Connection getWriteConnection() throws SQLException {
+        // Sticky from the start, so reads running alongside the write already use the primary
+        writeFinished();
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Restarts the window, so it is counted from the end of the write rather than its start.
+     */
+    public void writeFinished() {
+        wrote = true;
+        stickyUntil = System.nanoTime() + windowNanos;
+    }
+
+    /**
+     * True while reads go to the primary.
+     */
+    public boolean isSticky() {
+        return wrote && System.nanoTime() - stickyUntil < 0;
+    }
+}
@@ -0,0 +1,248 @@
+package se.lexicon.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ * <p>
+ * The DAOs prepare the same constant SQL over and over. With this cache the
+ * second {@code prepareStatement(sql)} on a connection returns the statement that
+ * was prepared the first time. Closing the returned statement closes its open result set,
+ * clears its parameters and batch, puts fetch size, max rows and query timeout back to
+ * what they were after preparing, and hands it back to the cache. A statement that
+ * cannot be reset is closed and dropped instead.
+ * <p>
+ * Statements are keyed by SQL text plus key-generation mode (or result set type
+ * and concurrency). A statement that is still in use is never handed out twice;
+ * the second caller simply gets an uncached statement.
+ */
+class StatementCache {
+
+    /**
+     * What a statement was prepared with. {@code mode} is the auto-generated-keys
+     * flag, or the result set type, depending on which prepareStatement was called.
+     */
+    record Key(String sql, int mode, int concurrency) {
+    }
+
+    /**
+     * Shared counters for all statement caches of one pool.
+     */
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private final int maximumSize;
+    private final Counters counters;
+    private final Map<Key, CachedStatement> statements;
+
+    StatementCache(int maximumSize, Counters counters) {
+        this.maximumSize = maximumSize;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a cached statement for the key, preparing it on the physical connection on a miss.
+     *
+     * @param owner    the connection handle the caller sees, returned by {@code getConnection()}
+     * @param physical the real connection used to prepare statements
+     */
+    synchronized PreparedStatement prepare(Key key, Connection owner, Connection physical) throws SQLException {
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            counters.hits.increment();
+            return cached.checkOut(owner);
+        }
+
+        counters.misses.increment();
+        PreparedStatement statement = prepare(physical, key);
+        if (cached != null) {
+            // Same SQL is already open (e.g. nested use), keep the cached one and use a throw-away statement
+            return statement;
+        }
+
+        cached = new CachedStatement(key, statement);
+        statements.put(key, cached);
+        evictIfFull();
+        return cached.checkOut(owner);
+    }
+
+    /**
+     * Drops all entries. Used when the physical connection is closed.
+     */
+    synchronized void clear() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closePhysical();
+        }
+        statements.clear();
+    }
+
+    private void evictIfFull() {
+        Iterator<CachedStatement> eldest = statements.values().iterator();
+        while (statements.size() > maximumSize && eldest.hasNext()) {
+            CachedStatement cached = eldest.next();
+            eldest.remove();
+            counters.evictions.increment();
+            if (cached.inUse) {
+                cached.closeOnReturn = true;
+            } else {
+                cached.closePhysical();
+            }
+        }
+    }
+
+    private static PreparedStatement prepare(Connection physical, Key key) throws SQLException {
+        if (key.concurrency() == 0) {
+            return physical.prepareStatement(key.sql(), key.mode());
+        }
+        return physical.prepareStatement(key.sql(), key.mode(), key.concurrency());
+    }
+
+    /**
+     * A physical statement plus its check-out state.
+     */
+    private final class CachedStatement {
+
+        private final Key key;
+        private final PreparedStatement physical;
+        private final int fetchSize;
+        private final long maxRows;
+        private final int queryTimeout;
+        private boolean inUse;
+        private boolean closeOnReturn;
+
+        CachedStatement(Key key, PreparedStatement physical) throws SQLException {
+            this.key = key;
+            this.physical = physical;
+            this.fetchSize = physical.getFetchSize();
+            this.maxRows = physical.getLargeMaxRows();
+            this.queryTimeout = physical.getQueryTimeout();
+        }
+
+        PreparedStatement checkOut(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(owner)
+            );
+        }
+
+        void checkIn() throws SQLException {
+            synchronized (StatementCache.this) {
+                inUse = false;
+                if (closeOnReturn) {
+                    closePhysical();
+                    return;
+                }
+            }
+            try {
+                reset();
+            } catch (SQLException e) {
+                // Never hand out a statement in an unknown state
+                synchronized (StatementCache.this) {
+                    statements.remove(key, this);
+                }
+                closePhysical();
+                throw e;
+            }
+        }
+
+        /**
+         * Undoes what the last user may have changed, e.g. the fetch size of a streaming query.
+         */
+        private void reset() throws SQLException {
+            ResultSet open = physical.getResultSet();
+            if (open != null) {
+                open.close();
+            }
+            physical.clearParameters();
+            physical.clearBatch();
+            // maxRows first: some drivers reject a fetch size above the current maxRows
+            if (physical.getLargeMaxRows() != maxRows) {
+                physical.setLargeMaxRows(maxRows);
+            }
+            if (physical.getFetchSize() != fetchSize) {
+                physical.setFetchSize(fetchSize);
+            }
+            if (physical.getQueryTimeout() != queryTimeout) {
+                physical.setQueryTimeout(queryTimeout);
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("❌ Error closing cached statement: " + e.getMessage());
+            }
+        }
+
+        /**
+         * The statement handle given to the caller. {@code close()} returns it to the cache.
+         */
+        private final class Handle implements InvocationHandler {
+
+            private final Connection owner;
+            private boolean closed;
+
+            Handle(Connection owner) {
+                this.owner = owner;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            checkIn();
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed || physical.isClosed();
+                    }
+                    case "getConnection" -> {
+                        return owner;
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    case "toString" -> {
+                        return "CachedStatement[" + physical + "]";
+                    }
+                    default -> {
+                        if (closed) {
+                            throw new SQLException("Statement has already been closed");
+                        }
+                    }
+                }
+
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package se.lexicon.db;
+
+/**
+ * Callbacks from {@link TransactionManager} when a transaction ends.
+ * <p>
+ * They run on the thread that ran the transaction, after the connection has been
+ * committed or rolled back but before it goes back to the pool. Only the outermost
+ * transaction calls them; nested calls join it and do not end anything.
+ */
+public interface TransactionListener {
+
+    default void afterCommit() {
+    }
+
+    default void afterRollback() {
+    }
+}
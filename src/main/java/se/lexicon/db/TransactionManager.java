@@ -0,0 +1,309 @@
+package se.lexicon.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs units of work in a transaction on a pooled connection.
+ * <p>
+ * Demonstrates:
+ * - Binding one connection to the current thread (virtual or platform) for the duration of a lambda
+ * - A shared connection handle ({@link #getConnection()}) that DAOs can be built with once;
+ *   every call on it goes to the connection bound to the calling thread
+ * - Commit on success, rollback on any exception, and always giving the connection back
+ * - Isolation level and read-only hints per transaction (see {@link TransactionOptions})
+ * - Read-only transactions on a replica when given a {@link RoutingDataSource}
+ * - Re-running the whole unit of work after a deadlock or lock-wait timeout, with jittered exponential backoff
+ * - Telling {@link TransactionListener}s when a transaction commits or rolls back
+ * <p>
+ * Example:
+ * <pre>
+ * TransactionManager tx = new TransactionManager(DatabaseConnection.getMySQLDataSource());
+ * StudentDao studentDao = new StudentDaoImpl(tx.getConnection());
+ *
+ * Student saved = tx.inTransaction(() -> studentDao.save(new Student("Ali Hasan", "G1")));
+ * </pre>
+ * A call made while a transaction is already bound joins that transaction: it does not
+ * commit, roll back or retry on its own, and its options are ignored.
+ */
+public class TransactionManager {
+
+    // MySQL error codes: ER_LOCK_DEADLOCK and ER_LOCK_WAIT_TIMEOUT
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+    /**
+     * Work that runs inside a transaction.
+     */
+    @FunctionalInterface
+    public interface TransactionCallback<T> {
+        T doInTransaction() throws SQLException;
+    }
+
+    private final DataSource dataSource;
+    private final ThreadLocal<Connection> bound = new ThreadLocal<>();
+    private final Connection connectionHandle;
+    private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public TransactionManager(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.connectionHandle = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new BoundConnection()
+        );
+    }
+
+    /**
+     * Runs the work in a read-write transaction with default options.
+     */
+    public <T> T inTransaction(TransactionCallback<T> work) {
+        return inTransaction(TransactionOptions.defaults(), work);
+    }
+
+    /**
+     * Runs the work in a read-only transaction.
+     */
+    public <T> T inReadOnlyTransaction(TransactionCallback<T> work) {
+        return inTransaction(TransactionOptions.readOnlyTransaction(), work);
+    }
+
+    /**
+     * Runs the work in a transaction and returns its result.
+     * The work may be run more than once if it hits a deadlock or lock-wait timeout,
+     * so it must not have side effects outside the database.
+     */
+    public <T> T inTransaction(TransactionOptions options, TransactionCallback<T> work) {
+
+        if (bound.get() != null) {
+            try {
+                return work.doInTransaction();
+            } catch (SQLException e) {
+                System.err.println("❌ Error in transaction: " + e.getMessage());
+                throw new RuntimeException("Error in transaction", e);
+            }
+        }
+
+        int attempt = 0;
+        while (true) {
+            try {
+                return runOnce(options, work);
+            } catch (SQLException | RuntimeException e) {
+                if (attempt >= options.getMaxRetries() || !isRetryable(e)) {
+                    if (e instanceof RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    System.err.println("❌ Error in transaction: " + e.getMessage());
+                    throw new RuntimeException("Error in transaction", e);
+                }
+                attempt++;
+                retries.increment();
+                backOff(options, attempt);
+            }
+        }
+    }
+
+    /**
+     * A connection handle that always points at the current thread's transaction.
+     * Build DAOs with it once and share them between threads.
+     * Using it outside {@code inTransaction} throws an SQLException; closing it does nothing.
+     */
+    public Connection getConnection() {
+        return connectionHandle;
+    }
+
+    /**
+     * Registers a listener that is told about every commit and rollback from now on.
+     */
+    public void addTransactionListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean isTransactionActive() {
+        return bound.get() != null;
+    }
+
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    public long getRollbackCount() {
+        return rollbacks.sum();
+    }
+
+    /**
+     * Transactions re-run after a deadlock or lock-wait timeout.
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    private <T> T runOnce(TransactionOptions options, TransactionCallback<T> work) throws SQLException {
+
+        try (Connection connection = borrow(options)) {
+
+            // The pool resets auto-commit, read-only and isolation when the connection is returned
+            connection.setAutoCommit(false);
+            if (options.getIsolation() != TransactionOptions.DEFAULT_ISOLATION) {
+                connection.setTransactionIsolation(options.getIsolation());
+            }
+            if (options.isReadOnly()) {
+                connection.setReadOnly(true);
+            }
+
+            bound.set(connection);
+            try {
+                T result = work.doInTransaction();
+                connection.commit();
+                commits.increment();
+                notifyListeners(true);
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(connection, e);
+                notifyListeners(false);
+                throw e;
+            } finally {
+                bound.remove();
+            }
+        }
+    }
+
+    /**
+     * Read-only work goes to a replica if the data source can route; everything else to the primary.
+     */
+    private Connection borrow(TransactionOptions options) throws SQLException {
+        if (options.isReadOnly() && !options.isReadYourWrites()
+                && dataSource instanceof RoutingDataSource routingDataSource) {
+            return routingDataSource.getReadConnection();
+        }
+        return dataSource.getConnection();
+    }
+
+    private void rollbackQuietly(Connection connection, Exception cause) {
+        rollbacks.increment();
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * A failing listener must not turn a committed transaction into an error, so failures are only reported.
+     */
+    private void notifyListeners(boolean committed) {
+        for (TransactionListener listener : listeners) {
+            try {
+                if (committed) {
+                    listener.afterCommit();
+                } else {
+                    listener.afterRollback();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error in transaction listener: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deadlocks and lock-wait timeouts are safe to retry: MySQL has rolled back
+     * (or will roll back) the transaction, so re-running it from the start is correct.
+     * DAOs wrap SQLExceptions in RuntimeExceptions, so the whole cause chain is checked.
+     */
+    public static boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (t instanceof SQLException sqlException) {
+                int code = sqlException.getErrorCode();
+                String state = sqlException.getSQLState();
+                if (code == MYSQL_DEADLOCK || code == MYSQL_LOCK_WAIT_TIMEOUT
+                        || (state != null && state.startsWith("40"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sleeps a random time up to initialBackoff * 2^(attempt - 1), capped at maxBackoff.
+     * The randomness keeps transactions that collided from colliding again.
+     */
+    private static void backOff(TransactionOptions options, int attempt) {
+        long ceiling = Math.min(
+                options.getMaxBackoff().toNanos(),
+                options.getInitialBackoff().toNanos() << Math.min(attempt - 1, 20)
+        );
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry a transaction", e);
+        }
+    }
+
+    /**
+     * Forwards every call to the connection bound to the calling thread.
+     * Transaction boundaries belong to the manager, so DAOs cannot commit,
+     * roll back, switch auto-commit or close the connection through this handle.
+     */
+    private final class BoundConnection implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    return null;
+                }
+                case "isClosed" -> {
+                    return bound.get() == null;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "TransactionBoundConnection[" + bound.get() + "]";
+                }
+                case "commit", "rollback", "setAutoCommit" -> {
+                    throw new SQLException("The transaction is managed by TransactionManager");
+                }
+                default -> {
+                }
+            }
+
+            Connection connection = bound.get();
+            if (connection == null) {
+                throw new SQLException("No transaction is active on this thread, use TransactionManager.inTransaction");
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
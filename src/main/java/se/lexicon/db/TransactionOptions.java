@@ -0,0 +1,123 @@
+package se.lexicon.db;
+
+import java.sql.Connection;
+import java.time.Duration;
+
+/**
+ * Settings for one {@link TransactionManager#inTransaction} call.
+ * <p>
+ * The defaults are a read-write transaction at the server's isolation level
+ * that is retried up to 3 times on deadlock or lock-wait timeout.
+ */
+public class TransactionOptions {
+
+    // Use the connection's isolation level as it is
+    public static final int DEFAULT_ISOLATION = -1;
+
+    private int isolation = DEFAULT_ISOLATION;
+    private boolean readOnly = false;
+    private boolean readYourWrites = false;
+    private int maxRetries = 3;
+    private Duration initialBackoff = Duration.ofMillis(10);
+    private Duration maxBackoff = Duration.ofSeconds(1);
+
+    public static TransactionOptions defaults() {
+        return new TransactionOptions();
+    }
+
+    public static TransactionOptions readOnlyTransaction() {
+        TransactionOptions options = new TransactionOptions();
+        options.setReadOnly(true);
+        return options;
+    }
+
+    // Getters and Setters
+
+    /**
+     * One of the {@code Connection.TRANSACTION_*} constants, or {@link #DEFAULT_ISOLATION}.
+     */
+    public int getIsolation() {
+        return isolation;
+    }
+
+    public void setIsolation(int isolation) {
+        if (isolation != DEFAULT_ISOLATION
+                && isolation != Connection.TRANSACTION_READ_UNCOMMITTED
+                && isolation != Connection.TRANSACTION_READ_COMMITTED
+                && isolation != Connection.TRANSACTION_REPEATABLE_READ
+                && isolation != Connection.TRANSACTION_SERIALIZABLE) {
+            throw new IllegalArgumentException("Unknown isolation level: " + isolation);
+        }
+        this.isolation = isolation;
+    }
+
+    /**
+     * Read-only transactions let MySQL skip assigning a transaction id and undo tracking.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Read-only transactions run on a replica when the manager uses a {@link RoutingDataSource}.
+     * Set this to read from the primary instead, e.g. right after a write that must be visible.
+     */
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * How many times the whole transaction is re-run after a deadlock or lock-wait timeout.
+     * 0 disables retrying.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Upper bound of the random wait before the first retry. Doubles on every further retry.
+     */
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "TransactionOptions{" +
+                "isolation=" + isolation +
+                ", readOnly=" + readOnly +
+                ", readYourWrites=" + readYourWrites +
+                ", maxRetries=" + maxRetries +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                '}';
+    }
+}
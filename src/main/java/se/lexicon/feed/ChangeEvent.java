@@ -0,0 +1,13 @@
+package se.lexicon.feed;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of change_outbox: a committed change to one student or attendance row.
+ *
+ * @param seq       position in the feed, increasing in insert order, not commit order (see {@link ChangeFeed} for gaps)
+ * @param tableName "student" or "attendance"
+ * @param rowId     id of the changed row
+ */
+public record ChangeEvent(long seq, String tableName, int rowId, ChangeOperation operation, LocalDateTime createdAt) {
+}
@@ -0,0 +1,422 @@
+package se.lexicon.feed;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the changes recorded in change_outbox, in order, for one named consumer.
+ * <p>
+ * Demonstrates:
+ * - Incremental reads by high-water mark: {@code WHERE seq > last_seq ORDER BY seq LIMIT batchSize}
+ * - At-least-once delivery: the checkpoint is saved only after the handler returned, so a crash
+ *   or a failing handler means the same batch is delivered again (handlers must be idempotent)
+ * - Checkpoints stored per consumer in change_feed_checkpoint, so a restart continues where it stopped
+ * - Holding back at gaps in seq: AUTO_INCREMENT values are handed out at insert time but become
+ *   visible at commit, so seq 11 can be read while seq 10 is still uncommitted. Moving the
+ *   high-water mark past 10 would lose it forever. The feed stops before a gap until it is
+ *   filled, or until every transaction that was open when the gap was seen has ended
+ *   (then the missing seq was rolled back and will never appear)
+ * <p>
+ * Example:
+ * <pre>
+ * try (ChangeFeed feed = new ChangeFeed(DatabaseConnection.getMySQLDataSource(), "search-indexer")) {
+ *     feed.start(events -> events.forEach(searchIndex::apply));
+ *     ...
+ * }
+ * </pre>
+ * The gap check assumes seq grows by 1 ({@code auto_increment_increment = 1}). On MySQL it reads
+ * {@code information_schema.innodb_trx}, which needs the PROCESS privilege; H2 (tests, benchmarks)
+ * uses {@code information_schema.sessions}. A transaction that stays open holds the feed back
+ * for as long as it is open: that is the price of never losing its change.
+ */
+public class ChangeFeed implements AutoCloseable {
+
+    /**
+     * Processes one batch of changes. Throwing makes the feed deliver the batch again later.
+     */
+    @FunctionalInterface
+    public interface ChangeHandler {
+        void handle(List<ChangeEvent> events) throws Exception;
+    }
+
+    private final DataSource dataSource;
+    private final String consumerName;
+    private final ChangeFeedConfig config;
+
+    // Only touched by the thread that polls (pollOnce is synchronized)
+    private long position = -1;
+    // First missing seq of the gap the feed is waiting at, or -1
+    private long gapSeq = -1;
+    // Transactions open when the gap was seen; one of them may hold the missing seq
+    private Set<Long> gapBlockers = new HashSet<>();
+
+    private ScheduledExecutorService poller;
+    private volatile boolean closed;
+
+    public ChangeFeed(DataSource dataSource, String consumerName) {
+        this(dataSource, consumerName, new ChangeFeedConfig());
+    }
+
+    public ChangeFeed(DataSource dataSource, String consumerName, ChangeFeedConfig config) {
+        this.dataSource = dataSource;
+        this.consumerName = consumerName;
+        this.config = config;
+    }
+
+    /**
+     * Delivers the next batch of changes to the handler and saves the checkpoint.
+     *
+     * @return the number of changes delivered, 0 if there was nothing new
+     */
+    public synchronized int pollOnce(ChangeHandler handler) {
+
+        List<ChangeEvent> events;
+        try (Connection connection = dataSource.getConnection()) {
+            if (position < 0) {
+                position = loadCheckpoint(connection);
+            }
+            if (gapSeq >= 0) {
+                // Checked before the fetch: a blocker that ended by now has committed
+                // (and the fetch sees its row) or rolled back (and the seq is gone for good)
+                gapBlockers.retainAll(openTransactions(connection));
+            }
+            events = deliverable(connection, fetch(connection, position));
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading change feed: " + e.getMessage());
+            throw new RuntimeException("Error reading change feed", e);
+        }
+
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            handler.handle(events);
+        } catch (Exception e) {
+            System.err.println("❌ Error handling changes after seq " + position + ": " + e.getMessage());
+            throw new RuntimeException("Error handling changes after seq " + position, e);
+        }
+
+        long last = events.getLast().seq();
+        try (Connection connection = dataSource.getConnection()) {
+            saveCheckpoint(connection, last);
+        } catch (SQLException e) {
+            // The batch will be delivered again, which at-least-once allows
+            System.err.println("❌ Error saving change feed checkpoint: " + e.getMessage());
+            throw new RuntimeException("Error saving change feed checkpoint", e);
+        }
+        position = last;
+        return events.size();
+    }
+
+    /**
+     * Polls in the background until {@link #close()}: batch after batch while there are changes,
+     * then every {@code pollInterval}. A failing batch is retried after {@code pollInterval}.
+     */
+    public synchronized void start(ChangeHandler handler) {
+        if (poller != null) {
+            throw new IllegalStateException("Change feed " + consumerName + " is already running");
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("change-feed-" + consumerName).factory()
+        );
+        long interval = config.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(() -> drain(handler), 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The seq of the last change this consumer has fully processed.
+     */
+    public synchronized long getPosition() {
+        if (position < 0) {
+            try (Connection connection = dataSource.getConnection()) {
+                position = loadCheckpoint(connection);
+            } catch (SQLException e) {
+                System.err.println("❌ Error reading change feed checkpoint: " + e.getMessage());
+                throw new RuntimeException("Error reading change feed checkpoint", e);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * True if this consumer has saved a checkpoint. Until then {@link #purgeConsumed} does not
+     * wait for it.
+     */
+    public boolean hasCheckpoint() {
+
+        String sql = "SELECT 1 FROM change_feed_checkpoint WHERE consumer_name = ?";
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, consumerName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading change feed checkpoint: " + e.getMessage());
+            throw new RuntimeException("Error reading change feed checkpoint", e);
+        }
+    }
+
+    /**
+     * A seq that a consumer may {@link #seek} to before rebuilding its state from the tables.
+     * <p>
+     * Reads the highest committed seq, then waits (checking every {@code pollInterval}) until
+     * every transaction open at that moment has ended. A lower seq still uncommitted then is
+     * either committed by the time this returns, so the rebuild sees it, or rolled back.
+     * Changes after the returned seq may already be in the tables; replaying them after the
+     * rebuild is harmless for an idempotent consumer.
+     */
+    public long safeHighWaterMark() {
+
+        String sql = "SELECT COALESCE(MAX(seq), 0) FROM change_outbox";
+
+        try (Connection connection = dataSource.getConnection()) {
+            long highWaterMark;
+            try (
+                    PreparedStatement ps = connection.prepareStatement(sql);
+                    ResultSet rs = ps.executeQuery()
+            ) {
+                rs.next();
+                highWaterMark = rs.getLong(1);
+            }
+
+            Set<Long> blockers = openTransactions(connection);
+            while (!blockers.isEmpty()) {
+                Thread.sleep(config.getPollInterval().toMillis());
+                blockers.retainAll(openTransactions(connection));
+            }
+            return highWaterMark;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading change feed high-water mark: " + e.getMessage());
+            throw new RuntimeException("Error reading change feed high-water mark", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for open transactions", e);
+        }
+    }
+
+    /**
+     * Moves the checkpoint to {@code seq}, so the next batch starts after it.
+     * For consumers that rebuilt their state from the tables and already contain every change up to seq.
+     */
+    public synchronized void seek(long seq) {
+        try (Connection connection = dataSource.getConnection()) {
+            saveCheckpoint(connection, seq);
+        } catch (SQLException e) {
+            System.err.println("❌ Error saving change feed checkpoint: " + e.getMessage());
+            throw new RuntimeException("Error saving change feed checkpoint", e);
+        }
+        position = seq;
+        gapSeq = -1;
+        gapBlockers = new HashSet<>();
+    }
+
+    /**
+     * Stops background polling. A batch being handled is finished first.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = poller;
+            poller = null;
+        }
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
+        try {
+            running.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deletes outbox rows that every consumer with a checkpoint has processed.
+     * Run it from time to time, e.g. nightly; a consumer that never saved a checkpoint is not protected.
+     *
+     * @return the number of rows deleted (at most {@code limit})
+     */
+    public static int purgeConsumed(DataSource dataSource, int limit) {
+
+        String sql = """
+                DELETE FROM change_outbox
+                WHERE seq <= (SELECT MIN(last_seq) FROM change_feed_checkpoint)
+                ORDER BY seq
+                LIMIT ?
+                """;
+
+        try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setInt(1, limit);
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error purging change outbox: " + e.getMessage());
+            throw new RuntimeException("Error purging change outbox", e);
+        }
+    }
+
+    private void drain(ChangeHandler handler) {
+        try {
+            while (!closed && pollOnce(handler) == config.getBatchSize()) {
+                // A full batch: there may be more right away
+            }
+        } catch (RuntimeException e) {
+            // Already reported; the same batch is tried again after pollInterval
+        }
+    }
+
+    /**
+     * Cuts the batch at the first gap in seq, unless every transaction that could still
+     * commit the missing seqs has ended.
+     */
+    private List<ChangeEvent> deliverable(Connection connection, List<ChangeEvent> fetched) throws SQLException {
+
+        List<ChangeEvent> events = new ArrayList<>(fetched.size());
+        long expected = position + 1;
+
+        for (ChangeEvent event : fetched) {
+            if (event.seq() != expected && !gapClosed(connection, expected)) {
+                break;
+            }
+            events.add(event);
+            expected = event.seq() + 1;
+        }
+        return events;
+    }
+
+    /**
+     * True if the seqs from missingSeq up to the next fetched one will never appear.
+     * <p>
+     * They were handed out before the fetch that found the gap, so their transactions are
+     * among those open right after it. Once all of those have ended (checked before the
+     * next fetch), a seq that is still missing was rolled back.
+     */
+    private boolean gapClosed(Connection connection, long missingSeq) throws SQLException {
+        if (gapSeq == missingSeq) {
+            if (gapBlockers.isEmpty()) {
+                gapSeq = -1;
+                return true;
+            }
+            return false;
+        }
+        gapSeq = missingSeq;
+        gapBlockers = openTransactions(connection);
+        // Even with nothing open, a blocker may have committed between the fetch and now:
+        // wait for the next fetch to see its row
+        return false;
+    }
+
+    /**
+     * Ids of the transactions open on other connections right now.
+     */
+    private static Set<Long> openTransactions(Connection connection) throws SQLException {
+
+        String sql = "H2".equals(connection.getMetaData().getDatabaseProductName())
+                ? """
+                  SELECT session_id FROM information_schema.sessions
+                  WHERE contains_uncommitted AND session_id <> SESSION_ID()
+                  """
+                : """
+                  SELECT trx_id FROM information_schema.innodb_trx
+                  WHERE trx_mysql_thread_id <> CONNECTION_ID()
+                  """;
+
+        Set<Long> open = new HashSet<>();
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()
+        ) {
+            while (rs.next()) {
+                open.add(rs.getLong(1));
+            }
+        }
+        return open;
+    }
+
+    private List<ChangeEvent> fetch(Connection connection, long afterSeq) throws SQLException {
+
+        String sql = """
+                SELECT seq, table_name, row_id, operation, created_at
+                FROM change_outbox
+                WHERE seq > ?
+                ORDER BY seq
+                LIMIT ?
+                """;
+
+        List<ChangeEvent> events = new ArrayList<>();
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setLong(1, afterSeq);
+            ps.setInt(2, config.getBatchSize());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new ChangeEvent(
+                            rs.getLong(1),
+                            rs.getString(2),
+                            rs.getInt(3),
+                            ChangeOperation.valueOf(rs.getString(4)),
+                            rs.getObject(5, LocalDateTime.class)
+                    ));
+                }
+            }
+        }
+        return events;
+    }
+
+    private long loadCheckpoint(Connection connection) throws SQLException {
+
+        String sql = "SELECT last_seq FROM change_feed_checkpoint WHERE consumer_name = ?";
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, consumerName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void saveCheckpoint(Connection connection, long lastSeq) throws SQLException {
+
+        String sql = """
+                INSERT INTO change_feed_checkpoint (consumer_name, last_seq)
+                VALUES (?, ?)
+                ON DUPLICATE KEY UPDATE last_seq = VALUES(last_seq)
+                """;
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(sql)
+        ) {
+            ps.setString(1, consumerName);
+            ps.setLong(2, lastSeq);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package se.lexicon.feed;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@link ChangeFeed}.
+ */
+public class ChangeFeedConfig {
+
+    private int batchSize = 500;
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // Getters and Setters
+
+    /**
+     * Maximum number of changes handed to the handler at once.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Pause between polls when the consumer has caught up.
+     * A rolled-back outbox insert holds the feed back for one or two of these.
+     */
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    // toString() Method
+    @Override
+    public String toString() {
+        return "ChangeFeedConfig{" +
+                "batchSize=" + batchSize +
+                ", pollInterval=" + pollInterval +
+                '}';
+    }
+}
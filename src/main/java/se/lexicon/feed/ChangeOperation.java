@@ -0,0 +1,10 @@
+package se.lexicon.feed;
+
+/**
+ * What happened to a row, as stored in change_outbox.operation.
+ */
+public enum ChangeOperation {
+    INSERT,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,116 @@
+package se.lexicon.feed;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Writes change_outbox rows for the DAOs (see Migration_Scripts.sql).
+ * <p>
+ * Demonstrates:
+ * - The transactional outbox: the change and its outbox row commit or roll back together
+ * - Joining the caller's transaction when there is one (auto-commit off),
+ *   otherwise running the write and the outbox insert in a short transaction of its own
+ * <p>
+ * A disabled outbox writes nothing and adds no transaction, for databases without the table.
+ */
+public class ChangeOutbox {
+
+    /**
+     * A write that must commit together with its outbox rows.
+     */
+    @FunctionalInterface
+    public interface OutboxWork<T> {
+        T run() throws SQLException;
+    }
+
+    private static final String INSERT_SQL = """
+            INSERT INTO change_outbox (table_name, row_id, operation)
+            VALUES (?, ?, ?)
+            """;
+
+    private final boolean enabled;
+
+    public ChangeOutbox() {
+        this(true);
+    }
+
+    private ChangeOutbox(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * An outbox that records nothing. Used when no outbox is configured.
+     */
+    public static ChangeOutbox disabled() {
+        return new ChangeOutbox(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the work so that everything it records commits with it.
+     * Commits and rolls back only if it started the transaction itself.
+     */
+    public <T> T inTransaction(Connection connection, OutboxWork<T> work) throws SQLException {
+
+        if (!enabled || !connection.getAutoCommit()) {
+            return work.run();
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            T result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    public void record(Connection connection, String tableName, ChangeOperation operation, int rowId)
+            throws SQLException {
+
+        if (!enabled) {
+            return;
+        }
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL)
+        ) {
+            ps.setString(1, tableName);
+            ps.setInt(2, rowId);
+            ps.setString(3, operation.name());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Records the same operation for many rows in one batch.
+     */
+    public void recordAll(Connection connection, String tableName, ChangeOperation operation,
+                          Collection<Integer> rowIds) throws SQLException {
+
+        if (!enabled || rowIds.isEmpty()) {
+            return;
+        }
+
+        try (
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL)
+        ) {
+            for (int rowId : rowIds) {
+                ps.setString(1, tableName);
+                ps.setInt(2, rowId);
+                ps.setString(3, operation.name());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
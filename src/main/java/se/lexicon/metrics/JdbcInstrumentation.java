@@ -0,0 +1,132 @@
+package se.lexicon.metrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wraps JDBC objects so every statement execution is timed.
+ * <p>
+ * Demonstrates:
+ * - Dynamic proxies as a lightweight decorator for JDBC interfaces
+ * - Capturing bound parameters (setInt, setString, ...) for the slow-query log
+ * <p>
+ * Records the metrics {@code jdbc.execute.latency}, {@code jdbc.execute.errors}
+ * and {@code jdbc.execute.slow}.
+ */
+public class JdbcInstrumentation {
+
+    public static final String EXECUTE_LATENCY = "jdbc.execute.latency";
+    public static final String EXECUTE_ERRORS = "jdbc.execute.errors";
+    public static final String SLOW_QUERIES = "jdbc.execute.slow";
+
+    private final MetricsRegistry registry;
+    private final SlowQueryLog slowQueryLog;
+
+    public JdbcInstrumentation(MetricsRegistry registry, SlowQueryLog slowQueryLog) {
+        this.registry = registry;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Every connection borrowed from the returned DataSource is instrumented.
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (method, args, result) ->
+                method.getName().equals("getConnection") ? wrap((Connection) result) : result);
+    }
+
+    /**
+     * Every PreparedStatement prepared on the returned connection is instrumented.
+     */
+    public Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (method, args, result) ->
+                method.getName().equals("prepareStatement")
+                        ? wrap((PreparedStatement) result, (String) args[0])
+                        : result);
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new StatementHandler(statement, sql)
+        );
+    }
+
+    /**
+     * Post-processes the result of a delegated call.
+     */
+    private interface ResultDecorator {
+        Object decorate(Method method, Object[] args, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultDecorator decorator) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") && args[0] == type) {
+                return target;
+            }
+            try {
+                return decorator.decorate(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Times execute* calls and remembers the parameters bound with set*.
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final PreparedStatement statement;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        StatementHandler(PreparedStatement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+
+            if (!name.startsWith("execute")) {
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            long start = System.nanoTime();
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                registry.increment(EXECUTE_ERRORS, 1);
+                throw e.getCause();
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                registry.recordLatency(EXECUTE_LATENCY, elapsed);
+                if (slowQueryLog.isSlow(elapsed)) {
+                    registry.increment(SLOW_QUERIES, 1);
+                    slowQueryLog.log(sql, parameters, elapsed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package se.lexicon.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes an {@link InMemoryMetricsRegistry} as a read-only JMX MBean.
+ * <p>
+ * Every counter becomes one attribute. Every histogram becomes the attributes
+ * {@code <name>.count}, {@code .meanMicros}, {@code .p50Micros}, {@code .p99Micros},
+ * {@code .p999Micros} and {@code .maxMicros}. The attribute list is rebuilt on each
+ * request, so metrics created later show up automatically.
+ */
+public class JmxMetrics implements DynamicMBean {
+
+    public static final String DEFAULT_OBJECT_NAME = "se.lexicon:type=DaoMetrics";
+
+    private static final String[] HISTOGRAM_FIELDS = {
+            "count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"
+    };
+
+    private final InMemoryMetricsRegistry registry;
+
+    public JmxMetrics(InMemoryMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registers the registry with the platform MBean server.
+     */
+    public static ObjectName register(InMemoryMetricsRegistry registry) {
+        return register(registry, DEFAULT_OBJECT_NAME);
+    }
+
+    public static ObjectName register(InMemoryMetricsRegistry registry, String objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new JmxMetrics(registry), name);
+            return name;
+        } catch (JMException e) {
+            System.err.println("❌ Error registering metrics MBean: " + e.getMessage());
+            throw new RuntimeException("Error registering metrics MBean", e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long counter = registry.counterValues().get(attribute);
+        if (counter != null) {
+            return counter;
+        }
+
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0) {
+            LatencyHistogram.Snapshot snapshot = registry.histogramSnapshots().get(attribute.substring(0, dot));
+            if (snapshot != null) {
+                switch (attribute.substring(dot + 1)) {
+                    case "count" -> {
+                        return snapshot.count();
+                    }
+                    case "meanMicros" -> {
+                        return snapshot.mean() / 1_000.0;
+                    }
+                    case "p50Micros" -> {
+                        return micros(snapshot.p50());
+                    }
+                    case "p99Micros" -> {
+                        return micros(snapshot.p99());
+                    }
+                    case "p999Micros" -> {
+                        return micros(snapshot.p999());
+                    }
+                    case "maxMicros" -> {
+                        return micros(snapshot.max());
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // skipped, as the JMX contract allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        if ("reset".equals(actionName)) {
+            registry.reset();
+        }
+        return null;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : registry.counterValues().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+        }
+        for (String name : registry.histogramSnapshots().keySet()) {
+            for (String field : HISTOGRAM_FIELDS) {
+                String type = field.equals("count") ? "long" : "double";
+                attributes.add(new MBeanAttributeInfo(name + "." + field, type, "Latency", true, false, false));
+            }
+        }
+        return new MBeanInfo(
+                JmxMetrics.class.getName(),
+                "DAO latency histograms and counters",
+                attributes.toArray(MBeanAttributeInfo[]::new),
+                null,
+                new MBeanOperationInfo[]{
+                        new MBeanOperationInfo("reset", "Resets all metrics",
+                                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)
+                },
+                null
+        );
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,159 @@
+package se.lexicon.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, fixed-size latency histogram.
+ * <p>
+ * Buckets are log-linear (like HdrHistogram): every power of two is split into
+ * 32 equally wide sub-buckets, which keeps the relative error around 3% from
+ * nanoseconds up to hours.
+ * <p>
+ * Recording a value never allocates, so it is cheap enough for hot paths such as
+ * borrowing a connection or executing a query.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Records one value in nanoseconds. Negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} value.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalSum.get() / count;
+    }
+
+    /**
+     * Returns the (upper bound of the) value below which the given percentage of
+     * recorded values fall, e.g. {@code valueAtPercentile(99.0)}.
+     */
+    public long valueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * Adds all values recorded in {@code other} to this histogram.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalSum.addAndGet(other.totalSum.get());
+        maxValue.accumulateAndGet(other.maxValue.get(), Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    /**
+     * Returns an immutable summary of the histogram.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+                getCount(),
+                getMean(),
+                valueAtPercentile(50),
+                valueAtPercentile(90),
+                valueAtPercentile(99),
+                valueAtPercentile(99.9),
+                getMax()
+        );
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT * 2) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Point-in-time summary of a histogram. All values are in nanoseconds.
+     */
+    public record Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+
+        @Override
+        public String toString() {
+            return "count=" + count +
+                    ", mean=" + format(Math.round(mean)) +
+                    ", p50=" + format(p50) +
+                    ", p90=" + format(p90) +
+                    ", p99=" + format(p99) +
+                    ", p99.9=" + format(p999) +
+                    ", max=" + format(max);
+        }
+
+        private static String format(long nanos) {
+            if (nanos >= TimeUnit.MILLISECONDS.toNanos(1)) {
+                return String.format("%.2fms", nanos / 1_000_000.0);
+            }
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package se.lexicon.metrics;
+
+/**
+ * Receives measurements from the instrumented DAOs and JDBC wrappers.
+ * <p>
+ * Implement this to forward metrics to another system; {@link InMemoryMetricsRegistry}
+ * keeps them in memory and can be exposed over JMX with {@link JmxMetrics}.
+ * Metric names are constant strings, so implementations should not need to allocate per call.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Records one latency measurement in nanoseconds.
+     */
+    void recordLatency(String name, long nanos);
+
+    /**
+     * Adds {@code delta} to a counter.
+     */
+    void increment(String name, long delta);
+
+    /**
+     * A registry that drops everything.
+     */
+    MetricsRegistry NOOP = new MetricsRegistry() {
+        @Override
+        public void recordLatency(String name, long nanos) {
+        }
+
+        @Override
+        public void increment(String name, long delta) {
+        }
+    };
+}
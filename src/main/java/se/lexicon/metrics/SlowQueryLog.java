@@ -0,0 +1,45 @@
+package se.lexicon.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Logs statements that take longer than a threshold, with their bound parameters.
+ */
+public class SlowQueryLog {
+
+    private final long thresholdNanos;
+    private final Consumer<String> sink;
+
+    /**
+     * Logs to System.err, like the rest of the DAO layer.
+     */
+    public SlowQueryLog(Duration threshold) {
+        this(threshold, System.err::println);
+    }
+
+    public SlowQueryLog(Duration threshold, Consumer<String> sink) {
+        this.thresholdNanos = threshold.toNanos();
+        this.sink = sink;
+    }
+
+    public boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * Logs the statement if it was slow.
+     *
+     * @param parameters bound parameters by index
+     */
+    public void log(String sql, Map<Integer, Object> parameters, long nanos) {
+        if (!isSlow(nanos)) {
+            return;
+        }
+        sink.accept(String.format("🐢 Slow query (%.2f ms): %s | parameters: %s",
+                nanos / 1_000_000.0,
+                sql.strip().replaceAll("\\s+", " "),
+                parameters));
+    }
+}
@@ -1,5 +1,44 @@
 package se.lexicon.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum AttendanceStatus {
-    PRESENT, ABSENT
+    PRESENT("Present"), ABSENT("Absent");
+
+    // Value stored in the ENUM('Present', 'Absent') column
+    private final String label;
+
+    // Exact labels as MySQL returns them, so the common case is one hash lookup per row
+    private static final Map<String, AttendanceStatus> BY_LABEL = new HashMap<>();
+
+    static {
+        for (AttendanceStatus status : values()) {
+            BY_LABEL.put(status.label, status);
+        }
+    }
+
+    AttendanceStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Maps a database value (e.g. "Present") back to the enum constant.
+     */
+    public static AttendanceStatus fromLabel(String label) {
+        AttendanceStatus exact = label == null ? null : BY_LABEL.get(label);
+        if (exact != null) {
+            return exact;
+        }
+        for (AttendanceStatus status : values()) {
+            if (status.label.equalsIgnoreCase(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown attendance status: " + label);
+    }
 }
@@ -0,0 +1,25 @@
+package se.lexicon.model;
+
+import java.time.LocalDate;
+
+/**
+ * Attendance counts for one day.
+ *
+ * @param date    the attendance date
+ * @param present number of PRESENT rows
+ * @param absent  number of ABSENT rows
+ */
+public record DailyAttendanceStats(LocalDate date, int present, int absent) {
+
+    public int total() {
+        return present + absent;
+    }
+
+    /**
+     * Share of PRESENT rows between 0.0 and 1.0 (0.0 when there are no rows).
+     */
+    public double presentRate() {
+        int total = total();
+        return total == 0 ? 0 : (double) present / total;
+    }
+}
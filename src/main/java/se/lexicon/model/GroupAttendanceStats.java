@@ -0,0 +1,23 @@
+package se.lexicon.model;
+
+/**
+ * Attendance counts for one class group.
+ *
+ * @param classGroup the class group, e.g. "G1"
+ * @param present    number of PRESENT rows
+ * @param absent     number of ABSENT rows
+ */
+public record GroupAttendanceStats(String classGroup, int present, int absent) {
+
+    public int total() {
+        return present + absent;
+    }
+
+    /**
+     * Share of PRESENT rows between 0.0 and 1.0 (0.0 when there are no rows).
+     */
+    public double presentRate() {
+        int total = total();
+        return total == 0 ? 0 : (double) present / total;
+    }
+}
@@ -0,0 +1,23 @@
+package se.lexicon.model;
+
+/**
+ * Attendance counts for one student.
+ *
+ * @param studentId the student
+ * @param present   number of PRESENT rows
+ * @param absent    number of ABSENT rows
+ */
+public record StudentAttendanceStats(int studentId, int present, int absent) {
+
+    public int total() {
+        return present + absent;
+    }
+
+    /**
+     * Share of PRESENT rows between 0.0 and 1.0 (0.0 when there are no rows).
+     */
+    public double presentRate() {
+        int total = total();
+        return total == 0 ? 0 : (double) present / total;
+    }
+}
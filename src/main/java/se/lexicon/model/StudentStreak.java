@@ -0,0 +1,11 @@
+package se.lexicon.model;
+
+/**
+ * Runs of PRESENT rows for one student, counted over recorded attendance days in date order.
+ *
+ * @param studentId the student
+ * @param longest   longest run of PRESENT rows without an ABSENT in between
+ * @param current   PRESENT rows since the student's latest ABSENT (0 if the latest row is ABSENT)
+ */
+public record StudentStreak(int studentId, int longest, int current) {
+}
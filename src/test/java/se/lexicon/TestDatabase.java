@@ -0,0 +1,106 @@
+package se.lexicon;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An embedded H2 database in MySQL mode with the schema of Lecture_Scripts.sql and Migration_Scripts.sql.
+ * Every call creates a new, empty database, which lives until the JVM exits.
+ * <p>
+ * The scripts are read from the test classpath (the pom copies them there) and only their
+ * CREATE TABLE and CREATE INDEX statements are run: the sample data, the example queries and
+ * the MySQL-only ALTER TABLE ... PARTITION statements are skipped.
+ * ALTER TABLE ... DROP FOREIGN KEY drops the table's foreign keys whatever H2 named them,
+ * so the tests see the same missing constraint as a migrated MySQL database.
+ */
+public final class TestDatabase {
+
+    private static final List<String> SCRIPTS = List.of("/Lecture_Scripts.sql", "/Migration_Scripts.sql");
+
+    private TestDatabase() {
+    }
+
+    public static JdbcDataSource create() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String script : SCRIPTS) {
+                for (String sql : schemaStatements(read(script))) {
+                    if (sql.toUpperCase().contains("DROP FOREIGN KEY")) {
+                        dropForeignKeys(connection, sql.split("\\s+")[2]);
+                    } else {
+                        statement.execute(sql);
+                    }
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Error creating test database", e);
+        }
+        return dataSource;
+    }
+
+    /**
+     * The CREATE TABLE, CREATE INDEX and ALTER TABLE ... DROP FOREIGN KEY statements of a script,
+     * without comments.
+     */
+    static List<String> schemaStatements(String script) {
+        StringBuilder withoutComments = new StringBuilder(script.length());
+        for (String line : script.split("\n")) {
+            int comment = line.indexOf("--");
+            withoutComments.append(comment < 0 ? line : line.substring(0, comment)).append('\n');
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String sql : withoutComments.toString().split(";")) {
+            String trimmed = sql.strip();
+            String upper = trimmed.toUpperCase();
+            if (upper.startsWith("CREATE TABLE") || upper.startsWith("CREATE INDEX")
+                    || (upper.startsWith("ALTER TABLE") && upper.contains("DROP FOREIGN KEY"))) {
+                statements.add(trimmed);
+            }
+        }
+        return statements;
+    }
+
+    private static void dropForeignKeys(Connection connection, String table) throws SQLException {
+        String sql = """
+                SELECT CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
+                WHERE UPPER(TABLE_NAME) = UPPER(?) AND CONSTRAINT_TYPE = 'FOREIGN KEY'
+                """;
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String name : names) {
+                statement.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + name + "\"");
+            }
+        }
+    }
+
+    private static String read(String script) throws IOException {
+        try (InputStream in = TestDatabase.class.getResourceAsStream(script)) {
+            if (in == null) {
+                throw new IOException(script + " is not on the test classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package se.lexicon.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.FetchPlan;
+import se.lexicon.dao.IndexedAttendanceDao;
+import se.lexicon.dao.IndexedStudentDao;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.feed.ChangeEvent;
+import se.lexicon.feed.ChangeFeed;
+import se.lexicon.feed.ChangeOutbox;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceBitmapIndexTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+    private static final LocalDate WEDNESDAY = MONDAY.plusDays(2);
+
+    private final ChangeOutbox outbox = new ChangeOutbox();
+
+    private DataSource dataSource;
+    private Connection connection;
+    private StudentDaoImpl studentDao;
+    private AttendanceDaoImpl attendanceDao;
+    private Student anna;
+    private Student ben;
+    private Student cecilia;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        connection = dataSource.getConnection();
+        studentDao = new StudentDaoImpl(connection, new BatchConfig(), StudentCache.disabled(),
+                QueryResultCache.disabled(), outbox);
+        attendanceDao = new AttendanceDaoImpl(connection, new BatchConfig(), StudentCache.disabled(),
+                FetchPlan.EAGER_JOIN, QueryResultCache.disabled(), outbox);
+
+        anna = studentDao.save(new Student("Anna", "G1"));
+        ben = studentDao.save(new Student("Ben", "G2"));
+        cecilia = studentDao.save(new Student("Cecilia", "G2"));
+
+        // Anna absent Monday and Wednesday, Ben absent Monday only, Cecilia has no row on Wednesday
+        attendanceDao.saveAll(List.of(
+                new Attendance(anna, MONDAY, AttendanceStatus.ABSENT),
+                new Attendance(anna, TUESDAY, AttendanceStatus.PRESENT),
+                new Attendance(anna, WEDNESDAY, AttendanceStatus.ABSENT),
+                new Attendance(ben, MONDAY, AttendanceStatus.ABSENT),
+                new Attendance(ben, TUESDAY, AttendanceStatus.PRESENT),
+                new Attendance(ben, WEDNESDAY, AttendanceStatus.PRESENT),
+                new Attendance(cecilia, MONDAY, AttendanceStatus.PRESENT),
+                new Attendance(cecilia, TUESDAY, AttendanceStatus.ABSENT)
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void answersSetQuestionsFromOneScan() {
+        AttendanceBitmapIndex index = new AttendanceBitmapIndex(attendanceDao, studentDao, 3);
+
+        assertEquals(8, index.reload());
+
+        assertIds(index.withStatus(MONDAY, AttendanceStatus.ABSENT), anna, ben);
+        assertIds(index.withStatusOnAll(AttendanceStatus.ABSENT, List.of(MONDAY, WEDNESDAY)), anna);
+        assertIds(index.withStatusOnAll(AttendanceStatus.ABSENT, List.of(MONDAY, MONDAY.minusDays(1))));
+        assertIds(index.withStatusOnAny(AttendanceStatus.ABSENT, TUESDAY, WEDNESDAY), anna, cecilia);
+        assertIds(index.withStatusAtLeast(AttendanceStatus.ABSENT, MONDAY, WEDNESDAY, 2), anna);
+        assertIds(index.withStatusAtLeast(AttendanceStatus.ABSENT, MONDAY, WEDNESDAY, 0), anna, ben, cecilia);
+        assertIds(index.unrecorded(WEDNESDAY), cecilia);
+        assertIds(index.withStatus(MONDAY, AttendanceStatus.ABSENT).and(index.inClassGroup("G2")), ben);
+        assertIds(index.not(index.inClassGroup("G2")), anna);
+        assertEquals(2, index.count(MONDAY, AttendanceStatus.ABSENT));
+        assertEquals(Set.of("G1", "G2"), index.getClassGroups());
+    }
+
+    @Test
+    void queriesReturnCopies() {
+        AttendanceBitmapIndex index = AttendanceBitmapIndex.load(attendanceDao, studentDao);
+
+        index.withStatus(MONDAY, AttendanceStatus.ABSENT).add(cecilia.getId());
+        index.allStudents().remove(anna.getId());
+
+        assertIds(index.withStatus(MONDAY, AttendanceStatus.ABSENT), anna, ben);
+        assertIds(index.allStudents(), anna, ben, cecilia);
+    }
+
+    @Test
+    void decoratorsKeepTheIndexCurrent() {
+        AttendanceBitmapIndex index = AttendanceBitmapIndex.load(attendanceDao, studentDao);
+        StudentDao students = new IndexedStudentDao(studentDao, index);
+        AttendanceDao attendance = new IndexedAttendanceDao(attendanceDao, index);
+
+        // Ben's Monday absence becomes a presence: he leaves one bitmap and joins the other
+        Attendance benMonday = attendance.findByStudent(ben.getId(), MONDAY, MONDAY).getFirst();
+        benMonday.setStatus(AttendanceStatus.PRESENT);
+        attendance.update(benMonday);
+        assertIds(index.withStatus(MONDAY, AttendanceStatus.ABSENT), anna);
+        assertIds(index.withStatus(MONDAY, AttendanceStatus.PRESENT), ben, cecilia);
+
+        attendance.upsert(new Attendance(cecilia, WEDNESDAY, AttendanceStatus.ABSENT));
+        assertIds(index.unrecorded(WEDNESDAY));
+
+        Student david = students.save(new Student("David", "G1"));
+        assertIds(index.inClassGroup("G1"), anna, david);
+        assertIds(index.unrecorded(WEDNESDAY), david);
+
+        cecilia.setClassGroup("G1");
+        students.update(cecilia);
+        assertIds(index.inClassGroup("G2"), ben);
+
+        for (Attendance row : attendance.findByStudent(david.getId(), MONDAY, WEDNESDAY)) {
+            attendance.delete(row.getId());
+        }
+        students.delete(david.getId());
+        assertIds(index.allStudents(), anna, ben, cecilia);
+    }
+
+    @Test
+    void followsTheChangeFeed() {
+        AttendanceBitmapIndex index = AttendanceBitmapIndex.load(attendanceDao, studentDao);
+        ChangeFeed feed = new ChangeFeed(dataSource, "bitmap-index");
+        feed.seek(feed.safeHighWaterMark());
+
+        // Written past the decorators, like the archive job or another node would
+        Attendance annaWednesday = attendanceDao.findByStudent(anna.getId(), WEDNESDAY, WEDNESDAY).getFirst();
+        attendanceDao.delete(annaWednesday.getId());
+        Student david = studentDao.save(new Student("David", "G2"));
+        attendanceDao.save(new Attendance(david, WEDNESDAY, AttendanceStatus.ABSENT));
+
+        List<ChangeEvent> delivered = new ArrayList<>();
+        assertEquals(3, feed.pollOnce(events -> {
+            delivered.addAll(events);
+            index.apply(events);
+        }));
+
+        assertIds(index.withStatus(WEDNESDAY, AttendanceStatus.ABSENT), david);
+        assertIds(index.unrecorded(WEDNESDAY), anna, cecilia);
+        assertIds(index.inClassGroup("G2"), ben, cecilia, david);
+
+        // Applying the same events again changes nothing
+        index.apply(delivered);
+        assertIds(index.withStatus(WEDNESDAY, AttendanceStatus.ABSENT), david);
+        assertIds(index.unrecorded(WEDNESDAY), anna, cecilia);
+        assertEquals(0, feed.pollOnce(index::apply));
+    }
+
+    private static void assertIds(CompressedBitmap actual, Student... expected) {
+        int[] ids = new int[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            ids[i] = expected[i].getId();
+        }
+        assertArrayEquals(ids, actual.toArray(), actual.toString());
+    }
+}
@@ -0,0 +1,131 @@
+package se.lexicon.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.AttendanceStatisticsDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+import se.lexicon.model.StudentAttendanceStats;
+import se.lexicon.model.StudentStreak;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendanceSnapshotTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    private Connection connection;
+    private AttendanceDaoImpl attendanceDao;
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        List<Student> newStudents = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            newStudents.add(new Student("Student " + i, "G" + (i % 3)));
+        }
+        students = new StudentDaoImpl(connection).saveAll(newStudents);
+        attendanceDao = new AttendanceDaoImpl(connection, new BatchConfig(500, true));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void aggregatesMatchTheSqlQueries() {
+        // More rows than the snapshot's initial capacity, so the columns have to grow
+        attendanceDao.saveAll(randomRows(300));
+        AttendanceSnapshot snapshot = AttendanceSnapshot.load(attendanceDao);
+        AttendanceStatisticsDaoImpl sql = new AttendanceStatisticsDaoImpl(connection);
+        LocalDate from = FIRST_DAY.plusDays(20);
+        LocalDate to = FIRST_DAY.plusDays(200);
+
+        assertEquals(2100, snapshot.size());
+        assertEquals(sql.countByStudent(from, to), snapshot.countByStudent(from, to));
+        assertEquals(sql.countByDate(from, to), snapshot.countByDate(from, to));
+        int studentId = students.get(3).getId();
+        assertEquals(sql.countForStudent(studentId, from, to), snapshot.countForStudent(studentId, from, to));
+    }
+
+    @Test
+    void refreshAppendsOnlyNewRowsAndReloadPicksUpUpdates() {
+        Student anna = students.getFirst();
+        Attendance first = attendanceDao.save(new Attendance(anna, FIRST_DAY, AttendanceStatus.PRESENT));
+        AttendanceSnapshot snapshot = AttendanceSnapshot.load(attendanceDao);
+
+        Attendance second = attendanceDao.save(new Attendance(anna, FIRST_DAY.plusDays(1), AttendanceStatus.PRESENT));
+        first.setStatus(AttendanceStatus.ABSENT);
+        attendanceDao.update(first);
+
+        assertEquals(1, snapshot.refresh());
+        assertEquals(second.getId(), snapshot.getHighWaterMark());
+        assertEquals(new StudentAttendanceStats(anna.getId(), 2, 0),
+                snapshot.countForStudent(anna.getId(), FIRST_DAY, FIRST_DAY.plusDays(1)));
+
+        snapshot.reload();
+        assertEquals(new StudentAttendanceStats(anna.getId(), 1, 1),
+                snapshot.countForStudent(anna.getId(), FIRST_DAY, FIRST_DAY.plusDays(1)));
+        assertEquals(0, snapshot.refresh());
+    }
+
+    @Test
+    void streaksFollowDateOrderNotInsertOrder() {
+        Student anna = students.getFirst();
+        Student ben = students.get(1);
+        // Anna by date: P P A P P P A P -> longest 3, current 1; inserted newest first
+        String pattern = "PPAPPPAP";
+        for (int day = pattern.length() - 1; day >= 0; day--) {
+            AttendanceStatus status = pattern.charAt(day) == 'P' ? AttendanceStatus.PRESENT : AttendanceStatus.ABSENT;
+            attendanceDao.save(new Attendance(anna, FIRST_DAY.plusDays(day), status));
+        }
+        attendanceDao.save(new Attendance(ben, FIRST_DAY, AttendanceStatus.ABSENT));
+
+        AttendanceSnapshot snapshot = AttendanceSnapshot.load(attendanceDao);
+
+        assertEquals(List.of(new StudentStreak(anna.getId(), 3, 1), new StudentStreak(ben.getId(), 0, 0)),
+                snapshot.streaks());
+        assertEquals(Optional.of(new StudentStreak(anna.getId(), 3, 1)), snapshot.streakForStudent(anna.getId()));
+        assertTrue(snapshot.streakForStudent(students.getLast().getId()).isEmpty());
+    }
+
+    @Test
+    void emptySnapshotAnswersWithoutRows() {
+        AttendanceSnapshot snapshot = AttendanceSnapshot.load(attendanceDao);
+
+        assertEquals(0, snapshot.size());
+        assertTrue(snapshot.countByStudent(FIRST_DAY, FIRST_DAY.plusYears(1)).isEmpty());
+        assertTrue(snapshot.countByDate(FIRST_DAY, FIRST_DAY.plusYears(1)).isEmpty());
+        assertTrue(snapshot.streaks().isEmpty());
+        assertEquals(0, snapshot.countForStudent(students.getFirst().getId(), FIRST_DAY, FIRST_DAY).total());
+    }
+
+    private List<Attendance> randomRows(int days) {
+        Random random = new Random(42);
+        List<Attendance> rows = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            for (Student student : students) {
+                AttendanceStatus status = random.nextInt(10) < 8 ? AttendanceStatus.PRESENT : AttendanceStatus.ABSENT;
+                rows.add(new Attendance(student, FIRST_DAY.plusDays(day), status));
+            }
+        }
+        return rows;
+    }
+}
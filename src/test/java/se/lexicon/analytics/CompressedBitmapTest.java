@@ -0,0 +1,113 @@
+package se.lexicon.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTest {
+
+    @Test
+    void addRemoveAndContainsAcrossContainers() {
+        CompressedBitmap bitmap = CompressedBitmap.of(70_000, 3, 1, 3, 65_535, 65_536);
+
+        assertArrayEquals(new int[]{1, 3, 65_535, 65_536, 70_000}, bitmap.toArray());
+        assertEquals(5, bitmap.cardinality());
+        assertEquals(70_000, bitmap.last());
+        assertTrue(bitmap.contains(65_536));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(-1));
+
+        bitmap.remove(65_536);
+        bitmap.remove(70_000);
+        bitmap.remove(4);
+        assertArrayEquals(new int[]{1, 3, 65_535}, bitmap.toArray());
+
+        bitmap.remove(1);
+        bitmap.remove(3);
+        bitmap.remove(65_535);
+        assertTrue(bitmap.isEmpty());
+        assertEquals(-1, bitmap.last());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(42);
+        // Dense enough in the first container to switch it to a bitmap, sparse in the others
+        for (int bound : new int[]{300, 20_000, 200_000}) {
+            BitSet left = randomBits(random, bound, 6_000);
+            BitSet right = randomBits(random, bound, 6_000);
+            CompressedBitmap a = toBitmap(left);
+            CompressedBitmap b = toBitmap(right);
+
+            BitSet and = (BitSet) left.clone();
+            and.and(right);
+            BitSet or = (BitSet) left.clone();
+            or.or(right);
+            BitSet andNot = (BitSet) left.clone();
+            andNot.andNot(right);
+
+            assertArrayEquals(and.stream().toArray(), a.and(b).toArray(), "and, bound " + bound);
+            assertArrayEquals(or.stream().toArray(), a.or(b).toArray(), "or, bound " + bound);
+            assertArrayEquals(andNot.stream().toArray(), a.andNot(b).toArray(), "andNot, bound " + bound);
+            assertEquals(left.cardinality(), a.cardinality());
+            assertEquals(left.length() - 1, a.last());
+        }
+    }
+
+    @Test
+    void containerSurvivesSwitchingBetweenArrayAndBitmap() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 10_000; value += 2) {
+            bitmap.add(value);
+        }
+        // Down to the array threshold and back over it
+        for (int value = 0; value < 4_000; value += 2) {
+            bitmap.remove(value);
+        }
+        for (int value = 1; value < 2_200; value += 2) {
+            bitmap.add(value);
+        }
+
+        assertEquals(4_100, bitmap.cardinality());
+        assertTrue(bitmap.contains(3) && bitmap.contains(4_000) && bitmap.contains(9_998));
+        assertFalse(bitmap.contains(2) || bitmap.contains(4_001));
+        assertEquals(9_998, bitmap.last());
+        assertArrayEquals(bitmap.toArray(), bitmap.copy().toArray());
+    }
+
+    @Test
+    void copiesAndResultsAreIndependent() {
+        CompressedBitmap original = CompressedBitmap.of(1, 2, 3);
+        CompressedBitmap copy = original.copy();
+        CompressedBitmap union = original.or(CompressedBitmap.of(4));
+
+        copy.add(5);
+        union.remove(1);
+
+        assertArrayEquals(new int[]{1, 2, 3}, original.toArray());
+        assertArrayEquals(new int[]{1, 2, 3, 5}, copy.toArray());
+        assertArrayEquals(new int[]{2, 3, 4}, union.toArray());
+    }
+
+    private static BitSet randomBits(Random random, int bound, int count) {
+        BitSet bits = new BitSet();
+        for (int i = 0; i < count; i++) {
+            bits.set(random.nextInt(bound));
+        }
+        return bits;
+    }
+
+    private static CompressedBitmap toBitmap(BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bits.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+}
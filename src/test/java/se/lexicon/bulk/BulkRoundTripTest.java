@@ -0,0 +1,184 @@
+package se.lexicon.bulk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.lexicon.TestDatabase;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * H2 has no LOAD DATA LOCAL, so imports here take the batch insert fallback.
+ */
+class BulkRoundTripTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    private DataSource source;
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = TestDatabase.create();
+        try (Connection connection = source.getConnection()) {
+            students = new StudentDaoImpl(connection).saveAll(List.of(
+                    new Student("Anna", "G1"),
+                    new Student("Ben \"B\", Jr.", "G2"),
+                    new Student("Cleo", "G1")
+            ));
+            AttendanceDaoImpl attendanceDao = new AttendanceDaoImpl(connection);
+            for (Student student : students) {
+                for (int day = 0; day < 4; day++) {
+                    AttendanceStatus status = day % 2 == 0 ? AttendanceStatus.PRESENT : AttendanceStatus.ABSENT;
+                    attendanceDao.save(new Attendance(student, MONDAY.plusDays(day), status));
+                }
+            }
+        }
+    }
+
+    @Test
+    void exportedFilesImportIntoAnEmptyDatabase() throws SQLException {
+        Path studentFile = dir.resolve("student.csv.gz");
+        Path attendanceFile = dir.resolve("attendance.csv");
+        BulkExporter exporter = new BulkExporter(source, 2);
+        assertEquals(3, exporter.exportCsv(BulkTable.STUDENT, studentFile).rows());
+        assertEquals(12, exporter.exportCsv(BulkTable.ATTENDANCE, attendanceFile).rows());
+
+        DataSource target = TestDatabase.create();
+        // Chunks of 5: two full chunks and a shorter last one for the attendance rows
+        BulkLoader loader = new BulkLoader(target, new BatchConfig(5, false));
+        BulkResult studentImport = loader.importCsv(BulkTable.STUDENT, studentFile);
+        BulkResult attendanceImport = loader.importCsv(BulkTable.ATTENDANCE, attendanceFile);
+
+        assertEquals(BulkResult.Method.BATCH_INSERT, studentImport.method());
+        assertEquals(3, studentImport.rows());
+        assertEquals(12, attendanceImport.rows());
+
+        try (Connection original = source.getConnection(); Connection copy = target.getConnection()) {
+            List<Student> expected = new StudentDaoImpl(original).findAll();
+            List<Student> actual = new StudentDaoImpl(copy).findAll();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getId(), actual.get(i).getId());
+                assertEquals(expected.get(i).getName(), actual.get(i).getName());
+                assertEquals(expected.get(i).getClassGroup(), actual.get(i).getClassGroup());
+                // The CSV keeps whole seconds
+                assertEquals(expected.get(i).getCreateDate().truncatedTo(ChronoUnit.SECONDS),
+                        actual.get(i).getCreateDate());
+            }
+
+            int annaId = students.getFirst().getId();
+            assertEquals(
+                    statuses(new AttendanceDaoImpl(original).findByStudent(annaId, MONDAY, MONDAY.plusDays(3))),
+                    statuses(new AttendanceDaoImpl(copy).findByStudent(annaId, MONDAY, MONDAY.plusDays(3))));
+        }
+    }
+
+    @Test
+    void existingKeysAreSkipped() throws IOException, SQLException {
+        Path file = dir.resolve("student.csv");
+        // An empty id lets AUTO_INCREMENT pick one, an empty create_date means now
+        Files.writeString(file, """
+                id,name,class_group,create_date
+                %d,Duplicate,G9,2020-01-01 00:00:00
+                ,Dana,G3,
+                """.formatted(students.getFirst().getId()), StandardCharsets.UTF_8);
+
+        BulkResult result = new BulkLoader(source).importCsv(BulkTable.STUDENT, file);
+
+        assertEquals(1, result.rows());
+        try (Connection connection = source.getConnection()) {
+            List<Student> all = new StudentDaoImpl(connection).findAll();
+            assertEquals(4, all.size());
+            assertEquals("Anna", all.getFirst().getName());
+            assertEquals("Dana", all.getLast().getName());
+            assertNotNull(all.getLast().getCreateDate());
+        }
+    }
+
+    @Test
+    void wrongHeaderIsRejected() throws IOException {
+        Path file = dir.resolve("attendance.csv");
+        Files.writeString(file, "student_id,attendance_date,status\n1,2024-01-01,Present\n", StandardCharsets.UTF_8);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> new BulkLoader(source).importCsv(BulkTable.ATTENDANCE, file));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+    }
+
+    @Test
+    void failedExportDeletesThePartialFile() {
+        Path file = dir.resolve("student.csv");
+        // The query fails on its first row, after the file and its header were written
+        DataSource failing = replacingSql(source, "SELECT id, name, class_group, 1 / (id - id) FROM student");
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> new BulkExporter(failing).exportCsv(BulkTable.STUDENT, file));
+
+        assertTrue(thrown.getCause().getMessage().startsWith("Division by zero"), thrown.getCause().getMessage());
+        assertFalse(Files.exists(file));
+    }
+
+    private static List<AttendanceStatus> statuses(List<Attendance> rows) {
+        return rows.stream().map(Attendance::getStatus).toList();
+    }
+
+    /**
+     * A data source whose connections prepare {@code sql} instead of the statement they are asked for.
+     */
+    private static DataSource replacingSql(DataSource target, String sql) {
+        return (DataSource) Proxy.newProxyInstance(BulkRoundTripTest.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (!(result instanceof Connection connection)) {
+                        return result;
+                    }
+                    return Proxy.newProxyInstance(BulkRoundTripTest.class.getClassLoader(),
+                            new Class<?>[]{Connection.class},
+                            (connectionProxy, connectionMethod, connectionArgs) -> {
+                                if (connectionMethod.getName().equals("prepareStatement")) {
+                                    connectionArgs[0] = sql;
+                                }
+                                return invoke(connection, connectionMethod, connectionArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
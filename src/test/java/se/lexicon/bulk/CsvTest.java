@@ -0,0 +1,75 @@
+package se.lexicon.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvTest {
+
+    @Test
+    void writerQuotesOnlyWhenNeeded() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        csv.writeRecord(new String[]{"1", "Anna", null, "Svensson, \"Ann\"\nG1"});
+
+        assertEquals("1,Anna,,\"Svensson, \"\"Ann\"\"\nG1\"\n", out.toString());
+    }
+
+    @Test
+    void readerReadsWhatTheWriterWrote() throws IOException {
+        List<String[]> records = List.of(
+                new String[]{"1", "Anna", "G1", "2024-01-01 08:00:00"},
+                new String[]{"2", "Ben, \"B\"", "line one\nline two", ""},
+                new String[]{"", "Åsa", "G2", "2024-01-02 09:30:00"}
+        );
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (String[] record : records) {
+            writer.writeRecord(record);
+        }
+
+        List<String[]> read = readAll(out.toString(), 4);
+
+        assertEquals(records.size(), read.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertArrayEquals(records.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void readerAcceptsCrLfAndSkipsBlankLines() {
+        List<String[]> read = readAll("1,\"a\"\r\n\r\n2,b\r\n\n", 2);
+
+        assertEquals(2, read.size());
+        assertArrayEquals(new String[]{"1", "a"}, read.get(0));
+        assertArrayEquals(new String[]{"2", "b"}, read.get(1));
+    }
+
+    @Test
+    void readerRejectsMalformedRecords() {
+        assertEquals("Line 2 has 1 fields, expected 2",
+                assertThrows(UncheckedIOException.class, () -> readAll("1,a\n2\n", 2)).getMessage());
+        assertEquals("Line 1 has more than 2 fields",
+                assertThrows(UncheckedIOException.class, () -> readAll("1,a,x\n", 2)).getMessage());
+        assertEquals("Unterminated quoted field starting on line 1",
+                assertThrows(UncheckedIOException.class, () -> readAll("1,\"a\n", 2)).getMessage());
+    }
+
+    private static List<String[]> readAll(String csv, int columnCount) {
+        CsvReader reader = new CsvReader(new BufferedReader(new StringReader(csv)), columnCount);
+        List<String[]> records = new ArrayList<>();
+        reader.forEachRemaining(records::add);
+        return records;
+    }
+}
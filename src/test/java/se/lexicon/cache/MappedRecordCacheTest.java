@@ -0,0 +1,171 @@
+package se.lexicon.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.lexicon.TestDatabase;
+import se.lexicon.dao.AttendanceDao;
+import se.lexicon.dao.AttendanceDaoImpl;
+import se.lexicon.dao.BatchConfig;
+import se.lexicon.dao.FetchPlan;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.feed.ChangeOutbox;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedRecordCacheTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    private final ChangeOutbox outbox = new ChangeOutbox();
+
+    private DataSource dataSource;
+    private Connection connection;
+    private StudentDao students;
+    private AttendanceDao attendance;
+    private Student anna;
+    private Student ben;
+    private MappedRecordCache cache;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        connection = dataSource.getConnection();
+        students = new StudentDaoImpl(connection, new BatchConfig(), StudentCache.disabled(),
+                QueryResultCache.disabled(), outbox);
+        attendance = new AttendanceDaoImpl(connection, new BatchConfig(), StudentCache.disabled(),
+                FetchPlan.EAGER_JOIN, QueryResultCache.disabled(), outbox);
+
+        anna = students.save(new Student("Anna", "G1"));
+        ben = students.save(new Student("Ben", "G2"));
+        attendance.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+        attendance.save(new Attendance(anna, MONDAY.plusDays(1), AttendanceStatus.ABSENT));
+        attendance.save(new Attendance(ben, MONDAY, AttendanceStatus.PRESENT));
+
+        cache = newCache();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        cache.close();
+        connection.close();
+    }
+
+    @Test
+    void firstStartLoadsBothTables() {
+        WarmUpResult result = cache.warmUp();
+
+        assertTrue(result.fullReload());
+        assertEquals(5, result.rowsLoaded());
+        assertEquals(0, result.changes(), "the reload already saw every change");
+        assertTrue(Files.exists(directory.resolve("students.slots")));
+
+        assertSameStudent(students.findById(anna.getId()).orElseThrow(), cache.findStudent(anna.getId()).orElseThrow());
+        assertEquals(List.of("Anna", "Ben"), cache.findAllStudents().stream().map(Student::getName).toList());
+
+        List<Attendance> rows = cache.findAllAttendance();
+        assertEquals(3, rows.size());
+        assertEquals(List.of(AttendanceStatus.PRESENT, AttendanceStatus.ABSENT, AttendanceStatus.PRESENT),
+                rows.stream().map(Attendance::getStatus).toList());
+        assertSame(rows.get(0).getStudent(), rows.get(1).getStudent());
+
+        Attendance first = cache.findAttendance(rows.getFirst().getId()).orElseThrow();
+        assertEquals(MONDAY, first.getAttendanceDate());
+        assertEquals("Anna", first.getStudent().getName());
+
+        assertTrue(cache.findStudent(999).isEmpty());
+        assertTrue(cache.findAttendance(999).isEmpty());
+    }
+
+    @Test
+    void catchUpAppliesInsertsUpdatesAndDeletes() {
+        cache.warmUp();
+        long seq = cache.getSeq();
+
+        Student cecilia = students.save(new Student("Cecilia", "G1"));
+        ben.setClassGroup("G3");
+        students.update(ben);
+        Attendance removed = cache.findAllAttendance().getLast();
+        attendance.delete(removed.getId());
+
+        assertEquals(3, cache.catchUp());
+
+        assertTrue(cache.getSeq() > seq);
+        assertEquals("Cecilia", cache.findStudent(cecilia.getId()).orElseThrow().getName());
+        assertEquals("G3", cache.findStudent(ben.getId()).orElseThrow().getClassGroup());
+        assertTrue(cache.findAttendance(removed.getId()).isEmpty());
+        assertEquals(2, cache.findAllAttendance().size());
+        assertEquals(0, cache.catchUp());
+    }
+
+    @Test
+    void restartOnlyAppliesTheChangesSinceTheLastRun() {
+        cache.warmUp();
+        cache.close();
+
+        students.save(new Student("Cecilia", "G1"));
+        attendance.save(new Attendance(ben, MONDAY.plusDays(1), AttendanceStatus.ABSENT));
+
+        cache = newCache();
+        WarmUpResult result = cache.warmUp();
+
+        assertFalse(result.fullReload());
+        assertEquals(0, result.rowsLoaded());
+        assertEquals(2, result.changes());
+        assertEquals(3, cache.findAllStudents().size());
+        assertEquals(4, cache.findAllAttendance().size());
+    }
+
+    @Test
+    void damagedFilesAreLoadedAgain() throws IOException {
+        cache.warmUp();
+        cache.close();
+
+        Files.delete(directory.resolve("attendance.slots"));
+
+        cache = newCache();
+        WarmUpResult result = cache.warmUp();
+
+        assertTrue(result.fullReload());
+        assertEquals(5, result.rowsLoaded());
+        assertEquals(3, cache.findAllAttendance().size());
+    }
+
+    @Test
+    void readsNeedWarmUpFirst() {
+        assertThrows(IllegalStateException.class, () -> cache.findStudent(anna.getId()));
+        assertThrows(IllegalStateException.class, cache::findAllAttendance);
+    }
+
+    private MappedRecordCache newCache() {
+        return new MappedRecordCache(dataSource, directory, "record-cache", StudentDaoImpl::new, AttendanceDaoImpl::new);
+    }
+
+    private static void assertSameStudent(Student expected, Student actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getClassGroup(), actual.getClassGroup());
+        assertEquals(expected.getCreateDate(), actual.getCreateDate());
+    }
+}
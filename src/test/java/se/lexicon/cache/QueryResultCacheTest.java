@@ -0,0 +1,146 @@
+package se.lexicon.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import se.lexicon.TestDatabase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryResultCacheTest {
+
+    private static final QueryKey ATTENDANCE = QueryKey.of(Set.of("attendance", "student"), "attendance.findAll");
+    private static final QueryKey STUDENT = QueryKey.of(Set.of("student"), "student.findById", 1);
+
+    private final QueryResultCache cache = new QueryResultCache(1_000, null);
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void writeDropsOnlyResultsThatReadTheTable() {
+        AtomicInteger loads = new AtomicInteger();
+        get(ATTENDANCE, counting(loads, "rows"));
+        get(STUDENT, counting(loads, "Anna"));
+
+        cache.tablesChanged(connection, "attendance");
+        get(ATTENDANCE, counting(loads, "rows"));
+        get(STUDENT, counting(loads, "Anna"));
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResultsOverTheWeight() {
+        cache.get(ATTENDANCE, () -> "rows", value -> 600);
+        cache.get(STUDENT, () -> "Anna", value -> 600);
+
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(600, cache.getWeight());
+        assertEquals("Anna", cache.get(STUDENT, () -> "reloaded", value -> 600));
+    }
+
+    @Test
+    void ownUncommittedWritesBypassTheCacheUntilTheTransactionEnds() throws SQLException {
+        get(STUDENT, () -> "Anna");
+        connection.setAutoCommit(false);
+        cache.tablesChanged(connection, "student");
+
+        assertEquals("Uncommitted", get(STUDENT, () -> "Uncommitted"));
+        assertEquals("Rolled back", get(STUDENT, () -> "Rolled back"), "nothing was stored");
+
+        cache.afterRollback();
+        assertEquals("Anna", get(STUDENT, () -> "Anna"));
+        assertEquals("Anna", get(STUDENT, () -> "not loaded again"));
+    }
+
+    @Test
+    @Timeout(10)
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> get(STUDENT, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Anna";
+        }));
+        waitUntilLoading(loads);
+
+        CompletableFuture<String> second =
+                CompletableFuture.supplyAsync(() -> get(STUDENT, counting(loads, "other")));
+        while (cache.getSharedLoadCount() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("Anna", first.get());
+        assertEquals("Anna", second.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @Timeout(10) // Joining the stale load would wait for a release that never comes
+    void loadStartedBeforeAWriteIsNotJoinedAndNotStored() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> get(STUDENT, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Old name";
+        }));
+        waitUntilLoading(loads);
+
+        // This thread renames the student while the other load is still running
+        cache.tablesChanged(connection, "student");
+        assertEquals("New name", get(STUDENT, () -> "New name"));
+        assertEquals(0, cache.getSharedLoadCount());
+
+        release.countDown();
+        assertEquals("Old name", stale.get());
+        assertEquals("New name", get(STUDENT, () -> "not loaded again"));
+    }
+
+    private String get(QueryKey key, Supplier<String> loader) {
+        return cache.get(key, loader, value -> 10);
+    }
+
+    private static Supplier<String> counting(AtomicInteger loads, String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    private static void waitUntilLoading(AtomicInteger loads) {
+        while (loads.get() == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
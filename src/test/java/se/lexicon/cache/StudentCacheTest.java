@@ -0,0 +1,118 @@
+package se.lexicon.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StudentCacheTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private final StudentCache cache = new StudentCache(2, null);
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void countsHitsMissesAndEvictions() {
+        assertNull(cache.get(1));
+        cache.put(1, student(1, "Anna"));
+        cache.put(2, student(2, "Ben"));
+        assertNotNull(cache.get(1));
+        cache.put(3, student(3, "Cleo")); // evicts Ben, the least recently used
+
+        assertNull(cache.get(2));
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() throws InterruptedException {
+        StudentCache expiring = new StudentCache(10, Duration.ofMillis(1));
+        expiring.put(1, student(1, "Anna"));
+        Thread.sleep(5);
+
+        assertNull(expiring.get(1));
+        assertEquals(1, expiring.getStats().expirations());
+    }
+
+    @Test
+    void callersNeverShareTheCachedStudent() {
+        Student anna = student(1, "Anna");
+        cache.put(1, anna);
+        anna.setName("Changed after put");
+        cache.get(1).setName("Changed after get");
+
+        assertEquals("Anna", cache.get(1).getName());
+    }
+
+    @Test
+    void staleReadCachedDuringTheTransactionIsDroppedOnRollback() throws SQLException {
+        connection.setAutoCommit(false);
+        cache.invalidate(connection, 1);
+        // Another connection still sees the old row until this transaction ends, and caches it
+        cache.put(1, student(1, "Old name"));
+
+        cache.afterRollback();
+        assertNull(cache.get(1));
+
+        // The rollback cleared the pending ids, so the next commit leaves new entries alone
+        cache.put(1, student(1, "Anna"));
+        cache.afterCommit();
+        assertNotNull(cache.get(1));
+    }
+
+    @Test
+    void staleReadCachedDuringTheTransactionIsDroppedOnCommit() throws SQLException {
+        connection.setAutoCommit(false);
+        cache.invalidate(connection, 1);
+        cache.put(1, student(1, "Old name"));
+
+        cache.afterCommit();
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void unreportedTransactionEndIsDetectedOnTheNextWrite() throws SQLException {
+        connection.setAutoCommit(false);
+        cache.invalidate(connection, 1);
+        connection.commit();
+        connection.setAutoCommit(true);
+        // Nobody called afterCommit, so the stale copy survives until the next write on this thread
+        cache.put(1, student(1, "Old name"));
+
+        cache.invalidate(connection, 2);
+        assertNull(cache.get(1));
+
+        cache.put(1, student(1, "Anna"));
+        cache.afterCommit();
+        assertNotNull(cache.get(1), "the pending ids were already flushed");
+    }
+
+    private static Student student(int id, String name) {
+        return new Student(id, name, "G1", CREATED);
+    }
+}
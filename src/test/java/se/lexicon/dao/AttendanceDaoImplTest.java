@@ -0,0 +1,240 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendanceDaoImplTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private DataSource dataSource;
+    private Connection connection;
+    private Student anna;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        connection = dataSource.getConnection();
+        anna = new StudentDaoImpl(connection).save(new Student("Anna", "G1"));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void saveAllAssignsGeneratedIdsWithBothBatchModes() {
+        for (boolean multiRowValues : new boolean[]{false, true}) {
+            AttendanceDaoImpl dao = new AttendanceDaoImpl(connection, new BatchConfig(2, multiRowValues));
+            LocalDate first = multiRowValues ? MONDAY.plusDays(10) : MONDAY;
+
+            List<Attendance> saved = dao.saveAll(days(anna, first, 5));
+
+            for (Attendance attendance : saved) {
+                Attendance found = dao.findById(attendance.getId()).orElseThrow();
+                assertEquals(attendance.getAttendanceDate(), found.getAttendanceDate());
+            }
+        }
+        assertEquals(10, new AttendanceDaoImpl(connection).findAll().size());
+    }
+
+    @Test
+    void failingChunkLeavesEarlierChunksCommitted() {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection, new BatchConfig(2, false));
+        List<Attendance> rows = days(anna, MONDAY, 4);
+        // Same student and date as the first row: the third chunk violates the unique key
+        rows.add(new Attendance(anna, MONDAY, AttendanceStatus.ABSENT));
+
+        assertThrows(RuntimeException.class, () -> dao.saveAll(rows));
+
+        assertEquals(4, dao.findAll().size());
+    }
+
+    @Test
+    void saveAllJoinsTheCallersTransaction() throws SQLException {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection, new BatchConfig(2, false));
+
+        connection.setAutoCommit(false);
+        dao.saveAll(days(anna, MONDAY, 3));
+        connection.rollback();
+        connection.setAutoCommit(true);
+
+        assertTrue(dao.findAll().isEmpty());
+    }
+
+    @Test
+    void findPageWalksEqualDatesWithoutSkippingOrRepeating() {
+        StudentDaoImpl studentDao = new StudentDaoImpl(connection);
+        Student ben = studentDao.save(new Student("Ben", "G1"));
+        Student cleo = studentDao.save(new Student("Cleo", "G1"));
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+        // Three rows per date, so every page boundary falls between rows with the same date
+        for (Student student : List.of(cleo, anna, ben)) {
+            dao.saveAll(days(student, MONDAY, 3));
+        }
+
+        List<Attendance> walked = new ArrayList<>();
+        Page<Attendance> page = dao.findPage(PageRequest.first(2));
+        walked.addAll(page.items());
+        while (page.hasNext()) {
+            page = dao.findPage(page.nextRequest(2));
+            walked.addAll(page.items());
+        }
+
+        assertEquals(9, walked.size());
+        assertEquals(9, walked.stream().map(Attendance::getId).distinct().count());
+        for (int i = 1; i < walked.size(); i++) {
+            Attendance previous = walked.get(i - 1);
+            Attendance current = walked.get(i);
+            int byDate = previous.getAttendanceDate().compareTo(current.getAttendanceDate());
+            assertTrue(byDate < 0 || (byDate == 0 && previous.getId() < current.getId()),
+                    "ordered by date, then id");
+        }
+    }
+
+    @Test
+    void findPageIsNotShiftedByRowsInsertedBeforeTheCursor() {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+        dao.saveAll(days(anna, MONDAY, 4));
+
+        Page<Attendance> first = dao.findPage(PageRequest.first(2));
+        Student ben = new StudentDaoImpl(connection).save(new Student("Ben", "G1"));
+        dao.save(new Attendance(ben, MONDAY, AttendanceStatus.PRESENT));
+        Page<Attendance> second = dao.findPage(first.nextRequest(2));
+
+        assertEquals(List.of(MONDAY.plusDays(2), MONDAY.plusDays(3)),
+                second.items().stream().map(Attendance::getAttendanceDate).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void findPageRejectsForeignCursors() {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+
+        assertThrows(IllegalArgumentException.class, () -> dao.findPage(new PageRequest(2, "not a cursor")));
+        assertThrows(IllegalArgumentException.class,
+                () -> dao.findPage(new PageRequest(2, KeysetCursor.encodeId(7))));
+    }
+
+    @Test
+    void joinedRowsReuseTheCachedStudent() {
+        StudentCache cache = new StudentCache();
+        new StudentDaoImpl(connection, new BatchConfig(), cache).findById(anna.getId());
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection, new BatchConfig(), cache);
+        dao.saveAll(days(anna, MONDAY, 3));
+        long hitsBefore = cache.getStats().hits();
+
+        List<Attendance> rows = dao.findAll();
+
+        assertEquals(1, cache.getStats().hits() - hitsBefore, "one lookup per distinct student");
+        assertSame(rows.get(0).getStudent(), rows.get(2).getStudent());
+        assertEquals("Anna", rows.getFirst().getStudent().getName());
+    }
+
+    @Test
+    void findByStudentReturnsOnlyThatStudentInDateOrder() {
+        Student ben = new StudentDaoImpl(connection).save(new Student("Ben", "G1"));
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+        dao.saveAll(days(ben, MONDAY, 5));
+        List<Attendance> annas = days(anna, MONDAY, 5);
+        Collections.reverse(annas);
+        dao.saveAll(annas);
+
+        List<Attendance> found = dao.findByStudent(anna.getId(), MONDAY.plusDays(1), MONDAY.plusDays(3));
+
+        assertEquals(List.of(MONDAY.plusDays(1), MONDAY.plusDays(2), MONDAY.plusDays(3)),
+                found.stream().map(Attendance::getAttendanceDate).toList());
+        assertTrue(found.stream().allMatch(a -> a.getStudent().getId() == anna.getId()));
+    }
+
+    @Test
+    void findByDateRangeReturnsEveryoneOrderedByDateAndId() {
+        Student ben = new StudentDaoImpl(connection).save(new Student("Ben", "G1"));
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+        dao.saveAll(days(ben, MONDAY, 5));
+        dao.saveAll(days(anna, MONDAY, 5));
+
+        List<Attendance> found = dao.findByDateRange(MONDAY.plusDays(3), MONDAY.plusDays(4));
+
+        assertEquals(4, found.size());
+        assertEquals(List.of(ben.getId(), anna.getId(), ben.getId(), anna.getId()),
+                found.stream().map(a -> a.getStudent().getId()).toList());
+        assertTrue(dao.findByDateRange(MONDAY.plusDays(5), MONDAY.plusDays(9)).isEmpty());
+    }
+
+    @Test
+    void findByDateRangeUsesTheDateIndex() throws SQLException {
+        String sql = "EXPLAIN SELECT * FROM attendance a WHERE a.attendance_date BETWEEN DATE '2024-01-01' AND DATE '2024-01-07'";
+        try (Statement statement = connection.createStatement(); ResultSet plan = statement.executeQuery(sql)) {
+            assertTrue(plan.next());
+            assertTrue(plan.getString(1).toLowerCase().contains("idx_attendance_date"), plan.getString(1));
+        }
+    }
+
+    @Test
+    void upsertReportsInsertedUpdatedAndUnchanged() {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+        Attendance attendance = new Attendance(anna, MONDAY, AttendanceStatus.PRESENT);
+
+        assertEquals(UpsertResult.INSERTED, dao.upsert(attendance));
+        assertTrue(attendance.getId() > 0);
+        assertEquals(UpsertResult.UPDATED, dao.upsert(new Attendance(anna, MONDAY, AttendanceStatus.ABSENT)));
+        assertEquals(UpsertResult.UNCHANGED, dao.upsert(new Attendance(anna, MONDAY, AttendanceStatus.ABSENT)));
+
+        List<Attendance> rows = dao.findAll();
+        assertEquals(1, rows.size());
+        assertEquals(attendance.getId(), rows.getFirst().getId());
+        assertEquals(AttendanceStatus.ABSENT, rows.getFirst().getStatus());
+    }
+
+    @Test
+    void upsertAllReportsOneResultPerRowInOrder() {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection, new BatchConfig(2, false));
+        dao.saveAll(List.of(
+                new Attendance(anna, MONDAY, AttendanceStatus.PRESENT),
+                new Attendance(anna, MONDAY.plusDays(1), AttendanceStatus.PRESENT)
+        ));
+
+        List<UpsertResult> results = dao.upsertAll(List.of(
+                new Attendance(anna, MONDAY, AttendanceStatus.PRESENT),
+                new Attendance(anna, MONDAY.plusDays(1), AttendanceStatus.ABSENT),
+                new Attendance(anna, MONDAY.plusDays(2), AttendanceStatus.ABSENT)
+        ));
+
+        assertEquals(List.of(UpsertResult.UNCHANGED, UpsertResult.UPDATED, UpsertResult.INSERTED), results);
+        assertEquals(List.of(AttendanceStatus.PRESENT, AttendanceStatus.ABSENT, AttendanceStatus.ABSENT),
+                dao.findByStudent(anna.getId(), MONDAY, MONDAY.plusDays(2)).stream().map(Attendance::getStatus).toList());
+    }
+
+    static List<Attendance> days(Student student, LocalDate first, int count) {
+        List<Attendance> rows = new ArrayList<>();
+        for (int day = 0; day < count; day++) {
+            rows.add(new Attendance(student, first.plusDays(day),
+                    day % 2 == 0 ? AttendanceStatus.PRESENT : AttendanceStatus.ABSENT));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,92 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.DailyAttendanceStats;
+import se.lexicon.model.GroupAttendanceStats;
+import se.lexicon.model.Student;
+import se.lexicon.model.StudentAttendanceStats;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceStatisticsDaoImplTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private Connection connection;
+    private AttendanceStatisticsDao statistics;
+    private Student anna;
+    private Student ben;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        StudentDaoImpl studentDao = new StudentDaoImpl(connection);
+        anna = studentDao.save(new Student("Anna", "G1"));
+        ben = studentDao.save(new Student("Ben", "G2"));
+
+        // Anna: present, absent, present, absent. Ben: present every day
+        AttendanceDaoImpl attendanceDao = new AttendanceDaoImpl(connection);
+        attendanceDao.saveAll(AttendanceDaoImplTest.days(anna, MONDAY, 4));
+        for (int day = 0; day < 4; day++) {
+            attendanceDao.save(new Attendance(ben, MONDAY.plusDays(day), AttendanceStatus.PRESENT));
+        }
+        statistics = new AttendanceStatisticsDaoImpl(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void countsPerStudentWithInclusiveRange() {
+        List<StudentAttendanceStats> stats = statistics.countByStudent(MONDAY, MONDAY.plusDays(2));
+
+        assertEquals(List.of(
+                new StudentAttendanceStats(anna.getId(), 2, 1),
+                new StudentAttendanceStats(ben.getId(), 3, 0)
+        ), stats);
+        assertEquals(2.0 / 3, stats.getFirst().presentRate(), 1e-9);
+    }
+
+    @Test
+    void countsOneStudentEvenWithoutRows() {
+        assertEquals(new StudentAttendanceStats(anna.getId(), 2, 2),
+                statistics.countForStudent(anna.getId(), MONDAY, MONDAY.plusDays(3)));
+
+        StudentAttendanceStats none = statistics.countForStudent(anna.getId(), MONDAY.plusYears(1), MONDAY.plusYears(1));
+        assertEquals(0, none.total());
+        assertEquals(0, none.presentRate());
+    }
+
+    @Test
+    void countsPerClassGroup() {
+        assertEquals(List.of(
+                new GroupAttendanceStats("G1", 2, 2),
+                new GroupAttendanceStats("G2", 4, 0)
+        ), statistics.countByClassGroup(MONDAY, MONDAY.plusDays(3)));
+    }
+
+    @Test
+    void countsPerDayForEveryoneOrOneGroup() {
+        assertEquals(List.of(
+                new DailyAttendanceStats(MONDAY, 2, 0),
+                new DailyAttendanceStats(MONDAY.plusDays(1), 1, 1)
+        ), statistics.countByDate(MONDAY, MONDAY.plusDays(1)));
+
+        assertEquals(List.of(
+                new DailyAttendanceStats(MONDAY, 1, 0),
+                new DailyAttendanceStats(MONDAY.plusDays(1), 0, 1)
+        ), statistics.countByDate("G1", MONDAY, MONDAY.plusDays(1)));
+    }
+}
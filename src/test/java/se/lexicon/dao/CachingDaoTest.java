@@ -0,0 +1,87 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.cache.QueryResultCache;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CachingDaoTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private final QueryResultCache cache = new QueryResultCache(1_000_000, null);
+    private Connection connection;
+    private StudentDao students;
+    private AttendanceDao attendance;
+    private Student anna;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        students = new CachingStudentDao(
+                new StudentDaoImpl(connection, new BatchConfig(), StudentCache.disabled(), cache), cache);
+        attendance = new CachingAttendanceDao(new AttendanceDaoImpl(connection, new BatchConfig(),
+                StudentCache.disabled(), FetchPlan.EAGER_JOIN, cache), cache);
+        anna = students.save(new Student("Anna", "G1"));
+        attendance.saveAll(AttendanceDaoImplTest.days(anna, MONDAY, 3));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void callersNeverShareCachedStudents() {
+        Student first = students.findById(anna.getId()).orElseThrow();
+        first.setName("Changed by the caller");
+        students.findByClassGroup("G1").getFirst().setName("Changed in a list");
+
+        assertEquals("Anna", students.findById(anna.getId()).orElseThrow().getName());
+        assertEquals("Anna", students.findByClassGroup("G1").getFirst().getName());
+        assertEquals(2, cache.getStats().hits());
+    }
+
+    @Test
+    void callersNeverShareCachedAttendance() {
+        List<Attendance> first = attendance.findByStudent(anna.getId(), MONDAY, MONDAY.plusDays(2));
+        first.getFirst().setStatus(AttendanceStatus.ABSENT);
+        first.getFirst().getStudent().setName("Changed by the caller");
+
+        List<Attendance> second = attendance.findByStudent(anna.getId(), MONDAY, MONDAY.plusDays(2));
+
+        assertEquals(AttendanceStatus.PRESENT, second.getFirst().getStatus());
+        assertEquals("Anna", second.getFirst().getStudent().getName());
+        assertNotSame(first.getFirst(), second.getFirst());
+        // Rows of one student still share one Student within a result
+        assertSame(second.get(0).getStudent(), second.get(1).getStudent());
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void writesInvalidateCachedReads() {
+        assertEquals(3, attendance.findAll().size());
+
+        attendance.save(new Attendance(anna, MONDAY.plusDays(3), AttendanceStatus.PRESENT));
+        anna.setName("Anna Renamed");
+        students.update(anna);
+
+        assertEquals(4, attendance.findAll().size());
+        assertEquals("Anna Renamed", attendance.findAll().getFirst().getStudent().getName());
+        assertEquals("Anna Renamed", students.findById(anna.getId()).orElseThrow().getName());
+    }
+}
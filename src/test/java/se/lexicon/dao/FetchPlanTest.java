@@ -0,0 +1,168 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.Student;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FetchPlanTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private Connection connection;
+    private final List<String> queries = new ArrayList<>();
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        students = new StudentDaoImpl(connection).saveAll(List.of(
+                new Student("Anna", "G1"),
+                new Student("Ben", "G2"),
+                new Student("Cleo", "G1")
+        ));
+        // Three days for each of the three students
+        AttendanceDaoImpl writer = new AttendanceDaoImpl(connection);
+        for (Student student : students) {
+            writer.saveAll(AttendanceDaoImplTest.days(student, MONDAY, 3));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void eagerJoinReadsStudentsInTheSameQuery() {
+        List<Attendance> rows = dao(FetchPlan.EAGER_JOIN, StudentCache.disabled()).findAll();
+
+        assertEquals(9, rows.size());
+        assertNames(rows);
+        assertEquals(1, queries.size());
+        assertTrue(queries.getFirst().contains("JOIN student"));
+    }
+
+    @Test
+    void lazyLoadsEachStudentOnceOnFirstAccess() {
+        List<Attendance> rows = dao(FetchPlan.LAZY, StudentCache.disabled()).findAll();
+
+        assertEquals(1, queries.size());
+        assertFalse(queries.getFirst().contains("JOIN"));
+        LazyStudent first = assertInstanceOf(LazyStudent.class, rows.getFirst().getStudent());
+        assertFalse(first.isLoaded());
+        // getId() does not need the row
+        assertEquals(students.getFirst().getId(), first.getId());
+        assertEquals(1, queries.size());
+
+        assertNames(rows);
+        assertEquals(1 + students.size(), queries.size());
+        // Rows of the same student share one proxy, so reading them again costs nothing
+        assertSame(rows.get(0).getStudent(), rows.get(1).getStudent());
+        assertNames(rows);
+        assertEquals(1 + students.size(), queries.size());
+    }
+
+    @Test
+    void batchLoadsAllStudentsOfTheResultInOneQuery() {
+        List<Attendance> rows = dao(FetchPlan.BATCH, StudentCache.disabled()).findAll();
+
+        assertEquals(2, queries.size());
+        assertTrue(queries.get(1).contains("WHERE id IN"));
+        for (Attendance row : rows) {
+            assertFalse(row.getStudent() instanceof LazyStudent);
+        }
+        assertNames(rows);
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    void batchSkipsStudentsAlreadyInTheCache() {
+        StudentCache cache = new StudentCache();
+        AttendanceDaoImpl dao = dao(FetchPlan.BATCH, cache);
+        dao.findAll();
+        queries.clear();
+
+        List<Attendance> rows = dao.findAll();
+
+        assertEquals(1, queries.size(), "every student came from the cache");
+        assertNames(rows);
+    }
+
+    @Test
+    void batchStreamLoadsStudentsPerChunk() {
+        AttendanceDaoImpl dao = dao(FetchPlan.BATCH, StudentCache.disabled());
+
+        List<Attendance> rows;
+        try (Stream<Attendance> stream = dao.streamAll(4)) {
+            rows = stream.toList();
+        }
+
+        assertEquals(9, rows.size());
+        assertNames(rows);
+        // One streaming query, then one IN query for each of the chunks of 4, 4 and 1 rows
+        assertEquals(4, queries.size());
+    }
+
+    @Test
+    void lazyStudentDeletedBeforeItIsReadFails() throws SQLException {
+        List<Attendance> rows = dao(FetchPlan.LAZY, StudentCache.disabled())
+                .findByStudent(students.getFirst().getId(), MONDAY, MONDAY.plusDays(2));
+        try (var statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM attendance");
+            statement.executeUpdate("DELETE FROM student");
+        }
+
+        assertThrows(IllegalStateException.class, () -> rows.getFirst().getStudent().getName());
+    }
+
+    private void assertNames(List<Attendance> rows) {
+        for (Attendance row : rows) {
+            Student expected = students.stream()
+                    .filter(student -> student.getId() == row.getStudent().getId())
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(expected.getName(), row.getStudent().getName());
+        }
+    }
+
+    private AttendanceDaoImpl dao(FetchPlan plan, StudentCache cache) {
+        return new AttendanceDaoImpl(recording(connection), new BatchConfig(), cache, plan);
+    }
+
+    /**
+     * A connection that remembers the SQL of every statement it prepares.
+     */
+    private Connection recording(Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        queries.add((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,77 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.metrics.InMemoryMetricsRegistry;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstrumentedDaoTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private final InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+    private Connection connection;
+    private StudentDao students;
+    private AttendanceDao attendance;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        students = new InstrumentedStudentDao(new StudentDaoImpl(connection), registry);
+        attendance = new InstrumentedAttendanceDao(new AttendanceDaoImpl(connection), registry);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void recordsLatencyAndRowsPerOperation() {
+        List<Student> saved = students.saveAll(List.of(new Student("Anna", "G1"), new Student("Ben", "G1")));
+        students.findById(saved.getFirst().getId());
+        students.findById(-1);
+        students.findAll();
+
+        assertEquals(2, registry.getCount("dao.student.saveAll.rows.written"));
+        assertEquals(2, registry.getHistogram("dao.student.findById.latency").getCount());
+        assertEquals(1, registry.getCount("dao.student.findById.rows.read"));
+        assertEquals(2, registry.getCount("dao.student.findAll.rows.read"));
+    }
+
+    @Test
+    void countsStreamedRowsAsTheyAreConsumed() {
+        Student anna = students.save(new Student("Anna", "G1"));
+        attendance.saveAll(AttendanceDaoImplTest.days(anna, MONDAY, 5));
+
+        try (Stream<Attendance> rows = attendance.streamAll()) {
+            assertEquals(3, rows.limit(3).count());
+        }
+
+        assertEquals(3, registry.getCount("dao.attendance.streamAll.rows.read"));
+    }
+
+    @Test
+    void countsErrors() {
+        Student ghost = new Student(-1, "Ghost", "G1", null);
+
+        assertThrows(RuntimeException.class,
+                () -> attendance.save(new Attendance(ghost, MONDAY, AttendanceStatus.PRESENT)));
+
+        assertEquals(1, registry.getCount("dao.attendance.save.errors"));
+        assertEquals(0, registry.getCount("dao.attendance.save.rows.written"));
+    }
+}
@@ -0,0 +1,102 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.Student;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultSetStreamTest {
+
+    private Connection connection;
+    private final List<PreparedStatement> statements = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        StudentDaoImpl studentDao = new StudentDaoImpl(connection);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            students.add(new Student("Student " + i, "G1"));
+        }
+        List<Student> saved = studentDao.saveAll(students);
+        new AttendanceDaoImpl(connection).saveAll(
+                AttendanceDaoImplTest.days(saved.getFirst(), LocalDate.of(2024, 1, 1), 5));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void streamsEveryRowInSmallFetches() throws SQLException {
+        StudentDaoImpl dao = new StudentDaoImpl(recording(connection));
+
+        try (Stream<Student> students = dao.streamAll(2)) {
+            assertEquals(5, students.count());
+            assertFalse(statements.getFirst().isClosed(), "open until the stream is closed");
+            assertEquals(2, statements.getFirst().getFetchSize());
+        }
+
+        assertTrue(statements.getFirst().isClosed());
+    }
+
+    @Test
+    void closingAPartlyReadStreamClosesTheStatement() throws SQLException {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(recording(connection));
+
+        try (Stream<Attendance> rows = dao.streamAll(2)) {
+            assertEquals(1, rows.limit(1).count());
+        }
+
+        assertTrue(statements.getFirst().isClosed());
+    }
+
+    @Test
+    void failedQueryClosesTheStatement() throws SQLException {
+        Connection recording = recording(connection);
+
+        assertThrows(SQLException.class,
+                () -> ResultSetStream.of(recording, "SELECT * FROM no_such_table", 2, StudentDaoImpl.STUDENT_MAPPER));
+
+        // H2 rejects the SQL while preparing, so there may be no statement to close
+        for (PreparedStatement statement : statements) {
+            assertTrue(statement.isClosed());
+        }
+    }
+
+    /**
+     * A connection that remembers every PreparedStatement it hands out.
+     */
+    private Connection recording(Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(target, args);
+                        if (result instanceof PreparedStatement statement) {
+                            statements.add(statement);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,117 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.cache.StudentCache;
+import se.lexicon.db.ConnectionPool;
+import se.lexicon.db.RoutingConfig;
+import se.lexicon.db.RoutingDataSource;
+import se.lexicon.db.RoutingSession;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingDaoTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private RoutingDataSource routing;
+    private final StudentCache studentCache = new StudentCache();
+    private Student anna;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        ConnectionPool primary = new ConnectionPool(TestDatabase.create());
+        ConnectionPool replica = new ConnectionPool(TestDatabase.create());
+        RoutingConfig config = new RoutingConfig();
+        config.setReadYourWritesWindow(Duration.ofMinutes(1));
+        config.setHealthCheckInterval(Duration.ofMinutes(1));
+        routing = new RoutingDataSource(primary, List.of(replica), config);
+
+        // The replica has not caught up with the rename yet
+        try (Connection connection = primary.getConnection()) {
+            anna = new StudentDaoImpl(connection).save(new Student("Anna Renamed", "G1"));
+        }
+        try (Connection connection = replica.getConnection()) {
+            new StudentDaoImpl(connection).save(new Student("Anna", "G1"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    void replicaReadsDoNotFillTheSharedCache() {
+        StudentDao replicaReader = studentDao(routing.newSession());
+        assertEquals("Anna", replicaReader.findById(anna.getId()).orElseThrow().getName());
+        assertEquals(0, studentCache.size());
+
+        // A session reading from the primary does not get the replica's old row from the cache
+        StudentDao primaryReader = studentDao(routing.newSession());
+        primaryReader.save(new Student("Ben", "G1"));
+        assertEquals("Anna Renamed", primaryReader.findById(anna.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void readsAfterAWriteUseThePrimaryAndItsCache() {
+        RoutingSession session = routing.newSession();
+        StudentDao dao = studentDao(session);
+
+        Student ben = dao.save(new Student("Ben", "G1"));
+
+        assertTrue(session.isSticky());
+        assertEquals("Ben", dao.findById(ben.getId()).orElseThrow().getName());
+        assertEquals("Anna Renamed", dao.findById(anna.getId()).orElseThrow().getName());
+        assertEquals(2, studentCache.size());
+    }
+
+    @Test
+    void lazyStudentsAreRejected() {
+        RoutingSession session = routing.newSession();
+        AttendanceDao dao = new RoutingAttendanceDao(session,
+                connection -> new AttendanceDaoImpl(connection, new BatchConfig(), studentCache, FetchPlan.LAZY),
+                connection -> new AttendanceDaoImpl(connection, new BatchConfig(), StudentCache.disabled(), FetchPlan.LAZY));
+        dao.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+
+        assertThrows(IllegalStateException.class, dao::findAll);
+        try (Stream<Attendance> rows = dao.streamAll()) {
+            assertThrows(IllegalStateException.class, rows::toList);
+        }
+    }
+
+    @Test
+    void batchStudentsAreLoadedBeforeTheConnectionIsReturned() {
+        RoutingSession session = routing.newSession();
+        AttendanceDao dao = new RoutingAttendanceDao(session,
+                connection -> new AttendanceDaoImpl(connection, new BatchConfig(), studentCache, FetchPlan.BATCH),
+                connection -> new AttendanceDaoImpl(connection, new BatchConfig(), StudentCache.disabled(), FetchPlan.BATCH));
+        dao.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+
+        List<Attendance> rows = dao.findAll();
+
+        assertFalse(rows.getFirst().getStudent() instanceof LazyStudent lazy && !lazy.isLoaded());
+        assertEquals("Anna Renamed", rows.getFirst().getStudent().getName());
+    }
+
+    private StudentDao studentDao(RoutingSession session) {
+        return new RoutingStudentDao(session,
+                connection -> new StudentDaoImpl(connection, new BatchConfig(), studentCache),
+                StudentDaoImpl::new);
+    }
+}
@@ -0,0 +1,133 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RowMapperTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private Connection connection;
+    private List<Student> students;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = TestDatabase.create().getConnection();
+        students = new StudentDaoImpl(connection).saveAll(List.of(
+                new Student("Anna", "G1"),
+                new Student("Ben", "G2"),
+                new Student("Cleo", "G1")
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void studentMapperResolvesColumnsOncePerResultSet() throws SQLException {
+        AtomicInteger lookups = new AtomicInteger();
+        List<Student> mapped = new ArrayList<>();
+        // Columns in a different order than the table, so only the labels line them up
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT create_date, class_group, name, id FROM student ORDER BY id");
+             ResultSet rs = countingFindColumn(ps.executeQuery(), lookups)) {
+            RowMapper<Student> mapper = StudentDaoImpl.STUDENT_MAPPER.forResultSet(rs);
+            while (rs.next()) {
+                mapped.add(mapper.mapRow(rs));
+            }
+        }
+
+        assertEquals(4, lookups.get());
+        assertEquals(students.size(), mapped.size());
+        for (Student student : mapped) {
+            assertStudent(new StudentDaoImpl(connection).findById(student.getId()).orElseThrow(), student);
+        }
+    }
+
+    @Test
+    void attendanceMapperMatchesPerRowMapping() throws SQLException {
+        AttendanceDaoImpl dao = new AttendanceDaoImpl(connection);
+        for (Student student : students) {
+            dao.saveAll(AttendanceDaoImplTest.days(student, MONDAY, 3));
+        }
+        String sql = """
+                SELECT a.id, a.student_id, a.attendance_date, a.status,
+                       s.name, s.class_group, s.create_date
+                FROM attendance a
+                JOIN student s ON s.id = a.student_id
+                ORDER BY a.id
+                """;
+
+        List<Attendance> resolved = new ArrayList<>();
+        List<Attendance> perRow = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Attendance> mapper = dao.attendanceMapper(rs);
+                while (rs.next()) {
+                    resolved.add(mapper.mapRow(rs));
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    perRow.add(dao.mapRowToAttendance(rs));
+                }
+            }
+        }
+
+        assertEquals(9, resolved.size());
+        assertEquals(perRow.size(), resolved.size());
+        for (int i = 0; i < resolved.size(); i++) {
+            Attendance expected = perRow.get(i);
+            Attendance actual = resolved.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getAttendanceDate(), actual.getAttendanceDate());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertStudent(expected.getStudent(), actual.getStudent());
+        }
+        assertEquals(AttendanceStatus.ABSENT, resolved.get(1).getStatus());
+        assertEquals(MONDAY.plusDays(2), resolved.get(2).getAttendanceDate());
+    }
+
+    private static void assertStudent(Student expected, Student actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getClassGroup(), actual.getClassGroup());
+        assertEquals(expected.getCreateDate(), actual.getCreateDate());
+    }
+
+    private static ResultSet countingFindColumn(ResultSet target, AtomicInteger lookups) {
+        return (ResultSet) Proxy.newProxyInstance(
+                RowMapperTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findColumn")) {
+                        lookups.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
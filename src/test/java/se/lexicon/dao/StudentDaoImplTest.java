@@ -0,0 +1,87 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentDaoImplTest {
+
+    private DataSource dataSource;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        connection = dataSource.getConnection();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void saveAllWithJdbcBatchAssignsGeneratedIdsInOrder() {
+        assertSavesAllWithIds(new StudentDaoImpl(connection, new BatchConfig(2, false)));
+    }
+
+    @Test
+    void saveAllWithMultiRowValuesAssignsGeneratedIdsInOrder() {
+        assertSavesAllWithIds(new StudentDaoImpl(connection, new BatchConfig(2, true)));
+    }
+
+    @Test
+    void batchConfigRejectsEmptyChunks() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchConfig(0, false));
+        assertThrows(IllegalArgumentException.class, () -> new BatchConfig().setChunkSize(0));
+    }
+
+    @Test
+    void findPageReturnsEveryStudentOnceInIdOrder() {
+        StudentDaoImpl dao = new StudentDaoImpl(connection);
+        List<Student> saved = dao.saveAll(List.of(new Student("A", "G1"), new Student("B", "G1"),
+                new Student("C", "G1"), new Student("D", "G1"), new Student("E", "G1")));
+
+        List<Integer> walked = new ArrayList<>();
+        Page<Student> page = dao.findPage(PageRequest.first(2));
+        page.items().forEach(student -> walked.add(student.getId()));
+        while (page.hasNext()) {
+            page = dao.findPage(page.nextRequest(2));
+            page.items().forEach(student -> walked.add(student.getId()));
+        }
+
+        assertEquals(saved.stream().map(Student::getId).toList(), walked);
+        assertEquals(1, page.items().size());
+    }
+
+    private void assertSavesAllWithIds(StudentDao dao) {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            students.add(new Student("Student " + i, "G" + (i % 2)));
+        }
+
+        List<Student> saved = dao.saveAll(students);
+
+        assertEquals(5, saved.size());
+        for (int i = 0; i < 5; i++) {
+            Student student = saved.get(i);
+            assertTrue(student.getId() > 0);
+            if (i > 0) {
+                assertTrue(student.getId() > saved.get(i - 1).getId(), "ids follow the input order");
+            }
+            assertEquals("Student " + i, dao.findById(student.getId()).orElseThrow().getName());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentReferencesTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private DataSource dataSource;
+    private Connection connection;
+    private StudentDaoImpl students;
+    private AttendanceDaoImpl attendance;
+    private Student anna;
+    private final Student missing = new Student(999, "Nobody", "G1", null);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        connection = dataSource.getConnection();
+        students = new StudentDaoImpl(connection);
+        attendance = new AttendanceDaoImpl(connection, new BatchConfig(2, false));
+        anna = students.save(new Student("Anna", "G1"));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void schemaNoLongerHasTheForeignKey() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // Only the DAOs stop this now
+            statement.executeUpdate("INSERT INTO attendance (student_id, attendance_date, status) "
+                    + "VALUES (999, '2024-01-01', 'Present')");
+        }
+    }
+
+    @Test
+    void everyAttendanceWriteRejectsAMissingStudent() {
+        Attendance orphan = new Attendance(missing, MONDAY, AttendanceStatus.PRESENT);
+
+        assertMissingStudent(dao -> dao.save(orphan));
+        assertMissingStudent(dao -> dao.upsert(orphan));
+        assertMissingStudent(dao -> dao.saveAll(List.of(orphan)));
+        assertMissingStudent(dao -> dao.upsertAll(List.of(orphan)));
+
+        Attendance stored = attendance.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+        stored.setStudent(missing);
+        assertMissingStudent(dao -> dao.update(stored));
+
+        List<Attendance> rows = attendance.findAll();
+        assertEquals(1, rows.size());
+        assertEquals(anna.getId(), rows.getFirst().getStudent().getId());
+    }
+
+    @Test
+    void batchStopsAtTheChunkWithTheMissingStudent() {
+        List<Attendance> rows = new ArrayList<>(AttendanceDaoImplTest.days(anna, MONDAY, 2));
+        rows.add(new Attendance(missing, MONDAY, AttendanceStatus.PRESENT));
+        rows.add(new Attendance(anna, MONDAY.plusDays(2), AttendanceStatus.PRESENT));
+
+        assertMissingStudent(dao -> dao.saveAll(rows));
+
+        // Chunks of 2: the first one was committed before the second failed its check
+        assertEquals(2, attendance.findAll().size());
+    }
+
+    @Test
+    void studentWithAttendanceCannotBeDeleted() {
+        attendance.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> students.delete(anna.getId()));
+
+        SQLIntegrityConstraintViolationException cause =
+                assertInstanceOf(SQLIntegrityConstraintViolationException.class, thrown.getCause());
+        assertEquals(StudentReferences.ROW_IS_REFERENCED, cause.getErrorCode());
+        assertTrue(students.findById(anna.getId()).isPresent());
+
+        attendance.delete(attendance.findAll().getFirst().getId());
+        assertTrue(students.delete(anna.getId()));
+        assertFalse(students.delete(anna.getId()));
+    }
+
+    @Test
+    void deleteWaitsForAnUncommittedAttendanceWrite() throws SQLException {
+        try (Connection other = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            attendance.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+
+            // The uncommitted insert holds the student's lock, so the delete cannot get past it
+            try (Statement statement = other.createStatement()) {
+                statement.execute("SET LOCK_TIMEOUT 100");
+            }
+            StudentDaoImpl otherStudents = new StudentDaoImpl(other);
+            RuntimeException timedOut = assertThrows(RuntimeException.class, () -> otherStudents.delete(anna.getId()));
+            assertInstanceOf(SQLTimeoutException.class, timedOut.getCause());
+
+            // Once it commits, the delete sees the new row
+            connection.commit();
+            connection.setAutoCommit(true);
+            RuntimeException thrown = assertThrows(RuntimeException.class, () -> otherStudents.delete(anna.getId()));
+            assertInstanceOf(SQLIntegrityConstraintViolationException.class, thrown.getCause());
+        }
+    }
+
+    private void assertMissingStudent(Consumer<AttendanceDao> write) {
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> write.accept(attendance));
+        SQLIntegrityConstraintViolationException cause =
+                assertInstanceOf(SQLIntegrityConstraintViolationException.class, thrown.getCause());
+        assertEquals(StudentReferences.NO_REFERENCED_ROW, cause.getErrorCode());
+        assertEquals("23000", cause.getSQLState());
+    }
+}
@@ -0,0 +1,193 @@
+package se.lexicon.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindAttendanceDaoTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    private DataSource dataSource;
+    private Connection connection;
+    private AttendanceDaoImpl stored;
+    private Student anna;
+    private final List<WriteBehindAttendanceDao.FailedWrite> deadLetters = new CopyOnWriteArrayList<>();
+    private WriteBehindAttendanceDao dao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        connection = dataSource.getConnection();
+        anna = new StudentDaoImpl(connection).save(new Student("Anna", "G1"));
+        stored = new AttendanceDaoImpl(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (dao != null) {
+            dao.close();
+        }
+        connection.close();
+    }
+
+    @Test
+    void writesAreBufferedCoalescedAndFlushed() {
+        dao = writeBehind(AttendanceDaoImpl::new);
+
+        dao.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+        dao.upsert(new Attendance(anna, MONDAY, AttendanceStatus.ABSENT));
+        dao.save(new Attendance(anna, MONDAY.plusDays(1), AttendanceStatus.PRESENT));
+
+        assertTrue(stored.findAll().isEmpty());
+        assertEquals(2, dao.getPendingCount());
+        assertEquals(1, dao.getCoalescedCount());
+
+        dao.flush();
+
+        List<Attendance> rows = stored.findByStudent(anna.getId(), MONDAY, MONDAY.plusDays(1));
+        assertEquals(List.of(AttendanceStatus.ABSENT, AttendanceStatus.PRESENT),
+                rows.stream().map(Attendance::getStatus).toList());
+        assertEquals(2, dao.getWrittenCount());
+    }
+
+    @Test
+    void readsFlushTheRowsTheyCouldReturn() {
+        dao = writeBehind(AttendanceDaoImpl::new);
+        dao.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+
+        assertTrue(dao.findByDateRange(MONDAY.plusDays(1), MONDAY.plusDays(2)).isEmpty());
+        assertEquals(1, dao.getPendingCount(), "the read could not return the buffered row");
+
+        assertEquals(1, dao.findByStudent(anna.getId(), MONDAY, MONDAY).size());
+        assertEquals(0, dao.getPendingCount());
+    }
+
+    @Test
+    void transientFailureKeepsTheRowsForTheNextFlush() {
+        AtomicInteger attempts = new AtomicInteger();
+        dao = writeBehind(conn -> attempts.incrementAndGet() == 1
+                ? failingUpserts(new SQLTransactionRollbackException("Deadlock found", "40001", 1213))
+                : new AttendanceDaoImpl(conn));
+        dao.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+        dao.save(new Attendance(anna, MONDAY.plusDays(1), AttendanceStatus.PRESENT));
+
+        assertThrows(RuntimeException.class, dao::flush);
+        assertEquals(2, dao.getPendingCount());
+        assertEquals(1, dao.getFailedFlushCount());
+
+        dao.flush();
+        assertEquals(2, stored.findAll().size());
+        assertEquals(0, dao.getDeadLetterCount());
+    }
+
+    @Test
+    void rowThatFailsOnItsOwnIsDeadLetteredAndTheRestIsWritten() {
+        WriteBehindConfig config = config();
+        config.setCapacity(6);
+        dao = writeBehind(AttendanceDaoImpl::new, config);
+        Attendance orphan = new Attendance(new Student(-1, "Nobody", "G1", null), MONDAY, AttendanceStatus.PRESENT);
+        for (int day = 0; day < 5; day++) {
+            dao.save(new Attendance(anna, MONDAY.plusDays(day), AttendanceStatus.PRESENT));
+        }
+        dao.save(orphan);
+
+        dao.flush();
+
+        assertEquals(5, stored.findAll().size());
+        assertEquals(1, deadLetters.size());
+        assertSame(orphan, deadLetters.getFirst().attendance());
+        assertEquals(1, dao.getDeadLetterCount());
+        assertEquals(5, dao.getWrittenCount());
+        assertEquals(0, dao.getFailedFlushCount());
+
+        // Every slot was given back, the dropped row's too
+        for (int day = 5; day < 11; day++) {
+            dao.save(new Attendance(anna, MONDAY.plusDays(day), AttendanceStatus.PRESENT));
+        }
+        assertEquals(6, dao.getPendingCount());
+    }
+
+    @Test
+    void closeWritesWhatIsLeft() {
+        dao = writeBehind(AttendanceDaoImpl::new);
+        dao.save(new Attendance(anna, MONDAY, AttendanceStatus.PRESENT));
+
+        dao.close();
+
+        assertEquals(1, stored.findAll().size());
+        assertThrows(IllegalStateException.class,
+                () -> dao.save(new Attendance(anna, MONDAY.plusDays(1), AttendanceStatus.PRESENT)));
+    }
+
+    @Test
+    void classifiesTransientErrors() {
+        assertTrue(WriteBehindAttendanceDao.isTransient(
+                new RuntimeException(new SQLTransactionRollbackException("Deadlock found", "40001", 1213))));
+        assertTrue(WriteBehindAttendanceDao.isTransient(new SQLException("Lock wait timeout", "HY000", 1205)));
+        assertTrue(WriteBehindAttendanceDao.isTransient(new SQLTransientConnectionException("Pool exhausted")));
+        assertTrue(WriteBehindAttendanceDao.isTransient(new SQLException("Communications link failure", "08S01")));
+
+        BatchUpdateException missingStudent =
+                new BatchUpdateException("Cannot add or update a child row", "23000", 1452, new int[0], null);
+        assertFalse(WriteBehindAttendanceDao.isTransient(new RuntimeException(missingStudent)));
+        assertFalse(WriteBehindAttendanceDao.isTransient(new IllegalArgumentException("bad row")));
+    }
+
+    private WriteBehindAttendanceDao writeBehind(Function<Connection, AttendanceDao> daoFactory) {
+        return writeBehind(daoFactory, config());
+    }
+
+    private WriteBehindAttendanceDao writeBehind(Function<Connection, AttendanceDao> daoFactory,
+                                                 WriteBehindConfig config) {
+        return WriteBehindAttendanceDao.start(stored, dataSource, daoFactory, config, deadLetters::add);
+    }
+
+    /**
+     * Only explicit flushes, so the tests decide when rows are written.
+     */
+    private static WriteBehindConfig config() {
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setFlushInterval(Duration.ofMinutes(10));
+        config.setFlushRows(1_000);
+        config.setOfferTimeout(Duration.ofMillis(100));
+        config.setShutdownHook(false);
+        return config;
+    }
+
+    /**
+     * An AttendanceDao whose upsertAll fails the way AttendanceDaoImpl reports SQL errors.
+     */
+    private static AttendanceDao failingUpserts(SQLException error) {
+        return (AttendanceDao) Proxy.newProxyInstance(
+                AttendanceDao.class.getClassLoader(),
+                new Class<?>[]{AttendanceDao.class},
+                (proxy, method, args) -> {
+                    throw new RuntimeException("Error upserting attendance batch", error);
+                });
+    }
+}
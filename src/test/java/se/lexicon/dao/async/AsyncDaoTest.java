@@ -0,0 +1,140 @@
+package se.lexicon.dao.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.dao.PageRequest;
+import se.lexicon.db.ConnectionPool;
+import se.lexicon.db.PoolConfig;
+import se.lexicon.model.Attendance;
+import se.lexicon.model.AttendanceStatus;
+import se.lexicon.model.Student;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncDaoTest {
+
+    private ConnectionPool pool;
+    private AsyncDaoExecutor executor;
+    private AsyncStudentDao students;
+    private AsyncAttendanceDao attendance;
+
+    @BeforeEach
+    void setUp() {
+        PoolConfig config = new PoolConfig();
+        config.setMaximumPoolSize(2);
+        config.setBorrowTimeout(Duration.ofMillis(200));
+        pool = new ConnectionPool(TestDatabase.create(), config);
+        executor = AsyncDaoExecutor.forPool(pool);
+        students = new AsyncStudentDao(executor);
+        attendance = new AsyncAttendanceDao(executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+        pool.close();
+    }
+
+    @Test
+    void runsDaoCallsOnVirtualThreads() {
+        Student anna = students.save(new Student("Anna", "G1")).join();
+        attendance.save(new Attendance(anna, LocalDate.of(2024, 1, 1), AttendanceStatus.PRESENT)).join();
+
+        assertEquals("Anna", students.findById(anna.getId()).join().orElseThrow().getName());
+        assertEquals(1, attendance.findPage(PageRequest.first(10)).join().items().size());
+        assertTrue(students.submit(dao -> Thread.currentThread().isVirtual()).join());
+    }
+
+    @Test
+    void capsInFlightCallsAtThePoolSize() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(students.submit(dao -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return dao.findAll().size();
+            }));
+        }
+
+        // The 200 ms borrow timeout would fail some of these if they all went to the pool at once
+        calls.forEach(CompletableFuture::join);
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, pool.getStats().timeoutCount());
+        assertEquals(0, executor.getInFlight());
+    }
+
+    @Test
+    void failedCallCompletesExceptionallyAndFreesItsSlot() {
+        CompletableFuture<Student> call = students.submit(dao -> {
+            throw new IllegalStateException("boom");
+        });
+
+        CompletionException thrown = assertThrows(CompletionException.class, call::join);
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertEquals(0, executor.getInFlight());
+    }
+
+    @Test
+    void fanOutCombinesResultsInTaskOrder() {
+        Student anna = students.save(new Student("Anna", "G1")).join();
+
+        String overview = FanOut.both(
+                () -> students.call(dao -> dao.findById(anna.getId())).orElseThrow().getName(),
+                () -> attendance.call(dao -> dao.findAll().size()),
+                (name, rows) -> name + ":" + rows
+        );
+
+        assertEquals("Anna:0", overview);
+        assertEquals(List.of(1, 2, 3), FanOut.all(List.<Callable<Integer>>of(() -> 1, () -> 2, () -> 3)));
+    }
+
+    @Test
+    void fanOutCancelsTheOtherTasksWhenOneFails() {
+        RuntimeException failure = new RuntimeException("boom");
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> FanOut.all(List.<Callable<Integer>>of(
+                () -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(Duration.ofSeconds(10));
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                    return 1;
+                },
+                () -> {
+                    started.await();
+                    throw failure;
+                }
+        )));
+
+        assertSame(failure, thrown);
+        assertTrue(interrupted.get(), "the slow task was cancelled, and all() waited for it");
+    }
+}
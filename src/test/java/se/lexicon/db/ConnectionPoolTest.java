@@ -0,0 +1,130 @@
+package se.lexicon.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        PoolConfig config = new PoolConfig();
+        config.setMaximumPoolSize(2);
+        config.setBorrowTimeout(Duration.ofMillis(500));
+        pool = new ConnectionPool(TestDatabase.create(), config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void reusesReturnedConnection() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(2, stats.borrowCount());
+        assertEquals(1, stats.total());
+        assertEquals(0, stats.active());
+    }
+
+    @Test
+    void timesOutWhenAllConnectionsAreBorrowed() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+        first.close();
+        second.close();
+
+        assertEquals(1, pool.getStats().timeoutCount());
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+    }
+
+    @Test
+    void closedHandleCannotBeUsed() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    void resetsConnectionStateOnReturn() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+        }
+
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+            assertFalse(connection.isReadOnly());
+        }
+    }
+
+    @Test
+    void reusesPreparedStatementsPerConnection() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM student";
+        for (int i = 0; i < 2; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.executeQuery().close();
+            }
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(1, stats.statementMisses());
+        assertEquals(1, stats.statementHits());
+    }
+
+    @Test
+    void neverOpensMoreThanMaximumPoolSize() throws Exception {
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                results.add(executor.submit(() -> {
+                    try (Connection connection = pool.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        statement.execute("SELECT 1");
+                        Thread.sleep(2);
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(50, stats.borrowCount());
+        assertTrue(stats.total() <= 2, "total=" + stats.total());
+    }
+}
@@ -0,0 +1,151 @@
+package se.lexicon.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM student";
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void daoCallsReuseTheirStatements() throws SQLException {
+        pool = pool(100);
+        try (Connection connection = pool.getConnection()) {
+            StudentDaoImpl dao = new StudentDaoImpl(connection);
+            Student saved = dao.save(new Student("Anna", "G1"));
+            for (int i = 0; i < 10; i++) {
+                dao.findById(saved.getId());
+            }
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(9, stats.statementHits());
+        assertTrue(stats.statementHitRate() > 0.8);
+    }
+
+    @Test
+    void reusedStatementStartsWithTheSettingsItWasPreparedWith() throws SQLException {
+        pool = pool(100);
+        try (Connection connection = pool.getConnection()) {
+            int preparedFetchSize;
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_SQL)) {
+                preparedFetchSize = statement.getFetchSize();
+                statement.setFetchSize(7);
+                statement.setMaxRows(1);
+                statement.setQueryTimeout(3);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_SQL)) {
+                assertEquals(preparedFetchSize, statement.getFetchSize());
+                assertEquals(0, statement.getMaxRows());
+                assertEquals(0, statement.getQueryTimeout());
+            }
+        }
+
+        assertEquals(1, pool.getStats().statementHits());
+    }
+
+    @Test
+    void sameSqlInUseTwiceGetsASecondStatement() throws SQLException {
+        pool = pool(100);
+        try (Connection connection = pool.getConnection();
+             PreparedStatement outer = connection.prepareStatement(COUNT_SQL);
+             PreparedStatement inner = connection.prepareStatement(COUNT_SQL);
+             ResultSet outerRows = outer.executeQuery();
+             ResultSet innerRows = inner.executeQuery()) {
+
+            assertTrue(outerRows.next());
+            assertTrue(innerRows.next());
+        }
+
+        assertEquals(2, pool.getStats().statementMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedStatement() throws SQLException {
+        pool = pool(1);
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement(COUNT_SQL).close();
+            connection.prepareStatement("SELECT COUNT(*) FROM attendance").close();
+            connection.prepareStatement(COUNT_SQL).close();
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.statementHits());
+        assertEquals(2, stats.statementEvictions());
+    }
+
+    @Test
+    void generatedKeysModeIsPartOfTheKey() throws SQLException {
+        pool = pool(100);
+        String insert = "INSERT INTO student (name, class_group) VALUES ('Anna', 'G1')";
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement(insert).close();
+            try (PreparedStatement statement = connection.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    assertTrue(keys.next());
+                }
+            }
+        }
+
+        assertEquals(0, pool.getStats().statementHits());
+    }
+
+    @Test
+    void closedHandleCannotBeUsedAgain() throws SQLException {
+        pool = pool(100);
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(COUNT_SQL);
+            statement.close();
+
+            assertTrue(statement.isClosed());
+            assertThrows(SQLException.class, statement::executeQuery);
+            // The statement behind the handle is still usable by the next caller
+            try (PreparedStatement next = connection.prepareStatement(COUNT_SQL)) {
+                assertFalse(next.isClosed());
+                next.executeQuery().close();
+            }
+        }
+    }
+
+    @Test
+    void sizeZeroDisablesTheCache() throws SQLException {
+        pool = pool(0);
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement(COUNT_SQL).close();
+            connection.prepareStatement(COUNT_SQL).close();
+        }
+
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.statementHits());
+        assertEquals(0, stats.statementMisses());
+    }
+
+    private static ConnectionPool pool(int statementCacheSize) {
+        PoolConfig config = new PoolConfig();
+        config.setMaximumPoolSize(1);
+        config.setStatementCacheSize(statementCacheSize);
+        return new ConnectionPool(TestDatabase.create(), config);
+    }
+}
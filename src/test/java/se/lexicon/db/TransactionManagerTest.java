@@ -0,0 +1,139 @@
+package se.lexicon.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+import se.lexicon.dao.StudentDao;
+import se.lexicon.dao.StudentDaoImpl;
+import se.lexicon.model.Student;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionManagerTest {
+
+    // MySQL's ER_LOCK_DEADLOCK, as the driver reports it
+    private static final SQLException DEADLOCK =
+            new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213);
+
+    private ConnectionPool pool;
+    private TransactionManager transactionManager;
+    private StudentDao studentDao;
+    private TransactionOptions options;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(TestDatabase.create());
+        transactionManager = new TransactionManager(pool);
+        studentDao = new StudentDaoImpl(transactionManager.getConnection());
+        options = new TransactionOptions();
+        options.setInitialBackoff(Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void commitsWork() {
+        Student saved = transactionManager.inTransaction(() -> studentDao.save(new Student("Anna", "G1")));
+
+        assertTrue(saved.getId() > 0);
+        assertEquals(1, transactionManager.getCommitCount());
+        assertEquals(1, countStudents());
+    }
+
+    @Test
+    void rollsBackWhenWorkFails() {
+        RuntimeException failure = new RuntimeException("boom");
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> transactionManager.inTransaction(() -> {
+            studentDao.save(new Student("Anna", "G1"));
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(0, countStudents());
+        assertEquals(1, transactionManager.getRollbackCount());
+    }
+
+    @Test
+    void retriesDeadlockFromTheStart() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        int result = transactionManager.inTransaction(options, () -> {
+            studentDao.save(new Student("Anna", "G1"));
+            if (attempts.incrementAndGet() < 3) {
+                // DAOs wrap SQLExceptions, so the retry must look at the cause
+                throw new RuntimeException("Error saving student", DEADLOCK);
+            }
+            return attempts.get();
+        });
+
+        assertEquals(3, result);
+        assertEquals(2, transactionManager.getRetryCount());
+        // The rolled-back attempts left nothing behind
+        assertEquals(1, countStudents());
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        options.setMaxRetries(2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> transactionManager.inTransaction(options, () -> {
+            attempts.incrementAndGet();
+            throw DEADLOCK;
+        }));
+
+        assertSame(DEADLOCK, thrown.getCause());
+        assertEquals(3, attempts.get());
+        assertEquals(2, transactionManager.getRetryCount());
+    }
+
+    @Test
+    void doesNotRetryOtherErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(RuntimeException.class, () -> transactionManager.inTransaction(options, () -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Duplicate entry", "23000", 1062);
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, transactionManager.getRetryCount());
+    }
+
+    @Test
+    void nestedCallJoinsTheOuterTransaction() {
+        assertThrows(RuntimeException.class, () -> transactionManager.inTransaction(() -> {
+            transactionManager.inTransaction(() -> studentDao.save(new Student("Anna", "G1")));
+            throw new RuntimeException("boom");
+        }));
+
+        assertEquals(0, countStudents());
+        assertFalse(transactionManager.isTransactionActive());
+    }
+
+    @Test
+    void handleCannotBeUsedOutsideTransaction() {
+        Connection handle = transactionManager.getConnection();
+
+        assertThrows(SQLException.class, handle::createStatement);
+    }
+
+    private int countStudents() {
+        return transactionManager.inReadOnlyTransaction(() -> studentDao.findAll().size());
+    }
+}
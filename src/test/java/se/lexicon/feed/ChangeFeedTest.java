@@ -0,0 +1,109 @@
+package se.lexicon.feed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChangeFeedTest {
+
+    private final ChangeOutbox outbox = new ChangeOutbox();
+    private final List<Long> delivered = new ArrayList<>();
+    private final ChangeFeed.ChangeHandler handler =
+            events -> events.forEach(event -> delivered.add(event.seq()));
+
+    private DataSource dataSource;
+    private Connection writer;
+    private Connection otherWriter;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = TestDatabase.create();
+        writer = dataSource.getConnection();
+        otherWriter = dataSource.getConnection();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        writer.close();
+        otherWriter.close();
+    }
+
+    @Test
+    void deliversInOrderAndContinuesAfterCheckpoint() throws SQLException {
+        for (int id = 1; id <= 3; id++) {
+            outbox.record(writer, "attendance", ChangeOperation.INSERT, id);
+        }
+
+        assertEquals(3, new ChangeFeed(dataSource, "test").pollOnce(handler));
+        assertEquals(List.of(1L, 2L, 3L), delivered);
+
+        outbox.record(writer, "attendance", ChangeOperation.DELETE, 1);
+        ChangeFeed restarted = new ChangeFeed(dataSource, "test");
+        assertEquals(3, restarted.getPosition());
+        assertEquals(1, restarted.pollOnce(handler));
+        assertEquals(List.of(1L, 2L, 3L, 4L), delivered);
+    }
+
+    @Test
+    void redeliversBatchAfterHandlerFailure() throws SQLException {
+        outbox.record(writer, "student", ChangeOperation.UPDATE, 7);
+        ChangeFeed feed = new ChangeFeed(dataSource, "test");
+
+        assertThrows(RuntimeException.class, () -> feed.pollOnce(events -> {
+            throw new IllegalStateException("handler down");
+        }));
+
+        assertEquals(0, feed.getPosition());
+        assertEquals(1, feed.pollOnce(handler));
+        assertEquals(List.of(1L), delivered);
+    }
+
+    @Test
+    void holdsBackAtGapUntilItIsCommitted() throws SQLException {
+        ChangeFeed feed = new ChangeFeed(dataSource, "test");
+        writer.setAutoCommit(false);
+        outbox.record(writer, "attendance", ChangeOperation.INSERT, 1);
+        outbox.record(otherWriter, "attendance", ChangeOperation.INSERT, 2);
+
+        // seq 2 is visible, seq 1 is not committed yet
+        assertEquals(0, feed.pollOnce(handler));
+        assertEquals(0, feed.pollOnce(handler));
+
+        writer.commit();
+        assertEquals(2, feed.pollOnce(handler));
+        assertEquals(List.of(1L, 2L), delivered);
+    }
+
+    @Test
+    void skipsGapOnceItsTransactionRolledBack() throws SQLException {
+        ChangeFeed feed = new ChangeFeed(dataSource, "test");
+        writer.setAutoCommit(false);
+        outbox.record(writer, "attendance", ChangeOperation.INSERT, 1);
+        outbox.record(otherWriter, "attendance", ChangeOperation.INSERT, 2);
+
+        assertEquals(0, feed.pollOnce(handler));
+
+        writer.rollback();
+        assertEquals(1, feed.pollOnce(handler));
+        assertEquals(List.of(2L), delivered);
+        assertEquals(2, feed.getPosition());
+    }
+
+    @Test
+    void safeHighWaterMarkIsHighestCommittedSeq() throws SQLException {
+        outbox.record(writer, "attendance", ChangeOperation.INSERT, 1);
+        outbox.record(writer, "attendance", ChangeOperation.INSERT, 2);
+
+        assertEquals(2, new ChangeFeed(dataSource, "test").safeHighWaterMark());
+    }
+}
@@ -0,0 +1,92 @@
+package se.lexicon.metrics;
+
+import org.junit.jupiter.api.Test;
+import se.lexicon.TestDatabase;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcInstrumentationTest {
+
+    private final InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+    private final List<String> slowQueries = new ArrayList<>();
+
+    @Test
+    void timesEveryExecutionAndLogsSlowOnesWithParameters() throws SQLException {
+        DataSource dataSource = instrumented(Duration.ZERO);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM student WHERE class_group = ?")) {
+            ps.setString(1, "G1");
+            ps.executeQuery().close();
+        }
+
+        assertEquals(1, registry.getHistogram(JdbcInstrumentation.EXECUTE_LATENCY).getCount());
+        assertEquals(1, registry.getCount(JdbcInstrumentation.SLOW_QUERIES));
+        assertEquals(1, slowQueries.size());
+        assertTrue(slowQueries.getFirst().contains("WHERE class_group = ? | parameters: {1=G1}"), slowQueries.getFirst());
+    }
+
+    @Test
+    void fastQueriesAreNotLogged() throws SQLException {
+        DataSource dataSource = instrumented(Duration.ofMinutes(1));
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT 1")) {
+            ps.execute();
+        }
+
+        assertEquals(0, registry.getCount(JdbcInstrumentation.SLOW_QUERIES));
+        assertTrue(slowQueries.isEmpty());
+    }
+
+    @Test
+    void countsFailedExecutions() throws SQLException {
+        DataSource dataSource = instrumented(Duration.ofMinutes(1));
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("INSERT INTO student (name, class_group) VALUES (?, ?)")) {
+            ps.setString(1, null);
+            ps.setString(2, "G1");
+            assertThrows(SQLException.class, ps::executeUpdate);
+        }
+
+        assertEquals(1, registry.getCount(JdbcInstrumentation.EXECUTE_ERRORS));
+        assertEquals(1, registry.getHistogram(JdbcInstrumentation.EXECUTE_LATENCY).getCount());
+    }
+
+    @Test
+    void exposesMetricsOverJmx() throws Exception {
+        registry.increment("dao.student.findById.rows.read", 3);
+        registry.recordLatency("dao.student.findById.latency", 2_000);
+        ObjectName name = JmxMetrics.register(registry, "se.lexicon:type=DaoMetrics,name=test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(3L, server.getAttribute(name, "dao.student.findById.rows.read"));
+            assertEquals(1L, server.getAttribute(name, "dao.student.findById.latency.count"));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "dao.student.findById.rows.read"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private DataSource instrumented(Duration slowThreshold) {
+        JdbcInstrumentation instrumentation = new JdbcInstrumentation(registry,
+                new SlowQueryLog(slowThreshold, slowQueries::add));
+        return instrumentation.wrap(TestDatabase.create());
+    }
+}
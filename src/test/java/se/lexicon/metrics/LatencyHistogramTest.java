@@ -0,0 +1,66 @@
+package se.lexicon.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 1e-6);
+        assertWithinThreePercent(500_000, histogram.valueAtPercentile(50));
+        assertWithinThreePercent(990_000, histogram.valueAtPercentile(99));
+        assertEquals(1_000_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 64; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(31, histogram.valueAtPercentile(50));
+        assertEquals(63, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void addMergesAndResetClears() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(100);
+        second.record(5_000);
+        second.record(7_000);
+
+        first.add(second);
+        LatencyHistogram.Snapshot snapshot = first.snapshot();
+        assertEquals(3, snapshot.count());
+        assertEquals(7_000, snapshot.max());
+
+        first.reset();
+        assertEquals(0, first.getCount());
+        assertEquals(0, first.valueAtPercentile(99));
+    }
+
+    private static void assertWithinThreePercent(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.03, "expected about " + expected + " but was " + actual);
+    }
+}
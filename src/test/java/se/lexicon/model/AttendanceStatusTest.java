@@ -0,0 +1,22 @@
+package se.lexicon.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AttendanceStatusTest {
+
+    @Test
+    void mapsDatabaseLabelsExactlyOrIgnoringCase() {
+        assertEquals(AttendanceStatus.PRESENT, AttendanceStatus.fromLabel("Present"));
+        assertEquals(AttendanceStatus.ABSENT, AttendanceStatus.fromLabel("Absent"));
+        assertEquals(AttendanceStatus.ABSENT, AttendanceStatus.fromLabel("ABSENT"));
+    }
+
+    @Test
+    void rejectsUnknownLabels() {
+        assertThrows(IllegalArgumentException.class, () -> AttendanceStatus.fromLabel("Late"));
+        assertThrows(IllegalArgumentException.class, () -> AttendanceStatus.fromLabel(null));
+    }
+}